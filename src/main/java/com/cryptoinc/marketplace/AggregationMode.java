@@ -0,0 +1,26 @@
+package com.cryptoinc.marketplace;
+
+/**
+ * How {@link LiveOrderBoardImpl} produces order summaries.
+ * <p>
+ * The modes differ on prices equal in value but not in scale: the scans keep 13.6 and 13.60 as two levels,
+ * {@link #INCREMENTAL} merges them into one, as both are the same tick.
+ */
+public enum AggregationMode {
+    /**
+     * Every summary request groups all orders fetched from the repository.
+     */
+    REPOSITORY_SCAN,
+    /**
+     * Like {@link #REPOSITORY_SCAN}, but the orders are grouped by a parallel stream on the common fork-join pool,
+     * each task summing into its own primitive accumulators. Produces the very same summaries, meant for large
+     * repositories, e.g. rebuilding summaries after a restart or reconciling against the repository.
+     */
+    PARALLEL_REPOSITORY_SCAN,
+    /**
+     * Price level totals are kept up to date on place/cancel, summary requests never touch individual orders.
+     * Levels are keyed by {@link com.cryptoinc.marketplace.domain.FixedPointScales} ticks, so 13.6 and 13.60 are
+     * one level, listed without trailing zeros.
+     */
+    INCREMENTAL
+}
@@ -0,0 +1,34 @@
+package com.cryptoinc.marketplace;
+
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.index.IndexedOrder;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reusable ring buffer slot describing one board mutation. Only the fields of its kind are set.
+ */
+final class BoardMutation {
+
+    enum Kind {
+        PLACE, PLACE_ALL, CANCEL_BY_ID, CANCEL_ALL_BY_ID, CANCEL_BY_ORDER, CANCEL_ALL_BY_USER
+    }
+
+    Kind kind;
+    IndexedOrder indexedOrder;
+    List<IndexedOrder> indexedOrders;
+    long orderId;
+    long[] orderIds;
+    Order order;
+    UUID userId;
+
+    void clear() {
+        this.kind = null;
+        this.indexedOrder = null;
+        this.indexedOrders = null;
+        this.orderIds = null;
+        this.order = null;
+        this.userId = null;
+    }
+}
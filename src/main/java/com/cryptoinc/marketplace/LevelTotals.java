@@ -0,0 +1,147 @@
+package com.cryptoinc.marketplace;
+
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderSummary;
+import com.cryptoinc.marketplace.domain.OrderType;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.stream.Collector;
+
+/**
+ * Quantity per price of one order type, the mutable container of a parallel repository scan.
+ * Every fork-join task fills its own container, containers are only merged when tasks join, so nothing is shared
+ * while orders are counted. Quantities are summed as unscaled longs and only fall back to {@link BigDecimal}
+ * when a sum no longer fits, no {@link OrderSummary} is allocated before the best levels are picked.
+ * <p>
+ * Price levels are keyed by {@link BigDecimal#equals}, like the sequential scan, and a sum keeps the largest scale
+ * of its quantities (never less than zero), so both scans produce the very same summaries.
+ */
+final class LevelTotals {
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    private final OrderType orderType;
+    private final Map<BigDecimal, QuantitySum> levels = new HashMap<>();
+
+    private LevelTotals(final OrderType orderType) {
+        this.orderType = orderType;
+    }
+
+    /**
+     * @return a collector of the best {@code limit} levels of one order type, in display order
+     */
+    static Collector<Order, LevelTotals, List<OrderSummary>> collector(
+            final OrderType orderType,
+            final Comparator<OrderSummary> displayOrder,
+            final int limit) {
+        return Collector.of(
+                () -> new LevelTotals(orderType),
+                LevelTotals::add,
+                LevelTotals::merge,
+                levelTotals -> levelTotals.best(displayOrder, limit),
+                Collector.Characteristics.UNORDERED);
+    }
+
+    private void add(final Order order) {
+        if (order.getOrderType() != this.orderType) {
+            return;
+        }
+        final QuantitySum sum = this.levels.get(order.getPrice());
+        if (sum == null) {
+            this.levels.put(order.getPrice(), new QuantitySum(order.getQuantity()));
+        } else {
+            sum.add(order.getQuantity());
+        }
+    }
+
+    private LevelTotals merge(final LevelTotals other) {
+        final LevelTotals larger = this.levels.size() >= other.levels.size() ? this : other;
+        final LevelTotals smaller = larger == this ? other : this;
+        smaller.levels.forEach((price, sum) -> {
+            final QuantitySum existing = larger.levels.putIfAbsent(price, sum);
+            if (existing != null) {
+                existing.add(sum);
+            }
+        });
+        return larger;
+    }
+
+    private List<OrderSummary> best(final Comparator<OrderSummary> displayOrder, final int limit) {
+        final List<OrderSummary> orderSummaryList = new ArrayList<>(this.levels.size());
+        this.levels.forEach((price, sum) -> orderSummaryList.add(new OrderSummary(sum.toBigDecimal(), price)));
+        orderSummaryList.sort(displayOrder);
+        return orderSummaryList.size() > limit ? new ArrayList<>(orderSummaryList.subList(0, limit)) : orderSummaryList;
+    }
+
+    /**
+     * Exact decimal sum, kept as {@code unscaled * 10^-scale} while that fits a long.
+     */
+    private static final class QuantitySum {
+
+        private long unscaled;
+        private int scale;
+        private BigDecimal overflow;
+
+        QuantitySum(final BigDecimal quantity) {
+            add(quantity);
+        }
+
+        void add(final BigDecimal quantity) {
+            final BigInteger unscaledValue = quantity.unscaledValue();
+            if (this.overflow != null || unscaledValue.bitLength() >= Long.SIZE || !add(unscaledValue.longValue(), quantity.scale())) {
+                this.overflow = toBigDecimal().add(quantity);
+            }
+        }
+
+        void add(final QuantitySum other) {
+            if (this.overflow != null || other.overflow != null || !add(other.unscaled, other.scale)) {
+                this.overflow = toBigDecimal().add(other.toBigDecimal());
+            }
+        }
+
+        BigDecimal toBigDecimal() {
+            return this.overflow != null ? this.overflow : BigDecimal.valueOf(this.unscaled, this.scale);
+        }
+
+        /**
+         * @return false, leaving the sum untouched, when the result does not fit a long
+         */
+        private boolean add(final long otherUnscaled, final int otherScale) {
+            final int resultScale = Math.max(this.scale, otherScale);
+            final long left = rescale(this.unscaled, resultScale - this.scale);
+            final long right = rescale(otherUnscaled, resultScale - otherScale);
+            if (left == Long.MIN_VALUE || right == Long.MIN_VALUE) {
+                return false;
+            }
+            final long result = left + right;
+            if (((left ^ result) & (right ^ result)) < 0 || result == Long.MIN_VALUE) {
+                return false;
+            }
+            this.unscaled = result;
+            this.scale = resultScale;
+            return true;
+        }
+
+        /**
+         * @return {@link Long#MIN_VALUE} when the rescaled value does not fit a long
+         */
+        private static long rescale(final long value, final int digits) {
+            if (digits == 0) {
+                return value;
+            }
+            if (digits >= POWERS_OF_TEN.length) {
+                return value == 0 ? 0 : Long.MIN_VALUE;
+            }
+            final long power = POWERS_OF_TEN[digits];
+            final long high = Math.multiplyHigh(value, power);
+            final long result = value * power;
+            return (high == 0 && result >= 0) || (high == -1 && result < 0) ? result : Long.MIN_VALUE;
+        }
+    }
+}
@@ -1,13 +1,83 @@
 package com.cryptoinc.marketplace;
 
+import com.cryptoinc.marketplace.domain.BatchResult;
+import com.cryptoinc.marketplace.domain.BoardUpdate;
+import com.cryptoinc.marketplace.domain.CoinType;
+import com.cryptoinc.marketplace.domain.MarketStatistics;
 import com.cryptoinc.marketplace.domain.Order;
 import com.cryptoinc.marketplace.domain.OrderSummary;
 import com.cryptoinc.marketplace.domain.OrderType;
+import com.cryptoinc.marketplace.domain.UserExposure;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Flow;
 
 public interface LiveOrderBoard {
-    void placeOrder(Order order);
+    /**
+     * @return the id assigned to the order, to cancel it with {@link #cancelOrder(long)}
+     */
+    long placeOrder(Order order);
+
+    /**
+     * Places every valid order, invalid ones are reported in the result and do not abort the batch.
+     */
+    BatchResult placeOrders(Collection<Order> orders);
+
+    /**
+     * @return whether a live order with this id was cancelled
+     */
+    boolean cancelOrder(long orderId);
+
+    /**
+     * Cancels every live order among the ids, unknown ids are reported in the result.
+     */
+    BatchResult cancelOrders(long... orderIds);
+
+    /**
+     * Cancels one live order equal to the given one.
+     */
     void cancelOrder(Order order);
+
+    /**
+     * Cancels every live order the user placed through this board, as one batch.
+     *
+     * @return the number of cancelled orders
+     */
+    int cancelAllOrders(UUID userId);
+
+    /**
+     * @return the user's open orders in one coin, looked up without visiting them
+     */
+    UserExposure getUserExposure(UUID userId, CoinType coinType);
+
+    /**
+     * @return best bid and ask, spread, resting quantity and notional of one coin, kept up to date on every
+     * place and cancel rather than aggregated from a summary
+     */
+    MarketStatistics getMarketStatistics(CoinType coinType);
+
     List<OrderSummary> getOrderSummary(OrderType orderType);
+    List<OrderSummary> getOrderSummary(CoinType coinType, OrderType orderType);
+
+    /**
+     * @return the best {@code depth} levels of one coin and side
+     */
+    List<OrderSummary> getOrderSummary(CoinType coinType, OrderType orderType, int depth);
+
+    /**
+     * Pages through the levels of one coin and side in display order.
+     *
+     * @param afterPrice price of the last level of the previous page, levels at or before it are skipped
+     * @return at most {@code limit} levels following {@code afterPrice}
+     */
+    List<OrderSummary> getOrderSummaryAfter(CoinType coinType, OrderType orderType, BigDecimal afterPrice, int limit);
+
+    /**
+     * Pushes the best levels of one coin and side: a snapshot first, then every change to a level inside that window.
+     * Slow subscribers receive only the latest quantity of each level.
+     */
+    Flow.Publisher<BoardUpdate> getBoardUpdates(CoinType coinType, OrderType orderType);
 }
@@ -1,52 +1,472 @@
 package com.cryptoinc.marketplace;
 
+import com.cryptoinc.marketplace.book.OrderBook;
+import com.cryptoinc.marketplace.book.OrderBooks;
+import com.cryptoinc.marketplace.book.SnapshotPolicy;
+import com.cryptoinc.marketplace.domain.BatchResult;
+import com.cryptoinc.marketplace.domain.BoardUpdate;
+import com.cryptoinc.marketplace.domain.CoinType;
+import com.cryptoinc.marketplace.domain.MarketStatistics;
+import com.cryptoinc.marketplace.domain.FixedPointScales;
 import com.cryptoinc.marketplace.domain.Order;
 import com.cryptoinc.marketplace.domain.OrderSummary;
 import com.cryptoinc.marketplace.domain.OrderType;
+import com.cryptoinc.marketplace.domain.SideStatistics;
+import com.cryptoinc.marketplace.domain.UserExposure;
+import com.cryptoinc.marketplace.feed.BoardUpdateFeed;
+import com.cryptoinc.marketplace.index.IndexedOrder;
+import com.cryptoinc.marketplace.index.OrderIndex;
+import com.cryptoinc.marketplace.metrics.BoardMetrics;
 import com.cryptoinc.marketplace.repository.OrderRepository;
 import com.cryptoinc.marketplace.validators.OrderValidator;
 
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static com.cryptoinc.marketplace.AggregationMode.INCREMENTAL;
+import static com.cryptoinc.marketplace.AggregationMode.PARALLEL_REPOSITORY_SCAN;
+import static com.cryptoinc.marketplace.AggregationMode.REPOSITORY_SCAN;
 import static com.cryptoinc.marketplace.domain.OrderType.SELL;
 import static java.math.BigDecimal.ZERO;
 import static java.util.stream.Collectors.*;
 
 public class LiveOrderBoardImpl implements LiveOrderBoard {
 
-    private static final int MAX_ORDERS_TO_DISPLAY = 10;
+    public static final int DEFAULT_DISPLAY_DEPTH = 10;
+    private final int displayDepth;
     private final OrderRepository orderRepository;
     private final OrderValidator orderValidator;
+    private final AggregationMode aggregationMode;
+    private final OrderBooks orderBooks;
+    private final OrderIndex orderIndex = new OrderIndex();
+    private final Map<CoinType, Map<OrderType, BoardUpdateFeed>> boardUpdateFeeds = new EnumMap<>(CoinType.class);
 
     public LiveOrderBoardImpl(final OrderRepository orderRepository, final OrderValidator orderValidator) {
+        this(orderRepository, orderValidator, REPOSITORY_SCAN);
+    }
+
+    public LiveOrderBoardImpl(
+            final OrderRepository orderRepository,
+            final OrderValidator orderValidator,
+            final AggregationMode aggregationMode) {
+        this(orderRepository, orderValidator, aggregationMode, FixedPointScales.defaultScales());
+    }
+
+    /**
+     * @param scales fixed-point scales of the incremental books, prices and quantities with more decimals
+     *               than their coin scale are rejected in {@link AggregationMode#INCREMENTAL} mode
+     */
+    public LiveOrderBoardImpl(
+            final OrderRepository orderRepository,
+            final OrderValidator orderValidator,
+            final AggregationMode aggregationMode,
+            final FixedPointScales scales) {
+        this(orderRepository, orderValidator, aggregationMode, scales, SnapshotPolicy.exact());
+    }
+
+    /**
+     * @param snapshotPolicy how stale the cached summaries of the incremental books may be
+     */
+    public LiveOrderBoardImpl(
+            final OrderRepository orderRepository,
+            final OrderValidator orderValidator,
+            final AggregationMode aggregationMode,
+            final FixedPointScales scales,
+            final SnapshotPolicy snapshotPolicy) {
+        this(orderRepository, orderValidator, aggregationMode, scales, snapshotPolicy, DEFAULT_DISPLAY_DEPTH);
+    }
+
+    /**
+     * @param displayDepth number of levels in summaries and board updates, deeper views are read with
+     *                     {@link #getOrderSummary(CoinType, OrderType, int)} and {@link #getOrderSummaryAfter}
+     */
+    public LiveOrderBoardImpl(
+            final OrderRepository orderRepository,
+            final OrderValidator orderValidator,
+            final AggregationMode aggregationMode,
+            final FixedPointScales scales,
+            final SnapshotPolicy snapshotPolicy,
+            final int displayDepth) {
+        if (displayDepth < 1) {
+            throw new IllegalArgumentException("Bad depth.");
+        }
+        this.displayDepth = displayDepth;
         this.orderRepository = orderRepository;
         this.orderValidator = orderValidator;
+        this.aggregationMode = Objects.requireNonNull(aggregationMode, "Aggregation mode is null.");
+        this.orderBooks = new OrderBooks(scales, displayDepth, snapshotPolicy);
+
+        for (CoinType coinType : CoinType.values()) {
+            final Map<OrderType, BoardUpdateFeed> coinFeeds = new EnumMap<>(OrderType.class);
+            for (OrderType orderType : OrderType.values()) {
+                coinFeeds.put(orderType, new BoardUpdateFeed(
+                        this.orderBooks.getOrderBook(coinType), orderType, displayDepth, ForkJoinPool.commonPool()));
+            }
+            this.boardUpdateFeeds.put(coinType, coinFeeds);
+        }
+
+        if (aggregationMode == INCREMENTAL) {
+            //orders already resting in the repository are given ids and counted once, up front
+            for (Order order : this.orderRepository.getOrders()) {
+                final IndexedOrder indexedOrder = this.orderBooks.index(this.orderIndex.nextOrderId(), order);
+                this.orderIndex.add(indexedOrder);
+                this.orderBooks.add(indexedOrder);
+            }
+        }
+    }
+
+    @Override
+    public long placeOrder(final Order order) {
+        final IndexedOrder indexedOrder = prepare(order);
+        apply(indexedOrder);
+        return indexedOrder.getOrderId();
     }
 
+    /**
+     * Rejected orders do not stop the batch, the accepted ones are saved with one repository call
+     * and applied to the books with one lock acquisition per coin.
+     */
     @Override
-    public void placeOrder(final Order order) {
+    public BatchResult placeOrders(final Collection<Order> orders) {
+        final List<IndexedOrder> accepted = new ArrayList<>(orders.size());
+        final BatchResult batchResult = prepareAll(orders, accepted);
+        applyAll(accepted);
+        return batchResult;
+    }
+
+    /**
+     * Validates the order and assigns its id, nothing is saved yet. Safe to call from any thread.
+     */
+    IndexedOrder prepare(final Order order) {
         Objects.requireNonNull(order, "Order is null.");
 
         this.orderValidator.validate(order);
-        this.orderRepository.saveOrder(order);
+        return index(order);
+    }
+
+    /**
+     * Prepares every order of the batch, the accepted ones are added to {@code accepted}.
+     * The whole batch is validated in one {@link OrderValidator#validateAll} call before ids are assigned.
+     */
+    BatchResult prepareAll(final Collection<Order> orders, final List<IndexedOrder> accepted) {
+        Objects.requireNonNull(orders, "Orders are null.");
+
+        final Order[] batch = orders.toArray(new Order[0]);
+        final long[] orderIds = new long[batch.length];
+        final String[] rejections = new String[batch.length];
+        for (int position = 0; position < batch.length; position++) {
+            if (batch[position] == null) {
+                rejections[position] = "Order is null.";
+            }
+        }
+        this.orderValidator.validateAll(batch, rejections);
+
+        for (int position = 0; position < batch.length; position++) {
+            if (rejections[position] != null) {
+                continue;
+            }
+            try {
+                final IndexedOrder indexedOrder = index(batch[position]);
+                accepted.add(indexedOrder);
+                orderIds[position] = indexedOrder.getOrderId();
+            } catch (IllegalArgumentException e) {
+                rejections[position] = e.getMessage();
+            }
+        }
+        return new BatchResult(orderIds, rejections);
+    }
+
+    /**
+     * The order is indexed last, a cancel can only find it once it is on the books.
+     */
+    void apply(final IndexedOrder indexedOrder) {
+        this.orderRepository.saveOrder(indexedOrder.getOrder());
+
+        if (this.aggregationMode == INCREMENTAL) {
+            this.orderBooks.add(indexedOrder);
+        }
+        this.orderIndex.add(indexedOrder);
+    }
+
+    void applyAll(final List<IndexedOrder> indexedOrders) {
+        this.orderRepository.saveOrders(indexedOrders.stream().map(IndexedOrder::getOrder).collect(toList()));
+
+        if (this.aggregationMode == INCREMENTAL) {
+            this.orderBooks.addAll(indexedOrders);
+        }
+        indexedOrders.forEach(this.orderIndex::add);
+    }
+
+    /**
+     * @return whether this board ever handed out the id
+     */
+    boolean isIssued(final long orderId) {
+        return this.orderIndex.isIssued(orderId);
+    }
+
+    /**
+     * @return the live order with this id, null when there is none
+     */
+    IndexedOrder getIndexedOrder(final long orderId) {
+        return this.orderIndex.get(orderId);
+    }
+
+    private IndexedOrder index(final Order order) {
+        final long orderId = this.orderIndex.nextOrderId();
+        //only incremental books need ticks, converting rejects orders that do not fit the coin scale
+        return this.aggregationMode == INCREMENTAL
+                ? this.orderBooks.index(orderId, order)
+                : new IndexedOrder(orderId, order, 0, 0);
+    }
+
+    @Override
+    public boolean cancelOrder(final long orderId) {
+        final IndexedOrder indexedOrder = this.orderIndex.remove(orderId);
+        if (indexedOrder == null) {
+            return false;
+        }
+
+        cancel(indexedOrder);
+        return true;
+    }
+
+    @Override
+    public BatchResult cancelOrders(final long... orderIds) {
+        Objects.requireNonNull(orderIds, "Order ids are null.");
+
+        final String[] rejections = new String[orderIds.length];
+        final List<IndexedOrder> cancelled = new ArrayList<>(orderIds.length);
+        for (int position = 0; position < orderIds.length; position++) {
+            final IndexedOrder indexedOrder = this.orderIndex.remove(orderIds[position]);
+            if (indexedOrder == null) {
+                rejections[position] = "Unknown order id.";
+            } else {
+                cancelled.add(indexedOrder);
+            }
+        }
+
+        this.orderRepository.removeOrders(cancelled.stream().map(IndexedOrder::getOrder).collect(toList()));
+
+        if (this.aggregationMode == INCREMENTAL) {
+            this.orderBooks.removeAll(cancelled);
+        }
+        return new BatchResult(orderIds.clone(), rejections);
     }
 
     @Override
     public void cancelOrder(final Order order) {
         Objects.requireNonNull(order, "Order is null.");
 
+        final IndexedOrder indexedOrder = this.orderIndex.remove(order);
+        if (indexedOrder != null) {
+            cancel(indexedOrder);
+            return;
+        }
+
+        //not placed through this board, the repository may still hold it. The books never counted it, or count
+        //an order still being placed, which is taken off with its id, so they are left alone
         this.orderRepository.remove(order);
     }
 
+    /**
+     * The user's orders are found through the user index, removed from the repository with one call
+     * and from the books with one lock acquisition per coin.
+     */
+    @Override
+    public int cancelAllOrders(final UUID userId) {
+        return cancelAll(userId).size();
+    }
+
+    /**
+     * @return the cancelled orders
+     */
+    List<IndexedOrder> cancelAll(final UUID userId) {
+        Objects.requireNonNull(userId, "User id is null.");
+
+        final List<IndexedOrder> cancelled = this.orderIndex.removeAll(userId);
+        if (cancelled.isEmpty()) {
+            return cancelled;
+        }
+
+        this.orderRepository.removeOrders(cancelled.stream().map(IndexedOrder::getOrder).collect(toList()));
+
+        if (this.aggregationMode == INCREMENTAL) {
+            this.orderBooks.removeAll(cancelled);
+        }
+        return cancelled;
+    }
+
+    /**
+     * Only orders placed through this board are counted, orders already resting in the repository
+     * of a {@link AggregationMode#REPOSITORY_SCAN} board are not.
+     */
+    @Override
+    public UserExposure getUserExposure(final UUID userId, final CoinType coinType) {
+        Objects.requireNonNull(userId, "User id is null.");
+        Objects.requireNonNull(coinType, "Coin type is null.");
+
+        return this.orderIndex.getExposure(userId, coinType);
+    }
+
+    /**
+     * In {@link AggregationMode#INCREMENTAL} mode the statistics come from the book of the coin, read without
+     * a lock and rebuilt in O(1) after a change. Scan modes aggregate every order of the coin.
+     */
+    @Override
+    public MarketStatistics getMarketStatistics(final CoinType coinType) {
+        Objects.requireNonNull(coinType, "Coin type is null.");
+
+        if (this.aggregationMode == INCREMENTAL) {
+            return this.orderBooks.getMarketStatistics(coinType);
+        }
+
+        final Map<OrderType, List<Order>> ordersByType = this.orderRepository.getOrders()
+                .stream()
+                .filter(order -> order.getCoinType() == coinType)
+                .collect(groupingBy(Order::getOrderType));
+        return new MarketStatistics(coinType,
+                                    scanSideStatistics(OrderType.BUY, ordersByType.getOrDefault(OrderType.BUY, Collections.emptyList())),
+                                    scanSideStatistics(SELL, ordersByType.getOrDefault(SELL, Collections.emptyList())));
+    }
+
+    /**
+     * Levels are grouped and ordered as in {@link #scanOrderSummary}, so the best level is the first summary level.
+     */
+    private SideStatistics scanSideStatistics(final OrderType orderType, final List<Order> orders) {
+        if (orders.isEmpty()) {
+            return SideStatistics.EMPTY;
+        }
+
+        final Map<BigDecimal, BigDecimal> levels = new HashMap<>();
+        BigDecimal totalQuantity = ZERO;
+        BigDecimal notional = ZERO;
+        for (Order order : orders) {
+            levels.merge(order.getPrice(), order.getQuantity(), BigDecimal::add);
+            totalQuantity = totalQuantity.add(order.getQuantity());
+            notional = notional.add(order.getQuantity().multiply(order.getPrice()));
+        }
+        final OrderSummary best = levels.entrySet()
+                .stream()
+                .map(level -> new OrderSummary(level.getValue(), level.getKey()))
+                .min(getComparator(orderType))
+                .orElseThrow();
+        return new SideStatistics(best.getPrice(), best.getQuantity(), totalQuantity, notional, orders.size(), levels.size());
+    }
+
+    private void cancel(final IndexedOrder indexedOrder) {
+        this.orderRepository.remove(indexedOrder.getOrder());
+
+        if (this.aggregationMode == INCREMENTAL) {
+            this.orderBooks.remove(indexedOrder);
+        }
+    }
+
     @Override
     public List<OrderSummary> getOrderSummary(final OrderType orderType) {
-        final List<Order> orderList = this.orderRepository.getOrders();
+        if (this.aggregationMode == INCREMENTAL) {
+            return this.orderBooks.getOrderSummary(orderType, this.displayDepth);
+        }
+
+        return scanOrderSummary(orderType, this.orderRepository.getOrders().stream(), this.displayDepth);
+    }
+
+    @Override
+    public List<OrderSummary> getOrderSummary(final CoinType coinType, final OrderType orderType) {
+        return getOrderSummary(coinType, orderType, this.displayDepth);
+    }
+
+    /**
+     * In {@link AggregationMode#INCREMENTAL} mode only the returned levels are visited.
+     */
+    @Override
+    public List<OrderSummary> getOrderSummary(final CoinType coinType, final OrderType orderType, final int depth) {
+        Objects.requireNonNull(coinType, "Coin type is null.");
+        if (depth < 1) {
+            throw new IllegalArgumentException("Bad depth.");
+        }
+
+        if (this.aggregationMode == INCREMENTAL) {
+            return this.orderBooks.getOrderSummary(coinType, orderType, depth);
+        }
+
+        return scanOrderSummary(orderType, this.orderRepository.getOrders()
+                .stream()
+                .filter(order -> order.getCoinType() == coinType), depth);
+    }
+
+    /**
+     * In {@link AggregationMode#INCREMENTAL} mode the page starts with a tree lookup of {@code afterPrice},
+     * only the returned levels are visited. A price with more decimals than the coin scale lies between two ticks,
+     * the page starts at the first one past it, as a scan would.
+     */
+    @Override
+    public List<OrderSummary> getOrderSummaryAfter(
+            final CoinType coinType,
+            final OrderType orderType,
+            final BigDecimal afterPrice,
+            final int limit) {
+        Objects.requireNonNull(coinType, "Coin type is null.");
+        Objects.requireNonNull(afterPrice, "Price is null.");
+        if (limit < 1) {
+            throw new IllegalArgumentException("Bad limit.");
+        }
+
+        if (this.aggregationMode == INCREMENTAL) {
+            return this.orderBooks.getOrderSummaryAfter(coinType, orderType, afterPrice, limit);
+        }
+
+        final int after = orderType == SELL ? 1 : -1;
+        return scanOrderSummary(orderType, this.orderRepository.getOrders()
+                .stream()
+                .filter(order -> order.getCoinType() == coinType)
+                .filter(order -> Integer.signum(order.getPrice().compareTo(afterPrice)) == after), limit);
+    }
+
+    /**
+     * Registers the live order count and, in {@link AggregationMode#INCREMENTAL} mode, the book depth
+     * ({@code depth.<coin>.<side>}, in orders) and level count ({@code levels.<coin>.<side>}) of every coin and side.
+     * Gauges are only read when metrics are reported.
+     */
+    public void registerGauges(final BoardMetrics boardMetrics) {
+        Objects.requireNonNull(boardMetrics, "Metrics are null.");
+
+        boardMetrics.registerGauge("orders", this.orderIndex::size);
+        if (this.aggregationMode != INCREMENTAL) {
+            return;
+        }
+        for (CoinType coinType : CoinType.values()) {
+            final OrderBook orderBook = this.orderBooks.getOrderBook(coinType);
+            for (OrderType orderType : OrderType.values()) {
+                final String suffix = "." + coinType.name().toLowerCase(Locale.ROOT) + "." + orderType.name().toLowerCase(Locale.ROOT);
+                boardMetrics.registerGauge("depth" + suffix, () -> orderBook.getOrderCount(orderType));
+                boardMetrics.registerGauge("levels" + suffix, () -> orderBook.getLevelCount(orderType));
+            }
+        }
+    }
+
+    @Override
+    public Flow.Publisher<BoardUpdate> getBoardUpdates(final CoinType coinType, final OrderType orderType) {
+        Objects.requireNonNull(coinType, "Coin type is null.");
+        Objects.requireNonNull(orderType, "Order type is null.");
+
+        if (this.aggregationMode != INCREMENTAL) {
+            throw new UnsupportedOperationException("Board updates need incremental aggregation.");
+        }
+        return this.boardUpdateFeeds.get(coinType).get(orderType);
+    }
+
+    private List<OrderSummary> scanOrderSummary(final OrderType orderType, final Stream<Order> orders, final int limit) {
+        if (this.aggregationMode == PARALLEL_REPOSITORY_SCAN) {
+            return orders.parallel().collect(LevelTotals.collector(orderType, getComparator(orderType), limit));
+        }
 
-        final Map<OrderType, Map<BigDecimal, OrderSummary>> ordersGroupedByTypeByPrice = orderList.stream()
+        final Map<OrderType, Map<BigDecimal, OrderSummary>> ordersGroupedByTypeByPrice = orders
                 //group by order type
                 .collect(groupingBy(Order::getOrderType,
                                     //group by price
@@ -70,12 +490,18 @@ public class LiveOrderBoardImpl implements LiveOrderBoard {
                 .values()
                 .stream()
                 .sorted(orderTypeComparator)
-                .limit(MAX_ORDERS_TO_DISPLAY)
+                .limit(limit)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Prices equal in value but not in scale, e.g. 13.6 and 13.60, are separate levels, ordered by scale
+     * so that every scan lists them the same way.
+     */
     private Comparator<OrderSummary> getComparator(final OrderType orderType) {
-        return orderType == SELL ? Comparator.comparing(OrderSummary::getPrice) : Comparator.comparing(OrderSummary::getPrice).reversed();
+        final Comparator<OrderSummary> byPrice = Comparator.comparing(OrderSummary::getPrice)
+                .thenComparingInt(orderSummary -> orderSummary.getPrice().scale());
+        return orderType == SELL ? byPrice : byPrice.reversed();
     }
 
     private Function<Order, OrderSummary> orderOrderSummaryMapper() {
@@ -0,0 +1,196 @@
+package com.cryptoinc.marketplace;
+
+import com.cryptoinc.marketplace.domain.BatchResult;
+import com.cryptoinc.marketplace.domain.BoardUpdate;
+import com.cryptoinc.marketplace.domain.CoinType;
+import com.cryptoinc.marketplace.domain.MarketStatistics;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderSummary;
+import com.cryptoinc.marketplace.domain.OrderType;
+import com.cryptoinc.marketplace.domain.UserExposure;
+import com.cryptoinc.marketplace.metrics.BoardMetrics;
+import com.cryptoinc.marketplace.metrics.Operation;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Flow;
+
+import static com.cryptoinc.marketplace.metrics.Operation.*;
+
+/**
+ * Times every operation of another board and counts the ones that threw. Two {@link System#nanoTime()} calls
+ * and a few atomic increments per operation, recording into the histograms allocates nothing, so it can stay on
+ * under full load. The operations themselves allocate as they do unmetered, as does
+ * {@link com.cryptoinc.marketplace.validators.MeteredOrderValidator} for the rejections of a batch.
+ * Rejections inside a batch are reported in its {@link BatchResult}, they are not errors of the operation.
+ */
+public class MeteredLiveOrderBoard implements LiveOrderBoard {
+
+    private final LiveOrderBoard liveOrderBoard;
+    private final BoardMetrics boardMetrics;
+
+    public MeteredLiveOrderBoard(final LiveOrderBoard liveOrderBoard, final BoardMetrics boardMetrics) {
+        this.liveOrderBoard = Objects.requireNonNull(liveOrderBoard, "Board is null.");
+        this.boardMetrics = Objects.requireNonNull(boardMetrics, "Metrics are null.");
+    }
+
+    @Override
+    public long placeOrder(final Order order) {
+        final long start = System.nanoTime();
+        try {
+            return this.liveOrderBoard.placeOrder(order);
+        } catch (RuntimeException e) {
+            throw failed(PLACE_ORDER, e);
+        } finally {
+            record(PLACE_ORDER, start);
+        }
+    }
+
+    @Override
+    public BatchResult placeOrders(final Collection<Order> orders) {
+        final long start = System.nanoTime();
+        try {
+            return this.liveOrderBoard.placeOrders(orders);
+        } catch (RuntimeException e) {
+            throw failed(PLACE_ORDERS, e);
+        } finally {
+            record(PLACE_ORDERS, start);
+        }
+    }
+
+    @Override
+    public boolean cancelOrder(final long orderId) {
+        final long start = System.nanoTime();
+        try {
+            return this.liveOrderBoard.cancelOrder(orderId);
+        } catch (RuntimeException e) {
+            throw failed(CANCEL_ORDER, e);
+        } finally {
+            record(CANCEL_ORDER, start);
+        }
+    }
+
+    @Override
+    public BatchResult cancelOrders(final long... orderIds) {
+        final long start = System.nanoTime();
+        try {
+            return this.liveOrderBoard.cancelOrders(orderIds);
+        } catch (RuntimeException e) {
+            throw failed(CANCEL_ORDERS, e);
+        } finally {
+            record(CANCEL_ORDERS, start);
+        }
+    }
+
+    @Override
+    public void cancelOrder(final Order order) {
+        final long start = System.nanoTime();
+        try {
+            this.liveOrderBoard.cancelOrder(order);
+        } catch (RuntimeException e) {
+            throw failed(CANCEL_ORDER, e);
+        } finally {
+            record(CANCEL_ORDER, start);
+        }
+    }
+
+    @Override
+    public int cancelAllOrders(final UUID userId) {
+        final long start = System.nanoTime();
+        try {
+            return this.liveOrderBoard.cancelAllOrders(userId);
+        } catch (RuntimeException e) {
+            throw failed(CANCEL_ALL_ORDERS, e);
+        } finally {
+            record(CANCEL_ALL_ORDERS, start);
+        }
+    }
+
+    /**
+     * A constant time lookup, not timed.
+     */
+    @Override
+    public UserExposure getUserExposure(final UUID userId, final CoinType coinType) {
+        return this.liveOrderBoard.getUserExposure(userId, coinType);
+    }
+
+    /**
+     * A constant time lookup, not timed.
+     */
+    @Override
+    public MarketStatistics getMarketStatistics(final CoinType coinType) {
+        return this.liveOrderBoard.getMarketStatistics(coinType);
+    }
+
+    @Override
+    public List<OrderSummary> getOrderSummary(final OrderType orderType) {
+        final long start = System.nanoTime();
+        try {
+            return this.liveOrderBoard.getOrderSummary(orderType);
+        } catch (RuntimeException e) {
+            throw failed(GET_ORDER_SUMMARY, e);
+        } finally {
+            record(GET_ORDER_SUMMARY, start);
+        }
+    }
+
+    @Override
+    public List<OrderSummary> getOrderSummary(final CoinType coinType, final OrderType orderType) {
+        final long start = System.nanoTime();
+        try {
+            return this.liveOrderBoard.getOrderSummary(coinType, orderType);
+        } catch (RuntimeException e) {
+            throw failed(GET_ORDER_SUMMARY, e);
+        } finally {
+            record(GET_ORDER_SUMMARY, start);
+        }
+    }
+
+    @Override
+    public List<OrderSummary> getOrderSummary(final CoinType coinType, final OrderType orderType, final int depth) {
+        final long start = System.nanoTime();
+        try {
+            return this.liveOrderBoard.getOrderSummary(coinType, orderType, depth);
+        } catch (RuntimeException e) {
+            throw failed(GET_ORDER_SUMMARY, e);
+        } finally {
+            record(GET_ORDER_SUMMARY, start);
+        }
+    }
+
+    @Override
+    public List<OrderSummary> getOrderSummaryAfter(
+            final CoinType coinType,
+            final OrderType orderType,
+            final BigDecimal afterPrice,
+            final int limit) {
+        final long start = System.nanoTime();
+        try {
+            return this.liveOrderBoard.getOrderSummaryAfter(coinType, orderType, afterPrice, limit);
+        } catch (RuntimeException e) {
+            throw failed(GET_ORDER_SUMMARY, e);
+        } finally {
+            record(GET_ORDER_SUMMARY, start);
+        }
+    }
+
+    /**
+     * Subscriptions are long-lived, they are not timed.
+     */
+    @Override
+    public Flow.Publisher<BoardUpdate> getBoardUpdates(final CoinType coinType, final OrderType orderType) {
+        return this.liveOrderBoard.getBoardUpdates(coinType, orderType);
+    }
+
+    private RuntimeException failed(final Operation operation, final RuntimeException e) {
+        this.boardMetrics.recordError(operation);
+        return e;
+    }
+
+    private void record(final Operation operation, final long start) {
+        this.boardMetrics.recordLatency(operation, System.nanoTime() - start);
+    }
+}
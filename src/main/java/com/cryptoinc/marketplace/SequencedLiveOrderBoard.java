@@ -0,0 +1,399 @@
+package com.cryptoinc.marketplace;
+
+import com.cryptoinc.marketplace.domain.BatchResult;
+import com.cryptoinc.marketplace.domain.BoardUpdate;
+import com.cryptoinc.marketplace.domain.CoinType;
+import com.cryptoinc.marketplace.domain.MarketStatistics;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderSummary;
+import com.cryptoinc.marketplace.domain.OrderType;
+import com.cryptoinc.marketplace.domain.UserExposure;
+import com.cryptoinc.marketplace.index.IndexedOrder;
+import com.cryptoinc.marketplace.sequencer.BatchEventProcessor;
+import com.cryptoinc.marketplace.sequencer.EventHandler;
+import com.cryptoinc.marketplace.sequencer.RingBuffer;
+import com.cryptoinc.marketplace.sequencer.WaitStrategy;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-writer execution mode. Orders are validated and given their id on the calling thread, then every
+ * mutation goes through a pre-allocated ring buffer and is applied to the wrapped board by one writer thread,
+ * in publication order. After each batch the writer publishes immutable summaries of the sides it touched,
+ * readers never take a lock and never see a half applied mutation.
+ * <p>
+ * Mutations are asynchronous: {@link #placeOrder(Order)} returns as soon as the order is queued and cancels
+ * by id only tell whether the id was ever issued. Call {@link #flush()} to wait until the board caught up.
+ */
+public class SequencedLiveOrderBoard implements LiveOrderBoard, AutoCloseable {
+
+    public static final int DEFAULT_QUEUE_DEPTH = 1024;
+    private static final int SIDES = OrderType.values().length;
+    private static final int COIN_SIDES = CoinType.values().length * SIDES;
+
+    private final LiveOrderBoardImpl liveOrderBoard;
+    private final RingBuffer<BoardMutation> ringBuffer;
+    private final BatchEventProcessor<BoardMutation> processor;
+    private final Thread writer;
+    //per coin and side, then across coins per side
+    private final AtomicReferenceArray<List<OrderSummary>> summaries = new AtomicReferenceArray<>(COIN_SIDES + SIDES);
+    //only touched by the writer thread
+    private final boolean[] touched = new boolean[COIN_SIDES];
+    private final AtomicLong failedMutations = new AtomicLong();
+    //producers between the open check and publishing, close waits for them to leave
+    private final AtomicInteger producers = new AtomicInteger();
+    private volatile boolean closed;
+
+    /**
+     * @param liveOrderBoard board the writer applies mutations to, it must not be used directly afterwards
+     * @param queueDepth     ring buffer size, a power of two, producers wait while it is full
+     * @param waitStrategy   how the writer waits for mutations
+     */
+    public SequencedLiveOrderBoard(
+            final LiveOrderBoardImpl liveOrderBoard,
+            final int queueDepth,
+            final WaitStrategy waitStrategy) {
+        this.liveOrderBoard = Objects.requireNonNull(liveOrderBoard, "Live order board is null.");
+        this.ringBuffer = new RingBuffer<>(BoardMutation::new, queueDepth, waitStrategy);
+        this.processor = new BatchEventProcessor<>(this.ringBuffer, new Writer());
+
+        Arrays.fill(this.touched, true);
+        publishSummaries();
+
+        this.writer = new Thread(this.processor, "live-order-board-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public long placeOrder(final Order order) {
+        enter();
+        try {
+            final IndexedOrder indexedOrder = this.liveOrderBoard.prepare(order);
+
+            final long sequence = this.ringBuffer.next();
+            final BoardMutation mutation = this.ringBuffer.get(sequence);
+            mutation.kind = BoardMutation.Kind.PLACE;
+            mutation.indexedOrder = indexedOrder;
+            this.ringBuffer.publish(sequence);
+            return indexedOrder.getOrderId();
+        } finally {
+            leave();
+        }
+    }
+
+    @Override
+    public BatchResult placeOrders(final Collection<Order> orders) {
+        enter();
+        try {
+            final List<IndexedOrder> accepted = new ArrayList<>(orders.size());
+            final BatchResult batchResult = this.liveOrderBoard.prepareAll(orders, accepted);
+
+            final long sequence = this.ringBuffer.next();
+            final BoardMutation mutation = this.ringBuffer.get(sequence);
+            mutation.kind = BoardMutation.Kind.PLACE_ALL;
+            mutation.indexedOrders = accepted;
+            this.ringBuffer.publish(sequence);
+            return batchResult;
+        } finally {
+            leave();
+        }
+    }
+
+    /**
+     * @return whether this board issued the id, the order may already be cancelled once the cancel is applied
+     */
+    @Override
+    public boolean cancelOrder(final long orderId) {
+        enter();
+        try {
+            if (!this.liveOrderBoard.isIssued(orderId)) {
+                return false;
+            }
+
+            final long sequence = this.ringBuffer.next();
+            final BoardMutation mutation = this.ringBuffer.get(sequence);
+            mutation.kind = BoardMutation.Kind.CANCEL_BY_ID;
+            mutation.orderId = orderId;
+            this.ringBuffer.publish(sequence);
+            return true;
+        } finally {
+            leave();
+        }
+    }
+
+    /**
+     * Only ids never issued by this board are rejected up front.
+     */
+    @Override
+    public BatchResult cancelOrders(final long... orderIds) {
+        enter();
+        try {
+            Objects.requireNonNull(orderIds, "Order ids are null.");
+
+            final long[] issuedIds = orderIds.clone();
+            final String[] rejections = new String[orderIds.length];
+            for (int position = 0; position < orderIds.length; position++) {
+                if (!this.liveOrderBoard.isIssued(orderIds[position])) {
+                    rejections[position] = "Unknown order id.";
+                }
+            }
+
+            final long sequence = this.ringBuffer.next();
+            final BoardMutation mutation = this.ringBuffer.get(sequence);
+            mutation.kind = BoardMutation.Kind.CANCEL_ALL_BY_ID;
+            mutation.orderIds = issuedIds;
+            this.ringBuffer.publish(sequence);
+            return new BatchResult(orderIds.clone(), rejections);
+        } finally {
+            leave();
+        }
+    }
+
+    @Override
+    public void cancelOrder(final Order order) {
+        enter();
+        try {
+            Objects.requireNonNull(order, "Order is null.");
+
+            final long sequence = this.ringBuffer.next();
+            final BoardMutation mutation = this.ringBuffer.get(sequence);
+            mutation.kind = BoardMutation.Kind.CANCEL_BY_ORDER;
+            mutation.order = order;
+            this.ringBuffer.publish(sequence);
+        } finally {
+            leave();
+        }
+    }
+
+    /**
+     * @return the number of live orders of the user when the cancel was queued, orders placed before it is applied
+     * are cancelled too
+     */
+    @Override
+    public int cancelAllOrders(final UUID userId) {
+        enter();
+        try {
+            Objects.requireNonNull(userId, "User id is null.");
+
+            int liveOrders = 0;
+            for (CoinType coinType : CoinType.values()) {
+                liveOrders += this.liveOrderBoard.getUserExposure(userId, coinType).getOrderCount();
+            }
+
+            final long sequence = this.ringBuffer.next();
+            final BoardMutation mutation = this.ringBuffer.get(sequence);
+            mutation.kind = BoardMutation.Kind.CANCEL_ALL_BY_USER;
+            mutation.userId = userId;
+            this.ringBuffer.publish(sequence);
+            return liveOrders;
+        } finally {
+            leave();
+        }
+    }
+
+    /**
+     * Reflects the mutations applied so far.
+     */
+    @Override
+    public UserExposure getUserExposure(final UUID userId, final CoinType coinType) {
+        return this.liveOrderBoard.getUserExposure(userId, coinType);
+    }
+
+    /**
+     * Reflects the mutations applied so far.
+     */
+    @Override
+    public MarketStatistics getMarketStatistics(final CoinType coinType) {
+        return this.liveOrderBoard.getMarketStatistics(coinType);
+    }
+
+    @Override
+    public List<OrderSummary> getOrderSummary(final OrderType orderType) {
+        Objects.requireNonNull(orderType, "Order type is null.");
+
+        return this.summaries.get(COIN_SIDES + orderType.ordinal());
+    }
+
+    @Override
+    public List<OrderSummary> getOrderSummary(final CoinType coinType, final OrderType orderType) {
+        Objects.requireNonNull(coinType, "Coin type is null.");
+        Objects.requireNonNull(orderType, "Order type is null.");
+
+        return this.summaries.get(coinSide(coinType, orderType));
+    }
+
+    /**
+     * Deeper views are read from the wrapped board, they reflect the mutations applied so far.
+     */
+    @Override
+    public List<OrderSummary> getOrderSummary(final CoinType coinType, final OrderType orderType, final int depth) {
+        return this.liveOrderBoard.getOrderSummary(coinType, orderType, depth);
+    }
+
+    @Override
+    public List<OrderSummary> getOrderSummaryAfter(
+            final CoinType coinType,
+            final OrderType orderType,
+            final BigDecimal afterPrice,
+            final int limit) {
+        return this.liveOrderBoard.getOrderSummaryAfter(coinType, orderType, afterPrice, limit);
+    }
+
+    /**
+     * Level updates come straight from the wrapped board, they are emitted on the writer thread.
+     */
+    @Override
+    public Flow.Publisher<BoardUpdate> getBoardUpdates(final CoinType coinType, final OrderType orderType) {
+        return this.liveOrderBoard.getBoardUpdates(coinType, orderType);
+    }
+
+    /**
+     * Waits until every mutation queued before the call is applied and its summaries are published.
+     */
+    public void flush() {
+        final long sequence = this.ringBuffer.getClaimedSequence();
+        while (this.ringBuffer.getReleasedSequence() < sequence) {
+            LockSupport.parkNanos(10_000);
+        }
+    }
+
+    /**
+     * @return number of queued mutations the writer could not apply, e.g. a repository failure
+     */
+    public long getFailedMutations() {
+        return this.failedMutations.get();
+    }
+
+    /**
+     * Applies whatever is queued, then stops the writer thread. Mutations are rejected afterwards, the ones
+     * already past the open check are still queued and applied first.
+     * An interrupted caller stops waiting for the writer thread and keeps its interrupt status.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        while (this.producers.get() > 0) {
+            LockSupport.parkNanos(10_000);
+        }
+        flush();
+        this.processor.halt();
+        try {
+            this.writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Counts the caller as a producer until it leaves, a producer seen by {@link #close()} is waited for,
+     * one that comes after it sees the board closed.
+     */
+    private void enter() {
+        this.producers.incrementAndGet();
+        if (this.closed) {
+            leave();
+            throw new IllegalStateException("Board is closed.");
+        }
+    }
+
+    private void leave() {
+        this.producers.decrementAndGet();
+    }
+
+    private static int coinSide(final CoinType coinType, final OrderType orderType) {
+        return coinType.ordinal() * SIDES + orderType.ordinal();
+    }
+
+    private void touch(final Order order) {
+        this.touched[coinSide(order.getCoinType(), order.getOrderType())] = true;
+    }
+
+    private void publishSummaries() {
+        final boolean[] touchedSides = new boolean[SIDES];
+        for (CoinType coinType : CoinType.values()) {
+            for (OrderType orderType : OrderType.values()) {
+                final int coinSide = coinSide(coinType, orderType);
+                if (this.touched[coinSide]) {
+                    this.touched[coinSide] = false;
+                    touchedSides[orderType.ordinal()] = true;
+                    this.summaries.set(coinSide, Collections.unmodifiableList(
+                            this.liveOrderBoard.getOrderSummary(coinType, orderType)));
+                }
+            }
+        }
+        for (OrderType orderType : OrderType.values()) {
+            if (touchedSides[orderType.ordinal()]) {
+                this.summaries.set(COIN_SIDES + orderType.ordinal(), Collections.unmodifiableList(
+                        this.liveOrderBoard.getOrderSummary(orderType)));
+            }
+        }
+    }
+
+    private final class Writer implements EventHandler<BoardMutation> {
+
+        @Override
+        public void onEvent(final BoardMutation mutation, final long sequence, final boolean endOfBatch) {
+            try {
+                apply(mutation);
+            } catch (RuntimeException e) {
+                failedMutations.incrementAndGet();
+            } finally {
+                mutation.clear();
+            }
+
+            if (endOfBatch) {
+                publishSummaries();
+            }
+        }
+
+        private void apply(final BoardMutation mutation) {
+            switch (mutation.kind) {
+                case PLACE:
+                    touch(mutation.indexedOrder.getOrder());
+                    liveOrderBoard.apply(mutation.indexedOrder);
+                    break;
+                case PLACE_ALL:
+                    mutation.indexedOrders.forEach(indexedOrder -> touch(indexedOrder.getOrder()));
+                    liveOrderBoard.applyAll(mutation.indexedOrders);
+                    break;
+                case CANCEL_BY_ID:
+                    cancel(mutation.orderId);
+                    break;
+                case CANCEL_ALL_BY_ID:
+                    for (long orderId : mutation.orderIds) {
+                        touchOrderId(orderId);
+                    }
+                    liveOrderBoard.cancelOrders(mutation.orderIds);
+                    break;
+                case CANCEL_BY_ORDER:
+                    touch(mutation.order);
+                    liveOrderBoard.cancelOrder(mutation.order);
+                    break;
+                case CANCEL_ALL_BY_USER:
+                    liveOrderBoard.cancelAll(mutation.userId).forEach(indexedOrder -> touch(indexedOrder.getOrder()));
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown mutation.");
+            }
+        }
+
+        private void cancel(final long orderId) {
+            touchOrderId(orderId);
+            liveOrderBoard.cancelOrder(orderId);
+        }
+
+        private void touchOrderId(final long orderId) {
+            final IndexedOrder indexedOrder = liveOrderBoard.getIndexedOrder(orderId);
+            if (indexedOrder != null) {
+                touch(indexedOrder.getOrder());
+            }
+        }
+    }
+}
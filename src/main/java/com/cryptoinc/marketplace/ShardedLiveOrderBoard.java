@@ -0,0 +1,392 @@
+package com.cryptoinc.marketplace;
+
+import com.cryptoinc.marketplace.domain.BatchResult;
+import com.cryptoinc.marketplace.domain.BoardUpdate;
+import com.cryptoinc.marketplace.domain.CoinType;
+import com.cryptoinc.marketplace.domain.MarketStatistics;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderSummary;
+import com.cryptoinc.marketplace.domain.OrderType;
+import com.cryptoinc.marketplace.domain.SideStatistics;
+import com.cryptoinc.marketplace.domain.UserExposure;
+import com.cryptoinc.marketplace.repository.OrderRepository;
+import com.cryptoinc.marketplace.validators.OrderValidator;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import static com.cryptoinc.marketplace.domain.OrderType.BUY;
+import static com.cryptoinc.marketplace.domain.OrderType.SELL;
+
+/**
+ * Routes every order to an independent shard by coin and side, each shard with its own repository, index and books,
+ * so writes to different coins or sides never contend. Shards wrapped in a {@link SequencedLiveOrderBoard} get
+ * their own writer thread.
+ * <p>
+ * Order ids carry their shard in the low bits, cancels by id go straight to one shard. Summaries across coins
+ * merge the display levels of each coin shard and are cached until one of them changes.
+ */
+public class ShardedLiveOrderBoard implements LiveOrderBoard, AutoCloseable {
+
+    private static final int SIDES = OrderType.values().length;
+    private static final int SHARDS = CoinType.values().length * SIDES;
+    private static final int SHARD_BITS = 32 - Integer.numberOfLeadingZeros(SHARDS - 1);
+    private static final long SHARD_MASK = (1L << SHARD_BITS) - 1;
+
+    private final LiveOrderBoard[] shards = new LiveOrderBoard[SHARDS];
+    private final int displayDepth;
+    //per side, the coin summaries the cached merge was built from
+    private final AtomicReferenceArray<MergedSummary> mergedSummaries = new AtomicReferenceArray<>(SIDES);
+    //per coin, combined from the side statistics of its BUY and SELL shard
+    private final AtomicReferenceArray<MarketStatistics> marketStatistics = new AtomicReferenceArray<>(CoinType.values().length);
+
+    /**
+     * Shards are {@link LiveOrderBoardImpl}s applying mutations on the calling thread.
+     *
+     * @param repositories creates the repository of each shard
+     */
+    public ShardedLiveOrderBoard(
+            final Supplier<OrderRepository> repositories,
+            final OrderValidator orderValidator,
+            final AggregationMode aggregationMode) {
+        this((coinType, orderType) -> new LiveOrderBoardImpl(repositories.get(), orderValidator, aggregationMode),
+             LiveOrderBoardImpl.DEFAULT_DISPLAY_DEPTH);
+    }
+
+    /**
+     * @param shardFactory creates the shard of one coin and side, it only ever receives orders of that coin and side
+     * @param displayDepth number of levels in summaries across coins, shards must display at least as many
+     */
+    public ShardedLiveOrderBoard(
+            final BiFunction<CoinType, OrderType, LiveOrderBoard> shardFactory,
+            final int displayDepth) {
+        Objects.requireNonNull(shardFactory, "Shard factory is null.");
+        if (displayDepth < 1) {
+            throw new IllegalArgumentException("Bad depth.");
+        }
+        this.displayDepth = displayDepth;
+
+        for (CoinType coinType : CoinType.values()) {
+            for (OrderType orderType : OrderType.values()) {
+                this.shards[shard(coinType, orderType)] = Objects.requireNonNull(
+                        shardFactory.apply(coinType, orderType), "Shard is null.");
+            }
+        }
+    }
+
+    @Override
+    public long placeOrder(final Order order) {
+        Objects.requireNonNull(order, "Order is null.");
+
+        final int shard = shard(order);
+        return toOrderId(this.shards[shard].placeOrder(order), shard);
+    }
+
+    /**
+     * The batch is split by shard, each shard places its part with one call.
+     */
+    @Override
+    public BatchResult placeOrders(final Collection<Order> orders) {
+        Objects.requireNonNull(orders, "Orders are null.");
+
+        final Order[] batch = orders.toArray(new Order[0]);
+        final long[] orderIds = new long[batch.length];
+        final String[] rejections = new String[batch.length];
+        final int[] shardOf = new int[batch.length];
+        final int[] shardSizes = new int[SHARDS];
+        for (int position = 0; position < batch.length; position++) {
+            shardOf[position] = -1;
+            if (batch[position] == null) {
+                rejections[position] = "Order is null.";
+                continue;
+            }
+            try {
+                shardOf[position] = shard(batch[position]);
+                shardSizes[shardOf[position]]++;
+            } catch (IllegalArgumentException e) {
+                rejections[position] = e.getMessage();
+            }
+        }
+
+        for (int shard = 0; shard < SHARDS; shard++) {
+            if (shardSizes[shard] == 0) {
+                continue;
+            }
+            final int[] positions = new int[shardSizes[shard]];
+            final List<Order> part = new ArrayList<>(positions.length);
+            for (int position = 0; position < batch.length; position++) {
+                if (shardOf[position] == shard) {
+                    positions[part.size()] = position;
+                    part.add(batch[position]);
+                }
+            }
+
+            final BatchResult partResult = this.shards[shard].placeOrders(part);
+            for (int i = 0; i < positions.length; i++) {
+                if (partResult.isAccepted(i)) {
+                    orderIds[positions[i]] = toOrderId(partResult.getOrderId(i), shard);
+                } else {
+                    rejections[positions[i]] = partResult.getRejection(i);
+                }
+            }
+        }
+        return new BatchResult(orderIds, rejections);
+    }
+
+    @Override
+    public boolean cancelOrder(final long orderId) {
+        return isShardOrderId(orderId) && this.shards[shardOf(orderId)].cancelOrder(orderId >>> SHARD_BITS);
+    }
+
+    /**
+     * The ids are split by shard, each shard cancels its part with one call.
+     */
+    @Override
+    public BatchResult cancelOrders(final long... orderIds) {
+        Objects.requireNonNull(orderIds, "Order ids are null.");
+
+        final String[] rejections = new String[orderIds.length];
+        final int[] shardSizes = new int[SHARDS];
+        for (int position = 0; position < orderIds.length; position++) {
+            if (isShardOrderId(orderIds[position])) {
+                shardSizes[shardOf(orderIds[position])]++;
+            } else {
+                rejections[position] = "Unknown order id.";
+            }
+        }
+
+        for (int shard = 0; shard < SHARDS; shard++) {
+            if (shardSizes[shard] == 0) {
+                continue;
+            }
+            final int[] positions = new int[shardSizes[shard]];
+            final long[] part = new long[positions.length];
+            int size = 0;
+            for (int position = 0; position < orderIds.length; position++) {
+                if (isShardOrderId(orderIds[position]) && shardOf(orderIds[position]) == shard) {
+                    positions[size] = position;
+                    part[size++] = orderIds[position] >>> SHARD_BITS;
+                }
+            }
+
+            final BatchResult partResult = this.shards[shard].cancelOrders(part);
+            for (int i = 0; i < positions.length; i++) {
+                rejections[positions[i]] = partResult.getRejection(i);
+            }
+        }
+        return new BatchResult(orderIds.clone(), rejections);
+    }
+
+    @Override
+    public void cancelOrder(final Order order) {
+        Objects.requireNonNull(order, "Order is null.");
+        if (order.getCoinType() != null && order.getOrderType() != null) {
+            this.shards[shard(order)].cancelOrder(order);
+        }
+    }
+
+    /**
+     * Every shard cancels the user's orders on its own, a concurrent read may see some shards already cancelled.
+     */
+    @Override
+    public int cancelAllOrders(final UUID userId) {
+        Objects.requireNonNull(userId, "User id is null.");
+
+        int cancelled = 0;
+        for (LiveOrderBoard shard : this.shards) {
+            cancelled += shard.cancelAllOrders(userId);
+        }
+        return cancelled;
+    }
+
+    /**
+     * Combines the buy side of the buy shard with the sell side of the sell shard of the coin.
+     */
+    @Override
+    public UserExposure getUserExposure(final UUID userId, final CoinType coinType) {
+        Objects.requireNonNull(userId, "User id is null.");
+        Objects.requireNonNull(coinType, "Coin type is null.");
+
+        final UserExposure buy = this.shards[shard(coinType, BUY)].getUserExposure(userId, coinType);
+        final UserExposure sell = this.shards[shard(coinType, SELL)].getUserExposure(userId, coinType);
+        if (buy.getOrderCount() == 0 && sell.getOrderCount() == 0) {
+            return UserExposure.NONE;
+        }
+        return new UserExposure(buy.getOrderCount() + sell.getOrderCount(),
+                                buy.getQuantity(BUY), buy.getNotional(BUY),
+                                sell.getQuantity(SELL), sell.getNotional(SELL));
+    }
+
+    /**
+     * Combines the BUY side of the coin's BUY shard with the SELL side of its SELL shard. The two shards are
+     * read one after the other, not atomically, so the spread may pair a bid and an ask that never rested at
+     * the same time. The combination is only rebuilt when a shard returns different statistics than last time.
+     */
+    @Override
+    public MarketStatistics getMarketStatistics(final CoinType coinType) {
+        Objects.requireNonNull(coinType, "Coin type is null.");
+
+        final SideStatistics buy = this.shards[shard(coinType, BUY)].getMarketStatistics(coinType).getSide(BUY);
+        final SideStatistics sell = this.shards[shard(coinType, SELL)].getMarketStatistics(coinType).getSide(SELL);
+        final MarketStatistics cached = this.marketStatistics.get(coinType.ordinal());
+        if (cached != null && cached.getSide(BUY) == buy && cached.getSide(SELL) == sell) {
+            return cached;
+        }
+
+        final MarketStatistics combined = new MarketStatistics(coinType, buy, sell);
+        this.marketStatistics.set(coinType.ordinal(), combined);
+        return combined;
+    }
+
+    /**
+     * The best levels across coins are among the best levels of each coin, levels of the same price are merged.
+     * The merge is only redone when a coin shard returns a different summary than last time.
+     */
+    @Override
+    public List<OrderSummary> getOrderSummary(final OrderType orderType) {
+        Objects.requireNonNull(orderType, "Order type is null.");
+
+        final List<List<OrderSummary>> parts = new ArrayList<>(CoinType.values().length);
+        for (CoinType coinType : CoinType.values()) {
+            parts.add(this.shards[shard(coinType, orderType)].getOrderSummary(coinType, orderType));
+        }
+
+        final MergedSummary cached = this.mergedSummaries.get(orderType.ordinal());
+        if (cached != null && cached.isMergeOf(parts)) {
+            return cached.orderSummaryList;
+        }
+
+        //prices equal in value but not in scale stay separate levels, as in a repository scan
+        final Comparator<BigDecimal> byPrice = Comparator.<BigDecimal>naturalOrder().thenComparingInt(BigDecimal::scale);
+        final NavigableMap<BigDecimal, BigDecimal> merged = new TreeMap<>(orderType == SELL ? byPrice : byPrice.reversed());
+        for (List<OrderSummary> part : parts) {
+            for (OrderSummary orderSummary : part) {
+                merged.merge(orderSummary.getPrice(), orderSummary.getQuantity(), BigDecimal::add);
+            }
+        }
+
+        final List<OrderSummary> orderSummaryList = new ArrayList<>(Math.min(merged.size(), this.displayDepth));
+        for (Map.Entry<BigDecimal, BigDecimal> level : merged.entrySet()) {
+            if (orderSummaryList.size() == this.displayDepth) {
+                break;
+            }
+            orderSummaryList.add(new OrderSummary(level.getValue(), level.getKey()));
+        }
+        final List<OrderSummary> unmodifiable = Collections.unmodifiableList(orderSummaryList);
+        this.mergedSummaries.set(orderType.ordinal(), new MergedSummary(parts, unmodifiable));
+        return unmodifiable;
+    }
+
+    @Override
+    public List<OrderSummary> getOrderSummary(final CoinType coinType, final OrderType orderType) {
+        return boardOf(coinType, orderType).getOrderSummary(coinType, orderType);
+    }
+
+    @Override
+    public List<OrderSummary> getOrderSummary(final CoinType coinType, final OrderType orderType, final int depth) {
+        return boardOf(coinType, orderType).getOrderSummary(coinType, orderType, depth);
+    }
+
+    @Override
+    public List<OrderSummary> getOrderSummaryAfter(
+            final CoinType coinType,
+            final OrderType orderType,
+            final BigDecimal afterPrice,
+            final int limit) {
+        return boardOf(coinType, orderType).getOrderSummaryAfter(coinType, orderType, afterPrice, limit);
+    }
+
+    @Override
+    public Flow.Publisher<BoardUpdate> getBoardUpdates(final CoinType coinType, final OrderType orderType) {
+        return boardOf(coinType, orderType).getBoardUpdates(coinType, orderType);
+    }
+
+    /**
+     * Closes every shard that is {@link AutoCloseable}, e.g. stops the writer thread of sequenced shards.
+     * An interrupted shard keeps the interrupt status and the remaining shards are still closed.
+     *
+     * @throws IOException the first shard failure, any later ones are suppressed by it
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (LiveOrderBoard shard : this.shards) {
+            if (shard instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) shard).close();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    if (failure == null) {
+                        failure = e instanceof IOException ? (IOException) e : new IOException("Shard failed to close.", e);
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private LiveOrderBoard boardOf(final CoinType coinType, final OrderType orderType) {
+        Objects.requireNonNull(coinType, "Coin type is null.");
+        Objects.requireNonNull(orderType, "Order type is null.");
+
+        return this.shards[shard(coinType, orderType)];
+    }
+
+    private static int shard(final Order order) {
+        if (order.getCoinType() == null) {
+            throw new IllegalArgumentException("Bad coin type.");
+        }
+        if (order.getOrderType() == null) {
+            throw new IllegalArgumentException("Bad order type.");
+        }
+        return shard(order.getCoinType(), order.getOrderType());
+    }
+
+    private static int shard(final CoinType coinType, final OrderType orderType) {
+        return coinType.ordinal() * SIDES + orderType.ordinal();
+    }
+
+    /**
+     * @return whether the id could have been issued, ids with a shard index beyond the last shard never are
+     */
+    private static boolean isShardOrderId(final long orderId) {
+        return orderId > 0 && (orderId & SHARD_MASK) < SHARDS;
+    }
+
+    private static int shardOf(final long orderId) {
+        return (int) (orderId & SHARD_MASK);
+    }
+
+    private static long toOrderId(final long shardOrderId, final int shard) {
+        return shardOrderId << SHARD_BITS | shard;
+    }
+
+    private static final class MergedSummary {
+        private final List<List<OrderSummary>> parts;
+        private final List<OrderSummary> orderSummaryList;
+
+        private MergedSummary(final List<List<OrderSummary>> parts, final List<OrderSummary> orderSummaryList) {
+            this.parts = parts;
+            this.orderSummaryList = orderSummaryList;
+        }
+
+        private boolean isMergeOf(final List<List<OrderSummary>> otherParts) {
+            for (int i = 0; i < this.parts.size(); i++) {
+                if (this.parts.get(i) != otherParts.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.cryptoinc.marketplace.book;
+
+import com.cryptoinc.marketplace.domain.CoinType;
+import com.cryptoinc.marketplace.domain.OrderType;
+
+/**
+ * Told about changes to the best {@link #getDepth()} levels of one book side.
+ * Called with the book lock held, so implementations must only hand the change off.
+ */
+public interface LevelListener {
+
+    int getDepth();
+
+    /**
+     * @param quantity the new total quantity of the level, zero once the level is gone or was pushed out
+     *                 of the window by a better one
+     */
+    void onLevelChanged(CoinType coinType, OrderType orderType, long price, long quantity);
+}
@@ -0,0 +1,280 @@
+package com.cryptoinc.marketplace.book;
+
+import java.util.Arrays;
+
+/**
+ * Sorted map of primitive {@code long} keys to {@code long} values, without boxing.
+ * Entries are nodes of a treap laid out in parallel arrays and addressed by index; removed nodes go to a free list
+ * and are reused, so once the arrays have grown to the working set size, updates do not allocate at all.
+ * Lookups and updates are O(log n) expected. Navigation returns node indexes, {@link #NIL} when there is no such node.
+ * Not thread safe.
+ */
+final class LongLongTreeMap {
+
+    static final int NIL = -1;
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private long[] keys;
+    private long[] values;
+    private int[] left;
+    private int[] right;
+    private int[] priorities;
+
+    private int root = NIL;
+    private int size;
+    private int freeHead = NIL;
+    private int allocated;
+    private int randomState = 0x9E3779B9;
+    private long lastValue;
+
+    LongLongTreeMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    LongLongTreeMap(final int initialCapacity) {
+        final int capacity = Math.max(initialCapacity, 1);
+        this.keys = new long[capacity];
+        this.values = new long[capacity];
+        this.left = new int[capacity];
+        this.right = new int[capacity];
+        this.priorities = new int[capacity];
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    boolean containsKey(final long key) {
+        return find(key) != NIL;
+    }
+
+    long get(final long key, final long absentValue) {
+        final int node = find(key);
+        return node == NIL ? absentValue : this.values[node];
+    }
+
+    /**
+     * Adds {@code delta} to the value of {@code key}, an absent key starts from zero.
+     *
+     * @return the new value
+     */
+    long addTo(final long key, final long delta) {
+        this.root = addTo(this.root, key, delta);
+        return this.lastValue;
+    }
+
+    /**
+     * @return whether the key was present
+     */
+    boolean remove(final long key) {
+        final int sizeBefore = this.size;
+        this.root = remove(this.root, key);
+        return this.size != sizeBefore;
+    }
+
+    void clear() {
+        this.root = NIL;
+        this.size = 0;
+        this.freeHead = NIL;
+        this.allocated = 0;
+    }
+
+    long key(final int node) {
+        return this.keys[node];
+    }
+
+    long value(final int node) {
+        return this.values[node];
+    }
+
+    int firstNode() {
+        int node = this.root;
+        if (node == NIL) {
+            return NIL;
+        }
+        while (this.left[node] != NIL) {
+            node = this.left[node];
+        }
+        return node;
+    }
+
+    int lastNode() {
+        int node = this.root;
+        if (node == NIL) {
+            return NIL;
+        }
+        while (this.right[node] != NIL) {
+            node = this.right[node];
+        }
+        return node;
+    }
+
+    /**
+     * @return the node with the smallest key strictly greater than {@code key}
+     */
+    int higherNode(final long key) {
+        int node = this.root;
+        int candidate = NIL;
+        while (node != NIL) {
+            if (this.keys[node] > key) {
+                candidate = node;
+                node = this.left[node];
+            } else {
+                node = this.right[node];
+            }
+        }
+        return candidate;
+    }
+
+    /**
+     * @return the node with the greatest key strictly less than {@code key}
+     */
+    int lowerNode(final long key) {
+        int node = this.root;
+        int candidate = NIL;
+        while (node != NIL) {
+            if (this.keys[node] < key) {
+                candidate = node;
+                node = this.right[node];
+            } else {
+                node = this.left[node];
+            }
+        }
+        return candidate;
+    }
+
+    private int find(final long key) {
+        int node = this.root;
+        while (node != NIL) {
+            final long nodeKey = this.keys[node];
+            if (key == nodeKey) {
+                return node;
+            }
+            node = key < nodeKey ? this.left[node] : this.right[node];
+        }
+        return NIL;
+    }
+
+    private int addTo(final int node, final long key, final long delta) {
+        if (node == NIL) {
+            this.lastValue = delta;
+            return allocate(key, delta);
+        }
+
+        final long nodeKey = this.keys[node];
+        if (key == nodeKey) {
+            this.values[node] += delta;
+            this.lastValue = this.values[node];
+            return node;
+        }
+        if (key < nodeKey) {
+            final int child = addTo(this.left[node], key, delta);
+            this.left[node] = child;
+            return this.priorities[child] > this.priorities[node] ? rotateRight(node) : node;
+        }
+        final int child = addTo(this.right[node], key, delta);
+        this.right[node] = child;
+        return this.priorities[child] > this.priorities[node] ? rotateLeft(node) : node;
+    }
+
+    private int remove(final int node, final long key) {
+        if (node == NIL) {
+            return NIL;
+        }
+
+        final long nodeKey = this.keys[node];
+        if (key < nodeKey) {
+            this.left[node] = remove(this.left[node], key);
+            return node;
+        }
+        if (key > nodeKey) {
+            this.right[node] = remove(this.right[node], key);
+            return node;
+        }
+
+        //rotate the node down until it has at most one child, then splice it out
+        if (this.left[node] == NIL) {
+            final int replacement = this.right[node];
+            release(node);
+            return replacement;
+        }
+        if (this.right[node] == NIL) {
+            final int replacement = this.left[node];
+            release(node);
+            return replacement;
+        }
+        if (this.priorities[this.left[node]] > this.priorities[this.right[node]]) {
+            final int top = rotateRight(node);
+            this.right[top] = remove(node, key);
+            return top;
+        }
+        final int top = rotateLeft(node);
+        this.left[top] = remove(node, key);
+        return top;
+    }
+
+    private int rotateRight(final int node) {
+        final int top = this.left[node];
+        this.left[node] = this.right[top];
+        this.right[top] = node;
+        return top;
+    }
+
+    private int rotateLeft(final int node) {
+        final int top = this.right[node];
+        this.right[node] = this.left[top];
+        this.left[top] = node;
+        return top;
+    }
+
+    private int allocate(final long key, final long value) {
+        final int node;
+        if (this.freeHead != NIL) {
+            node = this.freeHead;
+            this.freeHead = this.left[node];
+        } else {
+            if (this.allocated == this.keys.length) {
+                grow();
+            }
+            node = this.allocated++;
+        }
+
+        this.keys[node] = key;
+        this.values[node] = value;
+        this.left[node] = NIL;
+        this.right[node] = NIL;
+        this.priorities[node] = nextPriority();
+        this.size++;
+        return node;
+    }
+
+    private void release(final int node) {
+        this.left[node] = this.freeHead;
+        this.freeHead = node;
+        this.size--;
+    }
+
+    private void grow() {
+        final int capacity = this.keys.length * 2;
+        this.keys = Arrays.copyOf(this.keys, capacity);
+        this.values = Arrays.copyOf(this.values, capacity);
+        this.left = Arrays.copyOf(this.left, capacity);
+        this.right = Arrays.copyOf(this.right, capacity);
+        this.priorities = Arrays.copyOf(this.priorities, capacity);
+    }
+
+    private int nextPriority() {
+        //xorshift, good enough to keep the treap balanced and allocation free
+        int x = this.randomState;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        this.randomState = x;
+        return x;
+    }
+}
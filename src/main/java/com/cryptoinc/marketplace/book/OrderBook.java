@@ -0,0 +1,310 @@
+package com.cryptoinc.marketplace.book;
+
+import com.cryptoinc.marketplace.domain.CoinType;
+import com.cryptoinc.marketplace.domain.FixedPointScales;
+import com.cryptoinc.marketplace.domain.MarketStatistics;
+import com.cryptoinc.marketplace.domain.OrderSummary;
+import com.cryptoinc.marketplace.domain.OrderType;
+import com.cryptoinc.marketplace.domain.SideStatistics;
+import com.cryptoinc.marketplace.index.IndexedOrder;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.cryptoinc.marketplace.book.LongLongTreeMap.NIL;
+
+/**
+ * BUY and SELL price levels of a single coin, in fixed-point ticks.
+ * Prices and quantities only become BigDecimals when a summary is read.
+ * Every method synchronizes on the book itself, callers may do the same to combine several calls atomically.
+ * <p>
+ * The best {@code snapshotDepth} levels of each side are cached as a {@link SummarySnapshot}. A change only
+ * invalidates it when it touches a level inside or at the edge of that window, reading a valid snapshot
+ * takes no lock and allocates nothing.
+ * <p>
+ * {@link MarketStatistics} are cached the same way, but any change invalidates them. They are rebuilt in O(1)
+ * from the totals and best levels each side keeps up to date.
+ */
+public class OrderBook {
+
+    public static final int DEFAULT_SNAPSHOT_DEPTH = 10;
+
+    private final CoinType coinType;
+    private final FixedPointScales scales;
+    private final int snapshotDepth;
+    private final SnapshotPolicy snapshotPolicy;
+    private final Map<OrderType, OrderBookSide> sides = new EnumMap<>(OrderType.class);
+    private final Map<OrderType, List<LevelListener>> listeners = new EnumMap<>(OrderType.class);
+    //indexed by order type ordinal, versions and change times only move under the book lock
+    private final AtomicLongArray versions = new AtomicLongArray(OrderType.values().length);
+    private final AtomicLongArray changedAtNanos = new AtomicLongArray(OrderType.values().length);
+    private final AtomicReferenceArray<SummarySnapshot> snapshots = new AtomicReferenceArray<>(OrderType.values().length);
+    //indexed by order type ordinal, guarded by the book lock
+    private final int[] orderCounts = new int[OrderType.values().length];
+    //only moves under the book lock, on every change of either side
+    private final AtomicLong statisticsVersion = new AtomicLong();
+    private volatile StatisticsSnapshot statistics;
+
+    public OrderBook(final CoinType coinType, final FixedPointScales scales) {
+        this(coinType, scales, DEFAULT_SNAPSHOT_DEPTH, SnapshotPolicy.exact());
+    }
+
+    public OrderBook(
+            final CoinType coinType,
+            final FixedPointScales scales,
+            final int snapshotDepth,
+            final SnapshotPolicy snapshotPolicy) {
+        if (snapshotDepth < 1) {
+            throw new IllegalArgumentException("Bad snapshot depth.");
+        }
+        this.coinType = coinType;
+        this.scales = scales;
+        this.snapshotDepth = snapshotDepth;
+        this.snapshotPolicy = Objects.requireNonNull(snapshotPolicy, "Snapshot policy is null.");
+        for (OrderType orderType : OrderType.values()) {
+            this.sides.put(orderType, new OrderBookSide(orderType));
+            this.listeners.put(orderType, new CopyOnWriteArrayList<>());
+            this.snapshots.set(orderType.ordinal(), new SummarySnapshot(0, Collections.emptyList(), 0, false, System.nanoTime()));
+        }
+        this.statistics = new StatisticsSnapshot(0, new MarketStatistics(coinType, SideStatistics.EMPTY, SideStatistics.EMPTY));
+    }
+
+    public CoinType getCoinType() {
+        return this.coinType;
+    }
+
+    public FixedPointScales getScales() {
+        return this.scales;
+    }
+
+    public int getSnapshotDepth() {
+        return this.snapshotDepth;
+    }
+
+    public synchronized void add(final OrderType orderType, final long price, final long quantity) {
+        final OrderBookSide side = this.sides.get(orderType);
+        final long total = side.add(price, quantity);
+        levelChanged(orderType, side, price, total, total == quantity);
+        this.orderCounts[orderType.ordinal()]++;
+        this.statisticsVersion.incrementAndGet();
+    }
+
+    public synchronized void remove(final OrderType orderType, final long price, final long quantity) {
+        final OrderBookSide side = this.sides.get(orderType);
+        final long remaining = side.remove(price, quantity);
+        if (remaining >= 0) {
+            levelChanged(orderType, side, price, remaining, false);
+            this.orderCounts[orderType.ordinal()]--;
+            this.statisticsVersion.incrementAndGet();
+        }
+    }
+
+    /**
+     * Applies a whole batch of orders of this coin under a single lock acquisition.
+     */
+    public synchronized void addAll(final Collection<IndexedOrder> indexedOrders) {
+        for (IndexedOrder indexedOrder : indexedOrders) {
+            add(indexedOrder.getOrder().getOrderType(), indexedOrder.getPriceTicks(), indexedOrder.getQuantityTicks());
+        }
+    }
+
+    public synchronized void removeAll(final Collection<IndexedOrder> indexedOrders) {
+        for (IndexedOrder indexedOrder : indexedOrders) {
+            remove(indexedOrder.getOrder().getOrderType(), indexedOrder.getPriceTicks(), indexedOrder.getQuantityTicks());
+        }
+    }
+
+    /**
+     * Reads of the snapshot depth are served from the cached snapshot, other depths are built on the spot.
+     */
+    public List<OrderSummary> getOrderSummary(final OrderType orderType, final int maxLevels) {
+        if (maxLevels == this.snapshotDepth) {
+            return getSummarySnapshot(orderType).getOrderSummary();
+        }
+
+        synchronized (this) {
+            return summarize(this.sides.get(orderType), maxLevels);
+        }
+    }
+
+    /**
+     * @return the best {@code snapshotDepth} levels, rebuilt only if the window changed since the last build
+     * and the snapshot policy does not allow serving the stale one
+     */
+    public SummarySnapshot getSummarySnapshot(final OrderType orderType) {
+        final int sideIndex = orderType.ordinal();
+        final SummarySnapshot snapshot = this.snapshots.get(sideIndex);
+        if (snapshot.getVersion() == this.versions.get(sideIndex)
+                || this.snapshotPolicy.canServeStale(snapshot.getBuiltAtNanos(), this.changedAtNanos.get(sideIndex), System.nanoTime())) {
+            return snapshot;
+        }
+
+        synchronized (this) {
+            final SummarySnapshot current = this.snapshots.get(sideIndex);
+            final long version = this.versions.get(sideIndex);
+            if (current.getVersion() == version) {
+                return current;
+            }
+
+            final OrderBookSide side = this.sides.get(orderType);
+            final int edge = side.levelAt(this.snapshotDepth - 1);
+            final SummarySnapshot rebuilt = new SummarySnapshot(
+                    version,
+                    summarize(side, this.snapshotDepth),
+                    edge == NIL ? 0 : side.price(edge),
+                    edge != NIL,
+                    System.nanoTime());
+            this.snapshots.set(sideIndex, rebuilt);
+            return rebuilt;
+        }
+    }
+
+    /**
+     * Best levels, totals and spread of both sides, read together under the book lock so they agree with
+     * each other and with the levels at that moment.
+     *
+     * @return the cached statistics, rebuilt in O(1) only if the book changed since the last build
+     */
+    public MarketStatistics getMarketStatistics() {
+        final StatisticsSnapshot snapshot = this.statistics;
+        if (snapshot.version == this.statisticsVersion.get()) {
+            return snapshot.marketStatistics;
+        }
+
+        synchronized (this) {
+            final long version = this.statisticsVersion.get();
+            if (this.statistics.version == version) {
+                return this.statistics.marketStatistics;
+            }
+
+            final StatisticsSnapshot rebuilt = new StatisticsSnapshot(version, new MarketStatistics(
+                    this.coinType, toSideStatistics(OrderType.BUY), toSideStatistics(OrderType.SELL)));
+            this.statistics = rebuilt;
+            return rebuilt.marketStatistics;
+        }
+    }
+
+    private SideStatistics toSideStatistics(final OrderType orderType) {
+        final OrderBookSide side = this.sides.get(orderType);
+        if (side.isEmpty()) {
+            return SideStatistics.EMPTY;
+        }
+        return new SideStatistics(
+                this.scales.fromPriceTicks(this.coinType, side.getBestPrice()),
+                this.scales.fromQuantityTicks(this.coinType, side.getBestQuantity()),
+                this.scales.fromQuantityTicks(this.coinType, side.getTotalQuantity()),
+                this.scales.fromNotionalTicks(this.coinType, side.getNotionalHigh(), side.getNotionalLow()),
+                this.orderCounts[orderType.ordinal()],
+                side.getLevelCount());
+    }
+
+    /**
+     * Costs O(log L + limit), only the returned levels are visited.
+     */
+    public synchronized List<OrderSummary> getOrderSummaryAfter(final OrderType orderType, final long afterPrice, final int limit) {
+        final OrderBookSide side = this.sides.get(orderType);
+        final List<OrderSummary> orderSummaryList = new ArrayList<>(Math.min(limit, side.getLevelCount()));
+        side.forEachLevelAfter(afterPrice, limit, (price, quantity) -> orderSummaryList.add(toOrderSummary(price, quantity)));
+        return orderSummaryList;
+    }
+
+    private List<OrderSummary> summarize(final OrderBookSide side, final int maxLevels) {
+        final List<OrderSummary> orderSummaryList = new ArrayList<>(Math.min(maxLevels, side.getLevelCount()));
+        side.forEachBestLevel(maxLevels, (price, quantity) -> orderSummaryList.add(toOrderSummary(price, quantity)));
+        return orderSummaryList;
+    }
+
+    private OrderSummary toOrderSummary(final long price, final long quantity) {
+        return new OrderSummary(
+                this.scales.fromQuantityTicks(this.coinType, quantity),
+                this.scales.fromPriceTicks(this.coinType, price)
+        );
+    }
+
+    public synchronized int getLevelCount(final OrderType orderType) {
+        return this.sides.get(orderType).getLevelCount();
+    }
+
+    /**
+     * @return the number of orders resting on one side, i.e. added and not removed yet
+     */
+    public synchronized int getOrderCount(final OrderType orderType) {
+        return this.orderCounts[orderType.ordinal()];
+    }
+
+    public synchronized void addLevelListener(final OrderType orderType, final LevelListener listener) {
+        this.listeners.get(orderType).add(listener);
+    }
+
+    public synchronized void removeLevelListener(final OrderType orderType, final LevelListener listener) {
+        this.listeners.get(orderType).remove(listener);
+    }
+
+    /**
+     * Only changes inside a listener's window are passed on. When a level inside the window disappears,
+     * the level that slides in at the window edge is passed on as well, so the listener's view stays complete.
+     * When a new level enters the window, the level it pushes out is passed on with zero quantity, so the
+     * listener's view never holds more than its depth.
+     */
+    private void levelChanged(
+            final OrderType orderType,
+            final OrderBookSide side,
+            final long price,
+            final long quantity,
+            final boolean newLevel) {
+        invalidateSnapshot(orderType, side, price);
+
+        final List<LevelListener> sideListeners = this.listeners.get(orderType);
+        if (sideListeners.isEmpty()) {
+            return;
+        }
+
+        for (LevelListener listener : sideListeners) {
+            final int edge = side.levelAt(listener.getDepth() - 1);
+            if (edge != NIL && side.isBetter(side.price(edge), price)) {
+                continue;
+            }
+            listener.onLevelChanged(this.coinType, orderType, price, quantity);
+            if (quantity == 0 && edge != NIL) {
+                listener.onLevelChanged(this.coinType, orderType, side.price(edge), side.quantity(edge));
+            } else if (newLevel) {
+                final int displaced = side.levelAt(listener.getDepth());
+                if (displaced != NIL) {
+                    listener.onLevelChanged(this.coinType, orderType, side.price(displaced), 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * A valid snapshot holds exactly the current window, so comparing with its edge price tells in O(1)
+     * whether the change shows. A snapshot that is already stale is compared the same way, only to keep
+     * the change time of bursts outside the window from holding back a rebuild.
+     */
+    private void invalidateSnapshot(final OrderType orderType, final OrderBookSide side, final long price) {
+        final int sideIndex = orderType.ordinal();
+        final SummarySnapshot snapshot = this.snapshots.get(sideIndex);
+        if (snapshot.isFull() && side.isBetter(snapshot.getEdgePrice(), price)) {
+            return;
+        }
+
+        this.versions.incrementAndGet(sideIndex);
+        if (!this.snapshotPolicy.isExact()) {
+            this.changedAtNanos.set(sideIndex, System.nanoTime());
+        }
+    }
+
+    private static final class StatisticsSnapshot {
+
+        private final long version;
+        private final MarketStatistics marketStatistics;
+
+        private StatisticsSnapshot(final long version, final MarketStatistics marketStatistics) {
+            this.version = version;
+            this.marketStatistics = marketStatistics;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.cryptoinc.marketplace.book;
+
+import com.cryptoinc.marketplace.domain.OrderType;
+
+import static com.cryptoinc.marketplace.book.LongLongTreeMap.NIL;
+import static com.cryptoinc.marketplace.domain.OrderType.SELL;
+
+/**
+ * Price levels of one side of a book, as price ticks to quantity ticks, walked in display order:
+ * SELL ascending, BUY descending.
+ * Levels live in a {@link LongLongTreeMap}, so updates are O(log L), nothing is boxed and, in steady state,
+ * nothing is allocated. The best levels are read straight off the ordered levels, no sorted copy is made.
+ * The best level, total quantity and notional are kept up to date on every change, reading them is O(1).
+ * Not thread safe, {@link OrderBook} guards it.
+ */
+class OrderBookSide {
+
+    private final boolean ascending;
+    private final LongLongTreeMap levels = new LongLongTreeMap();
+    private long totalQuantity;
+    //sum of price ticks times quantity ticks, as an unsigned 128-bit value
+    private long notionalHigh;
+    private long notionalLow;
+    //valid while there are levels
+    private long bestPrice;
+    private long bestQuantity;
+
+    OrderBookSide(final OrderType orderType) {
+        this.ascending = orderType == SELL;
+    }
+
+    /**
+     * @return the new total quantity of the level
+     */
+    long add(final long price, final long quantity) {
+        final long total = this.levels.addTo(price, quantity);
+        if (total < 0 || this.totalQuantity + quantity < 0) {
+            if (total == quantity) {
+                this.levels.remove(price);
+            } else {
+                this.levels.addTo(price, -quantity);
+            }
+            throw new ArithmeticException("long overflow");
+        }
+        this.totalQuantity += quantity;
+        addNotional(price, quantity);
+        if (total == quantity && (this.levels.size() == 1 || isBetter(price, this.bestPrice))) {
+            this.bestPrice = price;
+            this.bestQuantity = total;
+        } else if (price == this.bestPrice) {
+            this.bestQuantity = total;
+        }
+        return total;
+    }
+
+    /**
+     * @return the remaining quantity of the level, zero when it was dropped, -1 when there was no such level
+     */
+    long remove(final long price, final long quantity) {
+        if (!this.levels.containsKey(price)) {
+            return -1;
+        }
+        //a level is dropped as soon as its total quantity reaches zero
+        final long remaining = this.levels.addTo(price, -quantity);
+        //a level never goes below zero, only what it held is taken off the totals
+        final long removed = remaining < 0 ? quantity + remaining : quantity;
+        this.totalQuantity -= removed;
+        subtractNotional(price, removed);
+        if (remaining <= 0) {
+            this.levels.remove(price);
+            if (price == this.bestPrice && this.levels.size() > 0) {
+                final int best = bestNode();
+                this.bestPrice = this.levels.key(best);
+                this.bestQuantity = this.levels.value(best);
+            }
+            return 0;
+        }
+        if (price == this.bestPrice) {
+            this.bestQuantity = remaining;
+        }
+        return remaining;
+    }
+
+    boolean isEmpty() {
+        return this.levels.size() == 0;
+    }
+
+    /**
+     * @return price of the best level, only meaningful while the side is not empty
+     */
+    long getBestPrice() {
+        return this.bestPrice;
+    }
+
+    long getBestQuantity() {
+        return this.bestQuantity;
+    }
+
+    long getTotalQuantity() {
+        return this.totalQuantity;
+    }
+
+    long getNotionalHigh() {
+        return this.notionalHigh;
+    }
+
+    long getNotionalLow() {
+        return this.notionalLow;
+    }
+
+    private void addNotional(final long price, final long quantity) {
+        final long low = price * quantity;
+        final long previousLow = this.notionalLow;
+        this.notionalLow += low;
+        this.notionalHigh += Math.multiplyHigh(price, quantity) + (Long.compareUnsigned(this.notionalLow, previousLow) < 0 ? 1 : 0);
+    }
+
+    private void subtractNotional(final long price, final long quantity) {
+        final long low = price * quantity;
+        final long previousLow = this.notionalLow;
+        this.notionalLow -= low;
+        this.notionalHigh -= Math.multiplyHigh(price, quantity) + (Long.compareUnsigned(previousLow, low) < 0 ? 1 : 0);
+    }
+
+    void forEachBestLevel(final int maxLevels, final PriceLevelConsumer consumer) {
+        int visited = 0;
+        for (int node = bestNode(); node != NIL && visited < maxLevels; node = nextNode(node), visited++) {
+            consumer.accept(this.levels.key(node), this.levels.value(node));
+        }
+    }
+
+    /**
+     * Walks the levels displayed after {@code price}, which need not be a level itself.
+     */
+    void forEachLevelAfter(final long price, final int maxLevels, final PriceLevelConsumer consumer) {
+        int visited = 0;
+        int node = this.ascending ? this.levels.higherNode(price) : this.levels.lowerNode(price);
+        for (; node != NIL && visited < maxLevels; node = nextNode(node), visited++) {
+            consumer.accept(this.levels.key(node), this.levels.value(node));
+        }
+    }
+
+    int getLevelCount() {
+        return this.levels.size();
+    }
+
+    /**
+     * @return the node of the level at the given rank in display order, {@link LongLongTreeMap#NIL} if there are fewer levels
+     */
+    int levelAt(final int rank) {
+        int node = bestNode();
+        for (int i = 0; i < rank && node != NIL; i++) {
+            node = nextNode(node);
+        }
+        return node;
+    }
+
+    long price(final int node) {
+        return this.levels.key(node);
+    }
+
+    long quantity(final int node) {
+        return this.levels.value(node);
+    }
+
+    /**
+     * @return whether {@code price} is displayed before {@code otherPrice}
+     */
+    boolean isBetter(final long price, final long otherPrice) {
+        return this.ascending ? price < otherPrice : price > otherPrice;
+    }
+
+    private int bestNode() {
+        return this.ascending ? this.levels.firstNode() : this.levels.lastNode();
+    }
+
+    private int nextNode(final int node) {
+        final long price = this.levels.key(node);
+        return this.ascending ? this.levels.higherNode(price) : this.levels.lowerNode(price);
+    }
+
+    @FunctionalInterface
+    interface PriceLevelConsumer {
+        void accept(long price, long quantity);
+    }
+}
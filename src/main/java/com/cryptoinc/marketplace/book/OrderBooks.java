@@ -0,0 +1,197 @@
+package com.cryptoinc.marketplace.book;
+
+import com.cryptoinc.marketplace.domain.CoinType;
+import com.cryptoinc.marketplace.domain.FixedPointScales;
+import com.cryptoinc.marketplace.domain.MarketStatistics;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderSummary;
+import com.cryptoinc.marketplace.domain.OrderType;
+import com.cryptoinc.marketplace.index.IndexedOrder;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.cryptoinc.marketplace.domain.OrderType.SELL;
+import static java.math.RoundingMode.CEILING;
+import static java.math.RoundingMode.FLOOR;
+
+/**
+ * One independent {@link OrderBook} per coin. Each book has its own lock, so updates and reads
+ * of one coin never wait on another coin and different coins can be served by different threads.
+ * The cross-coin summary at snapshot depth is cached too, it is merged again only when a coin snapshot changed.
+ */
+public class OrderBooks {
+
+    private final FixedPointScales scales;
+    private final Map<CoinType, OrderBook> books = new EnumMap<>(CoinType.class);
+    private final OrderBook[] bookArray;
+    //indexed by order type ordinal
+    private final AtomicReferenceArray<MergedSnapshot> mergedSnapshots = new AtomicReferenceArray<>(OrderType.values().length);
+
+    public OrderBooks(final FixedPointScales scales) {
+        this(scales, OrderBook.DEFAULT_SNAPSHOT_DEPTH, SnapshotPolicy.exact());
+    }
+
+    public OrderBooks(final FixedPointScales scales, final int snapshotDepth, final SnapshotPolicy snapshotPolicy) {
+        this.scales = Objects.requireNonNull(scales, "Scales are null.");
+        for (CoinType coinType : CoinType.values()) {
+            this.books.put(coinType, new OrderBook(coinType, scales, snapshotDepth, snapshotPolicy));
+        }
+        this.bookArray = this.books.values().toArray(new OrderBook[0]);
+        for (OrderType orderType : OrderType.values()) {
+            this.mergedSnapshots.set(orderType.ordinal(), new MergedSnapshot(new SummarySnapshot[0], Collections.emptyList()));
+        }
+    }
+
+    public FixedPointScales getScales() {
+        return this.scales;
+    }
+
+    public void add(final IndexedOrder indexedOrder) {
+        final Order order = indexedOrder.getOrder();
+        this.books.get(order.getCoinType()).add(order.getOrderType(), indexedOrder.getPriceTicks(), indexedOrder.getQuantityTicks());
+    }
+
+    public void remove(final IndexedOrder indexedOrder) {
+        final Order order = indexedOrder.getOrder();
+        this.books.get(order.getCoinType()).remove(order.getOrderType(), indexedOrder.getPriceTicks(), indexedOrder.getQuantityTicks());
+    }
+
+    /**
+     * Applies a batch with one lock acquisition per coin book.
+     */
+    public void addAll(final Collection<IndexedOrder> indexedOrders) {
+        partitionByCoin(indexedOrders).forEach((coinType, coinOrders) -> this.books.get(coinType).addAll(coinOrders));
+    }
+
+    public void removeAll(final Collection<IndexedOrder> indexedOrders) {
+        partitionByCoin(indexedOrders).forEach((coinType, coinOrders) -> this.books.get(coinType).removeAll(coinOrders));
+    }
+
+    private static Map<CoinType, List<IndexedOrder>> partitionByCoin(final Collection<IndexedOrder> indexedOrders) {
+        final Map<CoinType, List<IndexedOrder>> ordersByCoin = new EnumMap<>(CoinType.class);
+        for (IndexedOrder indexedOrder : indexedOrders) {
+            ordersByCoin.computeIfAbsent(indexedOrder.getOrder().getCoinType(), coinType -> new ArrayList<>())
+                    .add(indexedOrder);
+        }
+        return ordersByCoin;
+    }
+
+    /**
+     * @throws IllegalArgumentException when the price or quantity has more decimals than the coin scale
+     */
+    public IndexedOrder index(final long orderId, final Order order) {
+        final CoinType coinType = order.getCoinType();
+        return new IndexedOrder(
+                orderId,
+                order,
+                this.scales.toPriceTicks(coinType, order.getPrice()),
+                this.scales.toQuantityTicks(coinType, order.getQuantity())
+        );
+    }
+
+    public OrderBook getOrderBook(final CoinType coinType) {
+        return this.books.get(coinType);
+    }
+
+    public List<OrderSummary> getOrderSummary(final CoinType coinType, final OrderType orderType, final int maxLevels) {
+        return this.books.get(coinType).getOrderSummary(orderType, maxLevels);
+    }
+
+    /**
+     * @throws IllegalArgumentException when the price has more decimals than the coin scale
+     */
+    public List<OrderSummary> getOrderSummaryAfter(
+            final CoinType coinType,
+            final OrderType orderType,
+            final BigDecimal afterPrice,
+            final int limit) {
+        //a price between two ticks is rounded back against the paging direction, so the page still starts
+        //at the first tick past it
+        final long afterTicks = this.scales.toPriceTicks(coinType, afterPrice, orderType == SELL ? FLOOR : CEILING);
+        return this.books.get(coinType).getOrderSummaryAfter(orderType, afterTicks, limit);
+    }
+
+    public MarketStatistics getMarketStatistics(final CoinType coinType) {
+        return this.books.get(coinType).getMarketStatistics();
+    }
+
+    public SummarySnapshot getSummarySnapshot(final CoinType coinType, final OrderType orderType) {
+        return this.books.get(coinType).getSummarySnapshot(orderType);
+    }
+
+    public List<OrderSummary> getOrderSummary(final OrderType orderType, final int maxLevels) {
+        if (maxLevels == this.bookArray[0].getSnapshotDepth()) {
+            return getMergedSnapshot(orderType);
+        }
+        return merge(orderType, maxLevels);
+    }
+
+    private List<OrderSummary> getMergedSnapshot(final OrderType orderType) {
+        final MergedSnapshot merged = this.mergedSnapshots.get(orderType.ordinal());
+        if (merged.parts.length == this.bookArray.length) {
+            boolean unchanged = true;
+            for (int i = 0; i < this.bookArray.length && unchanged; i++) {
+                unchanged = this.bookArray[i].getSummarySnapshot(orderType) == merged.parts[i];
+            }
+            if (unchanged) {
+                return merged.orderSummaryList;
+            }
+        }
+
+        //the parts are taken before merging, a coin changing meanwhile only makes the next read merge again
+        final SummarySnapshot[] parts = new SummarySnapshot[this.bookArray.length];
+        for (int i = 0; i < this.bookArray.length; i++) {
+            parts[i] = this.bookArray[i].getSummarySnapshot(orderType);
+        }
+        final List<OrderSummary> orderSummaryList = Collections.unmodifiableList(merge(orderType, parts));
+        this.mergedSnapshots.set(orderType.ordinal(), new MergedSnapshot(parts, orderSummaryList));
+        return orderSummaryList;
+    }
+
+    private List<OrderSummary> merge(final OrderType orderType, final SummarySnapshot[] parts) {
+        final NavigableMap<BigDecimal, BigDecimal> merged = new TreeMap<>(
+                orderType == SELL ? Comparator.<BigDecimal>naturalOrder() : Comparator.<BigDecimal>reverseOrder());
+        for (SummarySnapshot part : parts) {
+            for (OrderSummary orderSummary : part.getOrderSummary()) {
+                merged.merge(orderSummary.getPrice(), orderSummary.getQuantity(), BigDecimal::add);
+            }
+        }
+        return toOrderSummaryList(merged, this.bookArray[0].getSnapshotDepth());
+    }
+
+    private List<OrderSummary> merge(final OrderType orderType, final int maxLevels) {
+        //the best levels across coins are among the best levels of each coin, levels of the same price are merged
+        final NavigableMap<BigDecimal, BigDecimal> merged = new TreeMap<>(
+                orderType == SELL ? Comparator.<BigDecimal>naturalOrder() : Comparator.<BigDecimal>reverseOrder());
+        for (OrderBook book : this.books.values()) {
+            for (OrderSummary orderSummary : book.getOrderSummary(orderType, maxLevels)) {
+                merged.merge(orderSummary.getPrice(), orderSummary.getQuantity(), BigDecimal::add);
+            }
+        }
+        return toOrderSummaryList(merged, maxLevels);
+    }
+
+    private static List<OrderSummary> toOrderSummaryList(final NavigableMap<BigDecimal, BigDecimal> merged, final int maxLevels) {
+        final List<OrderSummary> orderSummaryList = new ArrayList<>(Math.min(maxLevels, merged.size()));
+        for (Map.Entry<BigDecimal, BigDecimal> level : merged.entrySet()) {
+            if (orderSummaryList.size() == maxLevels) {
+                break;
+            }
+            orderSummaryList.add(new OrderSummary(level.getValue(), level.getKey()));
+        }
+        return orderSummaryList;
+    }
+
+    private static final class MergedSnapshot {
+
+        private final SummarySnapshot[] parts;
+        private final List<OrderSummary> orderSummaryList;
+
+        private MergedSnapshot(final SummarySnapshot[] parts, final List<OrderSummary> orderSummaryList) {
+            this.parts = parts;
+            this.orderSummaryList = orderSummaryList;
+        }
+    }
+}
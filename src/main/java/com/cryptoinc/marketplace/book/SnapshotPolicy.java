@@ -0,0 +1,62 @@
+package com.cryptoinc.marketplace.book;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * How stale a cached top-N summary may be. By default summaries are exact: a read after a change inside the
+ * visible window rebuilds it. With coalescing, a burst of writes is folded into one rebuild: a stale summary
+ * is served while the side keeps changing within the coalescing window, but never once it is older than the
+ * max staleness.
+ */
+public final class SnapshotPolicy {
+
+    private static final SnapshotPolicy EXACT = new SnapshotPolicy(0, 0);
+
+    private final long coalescingWindowNanos;
+    private final long maxStalenessNanos;
+
+    private SnapshotPolicy(final long coalescingWindowNanos, final long maxStalenessNanos) {
+        this.coalescingWindowNanos = coalescingWindowNanos;
+        this.maxStalenessNanos = maxStalenessNanos;
+    }
+
+    public static SnapshotPolicy exact() {
+        return EXACT;
+    }
+
+    public static SnapshotPolicy coalescing(final Duration coalescingWindow, final Duration maxStaleness) {
+        Objects.requireNonNull(coalescingWindow, "Coalescing window is null.");
+        Objects.requireNonNull(maxStaleness, "Max staleness is null.");
+        if (coalescingWindow.isNegative() || maxStaleness.isNegative()) {
+            throw new IllegalArgumentException("Bad snapshot policy.");
+        }
+        return new SnapshotPolicy(coalescingWindow.toNanos(), maxStaleness.toNanos());
+    }
+
+    public long getCoalescingWindowNanos() {
+        return this.coalescingWindowNanos;
+    }
+
+    public long getMaxStalenessNanos() {
+        return this.maxStalenessNanos;
+    }
+
+    public boolean isExact() {
+        return this.coalescingWindowNanos == 0 || this.maxStalenessNanos == 0;
+    }
+
+    boolean canServeStale(final long builtAtNanos, final long changedAtNanos, final long nowNanos) {
+        return !isExact()
+                && nowNanos - changedAtNanos < this.coalescingWindowNanos
+                && nowNanos - builtAtNanos < this.maxStalenessNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "SnapshotPolicy{" +
+                "coalescingWindowNanos=" + coalescingWindowNanos +
+                ", maxStalenessNanos=" + maxStalenessNanos +
+                '}';
+    }
+}
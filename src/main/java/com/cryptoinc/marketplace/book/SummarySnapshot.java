@@ -0,0 +1,61 @@
+package com.cryptoinc.marketplace.book;
+
+import com.cryptoinc.marketplace.domain.OrderSummary;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable best levels of one book side, tagged with the side version they were built from.
+ * The version only moves when a change touches a level inside or at the edge of the window.
+ */
+public final class SummarySnapshot {
+
+    private final long version;
+    private final List<OrderSummary> orderSummaryList;
+    //worst price in the window, changes worse than it do not show
+    private final long edgePrice;
+    private final boolean full;
+    private final long builtAtNanos;
+
+    SummarySnapshot(
+            final long version,
+            final List<OrderSummary> orderSummaryList,
+            final long edgePrice,
+            final boolean full,
+            final long builtAtNanos) {
+        this.version = version;
+        this.orderSummaryList = Collections.unmodifiableList(orderSummaryList);
+        this.edgePrice = edgePrice;
+        this.full = full;
+        this.builtAtNanos = builtAtNanos;
+    }
+
+    public long getVersion() {
+        return this.version;
+    }
+
+    public List<OrderSummary> getOrderSummary() {
+        return this.orderSummaryList;
+    }
+
+    long getEdgePrice() {
+        return this.edgePrice;
+    }
+
+    boolean isFull() {
+        return this.full;
+    }
+
+    long getBuiltAtNanos() {
+        return this.builtAtNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "SummarySnapshot{" +
+                "version=" + version +
+                ", orderSummaryList=" + orderSummaryList +
+                '}';
+    }
+}
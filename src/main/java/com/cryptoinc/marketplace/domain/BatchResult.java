@@ -0,0 +1,61 @@
+package com.cryptoinc.marketplace.domain;
+
+import java.util.Arrays;
+
+/**
+ * Outcome of a batch, position by position in the order the batch was given:
+ * either the id of the accepted order or the reason it was rejected.
+ */
+public class BatchResult {
+    private final long[] orderIds;
+    private final String[] rejections;
+
+    /**
+     * @param orderIds   order id per position, ignored where there is a rejection
+     * @param rejections rejection reason per position, null for accepted positions
+     */
+    public BatchResult(final long[] orderIds, final String[] rejections) {
+        if (orderIds.length != rejections.length) {
+            throw new IllegalArgumentException("Batch sizes differ.");
+        }
+        this.orderIds = orderIds;
+        this.rejections = rejections;
+    }
+
+    public int size() {
+        return orderIds.length;
+    }
+
+    public boolean isAccepted(final int position) {
+        return rejections[position] == null;
+    }
+
+    public long getOrderId(final int position) {
+        if (!isAccepted(position)) {
+            throw new IllegalStateException("Order at " + position + " was rejected.");
+        }
+        return orderIds[position];
+    }
+
+    public String getRejection(final int position) {
+        return rejections[position];
+    }
+
+    public int getAcceptedCount() {
+        int accepted = 0;
+        for (String rejection : rejections) {
+            if (rejection == null) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "orderIds=" + Arrays.toString(orderIds) +
+                ", rejections=" + Arrays.toString(rejections) +
+                '}';
+    }
+}
@@ -0,0 +1,103 @@
+package com.cryptoinc.marketplace.domain;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Item of a board update feed: first a snapshot of the best levels, then one update per changed level
+ * carrying the level's new total quantity. A level with zero quantity is gone from the window: cancelled, or pushed
+ * out by a better level. A level sliding into the window arrives as an update too, so applying the updates to the
+ * snapshot keeps exactly the best levels.
+ */
+public class BoardUpdate {
+
+    public enum Kind {
+        SNAPSHOT, LEVEL
+    }
+
+    private final Kind kind;
+    private final CoinType coinType;
+    private final OrderType orderType;
+    private final List<OrderSummary> levels;
+    private final OrderSummary level;
+
+    private BoardUpdate(
+            final Kind kind,
+            final CoinType coinType,
+            final OrderType orderType,
+            final List<OrderSummary> levels,
+            final OrderSummary level) {
+        this.kind = kind;
+        this.coinType = coinType;
+        this.orderType = orderType;
+        this.levels = levels;
+        this.level = level;
+    }
+
+    public static BoardUpdate snapshot(final CoinType coinType, final OrderType orderType, final List<OrderSummary> levels) {
+        return new BoardUpdate(Kind.SNAPSHOT, coinType, orderType, List.copyOf(levels), null);
+    }
+
+    public static BoardUpdate level(final CoinType coinType, final OrderType orderType, final BigDecimal quantity, final BigDecimal price) {
+        return new BoardUpdate(Kind.LEVEL, coinType, orderType, List.of(), new OrderSummary(quantity, price));
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public CoinType getCoinType() {
+        return coinType;
+    }
+
+    public OrderType getOrderType() {
+        return orderType;
+    }
+
+    /**
+     * @return the best levels for a {@link Kind#SNAPSHOT}, empty otherwise
+     */
+    public List<OrderSummary> getLevels() {
+        return levels;
+    }
+
+    /**
+     * @return the changed level for a {@link Kind#LEVEL}, null otherwise
+     */
+    public OrderSummary getLevel() {
+        return level;
+    }
+
+    public boolean isRemoved() {
+        return kind == Kind.LEVEL && level.getQuantity().signum() == 0;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BoardUpdate that = (BoardUpdate) o;
+        return kind == that.kind &&
+                coinType == that.coinType &&
+                orderType == that.orderType &&
+                Objects.equals(levels, that.levels) &&
+                Objects.equals(level, that.level);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, coinType, orderType, levels, level);
+    }
+
+    @Override
+    public String toString() {
+        return "BoardUpdate{" +
+                "kind=" + kind +
+                ", coinType=" + coinType +
+                ", orderType=" + orderType +
+                ", levels=" + levels +
+                ", level=" + level +
+                '}';
+    }
+}
@@ -0,0 +1,111 @@
+package com.cryptoinc.marketplace.domain;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Number of decimals used per coin to hold prices and quantities as scaled {@code long} ticks.
+ * Conversions are exact in both directions: a value with more decimals than its coin allows is rejected,
+ * never rounded, and ticks convert back to a value equal in value to the one they came from, though not in scale:
+ * trailing zeros are stripped, so 13.60 comes back as 13.6.
+ */
+public class FixedPointScales {
+
+    public static final int DEFAULT_SCALE = 8;
+    private static final BigInteger UNSIGNED_LONG_MASK = BigInteger.ONE.shiftLeft(Long.SIZE).subtract(BigInteger.ONE);
+
+    private final Map<CoinType, Integer> priceScales = new EnumMap<>(CoinType.class);
+    private final Map<CoinType, Integer> quantityScales = new EnumMap<>(CoinType.class);
+
+    private FixedPointScales() {
+        for (CoinType coinType : CoinType.values()) {
+            this.priceScales.put(coinType, DEFAULT_SCALE);
+            this.quantityScales.put(coinType, DEFAULT_SCALE);
+        }
+    }
+
+    public static FixedPointScales defaultScales() {
+        return new FixedPointScales();
+    }
+
+    public FixedPointScales withScales(final CoinType coinType, final int priceScale, final int quantityScale) {
+        Objects.requireNonNull(coinType, "Coin type is null.");
+        if (priceScale < 0 || quantityScale < 0) {
+            throw new IllegalArgumentException("Bad scale.");
+        }
+
+        final FixedPointScales scales = new FixedPointScales();
+        scales.priceScales.putAll(this.priceScales);
+        scales.quantityScales.putAll(this.quantityScales);
+        scales.priceScales.put(coinType, priceScale);
+        scales.quantityScales.put(coinType, quantityScale);
+        return scales;
+    }
+
+    public int getPriceScale(final CoinType coinType) {
+        return this.priceScales.get(coinType);
+    }
+
+    public int getQuantityScale(final CoinType coinType) {
+        return this.quantityScales.get(coinType);
+    }
+
+    public long toPriceTicks(final CoinType coinType, final BigDecimal price) {
+        return toTicks(price, getPriceScale(coinType), "Bad price.");
+    }
+
+    /**
+     * Rounds a price with more decimals than the coin scale rather than rejecting it, e.g. for a paging cursor.
+     */
+    public long toPriceTicks(final CoinType coinType, final BigDecimal price, final RoundingMode roundingMode) {
+        try {
+            return price.setScale(getPriceScale(coinType), roundingMode).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Bad price.", e);
+        }
+    }
+
+    public long toQuantityTicks(final CoinType coinType, final BigDecimal quantity) {
+        return toTicks(quantity, getQuantityScale(coinType), "Bad quantity.");
+    }
+
+    public BigDecimal fromPriceTicks(final CoinType coinType, final long priceTicks) {
+        return fromTicks(priceTicks, getPriceScale(coinType));
+    }
+
+    public BigDecimal fromQuantityTicks(final CoinType coinType, final long quantityTicks) {
+        return fromTicks(quantityTicks, getQuantityScale(coinType));
+    }
+
+    /**
+     * @param notionalHigh high 64 bits of the notional in ticks, a price in ticks times a quantity in ticks,
+     *                     summed as an unsigned 128-bit value
+     * @param notionalLow  low 64 bits of the notional in ticks
+     */
+    public BigDecimal fromNotionalTicks(final CoinType coinType, final long notionalHigh, final long notionalLow) {
+        final BigInteger ticks = BigInteger.valueOf(notionalHigh).shiftLeft(Long.SIZE)
+                .or(BigInteger.valueOf(notionalLow).and(UNSIGNED_LONG_MASK));
+        final BigDecimal value = new BigDecimal(ticks, getPriceScale(coinType) + getQuantityScale(coinType)).stripTrailingZeros();
+        return value.scale() < 0 ? value.setScale(0) : value;
+    }
+
+    private static long toTicks(final BigDecimal value, final int scale, final String errorMessage) {
+        try {
+            return value.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(errorMessage, e);
+        }
+    }
+
+    /**
+     * Values come back without trailing zeros, e.g. 13.6 rather than 13.60000000.
+     */
+    private static BigDecimal fromTicks(final long ticks, final int scale) {
+        final BigDecimal value = BigDecimal.valueOf(ticks, scale).stripTrailingZeros();
+        return value.scale() < 0 ? value.setScale(0) : value;
+    }
+}
@@ -0,0 +1,77 @@
+package com.cryptoinc.marketplace.domain;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Top of book and resting totals of one coin: the {@link SideStatistics} of both sides and the spread,
+ * best ask minus best bid.
+ */
+public class MarketStatistics {
+
+    private final CoinType coinType;
+    private final SideStatistics buy;
+    private final SideStatistics sell;
+    private final BigDecimal spread;
+
+    public MarketStatistics(final CoinType coinType, final SideStatistics buy, final SideStatistics sell) {
+        this.coinType = Objects.requireNonNull(coinType, "Coin type is null.");
+        this.buy = Objects.requireNonNull(buy, "Buy statistics are null.");
+        this.sell = Objects.requireNonNull(sell, "Sell statistics are null.");
+        this.spread = buy.isEmpty() || sell.isEmpty() ? null : sell.getBestPrice().subtract(buy.getBestPrice());
+    }
+
+    public CoinType getCoinType() {
+        return coinType;
+    }
+
+    public SideStatistics getSide(final OrderType orderType) {
+        return orderType == OrderType.BUY ? buy : sell;
+    }
+
+    /**
+     * @return the highest buy price, null when no buy order rests
+     */
+    public BigDecimal getBestBid() {
+        return buy.getBestPrice();
+    }
+
+    /**
+     * @return the lowest sell price, null when no sell order rests
+     */
+    public BigDecimal getBestAsk() {
+        return sell.getBestPrice();
+    }
+
+    /**
+     * @return best ask minus best bid, negative when the book is crossed, null unless both sides rest
+     */
+    public BigDecimal getSpread() {
+        return spread;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MarketStatistics that = (MarketStatistics) o;
+        return coinType == that.coinType &&
+                buy.equals(that.buy) &&
+                sell.equals(that.sell);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(coinType, buy, sell);
+    }
+
+    @Override
+    public String toString() {
+        return "MarketStatistics{" +
+                "coinType=" + coinType +
+                ", buy=" + buy +
+                ", sell=" + sell +
+                ", spread=" + spread +
+                '}';
+    }
+}
@@ -0,0 +1,105 @@
+package com.cryptoinc.marketplace.domain;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Resting orders of one coin and side: the best level, total quantity, notional (quantity times price),
+ * number of orders and number of levels. The best price and quantity are null when the side is empty.
+ */
+public class SideStatistics {
+
+    public static final SideStatistics EMPTY = new SideStatistics(null, null, BigDecimal.ZERO, BigDecimal.ZERO, 0, 0);
+
+    private final BigDecimal bestPrice;
+    private final BigDecimal bestQuantity;
+    private final BigDecimal totalQuantity;
+    private final BigDecimal notional;
+    private final int orderCount;
+    private final int levelCount;
+
+    public SideStatistics(
+            final BigDecimal bestPrice,
+            final BigDecimal bestQuantity,
+            final BigDecimal totalQuantity,
+            final BigDecimal notional,
+            final int orderCount,
+            final int levelCount) {
+        this.bestPrice = bestPrice;
+        this.bestQuantity = bestQuantity;
+        this.totalQuantity = Objects.requireNonNull(totalQuantity, "Total quantity is null.");
+        this.notional = Objects.requireNonNull(notional, "Notional is null.");
+        this.orderCount = orderCount;
+        this.levelCount = levelCount;
+    }
+
+    public boolean isEmpty() {
+        return bestPrice == null;
+    }
+
+    public BigDecimal getBestPrice() {
+        return bestPrice;
+    }
+
+    public BigDecimal getBestQuantity() {
+        return bestQuantity;
+    }
+
+    public BigDecimal getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    public BigDecimal getNotional() {
+        return notional;
+    }
+
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    public int getLevelCount() {
+        return levelCount;
+    }
+
+    /**
+     * Prices, quantities and notionals are compared by value, 1.0 equals 1.00.
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SideStatistics that = (SideStatistics) o;
+        return orderCount == that.orderCount &&
+                levelCount == that.levelCount &&
+                isSameValue(bestPrice, that.bestPrice) &&
+                isSameValue(bestQuantity, that.bestQuantity) &&
+                totalQuantity.compareTo(that.totalQuantity) == 0 &&
+                notional.compareTo(that.notional) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(orderCount, levelCount, stripped(bestPrice), stripped(bestQuantity),
+                            totalQuantity.stripTrailingZeros(), notional.stripTrailingZeros());
+    }
+
+    @Override
+    public String toString() {
+        return "SideStatistics{" +
+                "bestPrice=" + bestPrice +
+                ", bestQuantity=" + bestQuantity +
+                ", totalQuantity=" + totalQuantity +
+                ", notional=" + notional +
+                ", orderCount=" + orderCount +
+                ", levelCount=" + levelCount +
+                '}';
+    }
+
+    private static boolean isSameValue(final BigDecimal value, final BigDecimal otherValue) {
+        return value == null ? otherValue == null : otherValue != null && value.compareTo(otherValue) == 0;
+    }
+
+    private static BigDecimal stripped(final BigDecimal value) {
+        return value == null ? null : value.stripTrailingZeros();
+    }
+}
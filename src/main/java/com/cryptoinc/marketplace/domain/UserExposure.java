@@ -0,0 +1,75 @@
+package com.cryptoinc.marketplace.domain;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Open orders of one user in one coin: number of orders, total quantity and notional (quantity times price) per side.
+ */
+public class UserExposure {
+
+    public static final UserExposure NONE = new UserExposure(0, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+
+    private final int orderCount;
+    private final BigDecimal buyQuantity;
+    private final BigDecimal buyNotional;
+    private final BigDecimal sellQuantity;
+    private final BigDecimal sellNotional;
+
+    public UserExposure(
+            final int orderCount,
+            final BigDecimal buyQuantity,
+            final BigDecimal buyNotional,
+            final BigDecimal sellQuantity,
+            final BigDecimal sellNotional) {
+        this.orderCount = orderCount;
+        this.buyQuantity = buyQuantity;
+        this.buyNotional = buyNotional;
+        this.sellQuantity = sellQuantity;
+        this.sellNotional = sellNotional;
+    }
+
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    public BigDecimal getQuantity(final OrderType orderType) {
+        return orderType == OrderType.BUY ? buyQuantity : sellQuantity;
+    }
+
+    public BigDecimal getNotional(final OrderType orderType) {
+        return orderType == OrderType.BUY ? buyNotional : sellNotional;
+    }
+
+    /**
+     * Quantities and notionals are compared by value, 1.0 equals 1.00.
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        UserExposure that = (UserExposure) o;
+        return orderCount == that.orderCount &&
+                buyQuantity.compareTo(that.buyQuantity) == 0 &&
+                buyNotional.compareTo(that.buyNotional) == 0 &&
+                sellQuantity.compareTo(that.sellQuantity) == 0 &&
+                sellNotional.compareTo(that.sellNotional) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(orderCount, buyQuantity.stripTrailingZeros(), buyNotional.stripTrailingZeros(),
+                            sellQuantity.stripTrailingZeros(), sellNotional.stripTrailingZeros());
+    }
+
+    @Override
+    public String toString() {
+        return "UserExposure{" +
+                "orderCount=" + orderCount +
+                ", buyQuantity=" + buyQuantity +
+                ", buyNotional=" + buyNotional +
+                ", sellQuantity=" + sellQuantity +
+                ", sellNotional=" + sellNotional +
+                '}';
+    }
+}
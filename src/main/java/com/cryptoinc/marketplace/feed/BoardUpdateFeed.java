@@ -0,0 +1,85 @@
+package com.cryptoinc.marketplace.feed;
+
+import com.cryptoinc.marketplace.book.LevelListener;
+import com.cryptoinc.marketplace.book.OrderBook;
+import com.cryptoinc.marketplace.domain.BoardUpdate;
+import com.cryptoinc.marketplace.domain.CoinType;
+import com.cryptoinc.marketplace.domain.OrderType;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+
+/**
+ * Publishes the best levels of one book side: each subscriber first gets a snapshot, then level updates.
+ * The feed listens to the book only while it has subscribers. Writers only record the latest quantity per price
+ * in every subscription, delivery happens on the executor at the pace each subscriber requests,
+ * so a slow subscriber gets conflated updates instead of stalling the book.
+ */
+public class BoardUpdateFeed implements Flow.Publisher<BoardUpdate>, LevelListener {
+
+    private final OrderBook orderBook;
+    private final OrderType orderType;
+    private final int depth;
+    private final Executor executor;
+    private final List<LevelSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public BoardUpdateFeed(final OrderBook orderBook, final OrderType orderType, final int depth, final Executor executor) {
+        this.orderBook = orderBook;
+        this.orderType = orderType;
+        this.depth = depth;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super BoardUpdate> subscriber) {
+        Objects.requireNonNull(subscriber, "Subscriber is null.");
+
+        final LevelSubscription subscription;
+        //the snapshot and the start of the updates must not miss or repeat any change
+        synchronized (this.orderBook) {
+            subscription = new LevelSubscription(this, subscriber, this.executor, BoardUpdate.snapshot(
+                    this.orderBook.getCoinType(),
+                    this.orderType,
+                    this.orderBook.getOrderSummary(this.orderType, this.depth)
+            ));
+            if (this.subscriptions.isEmpty()) {
+                this.orderBook.addLevelListener(this.orderType, this);
+            }
+            this.subscriptions.add(subscription);
+        }
+        subscriber.onSubscribe(subscription);
+    }
+
+    @Override
+    public int getDepth() {
+        return this.depth;
+    }
+
+    @Override
+    public void onLevelChanged(final CoinType coinType, final OrderType orderType, final long price, final long quantity) {
+        for (LevelSubscription subscription : this.subscriptions) {
+            subscription.levelChanged(price, quantity);
+        }
+    }
+
+    BoardUpdate toBoardUpdate(final long price, final long quantity) {
+        final CoinType coinType = this.orderBook.getCoinType();
+        return BoardUpdate.level(
+                coinType,
+                this.orderType,
+                this.orderBook.getScales().fromQuantityTicks(coinType, quantity),
+                this.orderBook.getScales().fromPriceTicks(coinType, price)
+        );
+    }
+
+    void unsubscribe(final LevelSubscription subscription) {
+        synchronized (this.orderBook) {
+            if (this.subscriptions.remove(subscription) && this.subscriptions.isEmpty()) {
+                this.orderBook.removeLevelListener(this.orderType, this);
+            }
+        }
+    }
+}
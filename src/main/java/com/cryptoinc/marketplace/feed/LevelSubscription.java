@@ -0,0 +1,126 @@
+package com.cryptoinc.marketplace.feed;
+
+import com.cryptoinc.marketplace.domain.BoardUpdate;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One subscriber of a {@link BoardUpdateFeed}. Pending changes are conflated per price, only the latest quantity
+ * of a level is kept until the subscriber asks for more, so memory is bounded by the levels that changed
+ * and the book never waits for the subscriber. A subscriber that throws is cancelled, like one that cancels itself.
+ */
+class LevelSubscription implements Flow.Subscription {
+
+    private final BoardUpdateFeed feed;
+    private final Flow.Subscriber<? super BoardUpdate> subscriber;
+    private final Executor executor;
+    private final Map<Long, Long> pendingLevels = new ConcurrentHashMap<>();
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger drainRequests = new AtomicInteger();
+
+    private volatile BoardUpdate snapshot;
+    //signalled by the drain, after which the subscription is cancelled
+    private volatile Throwable error;
+    private volatile boolean cancelled;
+
+    LevelSubscription(
+            final BoardUpdateFeed feed,
+            final Flow.Subscriber<? super BoardUpdate> subscriber,
+            final Executor executor,
+            final BoardUpdate snapshot) {
+        this.feed = feed;
+        this.subscriber = subscriber;
+        this.executor = executor;
+        this.snapshot = snapshot;
+    }
+
+    void levelChanged(final long price, final long quantity) {
+        if (this.cancelled) {
+            return;
+        }
+        this.pendingLevels.put(price, quantity);
+        scheduleDrain();
+    }
+
+    @Override
+    public void request(final long n) {
+        if (n <= 0) {
+            this.error = new IllegalArgumentException("Non-positive request: " + n);
+            scheduleDrain();
+            return;
+        }
+        this.demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+        scheduleDrain();
+    }
+
+    @Override
+    public void cancel() {
+        if (!this.cancelled) {
+            this.cancelled = true;
+            this.feed.unsubscribe(this);
+            this.pendingLevels.clear();
+        }
+    }
+
+    private void scheduleDrain() {
+        if (this.drainRequests.getAndIncrement() == 0) {
+            this.executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Runs on one executor thread at a time, so the subscriber is never called concurrently.
+     */
+    private void drain() {
+        int missed = 1;
+        do {
+            try {
+                deliverPending();
+            } catch (RuntimeException e) {
+                //the subscriber broke the contract, it gets nothing more and the next drain can still run
+                cancel();
+            }
+            missed = this.drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void deliverPending() {
+        if (this.cancelled) {
+            return;
+        }
+        final Throwable failure = this.error;
+        if (failure != null) {
+            cancel();
+            this.subscriber.onError(failure);
+            return;
+        }
+        if (this.demand.get() == 0) {
+            return;
+        }
+
+        final BoardUpdate pendingSnapshot = this.snapshot;
+        if (pendingSnapshot != null) {
+            this.snapshot = null;
+            this.demand.decrementAndGet();
+            this.subscriber.onNext(pendingSnapshot);
+        }
+
+        final Iterator<Map.Entry<Long, Long>> levels = this.pendingLevels.entrySet().iterator();
+        while (levels.hasNext() && this.demand.get() > 0 && !this.cancelled) {
+            final Map.Entry<Long, Long> level = levels.next();
+            final long price = level.getKey();
+            final long quantity = level.getValue();
+            //a newer quantity arriving meanwhile stays pending for the next round
+            if (this.pendingLevels.remove(price, quantity)) {
+                this.demand.decrementAndGet();
+                this.subscriber.onNext(this.feed.toBoardUpdate(price, quantity));
+            }
+        }
+    }
+}
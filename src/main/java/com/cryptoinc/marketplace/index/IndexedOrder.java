@@ -0,0 +1,37 @@
+package com.cryptoinc.marketplace.index;
+
+import com.cryptoinc.marketplace.domain.Order;
+
+/**
+ * A live order with its board assigned id and, for incremental boards, its price and quantity in fixed-point ticks,
+ * so a cancel can take it off its price level without converting again.
+ */
+public class IndexedOrder {
+    private final long orderId;
+    private final Order order;
+    private final long priceTicks;
+    private final long quantityTicks;
+
+    public IndexedOrder(final long orderId, final Order order, final long priceTicks, final long quantityTicks) {
+        this.orderId = orderId;
+        this.order = order;
+        this.priceTicks = priceTicks;
+        this.quantityTicks = quantityTicks;
+    }
+
+    public long getOrderId() {
+        return orderId;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public long getPriceTicks() {
+        return priceTicks;
+    }
+
+    public long getQuantityTicks() {
+        return quantityTicks;
+    }
+}
@@ -0,0 +1,155 @@
+package com.cryptoinc.marketplace.index;
+
+import com.cryptoinc.marketplace.domain.CoinType;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.UserExposure;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live orders by board assigned id, with a reverse lookup so a cancel by value can still find one of the ids
+ * placed for that value, and a secondary index by user holding each user's open exposure per coin.
+ * All operations are constant time, except removing every order of a user, which is linear in that user's orders.
+ * <p>
+ * An order enters its user's entry before it can be found by id and leaves it only after it was removed by id,
+ * so whoever wins the removal by id owns the order and a user's entry always covers the user's live orders.
+ */
+public class OrderIndex {
+
+    private final AtomicLong lastOrderId = new AtomicLong();
+    private final Map<Long, IndexedOrder> ordersById = new ConcurrentHashMap<>();
+    private final Map<Order, Deque<Long>> idsByOrder = new ConcurrentHashMap<>();
+    private final Map<UUID, UserOrders> ordersByUser = new ConcurrentHashMap<>();
+
+    public long nextOrderId() {
+        return this.lastOrderId.incrementAndGet();
+    }
+
+    public boolean isIssued(final long orderId) {
+        return orderId > 0 && orderId <= this.lastOrderId.get();
+    }
+
+    public void add(final IndexedOrder indexedOrder) {
+        final UUID userId = indexedOrder.getOrder().getUserId();
+        if (userId != null) {
+            this.ordersByUser.compute(userId, (key, userOrders) -> {
+                final UserOrders orders = userOrders == null ? new UserOrders() : userOrders;
+                orders.add(indexedOrder);
+                return orders;
+            });
+        }
+        this.ordersById.put(indexedOrder.getOrderId(), indexedOrder);
+        this.idsByOrder.compute(indexedOrder.getOrder(), (order, ids) -> {
+            final Deque<Long> orderIds = ids == null ? new ArrayDeque<>(1) : ids;
+            orderIds.addLast(indexedOrder.getOrderId());
+            return orderIds;
+        });
+    }
+
+    public IndexedOrder get(final long orderId) {
+        return this.ordersById.get(orderId);
+    }
+
+    /**
+     * @return the removed order, null when no live order has this id
+     */
+    public IndexedOrder remove(final long orderId) {
+        final IndexedOrder indexedOrder = this.ordersById.remove(orderId);
+        if (indexedOrder != null) {
+            this.idsByOrder.computeIfPresent(indexedOrder.getOrder(), (order, ids) -> {
+                ids.remove(orderId);
+                return ids.isEmpty() ? null : ids;
+            });
+            removeFromUser(indexedOrder);
+        }
+        return indexedOrder;
+    }
+
+    /**
+     * Removes the oldest live order equal to the given one.
+     *
+     * @return the removed order, null when no live order is equal to it
+     */
+    public IndexedOrder remove(final Order order) {
+        final long[] claimedId = new long[1];
+        while (true) {
+            claimedId[0] = 0;
+            //the deque is only ever touched inside compute calls, which hold the key's lock
+            this.idsByOrder.computeIfPresent(order, (key, ids) -> {
+                claimedId[0] = ids.pollFirst();
+                return ids.isEmpty() ? null : ids;
+            });
+            if (claimedId[0] == 0) {
+                return null;
+            }
+            //a concurrent cancel by id may have won, then the next id is tried
+            final IndexedOrder indexedOrder = this.ordersById.remove(claimedId[0]);
+            if (indexedOrder != null) {
+                removeFromUser(indexedOrder);
+                return indexedOrder;
+            }
+        }
+    }
+
+    /**
+     * Removes every live order of the user, orders placed concurrently may or may not be among them.
+     *
+     * @return the removed orders
+     */
+    public List<IndexedOrder> removeAll(final UUID userId) {
+        final long[][] orderIds = new long[1][];
+        this.ordersByUser.computeIfPresent(userId, (key, userOrders) -> {
+            orderIds[0] = userOrders.getOrderIds();
+            return userOrders;
+        });
+        if (orderIds[0] == null) {
+            return Collections.emptyList();
+        }
+
+        final List<IndexedOrder> removed = new ArrayList<>(orderIds[0].length);
+        for (long orderId : orderIds[0]) {
+            //a concurrent cancel by id may have won, that order is not ours to remove
+            final IndexedOrder indexedOrder = this.ordersById.remove(orderId);
+            if (indexedOrder != null) {
+                this.idsByOrder.computeIfPresent(indexedOrder.getOrder(), (order, ids) -> {
+                    ids.remove(orderId);
+                    return ids.isEmpty() ? null : ids;
+                });
+                removed.add(indexedOrder);
+            }
+        }
+        this.ordersByUser.computeIfPresent(userId, (key, userOrders) -> {
+            removed.forEach(userOrders::remove);
+            return userOrders.isEmpty() ? null : userOrders;
+        });
+        return removed;
+    }
+
+    /**
+     * @return the open orders of the user in the coin, {@link UserExposure#NONE} when there are none
+     */
+    public UserExposure getExposure(final UUID userId, final CoinType coinType) {
+        final UserExposure[] exposure = {UserExposure.NONE};
+        this.ordersByUser.computeIfPresent(userId, (key, userOrders) -> {
+            exposure[0] = userOrders.getExposure(coinType);
+            return userOrders;
+        });
+        return exposure[0];
+    }
+
+    public int size() {
+        return this.ordersById.size();
+    }
+
+    private void removeFromUser(final IndexedOrder indexedOrder) {
+        final UUID userId = indexedOrder.getOrder().getUserId();
+        if (userId != null) {
+            this.ordersByUser.computeIfPresent(userId, (key, userOrders) -> {
+                userOrders.remove(indexedOrder);
+                return userOrders.isEmpty() ? null : userOrders;
+            });
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.cryptoinc.marketplace.index;
+
+import com.cryptoinc.marketplace.domain.CoinType;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderType;
+import com.cryptoinc.marketplace.domain.UserExposure;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Live orders of one user by id, with running quantity and notional totals per coin and side.
+ * Not thread safe, {@link OrderIndex} only touches it inside compute calls on the user's key.
+ */
+final class UserOrders {
+
+    private static final int SIDES = OrderType.values().length;
+
+    private final Map<Long, IndexedOrder> orders = new HashMap<>();
+    //indexed by coin ordinal
+    private final int[] orderCounts = new int[CoinType.values().length];
+    //indexed by coin ordinal * SIDES + order type ordinal
+    private final BigDecimal[] quantities = new BigDecimal[CoinType.values().length * SIDES];
+    private final BigDecimal[] notionals = new BigDecimal[CoinType.values().length * SIDES];
+
+    UserOrders() {
+        Arrays.fill(this.quantities, BigDecimal.ZERO);
+        Arrays.fill(this.notionals, BigDecimal.ZERO);
+    }
+
+    void add(final IndexedOrder indexedOrder) {
+        this.orders.put(indexedOrder.getOrderId(), indexedOrder);
+        final Order order = indexedOrder.getOrder();
+        final int coinSide = coinSide(order);
+        this.orderCounts[order.getCoinType().ordinal()]++;
+        this.quantities[coinSide] = this.quantities[coinSide].add(order.getQuantity());
+        this.notionals[coinSide] = this.notionals[coinSide].add(order.getQuantity().multiply(order.getPrice()));
+    }
+
+    void remove(final IndexedOrder indexedOrder) {
+        if (this.orders.remove(indexedOrder.getOrderId()) == null) {
+            return;
+        }
+        final Order order = indexedOrder.getOrder();
+        final int coinSide = coinSide(order);
+        this.orderCounts[order.getCoinType().ordinal()]--;
+        this.quantities[coinSide] = this.quantities[coinSide].subtract(order.getQuantity());
+        this.notionals[coinSide] = this.notionals[coinSide].subtract(order.getQuantity().multiply(order.getPrice()));
+    }
+
+    long[] getOrderIds() {
+        return this.orders.keySet().stream().mapToLong(Long::longValue).toArray();
+    }
+
+    boolean isEmpty() {
+        return this.orders.isEmpty();
+    }
+
+    UserExposure getExposure(final CoinType coinType) {
+        final int buy = coinType.ordinal() * SIDES + OrderType.BUY.ordinal();
+        final int sell = coinType.ordinal() * SIDES + OrderType.SELL.ordinal();
+        return new UserExposure(
+                this.orderCounts[coinType.ordinal()],
+                this.quantities[buy],
+                this.notionals[buy],
+                this.quantities[sell],
+                this.notionals[sell]);
+    }
+
+    private static int coinSide(final Order order) {
+        return order.getCoinType().ordinal() * SIDES + order.getOrderType().ordinal();
+    }
+}
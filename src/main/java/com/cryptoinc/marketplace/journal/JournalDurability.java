@@ -0,0 +1,16 @@
+package com.cryptoinc.marketplace.journal;
+
+/**
+ * When an appended record reaches the disk.
+ */
+public enum JournalDurability {
+    /**
+     * Appends return once the record is in the mapped file, a background flusher forces it to disk
+     * every flush interval. A process crash loses nothing, an OS crash may lose the last interval.
+     */
+    ASYNC,
+    /**
+     * Appends return once the record is forced to disk. Concurrent appenders share one force.
+     */
+    GROUP_COMMIT
+}
@@ -0,0 +1,11 @@
+package com.cryptoinc.marketplace.journal;
+
+import com.cryptoinc.marketplace.domain.Order;
+
+/**
+ * Receives the journal records, in append order, while it is replayed.
+ */
+public interface JournalVisitor {
+    void onPlace(Order order);
+    void onCancel(Order order);
+}
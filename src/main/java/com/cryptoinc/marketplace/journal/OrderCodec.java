@@ -0,0 +1,87 @@
+package com.cryptoinc.marketplace.journal;
+
+import com.cryptoinc.marketplace.domain.CoinType;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderType;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Compact binary form of an order: user id, order type and coin ordinals, then quantity and price
+ * as scale plus unscaled two's complement bytes. Decoded values are equal to the encoded ones, scale included.
+ * Shared by the journal, the snapshots and the network protocol.
+ */
+public final class OrderCodec {
+
+    private static final int MAX_UNSCALED_BYTES = Byte.MAX_VALUE;
+    public static final int MAX_DECIMAL_BYTES = Short.BYTES + Byte.BYTES + MAX_UNSCALED_BYTES;
+    public static final int MAX_ORDER_BYTES = 2 * Long.BYTES + 2 * Byte.BYTES + 2 * MAX_DECIMAL_BYTES;
+
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+    private static final CoinType[] COIN_TYPES = CoinType.values();
+
+    private OrderCodec() {
+    }
+
+    /**
+     * @throws IllegalArgumentException when a field is missing, or the quantity or price is too large to encode
+     */
+    public static void checkEncodable(final Order order) {
+        if (order.getUserId() == null) {
+            throw new IllegalArgumentException("Bad user id.");
+        }
+        if (order.getOrderType() == null) {
+            throw new IllegalArgumentException("Bad order type.");
+        }
+        if (order.getCoinType() == null) {
+            throw new IllegalArgumentException("Bad coin type.");
+        }
+        if (order.getQuantity() == null || !isEncodable(order.getQuantity())) {
+            throw new IllegalArgumentException("Bad quantity.");
+        }
+        if (order.getPrice() == null || !isEncodable(order.getPrice())) {
+            throw new IllegalArgumentException("Bad price.");
+        }
+    }
+
+    public static void encode(final ByteBuffer buffer, final Order order) {
+        buffer.putLong(order.getUserId().getMostSignificantBits());
+        buffer.putLong(order.getUserId().getLeastSignificantBits());
+        buffer.put((byte) order.getOrderType().ordinal());
+        buffer.put((byte) order.getCoinType().ordinal());
+        encode(buffer, order.getQuantity());
+        encode(buffer, order.getPrice());
+    }
+
+    public static Order decode(final ByteBuffer buffer) {
+        final UUID userId = new UUID(buffer.getLong(), buffer.getLong());
+        final OrderType orderType = ORDER_TYPES[buffer.get()];
+        final CoinType coinType = COIN_TYPES[buffer.get()];
+        final BigDecimal quantity = decodeDecimal(buffer);
+        final BigDecimal price = decodeDecimal(buffer);
+        return new Order(userId, orderType, coinType, quantity, price);
+    }
+
+    private static boolean isEncodable(final BigDecimal value) {
+        return value.scale() >= Short.MIN_VALUE
+                && value.scale() <= Short.MAX_VALUE
+                && value.unscaledValue().bitLength() / 8 + 1 <= MAX_UNSCALED_BYTES;
+    }
+
+    public static void encode(final ByteBuffer buffer, final BigDecimal value) {
+        final byte[] unscaled = value.unscaledValue().toByteArray();
+        buffer.putShort((short) value.scale());
+        buffer.put((byte) unscaled.length);
+        buffer.put(unscaled);
+    }
+
+    public static BigDecimal decodeDecimal(final ByteBuffer buffer) {
+        final int scale = buffer.getShort();
+        final byte[] unscaled = new byte[buffer.get()];
+        buffer.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+}
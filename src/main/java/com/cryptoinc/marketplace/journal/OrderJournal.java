@@ -0,0 +1,529 @@
+package com.cryptoinc.marketplace.journal;
+
+import com.cryptoinc.marketplace.domain.Order;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Append-only write-ahead journal of place and cancel records, in memory-mapped segment files.
+ * <p>
+ * A record is its payload length, a CRC32C of the payload and the payload: the record type and the
+ * {@link OrderCodec encoded} order. Appending is a copy into the mapped segment under a short lock;
+ * forcing the segment to disk is left to a flusher thread, which batches every record appended since its
+ * last force into one call (group commit). A segment is rolled when the next record may not fit.
+ * <p>
+ * Positions are logical: the segment base plus the offset in the segment, segments are named after their base.
+ * Replay stops at the first torn record of the last segment and the space after it is cleared, so appends
+ * resume right after the last complete record.
+ */
+public final class OrderJournal implements AutoCloseable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(1);
+
+    private static final byte PLACE = 1;
+    private static final byte CANCEL = 2;
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int MAX_RECORD_BYTES = HEADER_BYTES + Byte.BYTES + OrderCodec.MAX_ORDER_BYTES;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final JournalDurability durability;
+    private final long flushIntervalNanos;
+    //guards appends and segment rolls
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final CRC32C checksum = new CRC32C();
+    //guards the flusher hand-off
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition syncRequested = this.syncLock.newCondition();
+    private final Condition synced = this.syncLock.newCondition();
+    private final Thread flusher;
+    private volatile Segment segment;
+    private volatile long appendedPosition;
+    private volatile long forcedPosition;
+    private long requestedPosition;
+    private volatile boolean closed;
+
+    private OrderJournal(
+            final Path directory,
+            final int segmentSize,
+            final JournalDurability durability,
+            final Duration flushInterval,
+            final Segment segment) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.durability = durability;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.segment = segment;
+        this.appendedPosition = segment.position();
+        this.forcedPosition = this.appendedPosition;
+        this.flusher = new Thread(this::flushLoop, "order-journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Opens the journal in {@code directory}, creating it when needed, after replaying every complete record
+     * to the visitor.
+     *
+     * @param segmentSize   bytes per segment file, a record must fit in one
+     * @param flushInterval longest time an appended record waits for its force
+     */
+    public static OrderJournal open(
+            final Path directory,
+            final int segmentSize,
+            final JournalDurability durability,
+            final Duration flushInterval,
+            final JournalVisitor visitor) throws IOException {
+        return open(directory, segmentSize, durability, flushInterval, 0, visitor);
+    }
+
+    /**
+     * Opens the journal replaying only the records from {@code fromPosition} on, e.g. the tail after a snapshot.
+     *
+     * @param fromPosition a record boundary, as returned by {@link #getPosition()}
+     */
+    public static OrderJournal open(
+            final Path directory,
+            final int segmentSize,
+            final JournalDurability durability,
+            final Duration flushInterval,
+            final long fromPosition,
+            final JournalVisitor visitor) throws IOException {
+        Objects.requireNonNull(directory, "Directory is null.");
+        Objects.requireNonNull(durability, "Durability is null.");
+        Objects.requireNonNull(flushInterval, "Flush interval is null.");
+        Objects.requireNonNull(visitor, "Visitor is null.");
+        if (segmentSize < MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("Bad segment size.");
+        }
+        if (flushInterval.isNegative() || flushInterval.isZero()) {
+            throw new IllegalArgumentException("Bad flush interval.");
+        }
+        if (fromPosition < 0) {
+            throw new IllegalArgumentException("Bad position.");
+        }
+
+        Files.createDirectories(directory);
+        final List<Long> bases = segmentBases(directory);
+        if (bases.isEmpty() || segmentEnd(directory, bases.get(bases.size() - 1)) <= fromPosition) {
+            //nothing to replay, positions carry on from where the truncated journal stopped
+            return new OrderJournal(
+                    directory, segmentSize, durability, flushInterval, Segment.map(directory, fromPosition, segmentSize));
+        }
+
+        Segment last = null;
+        for (int i = 0; i < bases.size(); i++) {
+            final boolean isLast = i == bases.size() - 1;
+            if (!isLast && bases.get(i + 1) <= fromPosition) {
+                continue;
+            }
+            final Segment replayed = Segment.map(directory, bases.get(i), segmentSize);
+            final int startOffset = (int) Math.max(0, fromPosition - bases.get(i));
+            final boolean complete = replay(replayed.buffer, startOffset, visitor);
+            if (!complete && !isLast) {
+                replayed.close();
+                throw new IOException("Corrupt journal segment " + segmentPath(directory, bases.get(i)) + ".");
+            }
+            if (isLast) {
+                last = replayed;
+            } else {
+                replayed.close();
+            }
+        }
+        last.clearTail();
+        return new OrderJournal(directory, segmentSize, durability, flushInterval, last);
+    }
+
+    public long appendPlace(final Order order) {
+        return appendPlaces(Collections.singletonList(order), () -> {
+        });
+    }
+
+    public void appendCancel(final Order order) {
+        final List<Order> orders = Collections.singletonList(order);
+        appendCancels(() -> orders);
+    }
+
+    /**
+     * Appends the whole batch under one lock acquisition and waits for at most one force.
+     *
+     * @param apply run under the append lock once the records are written, so whatever it changes
+     *              stays in step with the journal position seen by {@link #atPosition}
+     */
+    public long appendPlaces(final Collection<Order> orders, final Runnable apply) {
+        Objects.requireNonNull(orders, "Orders are null.");
+        for (Order order : orders) {
+            Objects.requireNonNull(order, "Order is null.");
+            OrderCodec.checkEncodable(order);
+        }
+
+        final long position;
+        this.appendLock.lock();
+        try {
+            checkOpen();
+            position = write(PLACE, orders);
+            apply.run();
+        } finally {
+            this.appendLock.unlock();
+        }
+
+        awaitDurable(position);
+        return position;
+    }
+
+    /**
+     * @param remove run under the append lock, returns the orders it removed, only those are appended
+     * @return the removed orders
+     */
+    public Collection<Order> appendCancels(final Supplier<Collection<Order>> remove) {
+        final Collection<Order> removed;
+        final long position;
+        this.appendLock.lock();
+        try {
+            checkOpen();
+            removed = remove.get();
+            position = removed.isEmpty() ? -1 : write(CANCEL, removed);
+        } finally {
+            this.appendLock.unlock();
+        }
+
+        awaitDurable(position);
+        return removed;
+    }
+
+    /**
+     * Runs the reader under the append lock with the current position: no record is appended, and nothing
+     * applied with it, while the reader runs. Keep it short, e.g. grab a persistent snapshot.
+     */
+    public <T> T atPosition(final LongFunction<T> reader) {
+        this.appendLock.lock();
+        try {
+            return reader.apply(this.segment.position());
+        } finally {
+            this.appendLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments that only hold records before {@code position}, the segment being appended to stays.
+     */
+    public void deleteSegmentsBefore(final long position) throws IOException {
+        final long currentBase = this.segment.base;
+        for (long base : segmentBases(this.directory)) {
+            if (base < currentBase && segmentEnd(this.directory, base) <= position) {
+                Files.deleteIfExists(segmentPath(this.directory, base));
+            }
+        }
+    }
+
+    /**
+     * @return logical position right after the last appended record
+     */
+    public long getPosition() {
+        return this.appendedPosition;
+    }
+
+    /**
+     * @return logical position up to which records are known to be on disk
+     */
+    public long getForcedPosition() {
+        return this.forcedPosition;
+    }
+
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * Forces everything appended so far to disk.
+     */
+    public void sync() {
+        awaitForced(this.appendedPosition);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.appendLock.lock();
+        try {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+        } finally {
+            this.appendLock.unlock();
+        }
+
+        this.flusher.interrupt();
+        try {
+            this.flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        force();
+        this.segment.close();
+    }
+
+    private void checkOpen() {
+        if (this.closed) {
+            throw new IllegalStateException("Journal is closed.");
+        }
+    }
+
+    /**
+     * Called under the append lock. Every order is checked before the first is written, so a batch is
+     * appended whole or not at all.
+     *
+     * @return the position after the last written record
+     */
+    private long write(final byte type, final Collection<Order> orders) {
+        for (Order order : orders) {
+            OrderCodec.checkEncodable(order);
+        }
+        for (Order order : orders) {
+            if (this.segment.buffer.remaining() < MAX_RECORD_BYTES) {
+                roll();
+            }
+            write(this.segment.buffer, type, order);
+        }
+        final long position = this.segment.position();
+        this.appendedPosition = position;
+        return position;
+    }
+
+    private void awaitDurable(final long position) {
+        if (position >= 0 && this.durability == JournalDurability.GROUP_COMMIT) {
+            awaitForced(position);
+        }
+    }
+
+    private void write(final MappedByteBuffer buffer, final byte type, final Order order) {
+        final int start = buffer.position();
+        buffer.position(start + HEADER_BYTES);
+        buffer.put(type);
+        try {
+            OrderCodec.encode(buffer, order);
+        } catch (RuntimeException e) {
+            //a zero length header left behind would read as the end of the log and hide every later record
+            buffer.position(start);
+            throw e;
+        }
+        final int end = buffer.position();
+
+        this.checksum.reset();
+        this.checksum.update(buffer.duplicate().position(start + HEADER_BYTES).limit(end));
+        buffer.putInt(start + Integer.BYTES, (int) this.checksum.getValue());
+        buffer.putInt(start, end - start - HEADER_BYTES);
+    }
+
+    /**
+     * Called under the append lock. The full segment is forced before the next one takes over,
+     * so the flusher only ever needs to force the current segment.
+     */
+    private void roll() {
+        final Segment full = this.segment;
+        final long fullPosition = full.position();
+        full.buffer.force();
+        markForced(fullPosition);
+        try {
+            this.segment = Segment.map(this.directory, full.base + full.buffer.capacity(), this.segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        full.close();
+        this.appendedPosition = this.segment.position();
+    }
+
+    private void awaitForced(final long position) {
+        if (this.forcedPosition >= position) {
+            return;
+        }
+
+        this.syncLock.lock();
+        try {
+            this.requestedPosition = Math.max(this.requestedPosition, position);
+            this.syncRequested.signal();
+            while (this.forcedPosition < position) {
+                if (this.closed && !this.flusher.isAlive()) {
+                    break;
+                }
+                this.synced.awaitUninterruptibly();
+            }
+        } finally {
+            this.syncLock.unlock();
+        }
+        if (this.forcedPosition < position) {
+            force();
+        }
+    }
+
+    private void flushLoop() {
+        while (!this.closed) {
+            this.syncLock.lock();
+            try {
+                if (this.requestedPosition <= this.forcedPosition) {
+                    this.syncRequested.awaitNanos(this.flushIntervalNanos);
+                }
+            } catch (InterruptedException e) {
+                break;
+            } finally {
+                this.syncLock.unlock();
+            }
+            force();
+        }
+        this.syncLock.lock();
+        try {
+            this.synced.signalAll();
+        } finally {
+            this.syncLock.unlock();
+        }
+    }
+
+    private void force() {
+        //read the position before the segment, a roll in between has already forced the older segment
+        final long position = this.appendedPosition;
+        if (position <= this.forcedPosition) {
+            return;
+        }
+        this.segment.buffer.force();
+        markForced(position);
+    }
+
+    private void markForced(final long position) {
+        this.syncLock.lock();
+        try {
+            if (position > this.forcedPosition) {
+                this.forcedPosition = position;
+                this.synced.signalAll();
+            }
+        } finally {
+            this.syncLock.unlock();
+        }
+    }
+
+    /**
+     * @return false when a torn or corrupt record stopped the replay before the end of the segment data
+     */
+    private static boolean replay(final MappedByteBuffer buffer, final int startOffset, final JournalVisitor visitor) {
+        final CRC32C checksum = new CRC32C();
+        int offset = startOffset;
+        while (offset + HEADER_BYTES <= buffer.capacity()) {
+            final int length = buffer.getInt(offset);
+            if (length == 0) {
+                break;
+            }
+            final int end = offset + HEADER_BYTES + length;
+            if (length < 0 || end > buffer.capacity()) {
+                buffer.position(offset);
+                return false;
+            }
+            final ByteBuffer payload = buffer.duplicate().position(offset + HEADER_BYTES).limit(end);
+            checksum.reset();
+            checksum.update(payload.duplicate());
+            if ((int) checksum.getValue() != buffer.getInt(offset + Integer.BYTES)) {
+                buffer.position(offset);
+                return false;
+            }
+
+            final byte type = payload.get();
+            final Order order = OrderCodec.decode(payload);
+            if (type == PLACE) {
+                visitor.onPlace(order);
+            } else {
+                visitor.onCancel(order);
+            }
+            offset = end;
+        }
+        buffer.position(offset);
+        return true;
+    }
+
+    private static List<Long> segmentBases(final Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static long segmentEnd(final Path directory, final long base) throws IOException {
+        return base + Files.size(segmentPath(directory, base));
+    }
+
+    private static Path segmentPath(final Path directory, final long base) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, base, SEGMENT_SUFFIX));
+    }
+
+    private static final class Segment {
+
+        private final long base;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+
+        private Segment(final long base, final FileChannel channel, final MappedByteBuffer buffer) {
+            this.base = base;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        /**
+         * Segments written with a larger segment size keep their size.
+         */
+        static Segment map(final Path directory, final long base, final int size) throws IOException {
+            final FileChannel channel = FileChannel.open(segmentPath(directory, base), CREATE, READ, WRITE);
+            try {
+                final long mappedSize = Math.max(size, channel.size());
+                return new Segment(base, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize));
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        long position() {
+            return this.base + this.buffer.position();
+        }
+
+        /**
+         * Zeroes everything after the last complete record, so no stale bytes are ever taken for a record.
+         */
+        void clearTail() {
+            final byte[] zeros = new byte[64 << 10];
+            final ByteBuffer tail = this.buffer.duplicate();
+            while (tail.hasRemaining()) {
+                tail.put(zeros, 0, Math.min(zeros.length, tail.remaining()));
+            }
+        }
+
+        void close() {
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
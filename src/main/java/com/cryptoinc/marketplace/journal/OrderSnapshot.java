@@ -0,0 +1,221 @@
+package com.cryptoinc.marketplace.journal;
+
+import com.cryptoinc.marketplace.domain.Order;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Binary snapshot of the live orders at a journal position.
+ * <p>
+ * The file holds a header (magic, format, journal position, order count), the {@link OrderCodec encoded} orders
+ * and a trailing CRC32C. It is written to a temporary file, forced, renamed and the rename forced through the
+ * directory, so a snapshot file is either complete or absent, also across a power loss. Snapshots are read
+ * memory-mapped, which limits them to {@link #MAX_SNAPSHOT_BYTES}.
+ */
+public final class OrderSnapshot {
+
+    /**
+     * Largest snapshot file, the size of one memory mapping.
+     */
+    public static final long MAX_SNAPSHOT_BYTES = Integer.MAX_VALUE;
+
+    private static final int MAGIC = 0x4F42534E;
+    private static final int FORMAT = 2;
+    private static final int BUFFER_BYTES = 1 << 16;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    private final long position;
+    private final List<Order> orders;
+
+    private OrderSnapshot(final long position, final List<Order> orders) {
+        this.position = position;
+        this.orders = orders;
+    }
+
+    /**
+     * @return the journal position the snapshot was taken at, replay resumes there
+     */
+    public long getPosition() {
+        return this.position;
+    }
+
+    public List<Order> getOrders() {
+        return this.orders;
+    }
+
+    /**
+     * Writes the snapshot of {@code orders} taken at {@code position}. Only the caller's thread is used,
+     * writers keep going as long as {@code orders} is an immutable snapshot.
+     *
+     * @return the snapshot file
+     * @throws IOException also when the snapshot would exceed {@link #MAX_SNAPSHOT_BYTES}, no file is left then
+     */
+    public static Path write(final Path directory, final long position, final Collection<Order> orders) throws IOException {
+        final Path snapshot = snapshotPath(directory, position);
+        final Path temporary = directory.resolve(snapshot.getFileName() + ".tmp");
+        final CRC32C checksum = new CRC32C();
+        try (FileChannel channel = FileChannel.open(temporary, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+            buffer.putInt(MAGIC).putInt(FORMAT).putLong(position).putInt(orders.size());
+
+            for (Order order : orders) {
+                ensureRemaining(channel, buffer, checksum, OrderCodec.MAX_ORDER_BYTES);
+                OrderCodec.encode(buffer, order);
+                if (channel.position() + buffer.position() > MAX_SNAPSHOT_BYTES - Integer.BYTES) {
+                    throw new IOException("Snapshot exceeds " + MAX_SNAPSHOT_BYTES + " bytes.");
+                }
+            }
+
+            drain(channel, buffer, checksum);
+            buffer.putInt((int) checksum.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        forceDirectory(directory);
+        return snapshot;
+    }
+
+    /**
+     * Older snapshots are never a fallback: the journal before the newest one may already be deleted.
+     *
+     * @return the newest snapshot in {@code directory}, empty when there is none
+     * @throws IOException also when the newest snapshot is truncated or corrupt
+     */
+    public static Optional<OrderSnapshot> loadLatest(final Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return Optional.empty();
+        }
+
+        final List<Long> positions = snapshotPositions(directory);
+        if (positions.isEmpty()) {
+            return Optional.empty();
+        }
+        final Path file = snapshotPath(directory, positions.get(positions.size() - 1));
+        final OrderSnapshot snapshot = read(file);
+        if (snapshot == null) {
+            throw new IOException("Snapshot " + file + " is damaged.");
+        }
+        return Optional.of(snapshot);
+    }
+
+    /**
+     * Deletes the snapshots older than the one taken at {@code position}, with any leftover temporary file.
+     */
+    public static void deleteBefore(final Path directory, final long position) throws IOException {
+        for (long older : snapshotPositions(directory)) {
+            if (older < position) {
+                Files.deleteIfExists(snapshotPath(directory, older));
+            }
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(file -> file.getFileName().toString().endsWith(SNAPSHOT_SUFFIX + ".tmp"))
+                    .collect(Collectors.toList())) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * @return null when the file is truncated or corrupt
+     */
+    private static OrderSnapshot read(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            final long size = channel.size();
+            if (size < 4 * Integer.BYTES + Long.BYTES || size > MAX_SNAPSHOT_BYTES) {
+                return null;
+            }
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            final CRC32C checksum = new CRC32C();
+            checksum.update(buffer.duplicate().limit((int) size - Integer.BYTES));
+            if (buffer.getInt((int) size - Integer.BYTES) != (int) checksum.getValue()
+                    || buffer.getInt() != MAGIC
+                    || buffer.getInt() != FORMAT) {
+                return null;
+            }
+
+            final long position = buffer.getLong();
+            final int orderCount = buffer.getInt();
+            try {
+                final List<Order> orders = new ArrayList<>(orderCount);
+                for (int i = 0; i < orderCount; i++) {
+                    orders.add(OrderCodec.decode(buffer));
+                }
+                return new OrderSnapshot(position, Collections.unmodifiableList(orders));
+            } catch (RuntimeException e) {
+                //a matching checksum over a body that does not decode, e.g. a bad order count
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Makes the rename durable. Where a directory cannot be opened, e.g. on Windows, it is left to the file system.
+     */
+    private static void forceDirectory(final Path directory) throws IOException {
+        final FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    private static void ensureRemaining(
+            final FileChannel channel,
+            final ByteBuffer buffer,
+            final CRC32C checksum,
+            final int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain(channel, buffer, checksum);
+        }
+    }
+
+    private static void drain(final FileChannel channel, final ByteBuffer buffer, final CRC32C checksum) throws IOException {
+        buffer.flip();
+        checksum.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static List<Long> snapshotPositions(final Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static Path snapshotPath(final Path directory, final long position) {
+        return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, position, SNAPSHOT_SUFFIX));
+    }
+}
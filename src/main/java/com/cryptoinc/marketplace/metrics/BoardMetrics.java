@@ -0,0 +1,35 @@
+package com.cryptoinc.marketplace.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Sink for board instrumentation. Implementations are called on the hot path, they must not block or allocate.
+ */
+public interface BoardMetrics {
+
+    BoardMetrics NOOP = new BoardMetrics() {
+        @Override
+        public void recordLatency(final Operation operation, final long nanos) {
+        }
+
+        @Override
+        public void recordError(final Operation operation) {
+        }
+
+        @Override
+        public void registerGauge(final String name, final LongSupplier gauge) {
+        }
+    };
+
+    void recordLatency(Operation operation, long nanos);
+
+    /**
+     * Called for operations that threw, their latency is recorded as well.
+     */
+    void recordError(Operation operation);
+
+    /**
+     * Gauges are read when metrics are reported, not on the hot path.
+     */
+    void registerGauge(String name, LongSupplier gauge);
+}
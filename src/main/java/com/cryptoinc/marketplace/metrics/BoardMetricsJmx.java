@@ -0,0 +1,92 @@
+package com.cryptoinc.marketplace.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Publishes {@link HistogramBoardMetrics} as an MXBean. Everything is computed when JMX reads an attribute.
+ */
+public class BoardMetricsJmx implements BoardMetricsMXBean {
+
+    private static final double NANOS_PER_MICRO = 1_000;
+
+    private final HistogramBoardMetrics metrics;
+
+    public BoardMetricsJmx(final HistogramBoardMetrics metrics) {
+        this.metrics = Objects.requireNonNull(metrics, "Metrics are null.");
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server as
+     * {@code com.cryptoinc.marketplace:type=LiveOrderBoard,name=<name>}.
+     */
+    public static ObjectName register(final String name, final HistogramBoardMetrics metrics) throws JMException {
+        final ObjectName objectName = new ObjectName("com.cryptoinc.marketplace:type=LiveOrderBoard,name=" + ObjectName.quote(name));
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(new BoardMetricsJmx(metrics), objectName);
+        return objectName;
+    }
+
+    @Override
+    public Map<String, Long> getOperationCounts() {
+        return perOperation(operation -> this.metrics.getHistogram(operation).getCount());
+    }
+
+    @Override
+    public Map<String, Long> getOperationErrors() {
+        return perOperation(this.metrics::getErrors);
+    }
+
+    @Override
+    public Map<String, Double> getMeanLatencyMicros() {
+        return latencies(histogram -> histogram.getMean());
+    }
+
+    @Override
+    public Map<String, Double> getP50LatencyMicros() {
+        return latencies(histogram -> histogram.getValueAtPercentile(50));
+    }
+
+    @Override
+    public Map<String, Double> getP99LatencyMicros() {
+        return latencies(histogram -> histogram.getValueAtPercentile(99));
+    }
+
+    @Override
+    public Map<String, Double> getP999LatencyMicros() {
+        return latencies(histogram -> histogram.getValueAtPercentile(99.9));
+    }
+
+    @Override
+    public Map<String, Double> getMaxLatencyMicros() {
+        return latencies(histogram -> histogram.getMax());
+    }
+
+    @Override
+    public Map<String, Long> getGauges() {
+        return this.metrics.readGauges();
+    }
+
+    private Map<String, Long> perOperation(final ToLongFunction<Operation> value) {
+        final Map<String, Long> values = new TreeMap<>();
+        for (Operation operation : Operation.values()) {
+            values.put(operation.name(), value.applyAsLong(operation));
+        }
+        return values;
+    }
+
+    private Map<String, Double> latencies(final ToDoubleFunction<LatencyHistogram> nanos) {
+        final Map<String, Double> values = new TreeMap<>();
+        for (Operation operation : Operation.values()) {
+            values.put(operation.name(), nanos.applyAsDouble(this.metrics.getHistogram(operation)) / NANOS_PER_MICRO);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,17 @@
+package com.cryptoinc.marketplace.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link HistogramBoardMetrics}, keyed by operation or gauge name. Latencies are in microseconds.
+ */
+public interface BoardMetricsMXBean {
+    Map<String, Long> getOperationCounts();
+    Map<String, Long> getOperationErrors();
+    Map<String, Double> getMeanLatencyMicros();
+    Map<String, Double> getP50LatencyMicros();
+    Map<String, Double> getP99LatencyMicros();
+    Map<String, Double> getP999LatencyMicros();
+    Map<String, Double> getMaxLatencyMicros();
+    Map<String, Long> getGauges();
+}
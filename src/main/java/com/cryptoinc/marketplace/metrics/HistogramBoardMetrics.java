@@ -0,0 +1,56 @@
+package com.cryptoinc.marketplace.metrics;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Default {@link BoardMetrics}: one {@link LatencyHistogram} and one error counter per operation,
+ * gauges are kept by name. Cheap enough to stay on under full load.
+ */
+public class HistogramBoardMetrics implements BoardMetrics {
+
+    //indexed by operation ordinal
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Operation.values().length];
+    private final AtomicLongArray errors = new AtomicLongArray(Operation.values().length);
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    public HistogramBoardMetrics() {
+        for (int ordinal = 0; ordinal < this.histograms.length; ordinal++) {
+            this.histograms[ordinal] = new LatencyHistogram();
+        }
+    }
+
+    @Override
+    public void recordLatency(final Operation operation, final long nanos) {
+        this.histograms[operation.ordinal()].record(nanos);
+    }
+
+    @Override
+    public void recordError(final Operation operation) {
+        this.errors.incrementAndGet(operation.ordinal());
+    }
+
+    @Override
+    public void registerGauge(final String name, final LongSupplier gauge) {
+        this.gauges.put(Objects.requireNonNull(name, "Name is null."), Objects.requireNonNull(gauge, "Gauge is null."));
+    }
+
+    public LatencyHistogram getHistogram(final Operation operation) {
+        return this.histograms[operation.ordinal()];
+    }
+
+    public long getErrors(final Operation operation) {
+        return this.errors.get(operation.ordinal());
+    }
+
+    /**
+     * @return the current value of every gauge, sorted by name
+     */
+    public SortedMap<String, Long> readGauges() {
+        final SortedMap<String, Long> values = new TreeMap<>();
+        this.gauges.forEach((name, gauge) -> values.put(name, gauge.getAsLong()));
+        return values;
+    }
+}
@@ -0,0 +1,93 @@
+package com.cryptoinc.marketplace.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free, allocation-free histogram of non-negative values, e.g. nanoseconds.
+ * Buckets are log-linear like HdrHistogram's: every power of two is split into 32 equal sub-buckets,
+ * so a recorded value is off by at most 1/32 (about 3%) over the whole long range, in a fixed 15 KB array.
+ * Recording is one atomic increment of the bucket plus sum and max updates, the count is only summed up when read,
+ * so readers see a weakly consistent view.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+    //two sets of sub-buckets for the linear range, then one per highest bit from 6 to 62
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(final long value) {
+        final long recorded = Math.max(0, value);
+        this.counts.incrementAndGet(index(recorded));
+        this.sum.addAndGet(recorded);
+        long currentMax = this.max.get();
+        while (recorded > currentMax && !this.max.compareAndSet(currentMax, recorded)) {
+            currentMax = this.max.get();
+        }
+    }
+
+    public long getCount() {
+        long total = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            total += this.counts.get(index);
+        }
+        return total;
+    }
+
+    public long getMax() {
+        return this.max.get();
+    }
+
+    public double getMean() {
+        final long recorded = getCount();
+        return recorded == 0 ? 0 : (double) this.sum.get() / recorded;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the highest value of the bucket holding the percentile, 0 when nothing was recorded
+     */
+    public long getValueAtPercentile(final double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Bad percentile.");
+        }
+        final long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            seen += this.counts.get(index);
+            if (seen >= rank) {
+                return Math.min(highestValue(index), this.max.get());
+            }
+        }
+        return this.max.get();
+    }
+
+    static int index(final long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        final int highestBit = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int shift = highestBit - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    static long highestValue(final int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKETS - 1;
+        final long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,8 @@
+package com.cryptoinc.marketplace.metrics;
+
+/**
+ * Board operations that are timed.
+ */
+public enum Operation {
+    PLACE_ORDER, PLACE_ORDERS, CANCEL_ORDER, CANCEL_ORDERS, CANCEL_ALL_ORDERS, VALIDATE, GET_ORDER_SUMMARY
+}
@@ -0,0 +1,287 @@
+package com.cryptoinc.marketplace.replay;
+
+import com.cryptoinc.marketplace.LiveOrderBoard;
+import com.cryptoinc.marketplace.domain.BatchResult;
+import com.cryptoinc.marketplace.domain.BoardUpdate;
+import com.cryptoinc.marketplace.domain.CoinType;
+import com.cryptoinc.marketplace.domain.MarketStatistics;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderSummary;
+import com.cryptoinc.marketplace.domain.OrderType;
+import com.cryptoinc.marketplace.domain.UserExposure;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Records the place, cancel and summary calls made to the wrapped board, with their timing and outcome,
+ * so that {@link ReplayHarness} can feed them to another board. Closing appends the final summary of every
+ * coin and side for the replay to be checked against.
+ * <p>
+ * Recorded calls are serialized: each one is made and recorded under one lock, so the recording holds them in the
+ * order the wrapped board applied them, also with concurrent callers, at the cost of their concurrency.
+ * <p>
+ * Records are buffered and written in blocks, the recording is only complete once closed. Calls with an order that
+ * cannot be encoded, e.g. missing its user id, are passed through without being recorded, as are paged summaries,
+ * exposures, market statistics and board updates. A failed write stops the recording rather than the call, the calls
+ * made from then on are passed through without being recorded and closing reports the failure.
+ */
+public class RecordingLiveOrderBoard implements LiveOrderBoard, AutoCloseable {
+
+    private static final int BUFFER_BYTES = 64 << 10;
+
+    private final LiveOrderBoard liveOrderBoard;
+    private final FileChannel channel;
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong skippedCalls = new AtomicLong();
+    //guarded by this, as are the calls to the wrapped board
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private boolean closed;
+    private IOException failure;
+
+    /**
+     * @param file created, or truncated when it exists
+     */
+    public RecordingLiveOrderBoard(final LiveOrderBoard liveOrderBoard, final Path file) throws IOException {
+        this.liveOrderBoard = Objects.requireNonNull(liveOrderBoard, "Live order board is null.");
+        Objects.requireNonNull(file, "File is null.");
+        this.channel = FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING);
+        ReplayLog.writeHeader(this.buffer);
+    }
+
+    @Override
+    public synchronized long placeOrder(final Order order) {
+        final ReplayEvent event = event(ReplayEvent.Kind.PLACE_ORDER);
+        event.order = order;
+        event.orderIds = new long[]{ReplayEvent.REJECTED};
+        try {
+            event.orderIds[0] = this.liveOrderBoard.placeOrder(order);
+            return event.orderIds[0];
+        } finally {
+            if (order != null && ReplayLog.isRecordable(order)) {
+                record(event);
+            } else {
+                this.skippedCalls.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Null orders are recorded as such, the batch is skipped when another order cannot be encoded.
+     */
+    @Override
+    public synchronized BatchResult placeOrders(final Collection<Order> orders) {
+        final ReplayEvent event = event(ReplayEvent.Kind.PLACE_ORDERS);
+        final BatchResult batchResult = this.liveOrderBoard.placeOrders(orders);
+
+        event.orders = orders.toArray(new Order[0]);
+        event.orderIds = new long[event.orders.length];
+        for (int position = 0; position < event.orders.length; position++) {
+            if (event.orders[position] != null && !ReplayLog.isRecordable(event.orders[position])) {
+                this.skippedCalls.incrementAndGet();
+                return batchResult;
+            }
+            event.orderIds[position] = batchResult.isAccepted(position)
+                    ? batchResult.getOrderId(position)
+                    : ReplayEvent.REJECTED;
+        }
+        record(event);
+        return batchResult;
+    }
+
+    @Override
+    public synchronized boolean cancelOrder(final long orderId) {
+        final ReplayEvent event = event(ReplayEvent.Kind.CANCEL_BY_ID);
+        event.cancelled = this.liveOrderBoard.cancelOrder(orderId);
+        event.orderIds = new long[]{orderId};
+        record(event);
+        return event.cancelled;
+    }
+
+    @Override
+    public synchronized BatchResult cancelOrders(final long... orderIds) {
+        final ReplayEvent event = event(ReplayEvent.Kind.CANCEL_ALL_BY_ID);
+        final BatchResult batchResult = this.liveOrderBoard.cancelOrders(orderIds);
+        event.orderIds = orderIds.clone();
+        event.cancelledIds = new boolean[orderIds.length];
+        for (int position = 0; position < orderIds.length; position++) {
+            event.cancelledIds[position] = batchResult.isAccepted(position);
+        }
+        record(event);
+        return batchResult;
+    }
+
+    @Override
+    public synchronized void cancelOrder(final Order order) {
+        final ReplayEvent event = event(ReplayEvent.Kind.CANCEL_BY_ORDER);
+        if (order != null && ReplayLog.isRecordable(order)) {
+            event.cancelled = ReplayHarness.cancelOrder(this.liveOrderBoard, order);
+            event.order = order;
+            record(event);
+        } else {
+            this.skippedCalls.incrementAndGet();
+            this.liveOrderBoard.cancelOrder(order);
+        }
+    }
+
+    @Override
+    public synchronized int cancelAllOrders(final UUID userId) {
+        final ReplayEvent event = event(ReplayEvent.Kind.CANCEL_ALL_BY_USER);
+        event.cancelledCount = this.liveOrderBoard.cancelAllOrders(userId);
+        event.userId = userId;
+        record(event);
+        return event.cancelledCount;
+    }
+
+    @Override
+    public UserExposure getUserExposure(final UUID userId, final CoinType coinType) {
+        return this.liveOrderBoard.getUserExposure(userId, coinType);
+    }
+
+    @Override
+    public MarketStatistics getMarketStatistics(final CoinType coinType) {
+        return this.liveOrderBoard.getMarketStatistics(coinType);
+    }
+
+    @Override
+    public synchronized List<OrderSummary> getOrderSummary(final OrderType orderType) {
+        final ReplayEvent event = event(ReplayEvent.Kind.GET_ORDER_SUMMARY);
+        final List<OrderSummary> orderSummary = this.liveOrderBoard.getOrderSummary(orderType);
+        recordSummary(event, null, orderType, ReplayEvent.DISPLAY_DEPTH);
+        return orderSummary;
+    }
+
+    @Override
+    public synchronized List<OrderSummary> getOrderSummary(final CoinType coinType, final OrderType orderType) {
+        final ReplayEvent event = event(ReplayEvent.Kind.GET_ORDER_SUMMARY);
+        final List<OrderSummary> orderSummary = this.liveOrderBoard.getOrderSummary(coinType, orderType);
+        recordSummary(event, coinType, orderType, ReplayEvent.DISPLAY_DEPTH);
+        return orderSummary;
+    }
+
+    @Override
+    public synchronized List<OrderSummary> getOrderSummary(final CoinType coinType, final OrderType orderType, final int depth) {
+        final ReplayEvent event = event(ReplayEvent.Kind.GET_ORDER_SUMMARY);
+        final List<OrderSummary> orderSummary = this.liveOrderBoard.getOrderSummary(coinType, orderType, depth);
+        recordSummary(event, coinType, orderType, depth);
+        return orderSummary;
+    }
+
+    @Override
+    public List<OrderSummary> getOrderSummaryAfter(
+            final CoinType coinType,
+            final OrderType orderType,
+            final BigDecimal afterPrice,
+            final int limit) {
+        return this.liveOrderBoard.getOrderSummaryAfter(coinType, orderType, afterPrice, limit);
+    }
+
+    @Override
+    public Flow.Publisher<BoardUpdate> getBoardUpdates(final CoinType coinType, final OrderType orderType) {
+        return this.liveOrderBoard.getBoardUpdates(coinType, orderType);
+    }
+
+    /**
+     * @return number of calls passed through without being recorded, including those after a failed write
+     */
+    public long getSkippedCalls() {
+        return this.skippedCalls.get();
+    }
+
+    /**
+     * Appends the final summary of every coin and side, writes what is buffered and closes the file.
+     * The wrapped board is left open, calls made afterwards are no longer recorded.
+     *
+     * @throws IOException the write that stopped the recording, when one failed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        if (this.failure != null) {
+            this.closed = true;
+            this.channel.close();
+            throw this.failure;
+        }
+        final ReplayEvent event = event(ReplayEvent.Kind.FINAL_SUMMARY);
+        event.summaries = new ArrayList<>();
+        for (CoinType coinType : CoinType.values()) {
+            for (OrderType orderType : OrderType.values()) {
+                event.summaries.add(this.liveOrderBoard.getOrderSummary(coinType, orderType));
+            }
+        }
+        try {
+            record(event);
+            if (this.failure != null) {
+                throw this.failure;
+            }
+            writeBuffer();
+        } finally {
+            this.closed = true;
+            this.channel.close();
+        }
+    }
+
+    private ReplayEvent event(final ReplayEvent.Kind kind) {
+        return new ReplayEvent(kind, System.nanoTime() - this.startNanos);
+    }
+
+    private void recordSummary(final ReplayEvent event, final CoinType coinType, final OrderType orderType, final int depth) {
+        if (orderType == null) {
+            this.skippedCalls.incrementAndGet();
+            return;
+        }
+        event.coinType = coinType;
+        event.orderType = orderType;
+        event.depth = depth;
+        record(event);
+    }
+
+    /**
+     * Called under the board lock.
+     */
+    private void record(final ReplayEvent event) {
+        if (this.closed) {
+            return;
+        }
+        if (this.failure != null) {
+            this.skippedCalls.incrementAndGet();
+            return;
+        }
+        final int recordBytes = ReplayLog.maxRecordBytes(event);
+        if (this.buffer.remaining() < recordBytes) {
+            try {
+                writeBuffer();
+            } catch (IOException e) {
+                //the wrapped board already applied the call, only the recording is lost
+                this.failure = e;
+                this.buffer.clear();
+                this.skippedCalls.incrementAndGet();
+                return;
+            }
+            if (this.buffer.capacity() < recordBytes) {
+                this.buffer = ByteBuffer.allocate(recordBytes);
+            }
+        }
+        ReplayLog.encode(this.buffer, event);
+    }
+
+    private void writeBuffer() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+}
@@ -0,0 +1,54 @@
+package com.cryptoinc.marketplace.replay;
+
+import com.cryptoinc.marketplace.domain.CoinType;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderSummary;
+import com.cryptoinc.marketplace.domain.OrderType;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One recorded board call, with the outcome the recorded board gave. Only the fields of its kind are set.
+ */
+final class ReplayEvent {
+
+    enum Kind {
+        PLACE_ORDER, PLACE_ORDERS, CANCEL_BY_ID, CANCEL_ALL_BY_ID, CANCEL_BY_ORDER, CANCEL_ALL_BY_USER,
+        GET_ORDER_SUMMARY, FINAL_SUMMARY
+    }
+
+    /**
+     * Recorded id of a rejected order.
+     */
+    static final long REJECTED = -1;
+    /**
+     * Depth of a summary read at the board's display depth, apart from an explicit depth, which may be 0.
+     */
+    static final int DISPLAY_DEPTH = -1;
+
+    final Kind kind;
+    //since the recording started
+    final long timestampNanos;
+    Order order;
+    //null entries are orders the batch held as null
+    Order[] orders;
+    //recorded id of each placed order, REJECTED when it was rejected
+    long[] orderIds;
+    //per id of a batch cancel, whether it was cancelled
+    boolean[] cancelledIds;
+    boolean cancelled;
+    int cancelledCount;
+    UUID userId;
+    //null for a summary across coins
+    CoinType coinType;
+    OrderType orderType;
+    int depth;
+    //per coin and side, in CoinType then OrderType order
+    List<List<OrderSummary>> summaries;
+
+    ReplayEvent(final Kind kind, final long timestampNanos) {
+        this.kind = kind;
+        this.timestampNanos = timestampNanos;
+    }
+}
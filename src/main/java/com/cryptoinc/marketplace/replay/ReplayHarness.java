@@ -0,0 +1,254 @@
+package com.cryptoinc.marketplace.replay;
+
+import com.cryptoinc.marketplace.AggregationMode;
+import com.cryptoinc.marketplace.LiveOrderBoard;
+import com.cryptoinc.marketplace.LiveOrderBoardImpl;
+import com.cryptoinc.marketplace.SequencedLiveOrderBoard;
+import com.cryptoinc.marketplace.domain.BatchResult;
+import com.cryptoinc.marketplace.domain.CoinType;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderSummary;
+import com.cryptoinc.marketplace.domain.OrderType;
+import com.cryptoinc.marketplace.metrics.LatencyHistogram;
+import com.cryptoinc.marketplace.repository.InMemoryOrderRepository;
+import com.cryptoinc.marketplace.validators.OrderValidatorImpl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Feeds a recording made with {@link RecordingLiveOrderBoard} to a board, one call at a time in recorded order,
+ * and checks that every call has the recorded outcome and that the final summaries match. Order ids are mapped
+ * from the recorded board to the replayed one, prices and quantities are compared by value, so boards normalizing
+ * 10.50 to 10.5 still match.
+ * <p>
+ * The board must be empty and apply calls before returning, a {@link SequencedLiveOrderBoard} is flushed before
+ * the final summaries are read.
+ * <pre>
+ * java -cp target/classes com.cryptoinc.marketplace.replay.ReplayHarness file=recording.bin
+ *      [pacing=FULL_SPEED] [mode=INCREMENTAL] [runs=3]
+ * </pre>
+ * Every run replays into a new {@link LiveOrderBoardImpl}, the first ones warm the engine up.
+ */
+public final class ReplayHarness {
+
+    private static final long SPIN_NANOS = 50_000;
+
+    private final LiveOrderBoard liveOrderBoard;
+    private final Map<Long, Long> orderIds = new HashMap<>();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private int outcomeMismatches;
+
+    private ReplayHarness(final LiveOrderBoard liveOrderBoard) {
+        this.liveOrderBoard = liveOrderBoard;
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            final int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Bad argument " + arg + ", expected name=value.");
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        final String file = options.get("file");
+        if (file == null) {
+            throw new IllegalArgumentException("Missing file=<recording>.");
+        }
+        final ReplayPacing pacing = ReplayPacing.valueOf(options.getOrDefault("pacing", ReplayPacing.FULL_SPEED.name()));
+        final AggregationMode mode = AggregationMode.valueOf(options.getOrDefault("mode", AggregationMode.INCREMENTAL.name()));
+        final int runs = Integer.parseInt(options.getOrDefault("runs", "3"));
+
+        final List<ReplayEvent> events = ReplayLog.read(Paths.get(file));
+        System.out.printf("%d calls from %s, %s pacing, %s aggregation, %d runs%n", events.size(), file, pacing, mode, runs);
+        for (int run = 1; run <= runs; run++) {
+            final ReplayReport report = replay(events,
+                    new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl(), mode), pacing);
+            System.out.printf("run %d: %s%n", run, report);
+            report.getSummaryMismatches().forEach(System.out::println);
+        }
+    }
+
+    /**
+     * @throws IOException when the file is not a recording or is damaged before its last record
+     */
+    public static ReplayReport replay(final Path recording, final LiveOrderBoard liveOrderBoard, final ReplayPacing pacing)
+            throws IOException {
+        Objects.requireNonNull(recording, "Recording is null.");
+
+        return replay(ReplayLog.read(recording), liveOrderBoard, pacing);
+    }
+
+    static ReplayReport replay(final List<ReplayEvent> events, final LiveOrderBoard liveOrderBoard, final ReplayPacing pacing) {
+        Objects.requireNonNull(liveOrderBoard, "Live order board is null.");
+        Objects.requireNonNull(pacing, "Pacing is null.");
+
+        final ReplayHarness harness = new ReplayHarness(liveOrderBoard);
+        ReplayEvent finalSummary = null;
+        int calls = 0;
+        final long startNanos = System.nanoTime();
+        for (ReplayEvent event : events) {
+            if (event.kind == ReplayEvent.Kind.FINAL_SUMMARY) {
+                finalSummary = event;
+                continue;
+            }
+            final long scheduledNanos = pacing == ReplayPacing.RECORDED
+                    ? awaitScheduled(startNanos + event.timestampNanos)
+                    : System.nanoTime();
+            harness.apply(event);
+            harness.latencies.record(System.nanoTime() - scheduledNanos);
+            calls++;
+        }
+        final long elapsedNanos = System.nanoTime() - startNanos;
+
+        if (liveOrderBoard instanceof SequencedLiveOrderBoard) {
+            ((SequencedLiveOrderBoard) liveOrderBoard).flush();
+        }
+        final List<String> summaryMismatches = finalSummary == null
+                ? Collections.singletonList("Recording has no final summary, it was not closed.")
+                : harness.compareSummaries(finalSummary);
+        return new ReplayReport(calls, elapsedNanos, harness.latencies, harness.outcomeMismatches, summaryMismatches);
+    }
+
+    private static long awaitScheduled(final long scheduledNanos) {
+        long remaining;
+        while ((remaining = scheduledNanos - System.nanoTime()) > 0) {
+            if (remaining > SPIN_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+        return scheduledNanos;
+    }
+
+    private void apply(final ReplayEvent event) {
+        switch (event.kind) {
+            case PLACE_ORDER:
+                place(event.order, event.orderIds[0]);
+                break;
+            case PLACE_ORDERS:
+                placeAll(event);
+                break;
+            case CANCEL_BY_ID:
+                if (this.liveOrderBoard.cancelOrder(toReplayedId(event.orderIds[0])) != event.cancelled) {
+                    this.outcomeMismatches++;
+                }
+                break;
+            case CANCEL_ALL_BY_ID:
+                cancelAll(event);
+                break;
+            case CANCEL_BY_ORDER:
+                if (cancelOrder(this.liveOrderBoard, event.order) != event.cancelled) {
+                    this.outcomeMismatches++;
+                }
+                break;
+            case CANCEL_ALL_BY_USER:
+                if (this.liveOrderBoard.cancelAllOrders(event.userId) != event.cancelledCount) {
+                    this.outcomeMismatches++;
+                }
+                break;
+            case GET_ORDER_SUMMARY:
+                if (event.coinType == null) {
+                    this.liveOrderBoard.getOrderSummary(event.orderType);
+                } else if (event.depth == ReplayEvent.DISPLAY_DEPTH) {
+                    this.liveOrderBoard.getOrderSummary(event.coinType, event.orderType);
+                } else {
+                    this.liveOrderBoard.getOrderSummary(event.coinType, event.orderType, event.depth);
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown event.");
+        }
+    }
+
+    private void place(final Order order, final long recordedId) {
+        long replayedId = ReplayEvent.REJECTED;
+        try {
+            replayedId = this.liveOrderBoard.placeOrder(order);
+        } catch (IllegalArgumentException e) {
+            //rejected, compared below
+        }
+        accept(recordedId, replayedId);
+    }
+
+    private void placeAll(final ReplayEvent event) {
+        final BatchResult batchResult = this.liveOrderBoard.placeOrders(Arrays.asList(event.orders));
+        for (int position = 0; position < event.orders.length; position++) {
+            accept(event.orderIds[position],
+                   batchResult.isAccepted(position) ? batchResult.getOrderId(position) : ReplayEvent.REJECTED);
+        }
+    }
+
+    private void cancelAll(final ReplayEvent event) {
+        final long[] replayedIds = new long[event.orderIds.length];
+        for (int i = 0; i < replayedIds.length; i++) {
+            replayedIds[i] = toReplayedId(event.orderIds[i]);
+        }
+        final BatchResult batchResult = this.liveOrderBoard.cancelOrders(replayedIds);
+        for (int position = 0; position < replayedIds.length; position++) {
+            if (batchResult.isAccepted(position) != event.cancelledIds[position]) {
+                this.outcomeMismatches++;
+            }
+        }
+    }
+
+    /**
+     * {@link LiveOrderBoard#cancelOrder(Order)} returns nothing, the order counts as cancelled when the user's
+     * live orders in its coin dropped. Orders the board only finds in its repository, and cancels a board applies
+     * later, e.g. a {@link SequencedLiveOrderBoard}, count as not cancelled, when recording and when replaying.
+     */
+    static boolean cancelOrder(final LiveOrderBoard liveOrderBoard, final Order order) {
+        final int liveOrders = liveOrderBoard.getUserExposure(order.getUserId(), order.getCoinType()).getOrderCount();
+        liveOrderBoard.cancelOrder(order);
+        return liveOrderBoard.getUserExposure(order.getUserId(), order.getCoinType()).getOrderCount() < liveOrders;
+    }
+
+    private void accept(final long recordedId, final long replayedId) {
+        if ((recordedId == ReplayEvent.REJECTED) != (replayedId == ReplayEvent.REJECTED)) {
+            this.outcomeMismatches++;
+        }
+        if (recordedId != ReplayEvent.REJECTED && replayedId != ReplayEvent.REJECTED) {
+            this.orderIds.put(recordedId, replayedId);
+        }
+    }
+
+    /**
+     * @return the id the replayed board gave the recorded order, an id no board issues when it gave none
+     */
+    private long toReplayedId(final long recordedId) {
+        return this.orderIds.getOrDefault(recordedId, ReplayEvent.REJECTED);
+    }
+
+    private List<String> compareSummaries(final ReplayEvent finalSummary) {
+        final List<String> mismatches = new ArrayList<>();
+        final Iterator<List<OrderSummary>> recorded = finalSummary.summaries.iterator();
+        for (CoinType coinType : CoinType.values()) {
+            for (OrderType orderType : OrderType.values()) {
+                final List<OrderSummary> expected = recorded.next();
+                final List<OrderSummary> actual = this.liveOrderBoard.getOrderSummary(coinType, orderType);
+                if (!isSameByValue(expected, actual)) {
+                    mismatches.add(coinType + " " + orderType + ": recorded " + expected + ", replayed " + actual);
+                }
+            }
+        }
+        return mismatches;
+    }
+
+    private static boolean isSameByValue(final List<OrderSummary> expected, final List<OrderSummary> actual) {
+        if (expected.size() != actual.size()) {
+            return false;
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            if (expected.get(i).getQuantity().compareTo(actual.get(i).getQuantity()) != 0
+                    || expected.get(i).getPrice().compareTo(actual.get(i).getPrice()) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,242 @@
+package com.cryptoinc.marketplace.replay;
+
+import com.cryptoinc.marketplace.domain.CoinType;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderSummary;
+import com.cryptoinc.marketplace.domain.OrderType;
+import com.cryptoinc.marketplace.journal.OrderCodec;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Binary form of a recording: a magic number and version, then one record per call, its payload length followed by
+ * the timestamp, the kind and the body of the {@link ReplayEvent}. Orders are {@link OrderCodec encoded}.
+ * Reading stops at a torn last record, e.g. when the recording process died.
+ */
+final class ReplayLog {
+
+    static final int MAGIC = 0x4C4F4252;
+    static final byte VERSION = 3;
+    static final int HEADER_BYTES = Integer.BYTES + Byte.BYTES;
+
+    private static final ReplayEvent.Kind[] KINDS = ReplayEvent.Kind.values();
+    private static final CoinType[] COIN_TYPES = CoinType.values();
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+    private static final int ORDER_ENTRY_BYTES = Byte.BYTES + OrderCodec.MAX_ORDER_BYTES + Long.BYTES;
+    private static final int LEVEL_BYTES = 2 * OrderCodec.MAX_DECIMAL_BYTES;
+
+    private ReplayLog() {
+    }
+
+    /**
+     * Orders with a missing field or a value too large for the codec are not recorded.
+     */
+    static boolean isRecordable(final Order order) {
+        try {
+            OrderCodec.checkEncodable(order);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return an upper bound of the record size of the event, length included
+     */
+    static int maxRecordBytes(final ReplayEvent event) {
+        int bytes = Integer.BYTES + Long.BYTES + Byte.BYTES;
+        switch (event.kind) {
+            case PLACE_ORDER:
+                return bytes + OrderCodec.MAX_ORDER_BYTES + Long.BYTES;
+            case PLACE_ORDERS:
+                return bytes + Integer.BYTES + event.orders.length * ORDER_ENTRY_BYTES;
+            case CANCEL_BY_ID:
+                return bytes + Long.BYTES + Byte.BYTES;
+            case CANCEL_ALL_BY_ID:
+                return bytes + Integer.BYTES + event.orderIds.length * (Long.BYTES + Byte.BYTES);
+            case CANCEL_BY_ORDER:
+                return bytes + OrderCodec.MAX_ORDER_BYTES + Byte.BYTES;
+            case CANCEL_ALL_BY_USER:
+                return bytes + 2 * Long.BYTES + Integer.BYTES;
+            case GET_ORDER_SUMMARY:
+                return bytes + 2 * Byte.BYTES + Integer.BYTES;
+            case FINAL_SUMMARY:
+                for (List<OrderSummary> summary : event.summaries) {
+                    bytes += Integer.BYTES + summary.size() * LEVEL_BYTES;
+                }
+                return bytes;
+            default:
+                throw new IllegalStateException("Unknown event.");
+        }
+    }
+
+    static void writeHeader(final ByteBuffer buffer) {
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+    }
+
+    static void encode(final ByteBuffer buffer, final ReplayEvent event) {
+        final int start = buffer.position();
+        buffer.putInt(0);
+        buffer.putLong(event.timestampNanos);
+        buffer.put((byte) event.kind.ordinal());
+        switch (event.kind) {
+            case PLACE_ORDER:
+                OrderCodec.encode(buffer, event.order);
+                buffer.putLong(event.orderIds[0]);
+                break;
+            case PLACE_ORDERS:
+                buffer.putInt(event.orders.length);
+                for (int i = 0; i < event.orders.length; i++) {
+                    if (event.orders[i] == null) {
+                        buffer.put((byte) 0);
+                    } else {
+                        buffer.put((byte) 1);
+                        OrderCodec.encode(buffer, event.orders[i]);
+                    }
+                    buffer.putLong(event.orderIds[i]);
+                }
+                break;
+            case CANCEL_BY_ID:
+                buffer.putLong(event.orderIds[0]);
+                buffer.put((byte) (event.cancelled ? 1 : 0));
+                break;
+            case CANCEL_ALL_BY_ID:
+                buffer.putInt(event.orderIds.length);
+                for (int i = 0; i < event.orderIds.length; i++) {
+                    buffer.putLong(event.orderIds[i]);
+                    buffer.put((byte) (event.cancelledIds[i] ? 1 : 0));
+                }
+                break;
+            case CANCEL_BY_ORDER:
+                OrderCodec.encode(buffer, event.order);
+                buffer.put((byte) (event.cancelled ? 1 : 0));
+                break;
+            case CANCEL_ALL_BY_USER:
+                buffer.putLong(event.userId.getMostSignificantBits());
+                buffer.putLong(event.userId.getLeastSignificantBits());
+                buffer.putInt(event.cancelledCount);
+                break;
+            case GET_ORDER_SUMMARY:
+                buffer.put((byte) (event.coinType == null ? -1 : event.coinType.ordinal()));
+                buffer.put((byte) event.orderType.ordinal());
+                buffer.putInt(event.depth);
+                break;
+            case FINAL_SUMMARY:
+                for (List<OrderSummary> summary : event.summaries) {
+                    buffer.putInt(summary.size());
+                    for (OrderSummary orderSummary : summary) {
+                        OrderCodec.encode(buffer, orderSummary.getQuantity());
+                        OrderCodec.encode(buffer, orderSummary.getPrice());
+                    }
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown event.");
+        }
+        buffer.putInt(start, buffer.position() - start - Integer.BYTES);
+    }
+
+    static ReplayEvent decode(final ByteBuffer buffer) {
+        final long timestampNanos = buffer.getLong();
+        final ReplayEvent event = new ReplayEvent(KINDS[buffer.get()], timestampNanos);
+        switch (event.kind) {
+            case PLACE_ORDER:
+                event.order = OrderCodec.decode(buffer);
+                event.orderIds = new long[]{buffer.getLong()};
+                break;
+            case PLACE_ORDERS:
+                event.orders = new Order[buffer.getInt()];
+                event.orderIds = new long[event.orders.length];
+                for (int i = 0; i < event.orders.length; i++) {
+                    event.orders[i] = buffer.get() == 0 ? null : OrderCodec.decode(buffer);
+                    event.orderIds[i] = buffer.getLong();
+                }
+                break;
+            case CANCEL_BY_ID:
+                event.orderIds = new long[]{buffer.getLong()};
+                event.cancelled = buffer.get() != 0;
+                break;
+            case CANCEL_ALL_BY_ID:
+                event.orderIds = new long[buffer.getInt()];
+                event.cancelledIds = new boolean[event.orderIds.length];
+                for (int i = 0; i < event.orderIds.length; i++) {
+                    event.orderIds[i] = buffer.getLong();
+                    event.cancelledIds[i] = buffer.get() != 0;
+                }
+                break;
+            case CANCEL_BY_ORDER:
+                event.order = OrderCodec.decode(buffer);
+                event.cancelled = buffer.get() != 0;
+                break;
+            case CANCEL_ALL_BY_USER:
+                event.userId = new UUID(buffer.getLong(), buffer.getLong());
+                event.cancelledCount = buffer.getInt();
+                break;
+            case GET_ORDER_SUMMARY:
+                final byte coinType = buffer.get();
+                event.coinType = coinType < 0 ? null : COIN_TYPES[coinType];
+                event.orderType = ORDER_TYPES[buffer.get()];
+                event.depth = buffer.getInt();
+                break;
+            case FINAL_SUMMARY:
+                event.summaries = new ArrayList<>(COIN_TYPES.length * ORDER_TYPES.length);
+                for (int i = 0; i < COIN_TYPES.length * ORDER_TYPES.length; i++) {
+                    final int levels = buffer.getInt();
+                    final List<OrderSummary> summary = new ArrayList<>(levels);
+                    for (int level = 0; level < levels; level++) {
+                        final BigDecimal quantity = OrderCodec.decodeDecimal(buffer);
+                        summary.add(new OrderSummary(quantity, OrderCodec.decodeDecimal(buffer)));
+                    }
+                    event.summaries.add(summary);
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown event.");
+        }
+        return event;
+    }
+
+    /**
+     * Reads every complete record of the recording.
+     *
+     * @throws IOException when the file is not a recording or a record other than the last one is damaged
+     */
+    static List<ReplayEvent> read(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Recording " + file + " is too large.");
+            }
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+                throw new IOException("Not a recording " + file + ".");
+            }
+
+            final List<ReplayEvent> events = new ArrayList<>();
+            while (buffer.remaining() >= Integer.BYTES) {
+                final int length = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                final ByteBuffer record = buffer.slice();
+                record.limit(length);
+                buffer.position(buffer.position() + length);
+                try {
+                    events.add(decode(record));
+                } catch (RuntimeException e) {
+                    throw new IOException("Corrupt record in recording " + file + ".", e);
+                }
+            }
+            return events;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.cryptoinc.marketplace.replay;
+
+public enum ReplayPacing {
+    /**
+     * Every call is made as soon as the previous one returned.
+     */
+    FULL_SPEED,
+    /**
+     * Every call is made at its recorded offset from the start, latency is measured from that offset,
+     * so a replay falling behind shows up in the latency instead of slowing the calls down.
+     */
+    RECORDED
+}
@@ -0,0 +1,83 @@
+package com.cryptoinc.marketplace.replay;
+
+import com.cryptoinc.marketplace.metrics.LatencyHistogram;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of one replay: how fast the calls went and where the replayed board disagreed with the recorded one.
+ */
+public class ReplayReport {
+    private final int calls;
+    private final long elapsedNanos;
+    private final LatencyHistogram latencies;
+    private final int outcomeMismatches;
+    private final List<String> summaryMismatches;
+
+    ReplayReport(
+            final int calls,
+            final long elapsedNanos,
+            final LatencyHistogram latencies,
+            final int outcomeMismatches,
+            final List<String> summaryMismatches) {
+        this.calls = calls;
+        this.elapsedNanos = elapsedNanos;
+        this.latencies = latencies;
+        this.outcomeMismatches = outcomeMismatches;
+        this.summaryMismatches = Collections.unmodifiableList(summaryMismatches);
+    }
+
+    public int getCalls() {
+        return calls;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return calls per second
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : calls * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * @return latency of every replayed call, in nanoseconds
+     */
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * @return number of calls accepted by one board and rejected by the other, or cancelling a different number of orders
+     */
+    public int getOutcomeMismatches() {
+        return outcomeMismatches;
+    }
+
+    /**
+     * @return one line per coin and side whose final summary differs from the recorded one
+     */
+    public List<String> getSummaryMismatches() {
+        return summaryMismatches;
+    }
+
+    public boolean isMatching() {
+        return outcomeMismatches == 0 && summaryMismatches.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("calls: %d, throughput: %.0f calls/s, outcome mismatches: %d, summary mismatches: %d%n"
+                                     + "latency us: mean %.1f, p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, max %.1f",
+                             calls, getThroughput(), outcomeMismatches, summaryMismatches.size(),
+                             latencies.getMean() / 1e3,
+                             latencies.getValueAtPercentile(50) / 1e3,
+                             latencies.getValueAtPercentile(90) / 1e3,
+                             latencies.getValueAtPercentile(99) / 1e3,
+                             latencies.getValueAtPercentile(99.9) / 1e3,
+                             latencies.getMax() / 1e3);
+    }
+}
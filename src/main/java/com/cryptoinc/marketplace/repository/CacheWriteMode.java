@@ -0,0 +1,16 @@
+package com.cryptoinc.marketplace.repository;
+
+/**
+ * When a save or removal made through a {@link CachingOrderRepository} reaches the wrapped repository.
+ */
+public enum CacheWriteMode {
+    /**
+     * Writes return once the wrapped repository applied them, the cache is updated afterwards.
+     */
+    WRITE_THROUGH,
+    /**
+     * Writes return once the cache is updated, a background writer sends them to the wrapped repository in batches
+     * every flush interval, or sooner when a batch is full. A process crash loses the writes not sent yet.
+     */
+    WRITE_BEHIND
+}
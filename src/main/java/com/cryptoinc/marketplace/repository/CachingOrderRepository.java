@@ -0,0 +1,587 @@
+package com.cryptoinc.marketplace.repository;
+
+import com.cryptoinc.marketplace.domain.Order;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the live orders of a slow repository, e.g. a database or REST client, in a local {@link OrderTrie}, so that
+ * {@link #getOrders()} is answered without a remote call. The cache is loaded on the first read, reloaded on a read
+ * once it is older than the refresh interval and dropped by {@link #invalidate()}. Concurrent readers of a missing or
+ * stale cache share one in-flight fetch.
+ * <p>
+ * Writes go to the wrapped repository as set by the {@link CacheWriteMode} and are applied to the cache as well.
+ * Writes and fetches are stamped with the ticks of a logical clock when they start and end, so a fetch tells which
+ * writes it holds: those that ended before it started, not those that started after it ended. The writes made while
+ * the fetch ran are replayed onto its result, which then replaces the cache, so changes made to the wrapped repository
+ * by others show up with every refresh. A write racing the fetch may or may not be in its result, it is replayed as
+ * "present" or "absent" instead of adding a copy. Pending writes are not in the wrapped repository before they are
+ * sent, the fetch sends them first.
+ */
+public class CachingOrderRepository implements OrderRepository, AutoCloseable {
+
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(10);
+
+    private final OrderRepository orderRepository;
+    private final long refreshAfterNanos;
+    private final CacheWriteMode writeMode;
+    private final int batchSize;
+    //replaced under the cache lock, read without it
+    private final AtomicReference<Cached> cached = new AtomicReference<>(Cached.NONE);
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicReference<CompletableFuture<OrderTrie>> fetch = new AtomicReference<>();
+    private final AtomicLong fetches = new AtomicLong();
+    private final AtomicLong discardedFetches = new AtomicLong();
+    //guards the cache writes, the pending writes, the writes logged while a fetch runs and the invalidations
+    private final ReentrantLock cacheLock = new ReentrantLock();
+    private List<PendingWrite> pending = new ArrayList<>();
+    //non null while a fetch runs
+    private List<PendingWrite> fetchLog;
+    private long invalidations;
+    //orders the batches sent to the wrapped repository
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService writer;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * Writes through, see {@link #CachingOrderRepository(OrderRepository, Duration, CacheWriteMode, int, Duration)}.
+     */
+    public CachingOrderRepository(final OrderRepository orderRepository, final Duration refreshAfter) {
+        this(orderRepository, refreshAfter, CacheWriteMode.WRITE_THROUGH, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    /**
+     * @param refreshAfter  age after which a read reloads the cache, zero keeps it until {@link #invalidate()}
+     * @param batchSize     in {@link CacheWriteMode#WRITE_BEHIND} mode, pending writes that trigger a flush before the interval
+     * @param flushInterval in {@link CacheWriteMode#WRITE_BEHIND} mode, longest time a write waits to be sent
+     */
+    public CachingOrderRepository(
+            final OrderRepository orderRepository,
+            final Duration refreshAfter,
+            final CacheWriteMode writeMode,
+            final int batchSize,
+            final Duration flushInterval) {
+        this.orderRepository = Objects.requireNonNull(orderRepository, "Order repository is null.");
+        Objects.requireNonNull(refreshAfter, "Refresh interval is null.");
+        this.writeMode = Objects.requireNonNull(writeMode, "Write mode is null.");
+        Objects.requireNonNull(flushInterval, "Flush interval is null.");
+        if (refreshAfter.isNegative()) {
+            throw new IllegalArgumentException("Bad refresh interval.");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Bad batch size.");
+        }
+        if (flushInterval.isNegative() || flushInterval.isZero()) {
+            throw new IllegalArgumentException("Bad flush interval.");
+        }
+        this.refreshAfterNanos = refreshAfter.toNanos();
+        this.batchSize = batchSize;
+
+        if (writeMode == CacheWriteMode.WRITE_BEHIND) {
+            this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "order-cache-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.writer.scheduleWithFixedDelay(
+                    this::flushInBackground, flushInterval.toNanos(), flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+        } else {
+            this.writer = null;
+        }
+    }
+
+    @Override
+    public void saveOrder(final Order order) {
+        Objects.requireNonNull(order, "Order is null.");
+
+        if (this.writeMode == CacheWriteMode.WRITE_BEHIND) {
+            writeBehind(Collections.singletonList(order), true);
+            return;
+        }
+        final long started = this.clock.incrementAndGet();
+        this.orderRepository.saveOrder(order);
+        writeThrough(Collections.singletonList(order), true, -1, started);
+    }
+
+    /**
+     * In {@link CacheWriteMode#WRITE_BEHIND} mode the cache tells whether the order was there.
+     */
+    @Override
+    public boolean remove(final Order order) {
+        Objects.requireNonNull(order, "Order is null.");
+
+        if (this.writeMode == CacheWriteMode.WRITE_BEHIND) {
+            return writeBehind(Collections.singletonList(order), false) == 1;
+        }
+        final long started = this.clock.incrementAndGet();
+        final boolean removed = this.orderRepository.remove(order);
+        if (removed) {
+            writeThrough(Collections.singletonList(order), false, 1, started);
+        }
+        return removed;
+    }
+
+    @Override
+    public void saveOrders(final Collection<Order> orders) {
+        orders.forEach(order -> Objects.requireNonNull(order, "Order is null."));
+
+        if (this.writeMode == CacheWriteMode.WRITE_BEHIND) {
+            writeBehind(orders, true);
+            return;
+        }
+        final long started = this.clock.incrementAndGet();
+        this.orderRepository.saveOrders(orders);
+        writeThrough(orders, true, -1, started);
+    }
+
+    /**
+     * Writing through, the cache is dropped when the wrapped repository removed fewer orders than the cache holds,
+     * the two disagree and the next read reloads it.
+     */
+    @Override
+    public int removeOrders(final Collection<Order> orders) {
+        orders.forEach(order -> Objects.requireNonNull(order, "Order is null."));
+
+        if (this.writeMode == CacheWriteMode.WRITE_BEHIND) {
+            return writeBehind(orders, false);
+        }
+        final long started = this.clock.incrementAndGet();
+        final int removed = this.orderRepository.removeOrders(orders);
+        writeThrough(orders, false, removed, started);
+        return removed;
+    }
+
+    /**
+     * @return an unmodifiable snapshot, later saves and removals are not visible through it
+     */
+    @Override
+    public Collection<Order> getOrders() {
+        final Cached current = this.cached.get();
+        if (isFresh(current)) {
+            return current.orders.asCollection();
+        }
+        return load().asCollection();
+    }
+
+    /**
+     * Drops the cache, the next read fetches the orders again. Pending writes are sent before that fetch.
+     */
+    public void invalidate() {
+        this.cacheLock.lock();
+        try {
+            this.invalidations++;
+            this.cached.set(Cached.NONE);
+        } finally {
+            this.cacheLock.unlock();
+        }
+    }
+
+    /**
+     * Reloads the cache now, sharing a fetch already in flight.
+     */
+    public void refresh() {
+        invalidate();
+        load();
+    }
+
+    /**
+     * Sends the pending writes now, in {@link CacheWriteMode#WRITE_BEHIND} mode.
+     */
+    public void flush() {
+        if (this.writeMode != CacheWriteMode.WRITE_BEHIND) {
+            return;
+        }
+
+        this.flushLock.lock();
+        try {
+            final List<PendingWrite> batch;
+            this.cacheLock.lock();
+            try {
+                batch = this.pending;
+                this.pending = new ArrayList<>();
+            } finally {
+                this.cacheLock.unlock();
+            }
+            send(batch);
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    /**
+     * @return calls made to {@link OrderRepository#getOrders()} of the wrapped repository
+     */
+    public long getFetches() {
+        return this.fetches.get();
+    }
+
+    /**
+     * @return fetches not cached because {@link #invalidate()} was called while they ran
+     */
+    public long getDiscardedFetches() {
+        return this.discardedFetches.get();
+    }
+
+    /**
+     * @return background flushes that failed, their writes are sent again with the next one
+     */
+    public long getFailedFlushes() {
+        return this.failedFlushes.get();
+    }
+
+    public int getPendingWrites() {
+        this.cacheLock.lock();
+        try {
+            return this.pending.size();
+        } finally {
+            this.cacheLock.unlock();
+        }
+    }
+
+    /**
+     * Stops the background writer and sends the pending writes. The wrapped repository is left open.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        if (this.writer != null) {
+            this.writer.shutdown();
+            try {
+                this.writer.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    private boolean isFresh(final Cached current) {
+        return current.orders != null
+                && (this.refreshAfterNanos == 0 || System.nanoTime() - current.loadedAtNanos < this.refreshAfterNanos);
+    }
+
+    private OrderTrie load() {
+        while (true) {
+            final Cached current = this.cached.get();
+            if (isFresh(current)) {
+                return current.orders;
+            }
+
+            final CompletableFuture<OrderTrie> inFlight = this.fetch.get();
+            if (inFlight != null) {
+                try {
+                    return inFlight.join();
+                } catch (CompletionException e) {
+                    throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                }
+            }
+
+            final CompletableFuture<OrderTrie> mine = new CompletableFuture<>();
+            if (!this.fetch.compareAndSet(null, mine)) {
+                continue;
+            }
+            try {
+                final OrderTrie orders = fetchOrders();
+                mine.complete(orders);
+                return orders;
+            } catch (RuntimeException e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                this.fetch.set(null);
+            }
+        }
+    }
+
+    /**
+     * Fetches with the flush lock held, so pending writes queued after the ones it sends stay pending until the fetch
+     * is installed and can be replayed onto it.
+     */
+    private OrderTrie fetchOrders() {
+        this.flushLock.lock();
+        try {
+            final List<PendingWrite> batch;
+            final long invalidationsSeen;
+            final long started;
+            this.cacheLock.lock();
+            try {
+                batch = this.pending;
+                this.pending = new ArrayList<>();
+                this.fetchLog = new ArrayList<>();
+                invalidationsSeen = this.invalidations;
+                started = this.clock.incrementAndGet();
+            } finally {
+                this.cacheLock.unlock();
+            }
+
+            final Fetched fetched;
+            try {
+                send(batch);
+                this.fetches.incrementAndGet();
+                final OrderTrie orders = OrderTrie.of(this.orderRepository.getOrders());
+                //writes queued after the batch was taken are still pending, the fetch does not hold them
+                fetched = new Fetched(
+                        orders, started, this.writeMode == CacheWriteMode.WRITE_BEHIND ? started : this.clock.incrementAndGet());
+            } catch (RuntimeException e) {
+                this.cacheLock.lock();
+                try {
+                    this.fetchLog = null;
+                } finally {
+                    this.cacheLock.unlock();
+                }
+                throw e;
+            }
+
+            this.cacheLock.lock();
+            try {
+                OrderTrie orders = fetched.orders;
+                for (PendingWrite write : this.fetchLog) {
+                    orders = fetched.replay(orders, write);
+                }
+                this.fetchLog = null;
+                if (this.invalidations == invalidationsSeen) {
+                    this.cached.set(new Cached(orders, System.nanoTime(), fetched));
+                } else {
+                    this.discardedFetches.incrementAndGet();
+                }
+                return orders;
+            } finally {
+                this.cacheLock.unlock();
+            }
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    /**
+     * Applies a write the wrapped repository took to the cache, unless the fetch behind the cache holds it. Removals
+     * drop the cache when the wrapped repository removed another number of orders than the cache held, the two
+     * disagree and the next read reloads it.
+     *
+     * @param removed orders the wrapped repository removed, ignored for saves
+     * @param started tick taken before the wrapped repository was called
+     */
+    private void writeThrough(final Collection<Order> orders, final boolean save, final int removed, final long started) {
+        final long ended = this.clock.incrementAndGet();
+        final List<PendingWrite> writes = new ArrayList<>(orders.size());
+        orders.forEach(order -> writes.add(new PendingWrite(order, save, started, ended)));
+
+        this.cacheLock.lock();
+        try {
+            final Cached current = this.cached.get();
+            if (current.orders != null) {
+                OrderTrie updated = current.orders;
+                int unchanged = 0;
+                for (PendingWrite write : writes) {
+                    final OrderTrie replayed = current.fetched.replay(updated, write);
+                    if (replayed == updated) {
+                        unchanged++;
+                    }
+                    updated = replayed;
+                }
+                //orders the fetch already held or the cache did not hold may be among the unchanged
+                final int cacheRemoved = current.orders.size() - updated.size();
+                this.cached.set(!save && (cacheRemoved > removed || cacheRemoved + unchanged < removed)
+                                        ? Cached.NONE
+                                        : new Cached(updated, current.loadedAtNanos, current.fetched));
+            }
+            if (this.fetchLog != null) {
+                this.fetchLog.addAll(writes);
+            }
+        } finally {
+            this.cacheLock.unlock();
+        }
+    }
+
+    /**
+     * Applies the writes to the cache, loading it first when needed, and queues them under one lock acquisition,
+     * so a flush never sees the cache ahead of the pending writes.
+     *
+     * @return the number of orders saved or removed
+     */
+    private int writeBehind(final Collection<Order> orders, final boolean save) {
+        if (this.closed) {
+            throw new IllegalStateException("Repository is closed.");
+        }
+
+        while (true) {
+            if (this.cached.get().orders == null) {
+                load();
+                continue;
+            }
+
+            this.cacheLock.lock();
+            try {
+                final Cached current = this.cached.get();
+                if (current.orders == null) {
+                    continue;
+                }
+                final long queued = this.clock.incrementAndGet();
+                final List<PendingWrite> writes = new ArrayList<>(orders.size());
+                if (save) {
+                    orders.forEach(order -> writes.add(new PendingWrite(order, true, queued, queued)));
+                } else {
+                    //only the orders the cache held are removed from the wrapped repository
+                    OrderTrie remaining = current.orders;
+                    for (Order order : orders) {
+                        final OrderTrie minus = remaining.minus(order);
+                        if (minus != remaining) {
+                            writes.add(new PendingWrite(order, false, queued, queued));
+                        }
+                        remaining = minus;
+                    }
+                }
+                this.cached.set(save ? current.plus(orders) : current.minus(orders));
+                this.pending.addAll(writes);
+                if (this.fetchLog != null) {
+                    this.fetchLog.addAll(writes);
+                }
+                if (this.pending.size() >= this.batchSize && this.flushRequested.compareAndSet(false, true)) {
+                    this.writer.execute(this::flushInBackground);
+                }
+                return writes.size();
+            } finally {
+                this.cacheLock.unlock();
+            }
+        }
+    }
+
+    private void flushInBackground() {
+        this.flushRequested.set(false);
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            //the batch is pending again, the next flush sends it
+            this.failedFlushes.incrementAndGet();
+        }
+    }
+
+    /**
+     * Sends the batch in runs of saves and removals, in the order they were made. What was not sent when the wrapped
+     * repository fails is put back in front of the pending writes.
+     */
+    private void send(final List<PendingWrite> batch) {
+        int from = 0;
+        try {
+            while (from < batch.size()) {
+                final boolean save = batch.get(from).save;
+                int to = from;
+                final List<Order> run = new ArrayList<>();
+                while (to < batch.size() && batch.get(to).save == save) {
+                    run.add(batch.get(to++).order);
+                }
+                if (save) {
+                    this.orderRepository.saveOrders(run);
+                } else {
+                    this.orderRepository.removeOrders(run);
+                }
+                from = to;
+            }
+        } catch (RuntimeException e) {
+            this.cacheLock.lock();
+            try {
+                final List<PendingWrite> unsent = new ArrayList<>(batch.subList(from, batch.size()));
+                unsent.addAll(this.pending);
+                this.pending = unsent;
+            } finally {
+                this.cacheLock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private static final class Cached {
+
+        private static final Cached NONE = new Cached(null, 0, null);
+
+        //null when there is no cache
+        private final OrderTrie orders;
+        private final long loadedAtNanos;
+        //the fetch the orders started from
+        private final Fetched fetched;
+
+        private Cached(final OrderTrie orders, final long loadedAtNanos, final Fetched fetched) {
+            this.orders = orders;
+            this.loadedAtNanos = loadedAtNanos;
+            this.fetched = fetched;
+        }
+
+        private Cached plus(final Collection<Order> added) {
+            OrderTrie updated = this.orders;
+            for (Order order : added) {
+                updated = updated.plus(order);
+            }
+            return new Cached(updated, this.loadedAtNanos, this.fetched);
+        }
+
+        private Cached minus(final Collection<Order> removed) {
+            OrderTrie updated = this.orders;
+            for (Order order : removed) {
+                updated = updated.minus(order);
+            }
+            return new Cached(updated, this.loadedAtNanos, this.fetched);
+        }
+    }
+
+    /**
+     * Orders returned by the wrapped repository, with the ticks taken before and after asking for them.
+     */
+    private static final class Fetched {
+
+        private final OrderTrie orders;
+        private final long started;
+        private final long ended;
+
+        private Fetched(final OrderTrie orders, final long started, final long ended) {
+            this.orders = orders;
+            this.started = started;
+            this.ended = ended;
+        }
+
+        /**
+         * Applies a write the fetch does not hold to {@code orders}. A save racing the fetch only adds the order when
+         * it is absent, so equal orders saved at the same time may be counted once until the next refresh.
+         *
+         * @return {@code orders} itself when the write changes nothing
+         */
+        private OrderTrie replay(final OrderTrie orders, final PendingWrite write) {
+            if (write.ended < this.started) {
+                return orders;
+            }
+            if (!write.save) {
+                return orders.minus(write.order);
+            }
+            final boolean racing = write.started <= this.ended;
+            return racing && orders.minus(write.order) != orders ? orders : orders.plus(write.order);
+        }
+    }
+
+    private static final class PendingWrite {
+
+        private final Order order;
+        private final boolean save;
+        //ticks taken before and after the wrapped repository took the write, both when it is queued for later
+        private final long started;
+        private final long ended;
+
+        private PendingWrite(final Order order, final boolean save, final long started, final long ended) {
+            this.order = order;
+            this.save = save;
+            this.started = started;
+            this.ended = ended;
+        }
+    }
+}
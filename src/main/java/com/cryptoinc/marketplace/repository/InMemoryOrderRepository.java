@@ -0,0 +1,84 @@
+package com.cryptoinc.marketplace.repository;
+
+import com.cryptoinc.marketplace.domain.Order;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Non-blocking in-memory repository.
+ * The live orders are an immutable {@link OrderTrie} swapped in with compare-and-set, so writers never take a lock
+ * and {@link #getOrders()} hands out the current version as a consistent snapshot, without copying it.
+ */
+public class InMemoryOrderRepository implements OrderRepository {
+
+    private final AtomicReference<OrderTrie> orders = new AtomicReference<>(OrderTrie.EMPTY);
+
+    @Override
+    public void saveOrder(final Order order) {
+        Objects.requireNonNull(order, "Order is null.");
+
+        this.orders.updateAndGet(current -> current.plus(order));
+    }
+
+    @Override
+    public boolean remove(final Order order) {
+        Objects.requireNonNull(order, "Order is null.");
+
+        while (true) {
+            final OrderTrie current = this.orders.get();
+            final OrderTrie updated = current.minus(order);
+            if (updated == current) {
+                return false;
+            }
+            if (this.orders.compareAndSet(current, updated)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * The whole batch becomes visible at once, with a single compare-and-set.
+     * Saved into an empty repository, e.g. when recovering, the trie is built in one go.
+     */
+    @Override
+    public void saveOrders(final Collection<Order> orders) {
+        orders.forEach(order -> Objects.requireNonNull(order, "Order is null."));
+
+        this.orders.updateAndGet(current -> {
+            if (current.size() == 0) {
+                return OrderTrie.of(orders);
+            }
+            OrderTrie updated = current;
+            for (Order order : orders) {
+                updated = updated.plus(order);
+            }
+            return updated;
+        });
+    }
+
+    @Override
+    public int removeOrders(final Collection<Order> orders) {
+        orders.forEach(order -> Objects.requireNonNull(order, "Order is null."));
+
+        while (true) {
+            final OrderTrie current = this.orders.get();
+            OrderTrie updated = current;
+            for (Order order : orders) {
+                updated = updated.minus(order);
+            }
+            if (updated == current || this.orders.compareAndSet(current, updated)) {
+                return current.size() - updated.size();
+            }
+        }
+    }
+
+    /**
+     * @return an unmodifiable snapshot, later saves and removals are not visible through it
+     */
+    @Override
+    public Collection<Order> getOrders() {
+        return this.orders.get().asCollection();
+    }
+}
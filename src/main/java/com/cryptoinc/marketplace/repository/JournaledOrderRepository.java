@@ -0,0 +1,267 @@
+package com.cryptoinc.marketplace.repository;
+
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.journal.JournalDurability;
+import com.cryptoinc.marketplace.journal.JournalVisitor;
+import com.cryptoinc.marketplace.journal.OrderJournal;
+import com.cryptoinc.marketplace.journal.OrderSnapshot;
+import com.cryptoinc.marketplace.metrics.BoardMetrics;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable repository: every save and removal is appended to an {@link OrderJournal} and applied to an in-memory
+ * repository, which serves all reads. Opening the repository loads the latest {@link OrderSnapshot} and replays
+ * only the journal after it, so a board created on top of it in
+ * {@link com.cryptoinc.marketplace.AggregationMode#INCREMENTAL} mode is rebuilt from the recovered orders.
+ * <p>
+ * Snapshots are written from the immutable order set in the background. Taking one only holds the journal
+ * append lock to read the position and the current order set, writers are not paused while it is written.
+ * Once it is on disk the journal segments and snapshots before it are deleted, so a damaged newest snapshot
+ * fails opening instead of recovering without the orders it held.
+ */
+public class JournaledOrderRepository implements OrderRepository, AutoCloseable {
+
+    private final InMemoryOrderRepository orders = new InMemoryOrderRepository();
+    private final Path directory;
+    private final OrderJournal journal;
+    private final Duration recoveryTime;
+    private final int snapshotOrders;
+    private final long replayedRecords;
+    private final AtomicLong failedSnapshots = new AtomicLong();
+    private ScheduledExecutorService snapshotScheduler;
+    private long lastSnapshotPosition;
+
+    public JournaledOrderRepository(final Path directory) throws IOException {
+        this(directory, OrderJournal.DEFAULT_SEGMENT_SIZE, JournalDurability.GROUP_COMMIT, OrderJournal.DEFAULT_FLUSH_INTERVAL);
+    }
+
+    /**
+     * @throws IOException also when the newest snapshot is damaged, see {@link OrderSnapshot#loadLatest(Path)}
+     */
+    public JournaledOrderRepository(
+            final Path directory,
+            final int segmentSize,
+            final JournalDurability durability,
+            final Duration flushInterval) throws IOException {
+        final long start = System.nanoTime();
+        this.directory = Objects.requireNonNull(directory, "Directory is null.");
+
+        final Optional<OrderSnapshot> snapshot = OrderSnapshot.loadLatest(directory);
+        final ReplayedOrders replayed = new ReplayedOrders();
+        this.lastSnapshotPosition = snapshot.map(OrderSnapshot::getPosition).orElse(0L);
+        this.snapshotOrders = snapshot.map(loaded -> loaded.getOrders().size()).orElse(0);
+
+        this.journal = OrderJournal.open(directory, segmentSize, durability, flushInterval, this.lastSnapshotPosition, replayed);
+        //snapshot orders are live as they are, only the tail is counted
+        final List<Order> live = new ArrayList<>(snapshot.map(OrderSnapshot::getOrders).orElse(Collections.emptyList()));
+        live.addAll(replayed.toList());
+        this.orders.saveOrders(live);
+        this.orders.removeOrders(replayed.snapshotCancels);
+        this.replayedRecords = replayed.records;
+        this.recoveryTime = Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    @Override
+    public void saveOrder(final Order order) {
+        Objects.requireNonNull(order, "Order is null.");
+
+        this.journal.appendPlaces(Collections.singletonList(order), () -> this.orders.saveOrder(order));
+    }
+
+    /**
+     * Only removals that took place are journaled.
+     */
+    @Override
+    public boolean remove(final Order order) {
+        Objects.requireNonNull(order, "Order is null.");
+
+        return !this.journal.appendCancels(
+                () -> this.orders.remove(order) ? Collections.singletonList(order) : Collections.emptyList()).isEmpty();
+    }
+
+    @Override
+    public void saveOrders(final Collection<Order> orders) {
+        this.journal.appendPlaces(orders, () -> this.orders.saveOrders(orders));
+    }
+
+    @Override
+    public int removeOrders(final Collection<Order> orders) {
+        orders.forEach(order -> Objects.requireNonNull(order, "Order is null."));
+
+        return this.journal.appendCancels(() -> {
+            final List<Order> removed = new ArrayList<>(orders.size());
+            for (Order order : orders) {
+                if (this.orders.remove(order)) {
+                    removed.add(order);
+                }
+            }
+            return removed;
+        }).size();
+    }
+
+    @Override
+    public Collection<Order> getOrders() {
+        return this.orders.getOrders();
+    }
+
+    public OrderJournal getJournal() {
+        return this.journal;
+    }
+
+    /**
+     * @return how long opening took: loading the snapshot, replaying the journal tail and rebuilding the orders
+     */
+    public Duration getRecoveryTime() {
+        return this.recoveryTime;
+    }
+
+    public int getSnapshotOrders() {
+        return this.snapshotOrders;
+    }
+
+    /**
+     * @return journal records replayed on top of the snapshot
+     */
+    public long getReplayedRecords() {
+        return this.replayedRecords;
+    }
+
+    /**
+     * @return background snapshots that failed, see {@link #startSnapshots(Duration)}
+     */
+    public long getFailedSnapshots() {
+        return this.failedSnapshots.get();
+    }
+
+    /**
+     * Registers how recovery went, {@code recoveryMicros}, {@code snapshotOrders} and {@code replayedRecords},
+     * and the {@code failedSnapshots} count. Gauges are only read when metrics are reported.
+     */
+    public void registerGauges(final BoardMetrics boardMetrics) {
+        Objects.requireNonNull(boardMetrics, "Metrics are null.");
+
+        final long recoveryMicros = TimeUnit.NANOSECONDS.toMicros(this.recoveryTime.toNanos());
+        boardMetrics.registerGauge("recoveryMicros", () -> recoveryMicros);
+        boardMetrics.registerGauge("snapshotOrders", () -> this.snapshotOrders);
+        boardMetrics.registerGauge("replayedRecords", () -> this.replayedRecords);
+        boardMetrics.registerGauge("failedSnapshots", this.failedSnapshots::get);
+    }
+
+    /**
+     * Writes a snapshot of the live orders on the calling thread, then truncates the journal before it.
+     *
+     * @return the journal position of the snapshot
+     */
+    public synchronized long snapshot() throws IOException {
+        final Cut cut = this.journal.atPosition(position -> new Cut(position, this.orders.getOrders()));
+        if (cut.position == this.lastSnapshotPosition) {
+            return cut.position;
+        }
+
+        OrderSnapshot.write(this.directory, cut.position, cut.orders);
+        this.lastSnapshotPosition = cut.position;
+        this.journal.deleteSegmentsBefore(cut.position);
+        OrderSnapshot.deleteBefore(this.directory, cut.position);
+        return cut.position;
+    }
+
+    /**
+     * Takes a snapshot every {@code interval} on a background thread, until the repository is closed.
+     */
+    public synchronized void startSnapshots(final Duration interval) {
+        Objects.requireNonNull(interval, "Interval is null.");
+        if (this.snapshotScheduler != null) {
+            throw new IllegalStateException("Snapshots already started.");
+        }
+
+        this.snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "order-snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.snapshotScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot();
+            } catch (IOException | RuntimeException e) {
+                //the journal still holds everything, the next run tries again
+                this.failedSnapshots.incrementAndGet();
+            }
+        }, interval.toNanos(), interval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void close() throws IOException {
+        final ScheduledExecutorService scheduler;
+        synchronized (this) {
+            scheduler = this.snapshotScheduler;
+        }
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        this.journal.close();
+    }
+
+    private static final class Cut {
+
+        private final long position;
+        private final Collection<Order> orders;
+
+        private Cut(final long position, final Collection<Order> orders) {
+            this.position = position;
+            this.orders = orders;
+        }
+    }
+
+    /**
+     * Counts live orders while the journal is replayed, so the in-memory repository is built once at the end
+     * instead of once per record. Cancels of orders not placed in the replayed part hit the snapshot.
+     */
+    private static final class ReplayedOrders implements JournalVisitor {
+
+        private final Map<Order, Integer> counts = new LinkedHashMap<>();
+        private final List<Order> snapshotCancels = new ArrayList<>();
+        private long records;
+
+        @Override
+        public void onPlace(final Order order) {
+            this.counts.merge(order, 1, Integer::sum);
+            this.records++;
+        }
+
+        @Override
+        public void onCancel(final Order order) {
+            final Integer count = this.counts.get(order);
+            if (count == null) {
+                this.snapshotCancels.add(order);
+            } else if (count == 1) {
+                this.counts.remove(order);
+            } else {
+                this.counts.put(order, count - 1);
+            }
+            this.records++;
+        }
+
+        List<Order> toList() {
+            final List<Order> live = new ArrayList<>();
+            this.counts.forEach((order, count) -> {
+                for (int i = 0; i < count; i++) {
+                    live.add(order);
+                }
+            });
+            return live;
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.cryptoinc.marketplace.repository;
+
+import com.cryptoinc.marketplace.domain.CoinType;
+import com.cryptoinc.marketplace.domain.FixedPointScales;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Repository keeping orders off-heap, as fixed-width 40 byte records in direct buffers: user id, price and
+ * quantity ticks, a chain link and the packed order type and coin. The heap only holds the chunk list and an
+ * {@code int} hash index, so it grows by a few bytes of primitive array per resting order: O(N) ints, not O(N)
+ * objects, which leaves the GC nothing per order to trace.
+ * <p>
+ * Slots of removed orders go on a free list and are reused first. Prices and quantities are kept as
+ * {@link FixedPointScales} ticks: values with more decimals than their coin scale are rejected, and orders come
+ * back without trailing zeros, e.g. a price saved as 13.60 reads back as 13.6.
+ * <p>
+ * Writers take a write lock, {@link #getOrders()} copies the live orders onto the heap under a read lock,
+ * so it costs O(N): pair this repository with {@link com.cryptoinc.marketplace.AggregationMode#INCREMENTAL} boards.
+ */
+public class OffHeapOrderRepository implements OrderRepository {
+
+    private static final int RECORD_BYTES = 40;
+    private static final int MSB = 0;
+    private static final int LSB = 8;
+    private static final int PRICE = 16;
+    private static final int QUANTITY = 24;
+    private static final int NEXT = 32;
+    private static final int FLAGS = 36;
+    private static final int USED = 0x80;
+    private static final int PACKED = 0x7F;
+    private static final int SLOTS_PER_CHUNK_BITS = 16;
+    private static final int SLOTS_PER_CHUNK = 1 << SLOTS_PER_CHUNK_BITS;
+    private static final int NONE = -1;
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+    private static final CoinType[] COIN_TYPES = CoinType.values();
+
+    private final FixedPointScales scales;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    //first slot of each hash chain
+    private int[] buckets;
+    private int freeSlot = NONE;
+    private int highWaterSlot;
+    private int size;
+
+    public OffHeapOrderRepository(final FixedPointScales scales) {
+        this(scales, SLOTS_PER_CHUNK);
+    }
+
+    /**
+     * @param expectedOrders sizes the hash index up front, it grows past that as needed
+     */
+    public OffHeapOrderRepository(final FixedPointScales scales, final int expectedOrders) {
+        this.scales = Objects.requireNonNull(scales, "Scales are null.");
+        if (expectedOrders < 1) {
+            throw new IllegalArgumentException("Bad capacity.");
+        }
+        this.buckets = new int[Integer.highestOneBit(Math.max(16, expectedOrders * 4 / 3 - 1)) << 1];
+        Arrays.fill(this.buckets, NONE);
+    }
+
+    /**
+     * @throws IllegalArgumentException when the price or quantity has more decimals than the coin scale
+     */
+    @Override
+    public void saveOrder(final Order order) {
+        final Record record = toRecord(order);
+
+        this.lock.writeLock().lock();
+        try {
+            insert(record);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(final Order order) {
+        final Record record = toStoredRecord(order);
+        if (record == null) {
+            return false;
+        }
+
+        this.lock.writeLock().lock();
+        try {
+            return delete(record);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Every order is checked before any is saved, a rejected batch leaves the repository unchanged.
+     */
+    @Override
+    public void saveOrders(final Collection<Order> orders) {
+        final List<Record> records = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            records.add(toRecord(order));
+        }
+
+        this.lock.writeLock().lock();
+        try {
+            records.forEach(this::insert);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int removeOrders(final Collection<Order> orders) {
+        final List<Record> records = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            final Record record = toStoredRecord(order);
+            if (record != null) {
+                records.add(record);
+            }
+        }
+
+        this.lock.writeLock().lock();
+        try {
+            int removed = 0;
+            for (Record record : records) {
+                if (delete(record)) {
+                    removed++;
+                }
+            }
+            return removed;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return a heap copy of the live orders, later saves and removals are not visible through it
+     */
+    @Override
+    public Collection<Order> getOrders() {
+        this.lock.readLock().lock();
+        try {
+            final List<Order> orders = new ArrayList<>(this.size);
+            for (int slot = 0; slot < this.highWaterSlot; slot++) {
+                final ByteBuffer chunk = chunk(slot);
+                final int offset = offset(slot);
+                if ((chunk.get(offset + FLAGS) & USED) != 0) {
+                    orders.add(toOrder(chunk, offset));
+                }
+            }
+            return Collections.unmodifiableList(orders);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        this.lock.readLock().lock();
+        try {
+            return this.size;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return direct memory reserved for records, it is kept for reuse when orders are removed
+     */
+    public long getOffHeapBytes() {
+        this.lock.readLock().lock();
+        try {
+            return (long) this.chunks.size() * SLOTS_PER_CHUNK * RECORD_BYTES;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private void insert(final Record record) {
+        if (this.size + 1 > this.buckets.length / 4 * 3) {
+            rehash(this.buckets.length << 1);
+        }
+
+        final int slot = allocate();
+        final ByteBuffer chunk = chunk(slot);
+        final int offset = offset(slot);
+        final int bucket = record.hash & (this.buckets.length - 1);
+        chunk.putLong(offset + MSB, record.msb);
+        chunk.putLong(offset + LSB, record.lsb);
+        chunk.putLong(offset + PRICE, record.price);
+        chunk.putLong(offset + QUANTITY, record.quantity);
+        chunk.putInt(offset + NEXT, this.buckets[bucket]);
+        chunk.put(offset + FLAGS, (byte) (USED | record.packed));
+        this.buckets[bucket] = slot;
+        this.size++;
+    }
+
+    private boolean delete(final Record record) {
+        final int bucket = record.hash & (this.buckets.length - 1);
+        int previous = NONE;
+        for (int slot = this.buckets[bucket]; slot != NONE; ) {
+            final ByteBuffer chunk = chunk(slot);
+            final int offset = offset(slot);
+            final int next = chunk.getInt(offset + NEXT);
+            if (record.matches(chunk, offset)) {
+                if (previous == NONE) {
+                    this.buckets[bucket] = next;
+                } else {
+                    chunk(previous).putInt(offset(previous) + NEXT, next);
+                }
+                chunk.put(offset + FLAGS, (byte) 0);
+                chunk.putInt(offset + NEXT, this.freeSlot);
+                this.freeSlot = slot;
+                this.size--;
+                return true;
+            }
+            previous = slot;
+            slot = next;
+        }
+        return false;
+    }
+
+    private int allocate() {
+        if (this.freeSlot != NONE) {
+            final int slot = this.freeSlot;
+            this.freeSlot = chunk(slot).getInt(offset(slot) + NEXT);
+            return slot;
+        }
+        if (this.highWaterSlot == this.chunks.size() * SLOTS_PER_CHUNK) {
+            this.chunks.add(ByteBuffer.allocateDirect(SLOTS_PER_CHUNK * RECORD_BYTES).order(ByteOrder.nativeOrder()));
+        }
+        return this.highWaterSlot++;
+    }
+
+    private void rehash(final int bucketCount) {
+        final int[] rehashed = new int[bucketCount];
+        Arrays.fill(rehashed, NONE);
+        for (int slot = 0; slot < this.highWaterSlot; slot++) {
+            final ByteBuffer chunk = chunk(slot);
+            final int offset = offset(slot);
+            if ((chunk.get(offset + FLAGS) & USED) == 0) {
+                continue;
+            }
+            final int bucket = hash(
+                    chunk.getLong(offset + MSB),
+                    chunk.getLong(offset + LSB),
+                    chunk.getLong(offset + PRICE),
+                    chunk.getLong(offset + QUANTITY),
+                    chunk.get(offset + FLAGS) & PACKED) & (bucketCount - 1);
+            chunk.putInt(offset + NEXT, rehashed[bucket]);
+            rehashed[bucket] = slot;
+        }
+        this.buckets = rehashed;
+    }
+
+    private ByteBuffer chunk(final int slot) {
+        return this.chunks.get(slot >>> SLOTS_PER_CHUNK_BITS);
+    }
+
+    private static int offset(final int slot) {
+        return (slot & (SLOTS_PER_CHUNK - 1)) * RECORD_BYTES;
+    }
+
+    private Record toRecord(final Order order) {
+        Objects.requireNonNull(order, "Order is null.");
+        Objects.requireNonNull(order.getUserId(), "User id is null.");
+
+        final CoinType coinType = order.getCoinType();
+        return new Record(
+                order.getUserId().getMostSignificantBits(),
+                order.getUserId().getLeastSignificantBits(),
+                this.scales.toPriceTicks(coinType, order.getPrice()),
+                this.scales.toQuantityTicks(coinType, order.getQuantity()),
+                order.getOrderType().ordinal() << 4 | coinType.ordinal());
+    }
+
+    /**
+     * @return null when the order does not fit the coin scale, such an order can never have been saved
+     */
+    private Record toStoredRecord(final Order order) {
+        try {
+            return toRecord(order);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private Order toOrder(final ByteBuffer chunk, final int offset) {
+        final int packed = chunk.get(offset + FLAGS) & PACKED;
+        final CoinType coinType = COIN_TYPES[packed & 0x0F];
+        return new Order(
+                new UUID(chunk.getLong(offset + MSB), chunk.getLong(offset + LSB)),
+                ORDER_TYPES[packed >>> 4],
+                coinType,
+                this.scales.fromQuantityTicks(coinType, chunk.getLong(offset + QUANTITY)),
+                this.scales.fromPriceTicks(coinType, chunk.getLong(offset + PRICE)));
+    }
+
+    private static int hash(final long msb, final long lsb, final long price, final long quantity, final int packed) {
+        long hash = msb * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ lsb) * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ price) * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ quantity) * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ packed) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ hash >>> 32);
+    }
+
+    /**
+     * An order in record form, built off the lock.
+     */
+    private static final class Record {
+
+        private final long msb;
+        private final long lsb;
+        private final long price;
+        private final long quantity;
+        private final int packed;
+        private final int hash;
+
+        private Record(final long msb, final long lsb, final long price, final long quantity, final int packed) {
+            this.msb = msb;
+            this.lsb = lsb;
+            this.price = price;
+            this.quantity = quantity;
+            this.packed = packed;
+            this.hash = hash(msb, lsb, price, quantity, packed);
+        }
+
+        boolean matches(final ByteBuffer chunk, final int offset) {
+            return chunk.getLong(offset + PRICE) == this.price
+                    && chunk.getLong(offset + QUANTITY) == this.quantity
+                    && chunk.getLong(offset + LSB) == this.lsb
+                    && chunk.getLong(offset + MSB) == this.msb
+                    && (chunk.get(offset + FLAGS) & PACKED) == this.packed;
+        }
+    }
+}
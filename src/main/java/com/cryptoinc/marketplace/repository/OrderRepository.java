@@ -2,10 +2,32 @@ package com.cryptoinc.marketplace.repository;
 
 import com.cryptoinc.marketplace.domain.Order;
 
-import java.util.List;
+import java.util.Collection;
 
 public interface OrderRepository {
     void saveOrder(Order order);
-    void remove(Order order);
-    List<Order> getOrders();
+    boolean remove(Order order);
+    Collection<Order> getOrders();
+
+    /**
+     * Saves all orders in one go, implementations backed by a remote store should override it with a single round trip.
+     */
+    default void saveOrders(Collection<Order> orders) {
+        orders.forEach(this::saveOrder);
+    }
+
+    /**
+     * Removes one occurrence of every order in one go.
+     *
+     * @return how many orders were removed
+     */
+    default int removeOrders(Collection<Order> orders) {
+        int removed = 0;
+        for (Order order : orders) {
+            if (remove(order)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
 }
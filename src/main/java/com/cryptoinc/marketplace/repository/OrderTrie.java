@@ -0,0 +1,507 @@
+package com.cryptoinc.marketplace.repository;
+
+import com.cryptoinc.marketplace.domain.Order;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Immutable multiset of orders, stored as a hash array mapped trie.
+ * Adding or removing an order copies only the O(log32 N) nodes on its path, every other node is shared
+ * with the previous version, so any version can be handed out as a consistent snapshot without copying.
+ */
+final class OrderTrie {
+
+    static final OrderTrie EMPTY = new OrderTrie(BitmapNode.EMPTY, 0);
+
+    private static final int BITS_PER_LEVEL = 5;
+    private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+    private static final int MAX_DEPTH = 32 / BITS_PER_LEVEL + 2;
+
+    private final BitmapNode root;
+    private final int size;
+
+    private OrderTrie(final BitmapNode root, final int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Builds a trie of all orders bottom up, every node is allocated once instead of once per added order.
+     */
+    static OrderTrie of(final Collection<Order> orders) {
+        final Order[] array = orders.toArray(new Order[0]);
+        final int[] hashes = new int[array.length];
+        for (int i = 0; i < array.length; i++) {
+            hashes[i] = array[i].hashCode();
+        }
+        return new OrderTrie(
+                BitmapNode.build(array, hashes, 0, array.length, 0, new Order[array.length], new int[array.length]),
+                array.length);
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    OrderTrie plus(final Order order) {
+        return new OrderTrie(this.root.plus(order.hashCode(), 0, order), this.size + 1);
+    }
+
+    /**
+     * @return this very instance when the order is not present
+     */
+    OrderTrie minus(final Order order) {
+        final BitmapNode newRoot = this.root.minus(order.hashCode(), 0, order);
+        if (newRoot == this.root) {
+            return this;
+        }
+        return new OrderTrie(newRoot == null ? BitmapNode.EMPTY : newRoot, this.size - 1);
+    }
+
+    AbstractCollection<Order> asCollection() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Order> iterator() {
+                return new OrderIterator(OrderTrie.this.root);
+            }
+
+            @Override
+            public int size() {
+                return OrderTrie.this.size;
+            }
+
+            @Override
+            public Spliterator<Order> spliterator() {
+                return new OrderSpliterator(OrderTrie.this.root.entries, 0, OrderTrie.this.root.entries.length, OrderTrie.this.size);
+            }
+        };
+    }
+
+    private static int index(final int hash, final int shift) {
+        return (hash >>> shift) & LEVEL_MASK;
+    }
+
+    /**
+     * Inner node, entries are either {@link BitmapNode}s or {@link Leaf}s.
+     */
+    private static final class BitmapNode {
+
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+        private final Object[] entries;
+
+        private BitmapNode(final int bitmap, final Object[] entries) {
+            this.bitmap = bitmap;
+            this.entries = entries;
+        }
+
+        BitmapNode plus(final int hash, final int shift, final Order order) {
+            final int bit = 1 << index(hash, shift);
+            final int position = Integer.bitCount(this.bitmap & (bit - 1));
+
+            if ((this.bitmap & bit) == 0) {
+                final Object[] newEntries = new Object[this.entries.length + 1];
+                System.arraycopy(this.entries, 0, newEntries, 0, position);
+                newEntries[position] = new Leaf(hash, order);
+                System.arraycopy(this.entries, position, newEntries, position + 1, this.entries.length - position);
+                return new BitmapNode(this.bitmap | bit, newEntries);
+            }
+
+            final Object entry = this.entries[position];
+            final Object newEntry;
+            if (entry instanceof BitmapNode) {
+                newEntry = ((BitmapNode) entry).plus(hash, shift + BITS_PER_LEVEL, order);
+            } else if (((Leaf) entry).hash == hash) {
+                newEntry = ((Leaf) entry).plus(order);
+            } else {
+                //different hashes always part ways before the bits run out
+                newEntry = pair((Leaf) entry, new Leaf(hash, order), shift + BITS_PER_LEVEL);
+            }
+            return withEntry(position, newEntry);
+        }
+
+        /**
+         * @return this very instance when the order is not present, null when the node became empty
+         */
+        BitmapNode minus(final int hash, final int shift, final Order order) {
+            final int bit = 1 << index(hash, shift);
+            if ((this.bitmap & bit) == 0) {
+                return this;
+            }
+
+            final int position = Integer.bitCount(this.bitmap & (bit - 1));
+            final Object entry = this.entries[position];
+            final Object newEntry;
+            if (entry instanceof BitmapNode) {
+                final BitmapNode child = (BitmapNode) entry;
+                final BitmapNode newChild = child.minus(hash, shift + BITS_PER_LEVEL, order);
+                if (newChild == child) {
+                    return this;
+                }
+                //a node left with a single leaf is replaced by the leaf itself
+                newEntry = newChild != null && newChild.entries.length == 1 && newChild.entries[0] instanceof Leaf
+                        ? newChild.entries[0]
+                        : newChild;
+            } else {
+                final Leaf leaf = (Leaf) entry;
+                if (leaf.hash != hash) {
+                    return this;
+                }
+                newEntry = leaf.minus(order);
+                if (newEntry == leaf) {
+                    return this;
+                }
+            }
+
+            if (newEntry != null) {
+                return withEntry(position, newEntry);
+            }
+            if (this.entries.length == 1) {
+                return null;
+            }
+            final Object[] newEntries = new Object[this.entries.length - 1];
+            System.arraycopy(this.entries, 0, newEntries, 0, position);
+            System.arraycopy(this.entries, position + 1, newEntries, position, newEntries.length - position);
+            return new BitmapNode(this.bitmap & ~bit, newEntries);
+        }
+
+        /**
+         * Buckets {@code orders[from, to)} by their index at this level, a bucket becomes a leaf
+         * once all its orders share one hash, otherwise a child node.
+         */
+        static BitmapNode build(
+                final Order[] orders,
+                final int[] hashes,
+                final int from,
+                final int to,
+                final int shift,
+                final Order[] scratchOrders,
+                final int[] scratchHashes) {
+            final int[] starts = new int[LEVEL_MASK + 2];
+            for (int i = from; i < to; i++) {
+                starts[index(hashes[i], shift) + 1]++;
+            }
+            int bitmap = 0;
+            int entryCount = 0;
+            for (int bucket = 0; bucket <= LEVEL_MASK; bucket++) {
+                if (starts[bucket + 1] > 0) {
+                    bitmap |= 1 << bucket;
+                    entryCount++;
+                }
+                starts[bucket + 1] += starts[bucket];
+            }
+
+            final int[] next = starts.clone();
+            for (int i = from; i < to; i++) {
+                final int target = from + next[index(hashes[i], shift)]++;
+                scratchOrders[target] = orders[i];
+                scratchHashes[target] = hashes[i];
+            }
+            System.arraycopy(scratchOrders, from, orders, from, to - from);
+            System.arraycopy(scratchHashes, from, hashes, from, to - from);
+
+            final Object[] entries = new Object[entryCount];
+            int position = 0;
+            for (int bucket = 0; bucket <= LEVEL_MASK; bucket++) {
+                final int bucketFrom = from + starts[bucket];
+                final int bucketTo = from + starts[bucket + 1];
+                if (bucketFrom == bucketTo) {
+                    continue;
+                }
+                entries[position++] = sameHash(hashes, bucketFrom, bucketTo)
+                        ? Leaf.of(hashes[bucketFrom], orders, bucketFrom, bucketTo)
+                        : build(orders, hashes, bucketFrom, bucketTo, shift + BITS_PER_LEVEL, scratchOrders, scratchHashes);
+            }
+            return new BitmapNode(bitmap, entries);
+        }
+
+        private static boolean sameHash(final int[] hashes, final int from, final int to) {
+            for (int i = from + 1; i < to; i++) {
+                if (hashes[i] != hashes[from]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private BitmapNode withEntry(final int position, final Object entry) {
+            final Object[] newEntries = this.entries.clone();
+            newEntries[position] = entry;
+            return new BitmapNode(this.bitmap, newEntries);
+        }
+
+        private static BitmapNode pair(final Leaf first, final Leaf second, final int shift) {
+            final int firstIndex = index(first.hash, shift);
+            final int secondIndex = index(second.hash, shift);
+            if (firstIndex == secondIndex) {
+                return new BitmapNode(1 << firstIndex, new Object[]{pair(first, second, shift + BITS_PER_LEVEL)});
+            }
+            final Object[] entries = firstIndex < secondIndex ? new Object[]{first, second} : new Object[]{second, first};
+            return new BitmapNode((1 << firstIndex) | (1 << secondIndex), entries);
+        }
+    }
+
+    /**
+     * Distinct orders sharing one hash code, each with the number of times it was saved.
+     */
+    private static final class Leaf {
+
+        private final int hash;
+        private final Order[] orders;
+        private final int[] counts;
+
+        Leaf(final int hash, final Order order) {
+            this(hash, new Order[]{order}, new int[]{1});
+        }
+
+        private Leaf(final int hash, final Order[] orders, final int[] counts) {
+            this.hash = hash;
+            this.orders = orders;
+            this.counts = counts;
+        }
+
+        static Leaf of(final int hash, final Order[] orders, final int from, final int to) {
+            Leaf leaf = new Leaf(hash, orders[from]);
+            for (int i = from + 1; i < to; i++) {
+                leaf = leaf.plus(orders[i]);
+            }
+            return leaf;
+        }
+
+        Leaf plus(final Order order) {
+            final int position = indexOf(order);
+            if (position >= 0) {
+                final int[] newCounts = this.counts.clone();
+                newCounts[position]++;
+                return new Leaf(this.hash, this.orders, newCounts);
+            }
+            final Order[] newOrders = Arrays.copyOf(this.orders, this.orders.length + 1);
+            final int[] newCounts = Arrays.copyOf(this.counts, this.counts.length + 1);
+            newOrders[this.orders.length] = order;
+            newCounts[this.counts.length] = 1;
+            return new Leaf(this.hash, newOrders, newCounts);
+        }
+
+        /**
+         * @return this very instance when the order is not present, null when the leaf became empty
+         */
+        Leaf minus(final Order order) {
+            final int position = indexOf(order);
+            if (position < 0) {
+                return this;
+            }
+            if (this.counts[position] > 1) {
+                final int[] newCounts = this.counts.clone();
+                newCounts[position]--;
+                return new Leaf(this.hash, this.orders, newCounts);
+            }
+            if (this.orders.length == 1) {
+                return null;
+            }
+            final Order[] newOrders = new Order[this.orders.length - 1];
+            final int[] newCounts = new int[this.counts.length - 1];
+            System.arraycopy(this.orders, 0, newOrders, 0, position);
+            System.arraycopy(this.orders, position + 1, newOrders, position, newOrders.length - position);
+            System.arraycopy(this.counts, 0, newCounts, 0, position);
+            System.arraycopy(this.counts, position + 1, newCounts, position, newCounts.length - position);
+            return new Leaf(this.hash, newOrders, newCounts);
+        }
+
+        private int indexOf(final Order order) {
+            for (int i = 0; i < this.orders.length; i++) {
+                if (this.orders[i].equals(order)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Depth first walk of one trie version, every order is returned as many times as it was saved.
+     */
+    private static final class OrderIterator implements Iterator<Order> {
+
+        private final Object[][] path = new Object[MAX_DEPTH][];
+        private final int[] positions = new int[MAX_DEPTH];
+        private int depth;
+        private Leaf leaf;
+        private int leafPosition;
+        private int copiesLeft;
+        private Order next;
+
+        private final int end;
+
+        OrderIterator(final BitmapNode root) {
+            this(root.entries, 0, root.entries.length);
+        }
+
+        /**
+         * Walks the subtrees of {@code entries[from, to)} only.
+         */
+        OrderIterator(final Object[] entries, final int from, final int to) {
+            this.path[0] = entries;
+            this.positions[0] = from;
+            this.end = to;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next != null;
+        }
+
+        @Override
+        public Order next() {
+            if (this.next == null) {
+                throw new NoSuchElementException();
+            }
+            final Order order = this.next;
+            advance();
+            return order;
+        }
+
+        private void advance() {
+            while (true) {
+                if (this.leaf != null) {
+                    if (this.copiesLeft > 0) {
+                        this.copiesLeft--;
+                        this.next = this.leaf.orders[this.leafPosition];
+                        return;
+                    }
+                    if (++this.leafPosition < this.leaf.orders.length) {
+                        this.copiesLeft = this.leaf.counts[this.leafPosition];
+                        continue;
+                    }
+                    this.leaf = null;
+                }
+
+                if (this.depth < 0) {
+                    this.next = null;
+                    return;
+                }
+                final Object[] entries = this.path[this.depth];
+                if (this.positions[this.depth] == (this.depth == 0 ? this.end : entries.length)) {
+                    this.depth--;
+                    continue;
+                }
+                final Object entry = entries[this.positions[this.depth]++];
+                if (entry instanceof Leaf) {
+                    this.leaf = (Leaf) entry;
+                    this.leafPosition = 0;
+                    this.copiesLeft = this.leaf.counts[0];
+                } else {
+                    this.depth++;
+                    this.path[this.depth] = ((BitmapNode) entry).entries;
+                    this.positions[this.depth] = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits a trie version by subtrees: a range of sibling entries is halved, a range of a single inner node
+     * descends into it. Hash bits spread orders evenly over the trie, so the halves are of similar size and
+     * a parallel stream over millions of orders keeps every core busy.
+     */
+    private static final class OrderSpliterator implements Spliterator<Order> {
+
+        private Object[] entries;
+        private int from;
+        private int to;
+        private long estimatedSize;
+        private boolean sized;
+        private OrderIterator iterator;
+
+        OrderSpliterator(final Object[] entries, final int from, final int to, final int size) {
+            this(entries, from, to, size, true);
+        }
+
+        private OrderSpliterator(final Object[] entries, final int from, final int to, final long estimatedSize, final boolean sized) {
+            this.entries = entries;
+            this.from = from;
+            this.to = to;
+            this.estimatedSize = estimatedSize;
+            this.sized = sized;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super Order> action) {
+            if (this.iterator == null) {
+                this.iterator = new OrderIterator(this.entries, this.from, this.to);
+            }
+            if (!this.iterator.hasNext()) {
+                return false;
+            }
+            action.accept(this.iterator.next());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(final Consumer<? super Order> action) {
+            if (this.iterator == null) {
+                for (int position = this.from; position < this.to; position++) {
+                    forEach(this.entries[position], action);
+                }
+                this.from = this.to;
+                return;
+            }
+            while (this.iterator.hasNext()) {
+                action.accept(this.iterator.next());
+            }
+        }
+
+        @Override
+        public Spliterator<Order> trySplit() {
+            if (this.iterator != null) {
+                return null;
+            }
+            while (this.to - this.from == 1 && this.entries[this.from] instanceof BitmapNode) {
+                this.entries = ((BitmapNode) this.entries[this.from]).entries;
+                this.from = 0;
+                this.to = this.entries.length;
+            }
+            if (this.to - this.from < 2) {
+                return null;
+            }
+            final int middle = (this.from + this.to) >>> 1;
+            this.estimatedSize >>>= 1;
+            this.sized = false;
+            final OrderSpliterator prefix = new OrderSpliterator(this.entries, this.from, middle, this.estimatedSize, false);
+            this.from = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.estimatedSize;
+        }
+
+        @Override
+        public int characteristics() {
+            return (this.sized ? SIZED : 0) | IMMUTABLE | NONNULL;
+        }
+
+        private static void forEach(final Object entry, final Consumer<? super Order> action) {
+            if (entry instanceof BitmapNode) {
+                for (Object child : ((BitmapNode) entry).entries) {
+                    forEach(child, action);
+                }
+                return;
+            }
+            final Leaf leaf = (Leaf) entry;
+            for (int position = 0; position < leaf.orders.length; position++) {
+                for (int copy = 0; copy < leaf.counts[position]; copy++) {
+                    action.accept(leaf.orders[position]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.cryptoinc.marketplace.sequencer;
+
+import java.util.Objects;
+
+/**
+ * The single consumer of a {@link RingBuffer}. Hands every published entry to the handler in sequence order,
+ * releasing the slots once a whole batch is processed. Run it on its own thread.
+ */
+public final class BatchEventProcessor<E> implements Runnable {
+
+    private final RingBuffer<E> ringBuffer;
+    private final EventHandler<E> eventHandler;
+    private volatile boolean running = true;
+
+    public BatchEventProcessor(final RingBuffer<E> ringBuffer, final EventHandler<E> eventHandler) {
+        this.ringBuffer = Objects.requireNonNull(ringBuffer, "Ring buffer is null.");
+        this.eventHandler = Objects.requireNonNull(eventHandler, "Event handler is null.");
+    }
+
+    @Override
+    public void run() {
+        long nextSequence = this.ringBuffer.getReleasedSequence() + 1;
+        while (true) {
+            final long sequence = nextSequence;
+            this.ringBuffer.getWaitStrategy().waitFor(() -> !this.running || this.ringBuffer.isPublished(sequence));
+            if (!this.running && !this.ringBuffer.isPublished(sequence)) {
+                return;
+            }
+
+            final long highestPublished = this.ringBuffer.getHighestPublished(sequence);
+            for (long current = sequence; current <= highestPublished; current++) {
+                this.eventHandler.onEvent(this.ringBuffer.get(current), current, current == highestPublished);
+            }
+            this.ringBuffer.release(highestPublished);
+            nextSequence = highestPublished + 1;
+        }
+    }
+
+    /**
+     * Stops the processor once everything published so far is processed.
+     */
+    public void halt() {
+        this.running = false;
+        this.ringBuffer.getWaitStrategy().signal();
+    }
+}
@@ -0,0 +1,50 @@
+package com.cryptoinc.marketplace.sequencer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Parks the consumer on a condition, no cpu is used while idle. Producers only take the lock when someone waits.
+ */
+public final class BlockingWaitStrategy implements WaitStrategy {
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition published = this.lock.newCondition();
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    @Override
+    public void waitFor(final BooleanSupplier ready) {
+        if (ready.getAsBoolean()) {
+            return;
+        }
+
+        this.lock.lock();
+        this.waiters.incrementAndGet();
+        try {
+            //re-checked after announcing the wait, a producer publishing now will see the waiter and signal
+            while (!ready.getAsBoolean()) {
+                this.published.awaitUninterruptibly();
+            }
+        } finally {
+            this.waiters.decrementAndGet();
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void signal() {
+        if (this.waiters.get() == 0) {
+            return;
+        }
+
+        this.lock.lock();
+        try {
+            this.published.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+}
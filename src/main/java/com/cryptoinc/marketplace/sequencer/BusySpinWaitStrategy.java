@@ -0,0 +1,20 @@
+package com.cryptoinc.marketplace.sequencer;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Lowest latency, burns a whole core while the ring buffer is empty.
+ */
+public final class BusySpinWaitStrategy implements WaitStrategy {
+
+    @Override
+    public void waitFor(final BooleanSupplier ready) {
+        while (!ready.getAsBoolean()) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public void signal() {
+    }
+}
@@ -0,0 +1,12 @@
+package com.cryptoinc.marketplace.sequencer;
+
+/**
+ * Consumes the entries of a {@link RingBuffer} on the processor thread, in sequence order.
+ */
+public interface EventHandler<E> {
+
+    /**
+     * @param endOfBatch true for the last entry published so far, a good moment to publish derived state
+     */
+    void onEvent(E event, long sequence, boolean endOfBatch);
+}
@@ -0,0 +1,116 @@
+package com.cryptoinc.marketplace.sequencer;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Pre-allocated ring of mutable entries for many producers and a single consumer.
+ * Producers claim a sequence with {@link #next()}, fill {@link #get(long)} and {@link #publish(long)} it.
+ * A slot is only reused once the consumer has released its previous sequence, so entries never need copying.
+ */
+public final class RingBuffer<E> {
+
+    private static final int SPIN_TRIES = 100;
+
+    private final Object[] entries;
+    private final int mask;
+    private final int indexShift;
+    private final WaitStrategy waitStrategy;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final AtomicLong released = new AtomicLong(-1);
+    //round of the sequence last published in each slot, lets producers publish out of claim order
+    private final AtomicIntegerArray availableRounds;
+
+    /**
+     * @param size number of slots, a power of two
+     */
+    public RingBuffer(final Supplier<E> entryFactory, final int size, final WaitStrategy waitStrategy) {
+        Objects.requireNonNull(entryFactory, "Entry factory is null.");
+        if (size < 1 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Bad ring buffer size.");
+        }
+        this.waitStrategy = Objects.requireNonNull(waitStrategy, "Wait strategy is null.");
+        this.entries = new Object[size];
+        this.mask = size - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(size);
+        this.availableRounds = new AtomicIntegerArray(size);
+        for (int index = 0; index < size; index++) {
+            this.entries[index] = entryFactory.get();
+            this.availableRounds.set(index, -1);
+        }
+    }
+
+    public int getSize() {
+        return this.entries.length;
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return this.waitStrategy;
+    }
+
+    /**
+     * Claims the next sequence, waiting while the ring is full.
+     */
+    public long next() {
+        final long sequence = this.claimed.incrementAndGet();
+        final long wrapPoint = sequence - this.entries.length;
+        int tries = 0;
+        while (wrapPoint > this.released.get()) {
+            if (tries++ < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(1_000);
+            }
+        }
+        return sequence;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(final long sequence) {
+        return (E) this.entries[(int) sequence & this.mask];
+    }
+
+    public void publish(final long sequence) {
+        this.availableRounds.set((int) sequence & this.mask, (int) (sequence >>> this.indexShift));
+        this.waitStrategy.signal();
+    }
+
+    public boolean isPublished(final long sequence) {
+        return this.availableRounds.get((int) sequence & this.mask) == (int) (sequence >>> this.indexShift);
+    }
+
+    /**
+     * @return the highest sequence from {@code lowerBound} on that is published with no gap before it,
+     * {@code lowerBound - 1} when {@code lowerBound} itself is not published
+     */
+    public long getHighestPublished(final long lowerBound) {
+        final long upperBound = this.claimed.get();
+        for (long sequence = lowerBound; sequence <= upperBound; sequence++) {
+            if (!isPublished(sequence)) {
+                return sequence - 1;
+            }
+        }
+        return upperBound;
+    }
+
+    /**
+     * @return the highest sequence claimed by a producer, published or not
+     */
+    public long getClaimedSequence() {
+        return this.claimed.get();
+    }
+
+    /**
+     * Called by the consumer, every sequence up to and including this one may be overwritten.
+     */
+    public void release(final long sequence) {
+        this.released.set(sequence);
+    }
+
+    public long getReleasedSequence() {
+        return this.released.get();
+    }
+}
@@ -0,0 +1,19 @@
+package com.cryptoinc.marketplace.sequencer;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * How the consumer of a {@link RingBuffer} waits for producers to publish.
+ */
+public interface WaitStrategy {
+
+    /**
+     * Returns once {@code ready} holds.
+     */
+    void waitFor(BooleanSupplier ready);
+
+    /**
+     * Called by producers after every publish.
+     */
+    void signal();
+}
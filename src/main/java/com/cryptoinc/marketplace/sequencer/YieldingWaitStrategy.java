@@ -0,0 +1,27 @@
+package com.cryptoinc.marketplace.sequencer;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Spins for a while, then yields the core to other threads between checks.
+ */
+public final class YieldingWaitStrategy implements WaitStrategy {
+
+    private static final int SPIN_TRIES = 100;
+
+    @Override
+    public void waitFor(final BooleanSupplier ready) {
+        int tries = 0;
+        while (!ready.getAsBoolean()) {
+            if (tries++ < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    @Override
+    public void signal() {
+    }
+}
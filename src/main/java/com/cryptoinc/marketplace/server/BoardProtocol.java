@@ -0,0 +1,110 @@
+package com.cryptoinc.marketplace.server;
+
+import com.cryptoinc.marketplace.domain.OrderSummary;
+import com.cryptoinc.marketplace.journal.OrderCodec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Binary protocol of {@link OrderServer}, big-endian, length-prefixed frames. Clients may pipeline requests,
+ * responses of one connection come back in request order and echo the request's correlation id.
+ * <pre>
+ * request:  [int length][byte type][long correlationId][body]
+ * response: [int length][byte type][byte status][long correlationId][body]
+ * </pre>
+ * {@code length} counts the bytes following it. Request bodies:
+ * <ul>
+ * <li>{@link #PLACE_ORDER}: the order as written by {@link OrderCodec}, answered with the long order id</li>
+ * <li>{@link #CANCEL_ORDER}: the long order id, answered with a byte, 1 when a live order was cancelled</li>
+ * <li>{@link #GET_ORDER_SUMMARY}: byte coin ordinal, byte order type ordinal, int depth of at most
+ * {@link #MAX_DEPTH}, answered with an int level count and the quantity and price of each level</li>
+ * <li>{@link #CANCEL_ALL_ORDERS}: the user id as two longs, answered with the int number of cancelled orders</li>
+ * </ul>
+ * A response that is not {@link #OK} carries a short length and the UTF-8 reason instead of a body.
+ */
+final class BoardProtocol {
+
+    static final byte PLACE_ORDER = 1;
+    static final byte CANCEL_ORDER = 2;
+    static final byte GET_ORDER_SUMMARY = 3;
+    static final byte CANCEL_ALL_ORDERS = 4;
+
+    static final byte OK = 0;
+    /**
+     * The board refused the request, e.g. an invalid order.
+     */
+    static final byte REJECTED = 1;
+    /**
+     * The request could not be decoded or the board failed.
+     */
+    static final byte FAILED = 2;
+
+    static final int LENGTH_BYTES = Integer.BYTES;
+    static final int REQUEST_HEADER_BYTES = Byte.BYTES + Long.BYTES;
+    static final int RESPONSE_HEADER_BYTES = 2 * Byte.BYTES + Long.BYTES;
+    static final int MAX_DEPTH = 100;
+    /**
+     * Largest frame after its length, a summary of {@link #MAX_DEPTH} levels.
+     */
+    static final int MAX_FRAME_BYTES = RESPONSE_HEADER_BYTES + Integer.BYTES + MAX_DEPTH * 2 * OrderCodec.MAX_DECIMAL_BYTES;
+    /**
+     * Longer reasons are cut at a character boundary, so a failure fits the space reserved for any response.
+     */
+    static final int MAX_REASON_BYTES = MAX_FRAME_BYTES - RESPONSE_HEADER_BYTES - Short.BYTES;
+
+    private BoardProtocol() {
+    }
+
+    /**
+     * Writes the frame header, the length is filled in by {@link #endFrame}.
+     *
+     * @return the position of the frame
+     */
+    static int beginRequest(final ByteBuffer buffer, final byte type, final long correlationId) {
+        final int frame = buffer.position();
+        buffer.putInt(0);
+        buffer.put(type);
+        buffer.putLong(correlationId);
+        return frame;
+    }
+
+    static int beginResponse(final ByteBuffer buffer, final byte type, final byte status, final long correlationId) {
+        final int frame = buffer.position();
+        buffer.putInt(0);
+        buffer.put(type);
+        buffer.put(status);
+        buffer.putLong(correlationId);
+        return frame;
+    }
+
+    static void endFrame(final ByteBuffer buffer, final int frame) {
+        buffer.putInt(frame, buffer.position() - frame - LENGTH_BYTES);
+    }
+
+    static void putSummary(final ByteBuffer buffer, final List<OrderSummary> orderSummaryList) {
+        buffer.putInt(orderSummaryList.size());
+        for (OrderSummary orderSummary : orderSummaryList) {
+            OrderCodec.encode(buffer, orderSummary.getQuantity());
+            OrderCodec.encode(buffer, orderSummary.getPrice());
+        }
+    }
+
+    static void putReason(final ByteBuffer buffer, final String reason) {
+        final byte[] bytes = (reason == null ? "" : reason).getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_REASON_BYTES);
+        while (length < bytes.length && (bytes[length] & 0xC0) == 0x80) {
+            //never split a multi-byte character
+            length--;
+        }
+        buffer.putShort((short) length);
+        buffer.put(bytes, 0, length);
+    }
+
+    static String getReason(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
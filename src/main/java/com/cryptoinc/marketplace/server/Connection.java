@@ -0,0 +1,169 @@
+package com.cryptoinc.marketplace.server;
+
+import com.cryptoinc.marketplace.LiveOrderBoard;
+import com.cryptoinc.marketplace.domain.CoinType;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderType;
+import com.cryptoinc.marketplace.journal.OrderCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.UUID;
+
+import static com.cryptoinc.marketplace.server.BoardProtocol.*;
+
+/**
+ * One client connection, only ever touched by the event loop it is registered with.
+ * Every complete request in the input buffer is decoded and dispatched to the board, responses are gathered
+ * in the output buffer and written with one call per read. A client that does not read its responses
+ * is not read from either, once the output buffer holds {@link #OUTPUT_HIGH_WATER_BYTES}.
+ */
+final class Connection {
+
+    private static final int INPUT_BUFFER_BYTES = 64 * 1024;
+    private static final int OUTPUT_BUFFER_BYTES = 64 * 1024;
+    private static final int OUTPUT_HIGH_WATER_BYTES = 1024 * 1024;
+    private static final int MAX_REQUEST_BYTES = REQUEST_HEADER_BYTES + OrderCodec.MAX_ORDER_BYTES;
+    private static final CoinType[] COIN_TYPES = CoinType.values();
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final LiveOrderBoard liveOrderBoard;
+    private final ByteBuffer input = ByteBuffer.allocateDirect(INPUT_BUFFER_BYTES);
+    private ByteBuffer output = ByteBuffer.allocate(OUTPUT_BUFFER_BYTES);
+
+    Connection(final SocketChannel channel, final SelectionKey key, final LiveOrderBoard liveOrderBoard) {
+        this.channel = channel;
+        this.key = key;
+        this.liveOrderBoard = liveOrderBoard;
+    }
+
+    /**
+     * @return false when the connection was closed
+     */
+    boolean onReadable() throws IOException {
+        if (this.channel.read(this.input) < 0) {
+            close();
+            return false;
+        }
+        return process();
+    }
+
+    /**
+     * @return false when the connection was closed
+     */
+    boolean onWritable() throws IOException {
+        flush();
+        //requests left unprocessed while the client was not reading are picked up again
+        return this.output.position() > 0 || process();
+    }
+
+    void close() {
+        this.key.cancel();
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            //nothing left to release
+        }
+    }
+
+    private boolean process() throws IOException {
+        boolean throttled;
+        do {
+            this.input.flip();
+            while (this.input.remaining() >= LENGTH_BYTES && this.output.position() < OUTPUT_HIGH_WATER_BYTES) {
+                final int length = this.input.getInt(this.input.position());
+                if (length < REQUEST_HEADER_BYTES || length > MAX_REQUEST_BYTES) {
+                    //framing is lost, nothing after it can be trusted
+                    close();
+                    return false;
+                }
+                if (this.input.remaining() < LENGTH_BYTES + length) {
+                    break;
+                }
+
+                final int frameEnd = this.input.position() + LENGTH_BYTES + length;
+                final int limit = this.input.limit();
+                this.input.position(this.input.position() + LENGTH_BYTES);
+                this.input.limit(frameEnd);
+                handle(this.input.get(), this.input.getLong());
+                this.input.limit(limit);
+                this.input.position(frameEnd);
+            }
+            throttled = this.output.position() >= OUTPUT_HIGH_WATER_BYTES;
+            this.input.compact();
+
+            flush();
+            //when the backlog could be written at once, the requests held back are served right away
+        } while (throttled && this.output.position() == 0);
+        return true;
+    }
+
+    private void handle(final byte type, final long correlationId) {
+        ensureOutputCapacity();
+        final int frame = beginResponse(this.output, type, OK, correlationId);
+        try {
+            switch (type) {
+                case PLACE_ORDER:
+                    final Order order = OrderCodec.decode(this.input);
+                    this.output.putLong(this.liveOrderBoard.placeOrder(order));
+                    break;
+                case CANCEL_ORDER:
+                    this.output.put(this.liveOrderBoard.cancelOrder(this.input.getLong()) ? (byte) 1 : 0);
+                    break;
+                case GET_ORDER_SUMMARY:
+                    final CoinType coinType = COIN_TYPES[this.input.get()];
+                    final OrderType orderType = ORDER_TYPES[this.input.get()];
+                    final int depth = this.input.getInt();
+                    if (depth > MAX_DEPTH) {
+                        throw new IllegalArgumentException("Bad depth.");
+                    }
+                    putSummary(this.output, this.liveOrderBoard.getOrderSummary(coinType, orderType, depth));
+                    break;
+                case CANCEL_ALL_ORDERS:
+                    this.output.putInt(this.liveOrderBoard.cancelAllOrders(new UUID(this.input.getLong(), this.input.getLong())));
+                    break;
+                default:
+                    fail(frame, type, FAILED, correlationId, "Unknown request.");
+                    return;
+            }
+            endFrame(this.output, frame);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            fail(frame, type, REJECTED, correlationId, e.getMessage());
+        } catch (RuntimeException e) {
+            //malformed bodies end up here as well, e.g. a buffer underflow or an unknown ordinal
+            fail(frame, type, FAILED, correlationId, "Bad request.");
+        }
+    }
+
+    private void fail(final int frame, final byte type, final byte status, final long correlationId, final String reason) {
+        this.output.position(frame);
+        beginResponse(this.output, type, status, correlationId);
+        putReason(this.output, reason);
+        endFrame(this.output, frame);
+    }
+
+    private void ensureOutputCapacity() {
+        if (this.output.remaining() < LENGTH_BYTES + MAX_FRAME_BYTES) {
+            final ByteBuffer larger = ByteBuffer.allocate(Math.max(2 * this.output.capacity(), this.output.position() + LENGTH_BYTES + MAX_FRAME_BYTES));
+            this.output.flip();
+            larger.put(this.output);
+            this.output = larger;
+        }
+    }
+
+    private void flush() throws IOException {
+        this.output.flip();
+        this.channel.write(this.output);
+        this.output.compact();
+
+        final boolean pending = this.output.position() > 0;
+        this.key.interestOps(pending ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        if (!pending && this.output.capacity() > OUTPUT_BUFFER_BYTES) {
+            this.output = ByteBuffer.allocate(OUTPUT_BUFFER_BYTES);
+        }
+    }
+}
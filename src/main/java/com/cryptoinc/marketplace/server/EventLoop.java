@@ -0,0 +1,104 @@
+package com.cryptoinc.marketplace.server;
+
+import com.cryptoinc.marketplace.LiveOrderBoard;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * One selector thread serving its share of the connections. Requests are dispatched to the board on this thread,
+ * so a connection never needs a lock and its responses keep request order.
+ */
+final class EventLoop implements Runnable {
+
+    private final Selector selector;
+    private final LiveOrderBoard liveOrderBoard;
+    private final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    EventLoop(final LiveOrderBoard liveOrderBoard) throws IOException {
+        this.selector = Selector.open();
+        this.liveOrderBoard = liveOrderBoard;
+    }
+
+    /**
+     * Hands over a newly accepted connection, it is registered by the loop thread itself.
+     */
+    void register(final SocketChannel channel) {
+        this.accepted.add(channel);
+        this.selector.wakeup();
+    }
+
+    void stop() {
+        this.running = false;
+        this.selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (this.running) {
+                this.selector.select();
+                registerAccepted();
+                final Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    serve(key);
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            //the loop ends with the server
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void registerAccepted() throws IOException {
+        SocketChannel channel;
+        while ((channel = this.accepted.poll()) != null) {
+            channel.configureBlocking(false);
+            final SelectionKey key = channel.register(this.selector, SelectionKey.OP_READ);
+            key.attach(new Connection(channel, key, this.liveOrderBoard));
+        }
+    }
+
+    private void serve(final SelectionKey key) {
+        final Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isReadable()) {
+                connection.onReadable();
+            } else if (key.isWritable()) {
+                connection.onWritable();
+            }
+        } catch (IOException | RuntimeException e) {
+            //one broken connection does not take the loop down
+            connection.close();
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : this.selector.keys()) {
+            ((Connection) key.attachment()).close();
+        }
+        SocketChannel channel;
+        while ((channel = this.accepted.poll()) != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                //nothing left to release
+            }
+        }
+        try {
+            this.selector.close();
+        } catch (IOException e) {
+            //nothing left to release
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.cryptoinc.marketplace.server;
+
+import com.cryptoinc.marketplace.AggregationMode;
+import com.cryptoinc.marketplace.LiveOrderBoardImpl;
+import com.cryptoinc.marketplace.domain.CoinType;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderType;
+import com.cryptoinc.marketplace.metrics.LatencyHistogram;
+import com.cryptoinc.marketplace.repository.InMemoryOrderRepository;
+import com.cryptoinc.marketplace.validators.OrderValidatorImpl;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives an {@link OrderServer} over loopback and reports throughput and end-to-end latency percentiles.
+ * Each connection is a closed loop keeping {@code window} requests in flight: it places orders, cancels its oldest
+ * order once it holds {@code restingOrders} of them and now and then reads a summary. Latency runs from writing
+ * a request to reading its response; it is measured closed loop, so a stalled server delays the next requests
+ * instead of showing up in their latency.
+ * <pre>
+ * java -cp target/classes com.cryptoinc.marketplace.server.LoadGenerator [connections=4] [window=32]
+ *      [seconds=10] [warmupSeconds=3] [restingOrders=1000] [summaryRatio=0.01] [host=] [port=]
+ * </pre>
+ * Without a host an incremental board is served in process on a free loopback port.
+ */
+public final class LoadGenerator {
+
+    private static final BigDecimal[] PRICES = new BigDecimal[200];
+    private static final BigDecimal[] QUANTITIES = new BigDecimal[100];
+
+    static {
+        for (int i = 0; i < PRICES.length; i++) {
+            PRICES[i] = BigDecimal.valueOf(10_000 + i, 2);
+        }
+        for (int i = 0; i < QUANTITIES.length; i++) {
+            QUANTITIES[i] = BigDecimal.valueOf(i + 1, 1);
+        }
+    }
+
+    private final InetSocketAddress address;
+    private final int window;
+    private final int restingOrders;
+    private final double summaryRatio;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final AtomicLong rejections = new AtomicLong();
+    private volatile boolean measuring;
+    private volatile boolean running = true;
+
+    private LoadGenerator(final InetSocketAddress address, final int window, final int restingOrders, final double summaryRatio) {
+        this.address = address;
+        this.window = window;
+        this.restingOrders = restingOrders;
+        this.summaryRatio = summaryRatio;
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            final int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Bad argument " + arg + ", expected name=value.");
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        final int connections = Integer.parseInt(options.getOrDefault("connections", "4"));
+        final int window = Integer.parseInt(options.getOrDefault("window", "32"));
+        final int seconds = Integer.parseInt(options.getOrDefault("seconds", "10"));
+        final int warmupSeconds = Integer.parseInt(options.getOrDefault("warmupSeconds", "3"));
+        final int restingOrders = Integer.parseInt(options.getOrDefault("restingOrders", "1000"));
+        final double summaryRatio = Double.parseDouble(options.getOrDefault("summaryRatio", "0.01"));
+        final String host = options.get("host");
+
+        OrderServer server = null;
+        final InetSocketAddress address;
+        if (host == null) {
+            server = new OrderServer(
+                    new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl(), AggregationMode.INCREMENTAL),
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            address = server.getAddress();
+        } else {
+            address = new InetSocketAddress(host, Integer.parseInt(options.getOrDefault("port", "7070")));
+        }
+
+        try {
+            final LoadGenerator generator = new LoadGenerator(address, window, restingOrders, summaryRatio);
+            System.out.printf("%d connections, window %d, %d s warmup, %d s measured against %s%n",
+                              connections, window, warmupSeconds, seconds, address);
+            generator.run(connections, warmupSeconds, seconds);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private void run(final int connections, final int warmupSeconds, final int seconds) throws Exception {
+        final List<Thread> threads = new ArrayList<>();
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < connections; i++) {
+            final long seed = i;
+            final Thread thread = new Thread(() -> {
+                try {
+                    drive(new Random(seed));
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }, "load-generator-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+
+        TimeUnit.SECONDS.sleep(warmupSeconds);
+        this.measuring = true;
+        final long start = System.nanoTime();
+        TimeUnit.SECONDS.sleep(seconds);
+        this.measuring = false;
+        final long elapsed = System.nanoTime() - start;
+        this.running = false;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException("A connection failed.", failures.get(0));
+        }
+        report(elapsed);
+    }
+
+    private void drive(final Random random) throws IOException {
+        final UUID[] users = new UUID[16];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+        final long[] sentAt = new long[this.window];
+        final byte[] sentTypes = new byte[this.window];
+        final Deque<Long> resting = new ArrayDeque<>(this.restingOrders);
+        long nextCorrelationId = 0;
+        long inFlight = 0;
+
+        try (OrderClient client = new OrderClient(this.address)) {
+            while (this.running || inFlight > 0) {
+                while (this.running && inFlight < this.window) {
+                    final int slot = (int) (nextCorrelationId % this.window);
+                    if (random.nextDouble() < this.summaryRatio) {
+                        sentTypes[slot] = BoardProtocol.GET_ORDER_SUMMARY;
+                        client.sendGetOrderSummary(nextCorrelationId, CoinType.Ethereum, random.nextBoolean() ? OrderType.BUY : OrderType.SELL, 10);
+                    } else if (resting.size() >= this.restingOrders) {
+                        sentTypes[slot] = BoardProtocol.CANCEL_ORDER;
+                        client.sendCancelOrder(nextCorrelationId, resting.pollFirst());
+                    } else {
+                        sentTypes[slot] = BoardProtocol.PLACE_ORDER;
+                        client.sendPlaceOrder(nextCorrelationId, new Order(
+                                users[random.nextInt(users.length)],
+                                random.nextBoolean() ? OrderType.BUY : OrderType.SELL,
+                                random.nextBoolean() ? CoinType.Ethereum : CoinType.Litecoin,
+                                QUANTITIES[random.nextInt(QUANTITIES.length)],
+                                PRICES[random.nextInt(PRICES.length)]));
+                    }
+                    sentAt[slot] = System.nanoTime();
+                    nextCorrelationId++;
+                    inFlight++;
+                }
+                client.flush();
+
+                final OrderClient.Response response = client.receive();
+                final long latency = System.nanoTime() - sentAt[(int) (response.getCorrelationId() % this.window)];
+                inFlight--;
+                if (this.measuring) {
+                    this.latencies.record(latency);
+                }
+                if (!response.isOk()) {
+                    this.rejections.incrementAndGet();
+                } else if (sentTypes[(int) (response.getCorrelationId() % this.window)] == BoardProtocol.PLACE_ORDER) {
+                    resting.addLast(response.getOrderId());
+                }
+            }
+        }
+    }
+
+    private void report(final long elapsedNanos) {
+        final long count = this.latencies.getCount();
+        System.out.printf("requests: %d, throughput: %.0f req/s, rejected: %d%n",
+                          count, count * 1e9 / elapsedNanos, this.rejections.get());
+        System.out.printf("latency us: mean %.1f, p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, p99.99 %.1f, max %.1f%n",
+                          this.latencies.getMean() / 1e3,
+                          this.latencies.getValueAtPercentile(50) / 1e3,
+                          this.latencies.getValueAtPercentile(90) / 1e3,
+                          this.latencies.getValueAtPercentile(99) / 1e3,
+                          this.latencies.getValueAtPercentile(99.9) / 1e3,
+                          this.latencies.getValueAtPercentile(99.99) / 1e3,
+                          this.latencies.getMax() / 1e3);
+    }
+}
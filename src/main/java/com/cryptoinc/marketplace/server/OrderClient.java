@@ -0,0 +1,189 @@
+package com.cryptoinc.marketplace.server;
+
+import com.cryptoinc.marketplace.domain.CoinType;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderSummary;
+import com.cryptoinc.marketplace.domain.OrderType;
+import com.cryptoinc.marketplace.journal.OrderCodec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.cryptoinc.marketplace.server.BoardProtocol.*;
+
+/**
+ * Blocking client of {@link OrderServer}, for one thread. Requests are buffered until {@link #flush()},
+ * so several can be pipelined; responses are read one by one, in request order.
+ */
+public class OrderClient implements AutoCloseable {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final SocketChannel channel;
+    private final ByteBuffer output = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final ByteBuffer input = ByteBuffer.allocateDirect(Math.max(BUFFER_BYTES, 2 * MAX_FRAME_BYTES));
+
+    public OrderClient(final InetSocketAddress address) throws IOException {
+        this.channel = SocketChannel.open(address);
+        this.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        this.input.flip();
+    }
+
+    public void sendPlaceOrder(final long correlationId, final Order order) throws IOException {
+        OrderCodec.checkEncodable(order);
+        final int frame = begin(PLACE_ORDER, correlationId);
+        OrderCodec.encode(this.output, order);
+        endFrame(this.output, frame);
+    }
+
+    public void sendCancelOrder(final long correlationId, final long orderId) throws IOException {
+        final int frame = begin(CANCEL_ORDER, correlationId);
+        this.output.putLong(orderId);
+        endFrame(this.output, frame);
+    }
+
+    public void sendGetOrderSummary(final long correlationId, final CoinType coinType, final OrderType orderType, final int depth)
+            throws IOException {
+        final int frame = begin(GET_ORDER_SUMMARY, correlationId);
+        this.output.put((byte) coinType.ordinal());
+        this.output.put((byte) orderType.ordinal());
+        this.output.putInt(depth);
+        endFrame(this.output, frame);
+    }
+
+    public void sendCancelAllOrders(final long correlationId, final UUID userId) throws IOException {
+        final int frame = begin(CANCEL_ALL_ORDERS, correlationId);
+        this.output.putLong(userId.getMostSignificantBits());
+        this.output.putLong(userId.getLeastSignificantBits());
+        endFrame(this.output, frame);
+    }
+
+    public void flush() throws IOException {
+        this.output.flip();
+        while (this.output.hasRemaining()) {
+            this.channel.write(this.output);
+        }
+        this.output.clear();
+    }
+
+    /**
+     * Blocks until the next response arrives.
+     */
+    public Response receive() throws IOException {
+        fill(LENGTH_BYTES);
+        final int length = this.input.getInt(this.input.position());
+        if (length < RESPONSE_HEADER_BYTES || length > MAX_FRAME_BYTES) {
+            throw new IOException("Bad frame length " + length + ".");
+        }
+        fill(LENGTH_BYTES + length);
+
+        this.input.position(this.input.position() + LENGTH_BYTES);
+        final byte type = this.input.get();
+        final byte status = this.input.get();
+        final long correlationId = this.input.getLong();
+        final byte[] body = new byte[length - RESPONSE_HEADER_BYTES];
+        this.input.get(body);
+        return new Response(type, status, correlationId, ByteBuffer.wrap(body));
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    private int begin(final byte type, final long correlationId) throws IOException {
+        if (this.output.remaining() < REQUEST_HEADER_BYTES + LENGTH_BYTES + OrderCodec.MAX_ORDER_BYTES) {
+            flush();
+        }
+        return beginRequest(this.output, type, correlationId);
+    }
+
+    private void fill(final int bytes) throws IOException {
+        if (this.input.remaining() >= bytes) {
+            return;
+        }
+        this.input.compact();
+        while (this.input.position() < bytes) {
+            if (this.channel.read(this.input) < 0) {
+                throw new EOFException("Connection closed.");
+            }
+        }
+        this.input.flip();
+    }
+
+    /**
+     * A decoded response, the typed getters only apply to {@link #isOk()} responses of the matching request.
+     */
+    public static final class Response {
+
+        private final byte type;
+        private final byte status;
+        private final long correlationId;
+        private final ByteBuffer body;
+
+        private Response(final byte type, final byte status, final long correlationId, final ByteBuffer body) {
+            this.type = type;
+            this.status = status;
+            this.correlationId = correlationId;
+            this.body = body;
+        }
+
+        public long getCorrelationId() {
+            return this.correlationId;
+        }
+
+        public boolean isOk() {
+            return this.status == OK;
+        }
+
+        public boolean isRejected() {
+            return this.status == REJECTED;
+        }
+
+        /**
+         * @return the reason of a response that is not ok
+         */
+        public String getReason() {
+            return isOk() ? null : BoardProtocol.getReason(this.body.duplicate());
+        }
+
+        public long getOrderId() {
+            check(PLACE_ORDER);
+            return this.body.getLong(0);
+        }
+
+        public boolean isCancelled() {
+            check(CANCEL_ORDER);
+            return this.body.get(0) == 1;
+        }
+
+        public int getCancelledCount() {
+            check(CANCEL_ALL_ORDERS);
+            return this.body.getInt(0);
+        }
+
+        public List<OrderSummary> getOrderSummary() {
+            check(GET_ORDER_SUMMARY);
+            final ByteBuffer levels = this.body.duplicate();
+            final int count = levels.getInt();
+            final List<OrderSummary> orderSummaryList = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                orderSummaryList.add(new OrderSummary(OrderCodec.decodeDecimal(levels), OrderCodec.decodeDecimal(levels)));
+            }
+            return orderSummaryList;
+        }
+
+        private void check(final byte expectedType) {
+            if (this.type != expectedType || !isOk()) {
+                throw new IllegalStateException("No such result, the response is " + this.status + " for request " + this.type + ".");
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.cryptoinc.marketplace.server;
+
+import com.cryptoinc.marketplace.LiveOrderBoard;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * TCP front end of a {@link LiveOrderBoard}, speaking {@link BoardProtocol}.
+ * An acceptor thread hands connections round robin to a fixed set of NIO event loops, one per core by default.
+ * The board is called straight from the event loops, it must be thread safe, which every board here is.
+ */
+public class OrderServer implements AutoCloseable {
+
+    private static final long ACCEPT_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final ServerSocketChannel serverChannel;
+    private final EventLoop[] eventLoops;
+    private final Thread[] loopThreads;
+    private final Thread acceptor;
+
+    /**
+     * Binds the address and starts serving.
+     *
+     * @param address port 0 picks a free port, see {@link #getAddress()}
+     */
+    public OrderServer(final LiveOrderBoard liveOrderBoard, final InetSocketAddress address) throws IOException {
+        this(liveOrderBoard, address, Runtime.getRuntime().availableProcessors());
+    }
+
+    public OrderServer(final LiveOrderBoard liveOrderBoard, final InetSocketAddress address, final int eventLoopCount) throws IOException {
+        Objects.requireNonNull(liveOrderBoard, "Board is null.");
+        Objects.requireNonNull(address, "Address is null.");
+        if (eventLoopCount < 1) {
+            throw new IllegalArgumentException("Bad event loop count.");
+        }
+
+        this.serverChannel = ServerSocketChannel.open();
+        this.eventLoops = new EventLoop[eventLoopCount];
+        this.loopThreads = new Thread[eventLoopCount];
+        try {
+            this.serverChannel.bind(address);
+            for (int i = 0; i < eventLoopCount; i++) {
+                this.eventLoops[i] = new EventLoop(liveOrderBoard);
+                this.loopThreads[i] = new Thread(this.eventLoops[i], "order-server-loop-" + i);
+                this.loopThreads[i].setDaemon(true);
+                this.loopThreads[i].start();
+            }
+        } catch (IOException | RuntimeException e) {
+            //nothing is served yet, release the port and the loops already started
+            try {
+                this.serverChannel.close();
+            } catch (IOException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            stopLoops();
+            throw e;
+        }
+        this.acceptor = new Thread(this::accept, "order-server-acceptor");
+        this.acceptor.setDaemon(true);
+        this.acceptor.start();
+    }
+
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) this.serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Stops accepting, closes every connection and waits for the event loops to finish.
+     * An interrupted caller stops waiting and keeps its interrupt status, the loops are still stopped.
+     */
+    @Override
+    public void close() throws IOException {
+        this.serverChannel.close();
+        try {
+            this.acceptor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        stopLoops();
+    }
+
+    private void stopLoops() {
+        for (EventLoop eventLoop : this.eventLoops) {
+            if (eventLoop != null) {
+                eventLoop.stop();
+            }
+        }
+        try {
+            for (Thread loopThread : this.loopThreads) {
+                if (loopThread != null) {
+                    loopThread.join();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void accept() {
+        int next = 0;
+        while (this.serverChannel.isOpen()) {
+            SocketChannel channel = null;
+            try {
+                channel = this.serverChannel.accept();
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                this.eventLoops[next].register(channel);
+                next = (next + 1) % this.eventLoops.length;
+            } catch (IOException e) {
+                if (channel != null) {
+                    close(channel);
+                }
+                //closing the server channel ends the loop, other failures only lose that connection,
+                //a lasting one such as running out of file descriptors is retried without spinning
+                if (this.serverChannel.isOpen()) {
+                    LockSupport.parkNanos(ACCEPT_RETRY_NANOS);
+                }
+            }
+        }
+    }
+
+    private static void close(final SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            //nothing left to release
+        }
+    }
+}
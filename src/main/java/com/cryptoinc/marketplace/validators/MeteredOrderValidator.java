@@ -0,0 +1,56 @@
+package com.cryptoinc.marketplace.validators;
+
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.metrics.BoardMetrics;
+import com.cryptoinc.marketplace.metrics.Operation;
+
+import java.util.Objects;
+
+/**
+ * Times every validation as {@link Operation#VALIDATE}, rejected orders are counted as errors.
+ */
+public class MeteredOrderValidator implements OrderValidator {
+
+    private final OrderValidator orderValidator;
+    private final BoardMetrics boardMetrics;
+
+    public MeteredOrderValidator(final OrderValidator orderValidator, final BoardMetrics boardMetrics) {
+        this.orderValidator = Objects.requireNonNull(orderValidator, "Validator is null.");
+        this.boardMetrics = Objects.requireNonNull(boardMetrics, "Metrics are null.");
+    }
+
+    @Override
+    public void validate(final Order order) {
+        final long start = System.nanoTime();
+        try {
+            this.orderValidator.validate(order);
+        } catch (RuntimeException e) {
+            this.boardMetrics.recordError(Operation.VALIDATE);
+            throw e;
+        } finally {
+            this.boardMetrics.recordLatency(Operation.VALIDATE, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Times the whole batch as one {@link Operation#VALIDATE}, every rejected order is counted as an error.
+     */
+    @Override
+    public void validateAll(final Order[] orders, final String[] rejections) {
+        final long start = System.nanoTime();
+        final boolean[] rejectedBefore = new boolean[rejections.length];
+        for (int position = 0; position < rejections.length; position++) {
+            rejectedBefore[position] = rejections[position] != null;
+        }
+        try {
+            this.orderValidator.validateAll(orders, rejections);
+        } finally {
+            this.boardMetrics.recordLatency(Operation.VALIDATE, System.nanoTime() - start);
+        }
+        for (int position = 0; position < rejections.length; position++) {
+            if (!rejectedBefore[position] && rejections[position] != null) {
+                this.boardMetrics.recordError(Operation.VALIDATE);
+            }
+        }
+    }
+}
@@ -4,4 +4,20 @@ import com.cryptoinc.marketplace.domain.Order;
 
 public interface OrderValidator {
     void validate(Order order);
+
+    /**
+     * Validates every order whose position has no rejection yet, the reason of each rejected order is
+     * written at its position.
+     */
+    default void validateAll(final Order[] orders, final String[] rejections) {
+        for (int position = 0; position < orders.length; position++) {
+            if (rejections[position] == null) {
+                try {
+                    validate(orders[position]);
+                } catch (NullPointerException | IllegalArgumentException e) {
+                    rejections[position] = e.getMessage();
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,39 @@
+package com.cryptoinc.marketplace.validators;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * What validation needs to know about a user, as loaded by a {@link UserStateCache}.
+ */
+public final class UserState {
+
+    public static final UserState UNRESTRICTED = new UserState(false, null);
+
+    private final boolean blocked;
+    private final BigDecimal maxOrderQuantity;
+
+    /**
+     * @param maxOrderQuantity largest quantity of a single order, null for no limit
+     */
+    public UserState(final boolean blocked, final BigDecimal maxOrderQuantity) {
+        this.blocked = blocked;
+        this.maxOrderQuantity = maxOrderQuantity;
+    }
+
+    public static UserState blocked() {
+        return new UserState(true, null);
+    }
+
+    public static UserState limitedTo(final BigDecimal maxOrderQuantity) {
+        return new UserState(false, Objects.requireNonNull(maxOrderQuantity, "Limit is null."));
+    }
+
+    public boolean isBlocked() {
+        return this.blocked;
+    }
+
+    public BigDecimal getMaxOrderQuantity() {
+        return this.maxOrderQuantity;
+    }
+}
@@ -0,0 +1,72 @@
+package com.cryptoinc.marketplace.validators;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of {@link UserState}s, the least recently used user is evicted once it is full.
+ * States are loaded outside the lock, so a slow loader, e.g. a call to a user service, never blocks hits;
+ * two threads missing on the same user may both load it. A load that overlaps an invalidation is returned
+ * but not cached, it may have read the state from before the change.
+ */
+public class UserStateCache {
+
+    private final Function<UUID, UserState> loader;
+    private final Map<UUID, UserState> states;
+    //guarded by states, bumped by every invalidation
+    private long invalidations;
+
+    /**
+     * @param loader state of a user, never null
+     */
+    public UserStateCache(final int capacity, final Function<UUID, UserState> loader) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Bad capacity.");
+        }
+        this.loader = Objects.requireNonNull(loader, "Loader is null.");
+        this.states = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<UUID, UserState> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public UserState get(final UUID userId) {
+        final long invalidationsBeforeLoad;
+        synchronized (this.states) {
+            final UserState state = this.states.get(userId);
+            if (state != null) {
+                return state;
+            }
+            invalidationsBeforeLoad = this.invalidations;
+        }
+
+        final UserState loaded = Objects.requireNonNull(this.loader.apply(userId), "User state is null.");
+        synchronized (this.states) {
+            if (this.invalidations == invalidationsBeforeLoad) {
+                this.states.put(userId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Drops the cached state, e.g. after the user's limits changed, the next validation loads it again.
+     */
+    public void invalidate(final UUID userId) {
+        synchronized (this.states) {
+            this.states.remove(userId);
+            this.invalidations++;
+        }
+    }
+
+    public int size() {
+        synchronized (this.states) {
+            return this.states.size();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.cryptoinc.marketplace.validators;
+
+import com.cryptoinc.marketplace.domain.Order;
+
+import java.util.*;
+
+/**
+ * Runs {@link ValidationRule}s cheapest first and stops at the first rejection. Rejections are result codes,
+ * only {@link #validate} turns them into an exception, so batches with many rejected orders pay no
+ * stack trace capture or unwinding.
+ * <p>
+ * A batch is checked rule by rule: each rule runs over the orders still valid, in one tight loop.
+ */
+public class ValidationPipeline implements OrderValidator {
+
+    private final ValidationRule[] rules;
+
+    /**
+     * @param rules rules of equal cost keep their given order
+     */
+    public ValidationPipeline(final List<ValidationRule> rules) {
+        final List<ValidationRule> sorted = new ArrayList<>(rules);
+        sorted.forEach(rule -> Objects.requireNonNull(rule, "Rule is null."));
+        sorted.sort(Comparator.comparingInt(ValidationRule::getCost));
+        this.rules = sorted.toArray(new ValidationRule[0]);
+    }
+
+    /**
+     * @return the checks of {@link OrderValidatorImpl}, as a pipeline
+     */
+    public static ValidationPipeline defaults() {
+        return new ValidationPipeline(List.of(ValidationRules.userId(), ValidationRules.positiveQuantity(), ValidationRules.positivePrice()));
+    }
+
+    public ValidationResult check(final Order order) {
+        for (ValidationRule rule : this.rules) {
+            final ValidationResult result = rule.check(order);
+            if (!result.isValid()) {
+                return result;
+            }
+        }
+        return ValidationResult.VALID;
+    }
+
+    /**
+     * @return the result per position of {@code orders}
+     */
+    public ValidationResult[] checkAll(final Order[] orders) {
+        final ValidationResult[] results = new ValidationResult[orders.length];
+        Arrays.fill(results, ValidationResult.VALID);
+        for (ValidationRule rule : this.rules) {
+            rule.checkAll(orders, results);
+        }
+        return results;
+    }
+
+    /**
+     * @throws IllegalArgumentException with the result message when the order is rejected
+     */
+    @Override
+    public void validate(final Order order) {
+        final ValidationResult result = check(order);
+        if (!result.isValid()) {
+            throw new IllegalArgumentException(result.getMessage());
+        }
+    }
+
+    @Override
+    public void validateAll(final Order[] orders, final String[] rejections) {
+        int pendingCount = 0;
+        final int[] pendingPositions = new int[orders.length];
+        for (int position = 0; position < orders.length; position++) {
+            if (rejections[position] == null) {
+                pendingPositions[pendingCount++] = position;
+            }
+        }
+
+        if (pendingCount == orders.length) {
+            final ValidationResult[] results = checkAll(orders);
+            for (int position = 0; position < orders.length; position++) {
+                rejections[position] = results[position].getMessage();
+            }
+            return;
+        }
+
+        //orders rejected up front, e.g. null ones, are left out of the batch
+        final Order[] pending = new Order[pendingCount];
+        for (int i = 0; i < pendingCount; i++) {
+            pending[i] = orders[pendingPositions[i]];
+        }
+        final ValidationResult[] results = checkAll(pending);
+        for (int i = 0; i < pendingCount; i++) {
+            rejections[pendingPositions[i]] = results[i].getMessage();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.cryptoinc.marketplace.validators;
+
+/**
+ * Outcome of a validation, rejections carry the message the throwing validators use.
+ */
+public enum ValidationResult {
+    VALID(null),
+    BAD_USER_ID("Bad user id."),
+    BAD_QUANTITY("Bad quantity."),
+    BAD_PRICE("Bad price."),
+    USER_BLOCKED("User is blocked."),
+    OVER_USER_LIMIT("Quantity over user limit.");
+
+    private final String message;
+
+    ValidationResult(final String message) {
+        this.message = message;
+    }
+
+    public boolean isValid() {
+        return this == VALID;
+    }
+
+    /**
+     * @return the rejection reason, null for {@link #VALID}
+     */
+    public String getMessage() {
+        return this.message;
+    }
+}
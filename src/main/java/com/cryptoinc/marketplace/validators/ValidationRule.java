@@ -0,0 +1,30 @@
+package com.cryptoinc.marketplace.validators;
+
+import com.cryptoinc.marketplace.domain.Order;
+
+/**
+ * One check of a {@link ValidationPipeline}. Rules report rejections as result codes, they do not throw.
+ */
+public interface ValidationRule {
+
+    ValidationResult check(Order order);
+
+    /**
+     * Relative cost of {@link #check}, cheaper rules run first.
+     */
+    default int getCost() {
+        return 0;
+    }
+
+    /**
+     * Checks every order whose result is still {@link ValidationResult#VALID}, rejections are written over it.
+     * Rules that look up state may override it to look up each key once per batch.
+     */
+    default void checkAll(final Order[] orders, final ValidationResult[] results) {
+        for (int position = 0; position < orders.length; position++) {
+            if (results[position] == ValidationResult.VALID) {
+                results[position] = check(orders[position]);
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.cryptoinc.marketplace.validators;
+
+import com.cryptoinc.marketplace.domain.Order;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Built-in {@link ValidationRule}s.
+ */
+public final class ValidationRules {
+
+    private static final int FIELD_CHECK_COST = 1;
+    private static final int DECIMAL_CHECK_COST = 2;
+    private static final int USER_STATE_COST = 10;
+
+    private ValidationRules() {
+    }
+
+    public static ValidationRule userId() {
+        return new UserIdRule();
+    }
+
+    public static ValidationRule positiveQuantity() {
+        return new PositiveQuantityRule();
+    }
+
+    public static ValidationRule positivePrice() {
+        return new PositivePriceRule();
+    }
+
+    /**
+     * Rejects orders of blocked users and orders over the user's quantity limit.
+     * A batch looks up every distinct user once.
+     */
+    public static ValidationRule userState(final UserStateCache userStateCache) {
+        Objects.requireNonNull(userStateCache, "Cache is null.");
+
+        return new ValidationRule() {
+            @Override
+            public ValidationResult check(final Order order) {
+                return checkUserState(order, userStateCache.get(order.getUserId()));
+            }
+
+            @Override
+            public int getCost() {
+                return USER_STATE_COST;
+            }
+
+            @Override
+            public void checkAll(final Order[] orders, final ValidationResult[] results) {
+                final Map<UUID, UserState> batchStates = new HashMap<>();
+                for (int position = 0; position < orders.length; position++) {
+                    if (results[position] == ValidationResult.VALID) {
+                        final Order order = orders[position];
+                        results[position] = checkUserState(order, batchStates.computeIfAbsent(order.getUserId(), userStateCache::get));
+                    }
+                }
+            }
+        };
+    }
+
+    private static ValidationResult checkUserState(final Order order, final UserState userState) {
+        if (userState.isBlocked()) {
+            return ValidationResult.USER_BLOCKED;
+        }
+        final BigDecimal maxOrderQuantity = userState.getMaxOrderQuantity();
+        if (maxOrderQuantity != null && order.getQuantity().compareTo(maxOrderQuantity) > 0) {
+            return ValidationResult.OVER_USER_LIMIT;
+        }
+        return ValidationResult.VALID;
+    }
+
+    private static boolean isPositive(final BigDecimal value) {
+        return value != null && value.signum() > 0;
+    }
+
+    /*
+     * The field rules are separate classes with their own batch loop, so the call inside each loop
+     * stays monomorphic and is inlined.
+     */
+
+    private static final class UserIdRule implements ValidationRule {
+        @Override
+        public ValidationResult check(final Order order) {
+            return order.getUserId() == null ? ValidationResult.BAD_USER_ID : ValidationResult.VALID;
+        }
+
+        @Override
+        public int getCost() {
+            return FIELD_CHECK_COST;
+        }
+
+        @Override
+        public void checkAll(final Order[] orders, final ValidationResult[] results) {
+            for (int position = 0; position < orders.length; position++) {
+                if (results[position] == ValidationResult.VALID && orders[position].getUserId() == null) {
+                    results[position] = ValidationResult.BAD_USER_ID;
+                }
+            }
+        }
+    }
+
+    private static final class PositiveQuantityRule implements ValidationRule {
+        @Override
+        public ValidationResult check(final Order order) {
+            return isPositive(order.getQuantity()) ? ValidationResult.VALID : ValidationResult.BAD_QUANTITY;
+        }
+
+        @Override
+        public int getCost() {
+            return DECIMAL_CHECK_COST;
+        }
+
+        @Override
+        public void checkAll(final Order[] orders, final ValidationResult[] results) {
+            for (int position = 0; position < orders.length; position++) {
+                if (results[position] == ValidationResult.VALID && !isPositive(orders[position].getQuantity())) {
+                    results[position] = ValidationResult.BAD_QUANTITY;
+                }
+            }
+        }
+    }
+
+    private static final class PositivePriceRule implements ValidationRule {
+        @Override
+        public ValidationResult check(final Order order) {
+            return isPositive(order.getPrice()) ? ValidationResult.VALID : ValidationResult.BAD_PRICE;
+        }
+
+        @Override
+        public int getCost() {
+            return DECIMAL_CHECK_COST;
+        }
+
+        @Override
+        public void checkAll(final Order[] orders, final ValidationResult[] results) {
+            for (int position = 0; position < orders.length; position++) {
+                if (results[position] == ValidationResult.VALID && !isPositive(orders[position].getPrice())) {
+                    results[position] = ValidationResult.BAD_PRICE;
+                }
+            }
+        }
+    }
+}
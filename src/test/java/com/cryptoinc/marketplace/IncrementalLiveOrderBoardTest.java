@@ -0,0 +1,466 @@
+package com.cryptoinc.marketplace;
+
+import com.cryptoinc.marketplace.domain.BatchResult;
+import com.cryptoinc.marketplace.domain.FixedPointScales;
+import com.cryptoinc.marketplace.domain.MarketStatistics;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderSummary;
+import com.cryptoinc.marketplace.domain.OrderType;
+import com.cryptoinc.marketplace.domain.SideStatistics;
+import com.cryptoinc.marketplace.domain.UserExposure;
+import com.cryptoinc.marketplace.repository.InMemoryOrderRepository;
+import com.cryptoinc.marketplace.repository.OrderRepository;
+import com.cryptoinc.marketplace.validators.OrderValidatorImpl;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.cryptoinc.marketplace.AggregationMode.INCREMENTAL;
+import static com.cryptoinc.marketplace.domain.CoinType.Ethereum;
+import static com.cryptoinc.marketplace.domain.CoinType.Litecoin;
+import static com.cryptoinc.marketplace.domain.OrderType.BUY;
+import static com.cryptoinc.marketplace.domain.OrderType.SELL;
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Mockito.*;
+
+public class IncrementalLiveOrderBoardTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    private LiveOrderBoard liveOrderBoard;
+
+    @BeforeMethod
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(this.orderRepository.remove(any(Order.class))).thenReturn(true);
+        this.liveOrderBoard = new LiveOrderBoardImpl(this.orderRepository, new OrderValidatorImpl(), INCREMENTAL);
+    }
+
+    @Test
+    public void givenPlacedOrders_whenGettingOrderSummary_thenItShouldNotScanTheRepository() {
+        //given
+        this.liveOrderBoard.placeOrder(new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(350.1), BigDecimal.valueOf(13.6)));
+        this.liveOrderBoard.placeOrder(new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(50.5), BigDecimal.valueOf(14)));
+        this.liveOrderBoard.placeOrder(new Order(randomUUID(), SELL, Litecoin, BigDecimal.valueOf(3.5), BigDecimal.valueOf(13.6)));
+        this.liveOrderBoard.placeOrder(new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(441.8), BigDecimal.valueOf(13.9)));
+
+        //when
+        final List<OrderSummary> orderSummaryList = this.liveOrderBoard.getOrderSummary(SELL);
+
+        //then
+        assertThat(orderSummaryList, contains(
+                new OrderSummary(BigDecimal.valueOf(353.6), BigDecimal.valueOf(13.6)),
+                new OrderSummary(BigDecimal.valueOf(50.5), BigDecimal.valueOf(14))
+        ));
+        verify(this.orderRepository, times(1)).getOrders();
+    }
+
+    @Test
+    public void givenCancelledOrder_whenGettingOrderSummary_thenItsQuantityShouldBeDeducted() {
+        //given
+        final Order order = new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(3.5), BigDecimal.valueOf(13.6));
+        this.liveOrderBoard.placeOrder(new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(350.1), BigDecimal.valueOf(13.6)));
+        this.liveOrderBoard.placeOrder(order);
+
+        //when
+        this.liveOrderBoard.cancelOrder(order);
+
+        //then
+        assertThat(this.liveOrderBoard.getOrderSummary(BUY),
+                   contains(new OrderSummary(BigDecimal.valueOf(350.1), BigDecimal.valueOf(13.6))));
+    }
+
+    @Test
+    public void givenAllOrdersOfALevelCancelled_whenGettingOrderSummary_thenTheLevelShouldBeGone() {
+        //given
+        final Order order = new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(3.5), BigDecimal.valueOf(13.6));
+        this.liveOrderBoard.placeOrder(order);
+
+        //when
+        this.liveOrderBoard.cancelOrder(order);
+
+        //then
+        assertThat(this.liveOrderBoard.getOrderSummary(BUY), empty());
+    }
+
+    @Test
+    public void givenOrderNotPlacedThroughTheBoardAndUnknownToTheRepository_whenCancelingOrder_thenTheSummaryShouldBeUntouched() {
+        //given
+        this.liveOrderBoard.placeOrder(new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(3.5), BigDecimal.valueOf(13.6)));
+        final Order unknownOrder = new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(3.5), BigDecimal.valueOf(13.6));
+        when(this.orderRepository.remove(unknownOrder)).thenReturn(false);
+
+        //when
+        this.liveOrderBoard.cancelOrder(unknownOrder);
+
+        //then
+        assertThat(this.liveOrderBoard.getOrderSummary(BUY),
+                   contains(new OrderSummary(BigDecimal.valueOf(3.5), BigDecimal.valueOf(13.6))));
+    }
+
+    @Test
+    public void givenTwoIdenticalOrders_whenCancelingOneById_thenOnlyItsQuantityShouldBeDeducted() {
+        //given
+        final Order order = new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(3.5), BigDecimal.valueOf(13.6));
+        final long firstOrderId = this.liveOrderBoard.placeOrder(order);
+        final long secondOrderId = this.liveOrderBoard.placeOrder(order);
+
+        //when
+        final boolean cancelled = this.liveOrderBoard.cancelOrder(secondOrderId);
+
+        //then
+        assertThat(firstOrderId, not(secondOrderId));
+        assertThat(cancelled, is(true));
+        assertThat(this.liveOrderBoard.getOrderSummary(SELL),
+                   contains(new OrderSummary(BigDecimal.valueOf(3.5), BigDecimal.valueOf(13.6))));
+        verify(this.orderRepository).remove(order);
+    }
+
+    @Test
+    public void givenCancelledOrderId_whenCancelingItAgain_thenNothingShouldBeCancelled() {
+        //given
+        final long orderId = this.liveOrderBoard.placeOrder(
+                new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(3.5), BigDecimal.valueOf(13.6)));
+        this.liveOrderBoard.cancelOrder(orderId);
+
+        //when
+        final boolean cancelled = this.liveOrderBoard.cancelOrder(orderId);
+
+        //then
+        assertThat(cancelled, is(false));
+        assertThat(this.liveOrderBoard.getOrderSummary(SELL), empty());
+        verify(this.orderRepository, times(1)).remove(any(Order.class));
+    }
+
+    @Test
+    public void givenOrdersAlreadyInTheRepository_whenCreatingTheBoard_thenTheyShouldBeAggregated() {
+        //given
+        when(this.orderRepository.getOrders()).thenReturn(List.of(
+                new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(10.0), BigDecimal.valueOf(14.1))
+        ));
+
+        //when
+        final LiveOrderBoard board = new LiveOrderBoardImpl(this.orderRepository, new OrderValidatorImpl(), INCREMENTAL);
+
+        //then
+        assertThat(board.getOrderSummary(SELL),
+                   contains(new OrderSummary(BigDecimal.valueOf(10), BigDecimal.valueOf(14.1))));
+    }
+
+    @Test
+    public void givenOrderSavedToTheRepositoryByAnotherBoard_whenCancelingIt_thenTheBooksShouldBeUntouched() {
+        //given
+        final OrderRepository sharedRepository = new InMemoryOrderRepository();
+        final LiveOrderBoard board = new LiveOrderBoardImpl(sharedRepository, new OrderValidatorImpl(), INCREMENTAL);
+        final Order foreignOrder = new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(2), BigDecimal.valueOf(13.6));
+        sharedRepository.saveOrder(foreignOrder);
+        board.placeOrder(new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(3.5), BigDecimal.valueOf(13.6)));
+
+        //when
+        board.cancelOrder(foreignOrder);
+
+        //then
+        assertThat(sharedRepository.getOrders(), not(hasItem(foreignOrder)));
+        assertThat(board.getOrderSummary(SELL),
+                   contains(new OrderSummary(BigDecimal.valueOf(3.5), BigDecimal.valueOf(13.6))));
+    }
+
+    @Test
+    public void givenOrdersForMultipleCoins_whenGettingOrderSummaryForACoin_thenLevelsShouldNotBeMergedAcrossCoins() {
+        //given
+        this.liveOrderBoard.placeOrder(new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(350.1), BigDecimal.valueOf(13.6)));
+        this.liveOrderBoard.placeOrder(new Order(randomUUID(), SELL, Litecoin, BigDecimal.valueOf(3.5), BigDecimal.valueOf(13.6)));
+
+        //when
+        final List<OrderSummary> ethereumSummaryList = this.liveOrderBoard.getOrderSummary(Ethereum, SELL);
+        final List<OrderSummary> litecoinSummaryList = this.liveOrderBoard.getOrderSummary(Litecoin, SELL);
+
+        //then
+        assertThat(ethereumSummaryList, contains(new OrderSummary(BigDecimal.valueOf(350.1), BigDecimal.valueOf(13.6))));
+        assertThat(litecoinSummaryList, contains(new OrderSummary(BigDecimal.valueOf(3.5), BigDecimal.valueOf(13.6))));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Bad price.")
+    public void givenPriceFinerThanTheCoinScale_whenPlacingOrder_thenItShouldThrowException() {
+        //given
+        final LiveOrderBoard board = new LiveOrderBoardImpl(this.orderRepository, new OrderValidatorImpl(), INCREMENTAL,
+                                                            FixedPointScales.defaultScales().withScales(Ethereum, 2, 4));
+
+        //when
+        board.placeOrder(new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(1.5), new BigDecimal("13.605")));
+    }
+
+    @Test
+    public void givenBatchWithInvalidOrders_whenPlacingOrders_thenValidOnesShouldBePlacedWithOneRepositoryCall() {
+        //given
+        final Order first = new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(350.1), BigDecimal.valueOf(13.6));
+        final Order second = new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(3.5), BigDecimal.valueOf(13.6));
+        final List<Order> orders = Arrays.asList(
+                first,
+                new Order(null, SELL, Ethereum, BigDecimal.valueOf(1), BigDecimal.valueOf(13.6)),
+                null,
+                second
+        );
+
+        //when
+        final BatchResult batchResult = this.liveOrderBoard.placeOrders(orders);
+
+        //then
+        assertThat(batchResult.getAcceptedCount(), is(2));
+        assertThat(batchResult.getRejection(1), is("Bad user id."));
+        assertThat(batchResult.getRejection(2), is("Order is null."));
+        assertThat(this.liveOrderBoard.getOrderSummary(SELL),
+                   contains(new OrderSummary(BigDecimal.valueOf(353.6), BigDecimal.valueOf(13.6))));
+        verify(this.orderRepository).saveOrders(List.of(first, second));
+        verify(this.orderRepository, never()).saveOrder(any(Order.class));
+    }
+
+    @Test
+    public void givenPlacedBatch_whenCancelingOrders_thenKnownIdsShouldBeCancelledAndUnknownOnesReported() {
+        //given
+        final BatchResult placed = this.liveOrderBoard.placeOrders(List.of(
+                new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(350.1), BigDecimal.valueOf(13.6)),
+                new Order(randomUUID(), BUY, Litecoin, BigDecimal.valueOf(3.5), BigDecimal.valueOf(13.6)),
+                new Order(randomUUID(), BUY, Litecoin, BigDecimal.valueOf(7), BigDecimal.valueOf(12))
+        ));
+
+        //when
+        final BatchResult cancelled = this.liveOrderBoard.cancelOrders(placed.getOrderId(0), placed.getOrderId(1), -1L);
+
+        //then
+        assertThat(cancelled.isAccepted(0), is(true));
+        assertThat(cancelled.isAccepted(1), is(true));
+        assertThat(cancelled.getRejection(2), is("Unknown order id."));
+        assertThat(this.liveOrderBoard.getOrderSummary(Ethereum, BUY), empty());
+        assertThat(this.liveOrderBoard.getOrderSummary(Litecoin, BUY),
+                   contains(new OrderSummary(BigDecimal.valueOf(7), BigDecimal.valueOf(12))));
+    }
+
+    @Test
+    public void givenDeepBook_whenPagingWithCursor_thenEachPageShouldFollowThePreviousOne() {
+        //given
+        for (int price = 1; price <= 25; price++) {
+            this.liveOrderBoard.placeOrder(new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, BigDecimal.valueOf(price)));
+        }
+
+        //when
+        final List<OrderSummary> firstPage = this.liveOrderBoard.getOrderSummary(Ethereum, BUY, 12);
+        final List<OrderSummary> secondPage = this.liveOrderBoard.getOrderSummaryAfter(
+                Ethereum, BUY, firstPage.get(firstPage.size() - 1).getPrice(), 12);
+        final List<OrderSummary> lastPage = this.liveOrderBoard.getOrderSummaryAfter(
+                Ethereum, BUY, secondPage.get(secondPage.size() - 1).getPrice(), 12);
+
+        //then
+        assertThat(firstPage.size(), is(12));
+        assertThat(firstPage.get(0).getPrice(), is(BigDecimal.valueOf(25)));
+        assertThat(secondPage.get(0).getPrice(), is(BigDecimal.valueOf(13)));
+        assertThat(lastPage, contains(new OrderSummary(BigDecimal.ONE, BigDecimal.ONE)));
+        assertThat(this.liveOrderBoard.getOrderSummary(Ethereum, BUY).size(), is(10));
+    }
+
+    @Test
+    public void givenCursorBetweenTwoTicks_whenPaging_thenThePageShouldStartAtTheFirstTickPastIt() {
+        //given
+        for (int price = 11; price <= 13; price++) {
+            this.liveOrderBoard.placeOrder(new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, BigDecimal.valueOf(price)));
+            this.liveOrderBoard.placeOrder(new Order(randomUUID(), SELL, Ethereum, BigDecimal.ONE, BigDecimal.valueOf(price)));
+        }
+        final BigDecimal cursor = new BigDecimal("12.000000001");
+
+        //when
+        final List<OrderSummary> buyPage = this.liveOrderBoard.getOrderSummaryAfter(Ethereum, BUY, cursor, 10);
+        final List<OrderSummary> sellPage = this.liveOrderBoard.getOrderSummaryAfter(Ethereum, SELL, cursor, 10);
+
+        //then
+        assertThat(buyPage, contains(
+                new OrderSummary(BigDecimal.ONE, BigDecimal.valueOf(12)),
+                new OrderSummary(BigDecimal.ONE, BigDecimal.valueOf(11))));
+        assertThat(sellPage, contains(new OrderSummary(BigDecimal.ONE, BigDecimal.valueOf(13))));
+    }
+
+    @Test
+    public void givenOrdersOfSeveralUsers_whenCancellingAllOrdersOfOne_thenOnlyTheirOrdersShouldGoInOneBatch() {
+        //given
+        final UUID userId = randomUUID();
+        this.liveOrderBoard.placeOrder(new Order(userId, SELL, Ethereum, BigDecimal.valueOf(1), BigDecimal.valueOf(10)));
+        this.liveOrderBoard.placeOrder(new Order(userId, BUY, Litecoin, BigDecimal.valueOf(2), BigDecimal.valueOf(5)));
+        this.liveOrderBoard.placeOrder(new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(3), BigDecimal.valueOf(10)));
+
+        //when
+        final int cancelled = this.liveOrderBoard.cancelAllOrders(userId);
+
+        //then
+        assertThat(cancelled, is(2));
+        verify(this.orderRepository).removeOrders(anyCollectionOf(Order.class));
+        assertThat(this.liveOrderBoard.getOrderSummary(SELL), contains(new OrderSummary(BigDecimal.valueOf(3), BigDecimal.valueOf(10))));
+        assertThat(this.liveOrderBoard.getOrderSummary(BUY), is(empty()));
+        assertThat(this.liveOrderBoard.getUserExposure(userId, Ethereum), is(UserExposure.NONE));
+        assertThat(this.liveOrderBoard.cancelAllOrders(userId), is(0));
+    }
+
+    @Test
+    public void givenPlacedAndCancelledOrders_whenGettingUserExposure_thenOnlyLiveOrdersShouldCount() {
+        //given
+        final UUID userId = randomUUID();
+        this.liveOrderBoard.placeOrder(new Order(userId, BUY, Ethereum, BigDecimal.valueOf(2), BigDecimal.valueOf(10)));
+        this.liveOrderBoard.placeOrder(new Order(userId, BUY, Ethereum, BigDecimal.valueOf(1.5), BigDecimal.valueOf(12)));
+        final long orderId = this.liveOrderBoard.placeOrder(new Order(userId, SELL, Ethereum, BigDecimal.valueOf(1), BigDecimal.valueOf(20)));
+        this.liveOrderBoard.placeOrder(new Order(userId, SELL, Litecoin, BigDecimal.valueOf(7), BigDecimal.valueOf(3)));
+
+        //when
+        this.liveOrderBoard.cancelOrder(orderId);
+
+        //then
+        assertThat(this.liveOrderBoard.getUserExposure(userId, Ethereum), is(new UserExposure(
+                2, BigDecimal.valueOf(3.5), BigDecimal.valueOf(38), BigDecimal.ZERO, BigDecimal.ZERO)));
+        assertThat(this.liveOrderBoard.getUserExposure(userId, Litecoin), is(new UserExposure(
+                1, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.valueOf(7), BigDecimal.valueOf(21))));
+    }
+
+    @Test
+    public void givenConcurrentPlacesAndCancels_whenDone_thenExposureShouldMatchTheLiveOrders() throws Exception {
+        //given
+        final LiveOrderBoard board = new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl(), INCREMENTAL);
+        final UUID userId = randomUUID();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    final long orderId = board.placeOrder(new Order(userId, BUY, Ethereum, BigDecimal.ONE, BigDecimal.TEN));
+                    if (i % 3 == 0) {
+                        board.cancelOrder(orderId);
+                    }
+                    if (i % 500 == 0) {
+                        board.cancelAllOrders(userId);
+                    }
+                }
+            }));
+        }
+
+        //when
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        //then
+        final UserExposure exposure = board.getUserExposure(userId, Ethereum);
+        final BigDecimal bookQuantity = board.getOrderSummary(Ethereum, BUY)
+                .stream()
+                .map(OrderSummary::getQuantity)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertThat(exposure.getQuantity(BUY).compareTo(bookQuantity), is(0));
+        assertThat(exposure.getNotional(BUY).compareTo(bookQuantity.multiply(BigDecimal.TEN)), is(0));
+        assertThat(board.cancelAllOrders(userId), is(exposure.getOrderCount()));
+        assertThat(board.getOrderSummary(Ethereum, BUY), is(empty()));
+    }
+
+    @Test
+    public void givenOrdersOnBothSides_whenGettingMarketStatistics_thenTheyShouldMatchTheBestLevelsAndTotals() {
+        //given
+        this.liveOrderBoard.placeOrder(new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(2), BigDecimal.valueOf(13.5)));
+        this.liveOrderBoard.placeOrder(new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(1.5), BigDecimal.valueOf(13.5)));
+        final long bestBidId = this.liveOrderBoard.placeOrder(new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(1), BigDecimal.valueOf(13.55)));
+        this.liveOrderBoard.placeOrder(new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(4), BigDecimal.valueOf(13.6)));
+        this.liveOrderBoard.placeOrder(new Order(randomUUID(), SELL, Litecoin, BigDecimal.valueOf(7), BigDecimal.valueOf(3)));
+
+        //when
+        this.liveOrderBoard.cancelOrder(bestBidId);
+        final MarketStatistics statistics = this.liveOrderBoard.getMarketStatistics(Ethereum);
+
+        //then
+        assertThat(statistics.getSide(BUY), is(new SideStatistics(
+                BigDecimal.valueOf(13.5), BigDecimal.valueOf(3.5), BigDecimal.valueOf(3.5), BigDecimal.valueOf(47.25), 2, 1)));
+        assertThat(statistics.getSide(SELL), is(new SideStatistics(
+                BigDecimal.valueOf(13.6), BigDecimal.valueOf(4), BigDecimal.valueOf(4), BigDecimal.valueOf(54.4), 1, 1)));
+        assertThat(statistics.getSpread().compareTo(BigDecimal.valueOf(0.1)), is(0));
+        assertThat(this.liveOrderBoard.getMarketStatistics(Litecoin).getBestBid(), is(nullValue()));
+        assertThat(this.liveOrderBoard.getMarketStatistics(Litecoin).getSpread(), is(nullValue()));
+    }
+
+    @Test
+    public void givenUnchangedBook_whenGettingMarketStatisticsAgain_thenTheCachedOnesShouldBeReturned() {
+        //given
+        final long orderId = this.liveOrderBoard.placeOrder(new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(4), BigDecimal.valueOf(13.6)));
+        final MarketStatistics statistics = this.liveOrderBoard.getMarketStatistics(Ethereum);
+
+        //when
+        final MarketStatistics unchanged = this.liveOrderBoard.getMarketStatistics(Ethereum);
+        this.liveOrderBoard.cancelOrder(orderId);
+        final MarketStatistics changed = this.liveOrderBoard.getMarketStatistics(Ethereum);
+
+        //then
+        assertThat(unchanged, is(sameInstance(statistics)));
+        assertThat(changed, is(not(sameInstance(statistics))));
+        assertThat(changed.getSide(SELL), is(SideStatistics.EMPTY));
+    }
+
+    @Test
+    public void givenConcurrentPlacesAndCancels_whenReadingMarketStatistics_thenTheyShouldAgreeWithTheLevels() throws Exception {
+        //given
+        final LiveOrderBoard board = new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl(), INCREMENTAL);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            final int offset = thread;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    final BigDecimal price = BigDecimal.valueOf(100 + (i + offset) % 20);
+                    final long orderId = board.placeOrder(new Order(randomUUID(), i % 2 == 0 ? BUY : SELL, Ethereum, BigDecimal.ONE, price));
+                    if (i % 3 != 0) {
+                        board.cancelOrder(orderId);
+                    }
+                    final SideStatistics buy = board.getMarketStatistics(Ethereum).getSide(BUY);
+                    if (!buy.isEmpty()) {
+                        assertThat(buy.getTotalQuantity().compareTo(buy.getBestQuantity()), greaterThanOrEqualTo(0));
+                        assertThat(buy.getOrderCount(), greaterThanOrEqualTo(buy.getLevelCount()));
+                    }
+                }
+            }));
+        }
+
+        //when
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        //then
+        final MarketStatistics statistics = board.getMarketStatistics(Ethereum);
+        for (OrderType orderType : OrderType.values()) {
+            final List<OrderSummary> levels = board.getOrderSummary(Ethereum, orderType, 100);
+            final SideStatistics side = statistics.getSide(orderType);
+            assertThat(side.getBestPrice(), is(levels.get(0).getPrice()));
+            assertThat(side.getBestQuantity(), is(levels.get(0).getQuantity()));
+            assertThat(side.getLevelCount(), is(levels.size()));
+            assertThat(side.getTotalQuantity(), is(levels.stream().map(OrderSummary::getQuantity).reduce(BigDecimal.ZERO, BigDecimal::add)));
+            assertThat(side.getNotional().compareTo(levels.stream()
+                                                           .map(level -> level.getQuantity().multiply(level.getPrice()))
+                                                           .reduce(BigDecimal.ZERO, BigDecimal::add)), is(0));
+        }
+        assertThat(statistics.getSpread(), is(statistics.getBestAsk().subtract(statistics.getBestBid())));
+    }
+}
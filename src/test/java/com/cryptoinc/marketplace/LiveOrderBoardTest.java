@@ -1,7 +1,10 @@
 package com.cryptoinc.marketplace;
 
+import com.cryptoinc.marketplace.domain.MarketStatistics;
 import com.cryptoinc.marketplace.domain.Order;
 import com.cryptoinc.marketplace.domain.OrderSummary;
+import com.cryptoinc.marketplace.domain.OrderType;
+import com.cryptoinc.marketplace.repository.InMemoryOrderRepository;
 import com.cryptoinc.marketplace.repository.OrderRepository;
 import com.cryptoinc.marketplace.validators.OrderValidator;
 import com.cryptoinc.marketplace.validators.OrderValidatorImpl;
@@ -13,11 +16,14 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import java.util.UUID;
 
 import static com.cryptoinc.marketplace.domain.CoinType.Ethereum;
+import static com.cryptoinc.marketplace.domain.CoinType.Litecoin;
 import static com.cryptoinc.marketplace.domain.OrderType.BUY;
 import static com.cryptoinc.marketplace.domain.OrderType.SELL;
 import static java.util.UUID.randomUUID;
@@ -370,4 +376,99 @@ public class LiveOrderBoardTest {
         //then
         MatcherAssert.assertThat(orderSummaryList, contains(expectedOrderSummaryList.toArray()));
     }
+
+    @Test
+    public void givenOrdersForMultipleCoins_whenGettingOrderSummaryForACoin_thenOnlyThatCoinShouldBeAggregated() {
+        //given
+        when(this.orderRepository.getOrders())
+                .thenReturn(List.of(
+                        new Order(UUID.randomUUID(), SELL, Ethereum, BigDecimal.valueOf(350.1), BigDecimal.valueOf(13.6)),
+                        new Order(UUID.randomUUID(), SELL, Litecoin, BigDecimal.valueOf(3.5), BigDecimal.valueOf(13.6)),
+                        new Order(UUID.randomUUID(), SELL, Litecoin, BigDecimal.valueOf(50.5), BigDecimal.valueOf(14))
+                ));
+
+        //when
+        final List<OrderSummary> ethereumSummaryList = this.liveOrderBoard.getOrderSummary(Ethereum, SELL);
+        final List<OrderSummary> litecoinSummaryList = this.liveOrderBoard.getOrderSummary(Litecoin, SELL);
+
+        //then
+        assertThat(ethereumSummaryList, contains(new OrderSummary(BigDecimal.valueOf(350.1), BigDecimal.valueOf(13.6))));
+        assertThat(litecoinSummaryList, contains(
+                new OrderSummary(BigDecimal.valueOf(3.5), BigDecimal.valueOf(13.6)),
+                new OrderSummary(BigDecimal.valueOf(50.5), BigDecimal.valueOf(14))
+        ));
+    }
+
+    @Test
+    public void givenSellOrders_whenPagingAfterPrice_thenOnlyHigherPricesShouldBeReturned() {
+        //given
+        when(this.orderRepository.getOrders()).thenReturn(List.of(
+                new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(1), BigDecimal.valueOf(10)),
+                new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(2), BigDecimal.valueOf(11)),
+                new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(3), BigDecimal.valueOf(12)),
+                new Order(randomUUID(), SELL, Litecoin, BigDecimal.valueOf(4), BigDecimal.valueOf(13))
+        ));
+
+        //when
+        final List<OrderSummary> orderSummaryList = this.liveOrderBoard.getOrderSummaryAfter(Ethereum, SELL, BigDecimal.valueOf(10), 1);
+
+        //then
+        assertThat(orderSummaryList, contains(new OrderSummary(BigDecimal.valueOf(2), BigDecimal.valueOf(11))));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Bad depth.")
+    public void givenZeroDepth_whenGettingOrderSummary_thenItShouldThrowException() {
+        this.liveOrderBoard.getOrderSummary(Ethereum, SELL, 0);
+    }
+
+    @Test
+    public void givenManyOrdersOfMixedScales_whenScanningInParallel_thenSummariesShouldBeIdenticalToTheSequentialScan() {
+        //given
+        final Random random = new Random(42);
+        final List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            final BigDecimal quantity = i % 1000 == 0
+                    ? new BigDecimal(Long.MAX_VALUE).add(BigDecimal.valueOf(random.nextInt(1000), 3))
+                    : BigDecimal.valueOf(1 + random.nextInt(100_000), random.nextInt(12) - 2);
+            final BigDecimal price = BigDecimal.valueOf(1 + random.nextInt(500), 1).setScale(1 + random.nextInt(2));
+            orders.add(new Order(randomUUID(), random.nextBoolean() ? BUY : SELL, random.nextBoolean() ? Ethereum : Litecoin, quantity, price));
+        }
+        when(this.orderRepository.getOrders()).thenReturn(orders);
+        final LiveOrderBoard parallelBoard = new LiveOrderBoardImpl(
+                this.orderRepository, new OrderValidatorImpl(), AggregationMode.PARALLEL_REPOSITORY_SCAN);
+
+        for (OrderType orderType : OrderType.values()) {
+            //when
+            final List<OrderSummary> sequential = this.liveOrderBoard.getOrderSummary(Ethereum, orderType, 2_000);
+            final List<OrderSummary> parallel = parallelBoard.getOrderSummary(Ethereum, orderType, 2_000);
+
+            //then
+            assertThat(parallel, hasSize(sequential.size()));
+            assertThat(parallel, is(sequential));
+            assertThat(parallelBoard.getOrderSummary(orderType), is(this.liveOrderBoard.getOrderSummary(orderType)));
+        }
+    }
+
+    @Test
+    public void givenSameOrders_whenGettingMarketStatisticsByScan_thenTheyShouldEqualTheIncrementalOnes() {
+        //given
+        final LiveOrderBoard scanBoard = new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl());
+        final LiveOrderBoard incrementalBoard = new LiveOrderBoardImpl(
+                new InMemoryOrderRepository(), new OrderValidatorImpl(), AggregationMode.INCREMENTAL);
+        final Random random = new Random(7);
+        for (int i = 0; i < 1_000; i++) {
+            final Order order = new Order(randomUUID(), random.nextBoolean() ? BUY : SELL, random.nextBoolean() ? Ethereum : Litecoin,
+                                          BigDecimal.valueOf(1 + random.nextInt(10_000), 2), BigDecimal.valueOf(1 + random.nextInt(500), 1));
+            scanBoard.placeOrder(order);
+            incrementalBoard.placeOrder(order);
+        }
+
+        //when
+        final MarketStatistics scanned = scanBoard.getMarketStatistics(Ethereum);
+
+        //then
+        assertThat(scanned, is(incrementalBoard.getMarketStatistics(Ethereum)));
+        assertThat(scanned.getBestBid(), is(scanBoard.getOrderSummary(Ethereum, BUY).get(0).getPrice()));
+        assertThat(scanned.getSide(SELL).getBestQuantity(), is(scanBoard.getOrderSummary(Ethereum, SELL).get(0).getQuantity()));
+    }
 }
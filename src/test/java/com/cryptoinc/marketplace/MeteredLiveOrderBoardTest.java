@@ -0,0 +1,94 @@
+package com.cryptoinc.marketplace;
+
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.metrics.HistogramBoardMetrics;
+import com.cryptoinc.marketplace.repository.InMemoryOrderRepository;
+import com.cryptoinc.marketplace.validators.MeteredOrderValidator;
+import com.cryptoinc.marketplace.validators.OrderValidatorImpl;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static com.cryptoinc.marketplace.AggregationMode.INCREMENTAL;
+import static com.cryptoinc.marketplace.domain.CoinType.Ethereum;
+import static com.cryptoinc.marketplace.domain.OrderType.BUY;
+import static com.cryptoinc.marketplace.domain.OrderType.SELL;
+import static com.cryptoinc.marketplace.metrics.Operation.*;
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+
+public class MeteredLiveOrderBoardTest {
+
+    private HistogramBoardMetrics boardMetrics;
+    private LiveOrderBoardImpl liveOrderBoardImpl;
+    private LiveOrderBoard liveOrderBoard;
+
+    @BeforeMethod
+    public void setUp() {
+        this.boardMetrics = new HistogramBoardMetrics();
+        this.liveOrderBoardImpl = new LiveOrderBoardImpl(
+                new InMemoryOrderRepository(), new MeteredOrderValidator(new OrderValidatorImpl(), this.boardMetrics), INCREMENTAL);
+        this.liveOrderBoardImpl.registerGauges(this.boardMetrics);
+        this.liveOrderBoard = new MeteredLiveOrderBoard(this.liveOrderBoardImpl, this.boardMetrics);
+    }
+
+    @Test
+    public void givenOperations_whenMetered_thenEveryOneShouldBeTimed() {
+        //given
+        final long orderId = this.liveOrderBoard.placeOrder(new Order(randomUUID(), SELL, Ethereum, BigDecimal.ONE, BigDecimal.TEN));
+        this.liveOrderBoard.placeOrders(Arrays.asList(
+                new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, BigDecimal.TEN),
+                new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, BigDecimal.ONE)));
+
+        //when
+        this.liveOrderBoard.cancelOrder(orderId);
+        this.liveOrderBoard.cancelAllOrders(randomUUID());
+        this.liveOrderBoard.getOrderSummary(BUY);
+
+        //then
+        assertThat(this.boardMetrics.getHistogram(PLACE_ORDER).getCount(), is(1L));
+        assertThat(this.boardMetrics.getHistogram(PLACE_ORDERS).getCount(), is(1L));
+        assertThat(this.boardMetrics.getHistogram(CANCEL_ORDER).getCount(), is(1L));
+        assertThat(this.boardMetrics.getHistogram(CANCEL_ALL_ORDERS).getCount(), is(1L));
+        assertThat(this.boardMetrics.getHistogram(CANCEL_ORDERS).getCount(), is(0L));
+        assertThat(this.boardMetrics.getHistogram(GET_ORDER_SUMMARY).getCount(), is(1L));
+        //the batch is validated in one call
+        assertThat(this.boardMetrics.getHistogram(VALIDATE).getCount(), is(2L));
+    }
+
+    @Test
+    public void givenRejectedOrder_whenPlacing_thenTheErrorShouldBeCounted() {
+        //when
+        try {
+            this.liveOrderBoard.placeOrder(new Order(randomUUID(), SELL, Ethereum, BigDecimal.ONE, BigDecimal.ZERO));
+        } catch (IllegalArgumentException expected) {
+            //counted below
+        }
+
+        //then
+        assertThat(this.boardMetrics.getErrors(PLACE_ORDER), is(1L));
+        assertThat(this.boardMetrics.getErrors(VALIDATE), is(1L));
+        assertThat(this.boardMetrics.getHistogram(PLACE_ORDER).getCount(), is(1L));
+    }
+
+    @Test
+    public void givenPlacedOrders_whenReadingGauges_thenDepthAndLevelsShouldBeReported() {
+        //given
+        this.liveOrderBoard.placeOrder(new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, BigDecimal.TEN));
+        this.liveOrderBoard.placeOrder(new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, BigDecimal.TEN));
+        final long orderId = this.liveOrderBoard.placeOrder(new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, BigDecimal.ONE));
+
+        //when
+        this.liveOrderBoard.cancelOrder(orderId);
+
+        //then
+        assertThat(this.boardMetrics.readGauges(), hasEntry("orders", 2L));
+        assertThat(this.boardMetrics.readGauges(), hasEntry("depth.ethereum.buy", 2L));
+        assertThat(this.boardMetrics.readGauges(), hasEntry("levels.ethereum.buy", 1L));
+        assertThat(this.boardMetrics.readGauges(), hasEntry("depth.ethereum.sell", 0L));
+    }
+}
@@ -0,0 +1,192 @@
+package com.cryptoinc.marketplace;
+
+import com.cryptoinc.marketplace.domain.BatchResult;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderSummary;
+import com.cryptoinc.marketplace.repository.InMemoryOrderRepository;
+import com.cryptoinc.marketplace.sequencer.BlockingWaitStrategy;
+import com.cryptoinc.marketplace.sequencer.YieldingWaitStrategy;
+import com.cryptoinc.marketplace.validators.OrderValidatorImpl;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.cryptoinc.marketplace.AggregationMode.INCREMENTAL;
+import static com.cryptoinc.marketplace.domain.CoinType.Ethereum;
+import static com.cryptoinc.marketplace.domain.OrderType.BUY;
+import static com.cryptoinc.marketplace.domain.OrderType.SELL;
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class SequencedLiveOrderBoardTest {
+
+    private SequencedLiveOrderBoard liveOrderBoard;
+
+    @BeforeMethod
+    public void setUp() {
+        this.liveOrderBoard = new SequencedLiveOrderBoard(
+                new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl(), INCREMENTAL),
+                8,
+                new BlockingWaitStrategy());
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        this.liveOrderBoard.close();
+    }
+
+    @Test
+    public void givenPlacedAndCancelledOrders_whenFlushed_thenSummaryShouldReflectThemInOrder() {
+        //given
+        final long orderId = this.liveOrderBoard.placeOrder(new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(3.5), BigDecimal.valueOf(13.6)));
+        this.liveOrderBoard.placeOrder(new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(350.1), BigDecimal.valueOf(13.6)));
+        this.liveOrderBoard.placeOrder(new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(50.5), BigDecimal.valueOf(14)));
+        this.liveOrderBoard.cancelOrder(orderId);
+
+        //when
+        this.liveOrderBoard.flush();
+
+        //then
+        assertThat(this.liveOrderBoard.getOrderSummary(SELL), contains(
+                new OrderSummary(BigDecimal.valueOf(350.1), BigDecimal.valueOf(13.6)),
+                new OrderSummary(BigDecimal.valueOf(50.5), BigDecimal.valueOf(14))
+        ));
+        assertThat(this.liveOrderBoard.getOrderSummary(Ethereum, SELL).size(), is(2));
+        assertThat(this.liveOrderBoard.getOrderSummary(BUY), empty());
+    }
+
+    @Test
+    public void givenUnknownIds_whenCancellingOrders_thenTheyShouldBeRejectedUpFront() {
+        //given
+        final long orderId = this.liveOrderBoard.placeOrder(new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(1), BigDecimal.valueOf(10)));
+
+        //when
+        final BatchResult batchResult = this.liveOrderBoard.cancelOrders(orderId, orderId + 100);
+        this.liveOrderBoard.flush();
+
+        //then
+        assertThat(batchResult.isAccepted(0), is(true));
+        assertThat(batchResult.getRejection(1), is("Unknown order id."));
+        assertThat(this.liveOrderBoard.cancelOrder(-1), is(false));
+        assertThat(this.liveOrderBoard.getOrderSummary(BUY), empty());
+    }
+
+    @Test
+    public void givenConcurrentProducersAndSmallQueue_whenPlacingOrders_thenEveryOrderShouldBeApplied() throws Exception {
+        //given
+        final SequencedLiveOrderBoard board = new SequencedLiveOrderBoard(
+                new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl(), INCREMENTAL),
+                4,
+                new YieldingWaitStrategy());
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        final List<Future<?>> futures = new ArrayList<>();
+
+        //when
+        for (int producer = 0; producer < 4; producer++) {
+            futures.add(executorService.submit(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    final long orderId = board.placeOrder(new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, BigDecimal.valueOf(i % 5 + 1)));
+                    if (i % 2 == 0) {
+                        board.cancelOrder(orderId);
+                    }
+                }
+                board.placeOrders(Arrays.asList(new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, BigDecimal.TEN)));
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executorService.shutdown();
+        board.close();
+
+        //then
+        assertThat(board.getOrderSummary(Ethereum, BUY), contains(
+                new OrderSummary(BigDecimal.valueOf(4), BigDecimal.TEN),
+                new OrderSummary(BigDecimal.valueOf(400), BigDecimal.valueOf(5)),
+                new OrderSummary(BigDecimal.valueOf(400), BigDecimal.valueOf(4)),
+                new OrderSummary(BigDecimal.valueOf(400), BigDecimal.valueOf(3)),
+                new OrderSummary(BigDecimal.valueOf(400), BigDecimal.valueOf(2)),
+                new OrderSummary(BigDecimal.valueOf(400), BigDecimal.valueOf(1))
+        ));
+        assertThat(board.getFailedMutations(), is(0L));
+    }
+
+    @Test
+    public void givenOrdersOfAUser_whenCancellingAllOrders_thenTheyShouldBeGoneOnceApplied() {
+        //given
+        final UUID userId = randomUUID();
+        this.liveOrderBoard.placeOrder(new Order(userId, SELL, Ethereum, BigDecimal.valueOf(1), BigDecimal.valueOf(10)));
+        this.liveOrderBoard.placeOrder(new Order(userId, SELL, Ethereum, BigDecimal.valueOf(2), BigDecimal.valueOf(11)));
+        this.liveOrderBoard.placeOrder(new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(3), BigDecimal.valueOf(12)));
+        this.liveOrderBoard.flush();
+
+        //when
+        final int liveOrders = this.liveOrderBoard.cancelAllOrders(userId);
+        this.liveOrderBoard.flush();
+
+        //then
+        assertThat(liveOrders, is(2));
+        assertThat(this.liveOrderBoard.getUserExposure(userId, Ethereum).getOrderCount(), is(0));
+        assertThat(this.liveOrderBoard.getOrderSummary(Ethereum, SELL), contains(new OrderSummary(BigDecimal.valueOf(3), BigDecimal.valueOf(12))));
+    }
+
+    @Test
+    public void givenProducersRacingClose_whenClosing_thenEveryAcceptedOrderShouldBeApplied() throws Exception {
+        //given
+        final SequencedLiveOrderBoard board = new SequencedLiveOrderBoard(
+                new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl(), INCREMENTAL),
+                2,
+                new YieldingWaitStrategy());
+        final UUID userId = randomUUID();
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        final List<Future<Integer>> futures = new ArrayList<>();
+        for (int producer = 0; producer < 4; producer++) {
+            futures.add(executorService.submit(() -> {
+                int accepted = 0;
+                try {
+                    while (true) {
+                        board.placeOrder(new Order(userId, BUY, Ethereum, BigDecimal.ONE, BigDecimal.TEN));
+                        accepted++;
+                    }
+                } catch (IllegalStateException e) {
+                    return accepted;
+                }
+            }));
+        }
+        while (board.getUserExposure(userId, Ethereum).getOrderCount() < 100) {
+            Thread.onSpinWait();
+        }
+
+        //when
+        board.close();
+
+        //then
+        int accepted = 0;
+        for (Future<Integer> future : futures) {
+            accepted += future.get();
+        }
+        executorService.shutdown();
+        assertThat(board.getUserExposure(userId, Ethereum).getOrderCount(), is(accepted));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void givenClosedBoard_whenPlacingOrder_thenItShouldBeRejected() {
+        //given
+        this.liveOrderBoard.close();
+
+        //when
+        this.liveOrderBoard.placeOrder(new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, BigDecimal.TEN));
+    }
+}
@@ -0,0 +1,144 @@
+package com.cryptoinc.marketplace;
+
+import com.cryptoinc.marketplace.domain.BatchResult;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderSummary;
+import com.cryptoinc.marketplace.domain.UserExposure;
+import com.cryptoinc.marketplace.repository.InMemoryOrderRepository;
+import com.cryptoinc.marketplace.sequencer.BlockingWaitStrategy;
+import com.cryptoinc.marketplace.validators.OrderValidatorImpl;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static com.cryptoinc.marketplace.AggregationMode.INCREMENTAL;
+import static com.cryptoinc.marketplace.AggregationMode.REPOSITORY_SCAN;
+import static com.cryptoinc.marketplace.domain.CoinType.Ethereum;
+import static com.cryptoinc.marketplace.domain.CoinType.Litecoin;
+import static com.cryptoinc.marketplace.domain.OrderType.BUY;
+import static com.cryptoinc.marketplace.domain.OrderType.SELL;
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class ShardedLiveOrderBoardTest {
+
+    @Test
+    public void givenOrdersOfEveryCoinAndSide_whenSummarized_thenCoinsShouldBeMergedPerSide() {
+        //given
+        final ShardedLiveOrderBoard liveOrderBoard = new ShardedLiveOrderBoard(InMemoryOrderRepository::new, new OrderValidatorImpl(), INCREMENTAL);
+        liveOrderBoard.placeOrder(new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(1), BigDecimal.valueOf(10)));
+        liveOrderBoard.placeOrder(new Order(randomUUID(), SELL, Litecoin, BigDecimal.valueOf(2), BigDecimal.valueOf(10)));
+        liveOrderBoard.placeOrder(new Order(randomUUID(), SELL, Litecoin, BigDecimal.valueOf(4), BigDecimal.valueOf(9)));
+        liveOrderBoard.placeOrder(new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(5), BigDecimal.valueOf(8)));
+
+        //when
+        final List<OrderSummary> sells = liveOrderBoard.getOrderSummary(SELL);
+
+        //then
+        assertThat(sells, contains(
+                new OrderSummary(BigDecimal.valueOf(4), BigDecimal.valueOf(9)),
+                new OrderSummary(BigDecimal.valueOf(3), BigDecimal.valueOf(10))
+        ));
+        assertThat(liveOrderBoard.getOrderSummary(SELL), sameInstance(sells));
+        assertThat(liveOrderBoard.getOrderSummary(Litecoin, SELL).size(), is(2));
+        assertThat(liveOrderBoard.getOrderSummary(BUY), contains(new OrderSummary(BigDecimal.valueOf(5), BigDecimal.valueOf(8))));
+        assertThat(liveOrderBoard.getOrderSummary(Litecoin, BUY), empty());
+    }
+
+    @Test
+    public void givenOrdersInDifferentShards_whenCancelledById_thenOnlyTheirShardShouldChange() {
+        //given
+        final ShardedLiveOrderBoard liveOrderBoard = new ShardedLiveOrderBoard(InMemoryOrderRepository::new, new OrderValidatorImpl(), REPOSITORY_SCAN);
+        final long sellId = liveOrderBoard.placeOrder(new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(1), BigDecimal.valueOf(10)));
+        final long buyId = liveOrderBoard.placeOrder(new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(2), BigDecimal.valueOf(9)));
+
+        //when
+        final boolean cancelled = liveOrderBoard.cancelOrder(sellId);
+
+        //then
+        assertThat(cancelled, is(true));
+        assertThat(liveOrderBoard.cancelOrder(sellId), is(false));
+        assertThat(liveOrderBoard.getOrderSummary(Ethereum, SELL), empty());
+        assertThat(liveOrderBoard.getOrderSummary(Ethereum, BUY), contains(new OrderSummary(BigDecimal.valueOf(2), BigDecimal.valueOf(9))));
+        assertThat(liveOrderBoard.cancelOrder(buyId + 4), is(false));
+        assertThat(liveOrderBoard.cancelOrder(-buyId), is(false));
+    }
+
+    @Test
+    public void givenBatchAcrossShards_whenPlacedAndCancelled_thenResultsShouldKeepTheBatchOrder() {
+        //given
+        final ShardedLiveOrderBoard liveOrderBoard = new ShardedLiveOrderBoard(InMemoryOrderRepository::new, new OrderValidatorImpl(), INCREMENTAL);
+        final BatchResult placed = liveOrderBoard.placeOrders(Arrays.asList(
+                new Order(randomUUID(), SELL, Litecoin, BigDecimal.valueOf(1), BigDecimal.valueOf(10)),
+                new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(-1), BigDecimal.valueOf(10)),
+                null,
+                new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(2), BigDecimal.valueOf(9)),
+                new Order(randomUUID(), BUY, null, BigDecimal.valueOf(2), BigDecimal.valueOf(9))));
+
+        //when
+        final BatchResult cancelled = liveOrderBoard.cancelOrders(placed.getOrderId(3), 0, placed.getOrderId(0));
+
+        //then
+        assertThat(placed.getAcceptedCount(), is(2));
+        assertThat(placed.getRejection(1), is("Bad quantity."));
+        assertThat(placed.getRejection(2), is("Order is null."));
+        assertThat(placed.getRejection(4), is("Bad coin type."));
+        assertThat(cancelled.isAccepted(0), is(true));
+        assertThat(cancelled.getRejection(1), is("Unknown order id."));
+        assertThat(cancelled.isAccepted(2), is(true));
+        assertThat(liveOrderBoard.getOrderSummary(SELL), empty());
+        assertThat(liveOrderBoard.getOrderSummary(BUY), empty());
+    }
+
+    @Test
+    public void givenUserOrdersOnBothSides_whenCancellingAll_thenEveryShardShouldBeCleared() {
+        //given
+        final ShardedLiveOrderBoard liveOrderBoard = new ShardedLiveOrderBoard(InMemoryOrderRepository::new, new OrderValidatorImpl(), INCREMENTAL);
+        final UUID userId = randomUUID();
+        liveOrderBoard.placeOrder(new Order(userId, SELL, Ethereum, BigDecimal.valueOf(1), BigDecimal.valueOf(10)));
+        liveOrderBoard.placeOrder(new Order(userId, BUY, Ethereum, BigDecimal.valueOf(2), BigDecimal.valueOf(9)));
+        liveOrderBoard.placeOrder(new Order(userId, BUY, Litecoin, BigDecimal.valueOf(3), BigDecimal.valueOf(2)));
+        final UserExposure exposure = liveOrderBoard.getUserExposure(userId, Ethereum);
+
+        //when
+        final int cancelled = liveOrderBoard.cancelAllOrders(userId);
+
+        //then
+        assertThat(exposure, is(new UserExposure(2, BigDecimal.valueOf(2), BigDecimal.valueOf(18), BigDecimal.valueOf(1), BigDecimal.valueOf(10))));
+        assertThat(cancelled, is(3));
+        assertThat(liveOrderBoard.getUserExposure(userId, Ethereum), is(UserExposure.NONE));
+        assertThat(liveOrderBoard.getOrderSummary(BUY), empty());
+    }
+
+    @Test
+    public void givenSequencedShards_whenClosed_thenEveryWriterShouldHaveAppliedItsOrders() throws IOException {
+        //given
+        final SequencedLiveOrderBoard[] shards = new SequencedLiveOrderBoard[4];
+        final ShardedLiveOrderBoard liveOrderBoard = new ShardedLiveOrderBoard((coinType, orderType) ->
+                shards[coinType.ordinal() * 2 + orderType.ordinal()] = new SequencedLiveOrderBoard(
+                        new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl(), INCREMENTAL),
+                        8,
+                        new BlockingWaitStrategy()),
+                LiveOrderBoardImpl.DEFAULT_DISPLAY_DEPTH);
+        liveOrderBoard.placeOrder(new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(1), BigDecimal.valueOf(10)));
+        liveOrderBoard.placeOrder(new Order(randomUUID(), BUY, Litecoin, BigDecimal.valueOf(2), BigDecimal.valueOf(3)));
+
+        //when
+        liveOrderBoard.close();
+
+        //then
+        assertThat(liveOrderBoard.getOrderSummary(SELL), contains(new OrderSummary(BigDecimal.valueOf(1), BigDecimal.valueOf(10))));
+        assertThat(liveOrderBoard.getOrderSummary(BUY), contains(new OrderSummary(BigDecimal.valueOf(2), BigDecimal.valueOf(3))));
+        for (SequencedLiveOrderBoard shard : shards) {
+            assertThat(shard.getFailedMutations(), is(0L));
+        }
+    }
+}
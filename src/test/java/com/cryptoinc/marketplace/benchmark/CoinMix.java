@@ -0,0 +1,20 @@
+package com.cryptoinc.marketplace.benchmark;
+
+/**
+ * Share of benchmark orders going to Ethereum, the rest go to Litecoin.
+ */
+public enum CoinMix {
+    ETHEREUM_ONLY(1.0),
+    EVEN(0.5),
+    SKEWED(0.9);
+
+    private final double ethereumRatio;
+
+    CoinMix(final double ethereumRatio) {
+        this.ethereumRatio = ethereumRatio;
+    }
+
+    public double getEthereumRatio() {
+        return ethereumRatio;
+    }
+}
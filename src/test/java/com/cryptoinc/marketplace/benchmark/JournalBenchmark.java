@@ -0,0 +1,126 @@
+package com.cryptoinc.marketplace.benchmark;
+
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.journal.JournalDurability;
+import com.cryptoinc.marketplace.journal.OrderJournal;
+import com.cryptoinc.marketplace.repository.JournaledOrderRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Append throughput of {@link JournaledOrderRepository} and recovery time against journal size,
+ * with and without a snapshot covering most of the journal.
+ * Run the append benchmark with -t to see group commit folding concurrent writers into one force.
+ */
+public class JournalBenchmark {
+
+    private static final int INCOMING_ORDERS = 1 << 14;
+
+    @State(Scope.Benchmark)
+    public static class Appending {
+
+        @Param({"ASYNC", "GROUP_COMMIT"})
+        private JournalDurability durability;
+
+        private Path directory;
+        private JournaledOrderRepository repository;
+        private Order[] incomingOrders;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            this.directory = Files.createTempDirectory("journal-benchmark");
+            this.repository = new JournaledOrderRepository(
+                    this.directory, OrderJournal.DEFAULT_SEGMENT_SIZE, this.durability, OrderJournal.DEFAULT_FLUSH_INTERVAL);
+            this.incomingOrders = new OrderDistribution(2000, 0.5, CoinMix.EVEN, 42).nextOrders(INCOMING_ORDERS);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            this.repository.close();
+            delete(this.directory);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Recovering {
+
+        @Param({"100000", "1000000"})
+        private int journalRecords;
+
+        @Param({"0.5"})
+        private double cancelRatio;
+
+        //share of the records written before the snapshot, 0 for none
+        @Param({"0", "0.9"})
+        private double snapshotAt;
+
+        private Path directory;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            this.directory = Files.createTempDirectory("journal-benchmark");
+            final OrderDistribution distribution = new OrderDistribution(2000, 0.5, CoinMix.EVEN, 42);
+            try (JournaledOrderRepository repository = new JournaledOrderRepository(
+                    this.directory, OrderJournal.DEFAULT_SEGMENT_SIZE, JournalDurability.ASYNC, OrderJournal.DEFAULT_FLUSH_INTERVAL)) {
+                final int cancels = (int) (this.journalRecords * this.cancelRatio / (1 + this.cancelRatio));
+                final Order[] placed = distribution.nextOrders(this.journalRecords - cancels);
+                final int snapshotIndex = (int) (placed.length * this.snapshotAt);
+                for (int i = 0; i < placed.length; i++) {
+                    if (i == snapshotIndex && snapshotIndex > 0) {
+                        repository.snapshot();
+                    }
+                    repository.saveOrder(placed[i]);
+                    if (i < cancels) {
+                        repository.remove(placed[i]);
+                    }
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            delete(this.directory);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public boolean saveAndRemoveOrder(final Appending appending, final Cursor cursor) {
+        final Order order = appending.incomingOrders[cursor.next++ & (INCOMING_ORDERS - 1)];
+        appending.repository.saveOrder(order);
+        return appending.repository.remove(order);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    @Fork(1)
+    public int recover(final Recovering recovering) throws IOException {
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(recovering.directory)) {
+            return repository.getOrders().size();
+        }
+    }
+
+    private static void delete(final Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+}
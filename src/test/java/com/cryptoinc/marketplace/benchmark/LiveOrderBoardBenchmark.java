@@ -0,0 +1,86 @@
+package com.cryptoinc.marketplace.benchmark;
+
+import com.cryptoinc.marketplace.AggregationMode;
+import com.cryptoinc.marketplace.LiveOrderBoard;
+import com.cryptoinc.marketplace.LiveOrderBoardImpl;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderSummary;
+import com.cryptoinc.marketplace.repository.InMemoryOrderRepository;
+import com.cryptoinc.marketplace.validators.OrderValidatorImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.cryptoinc.marketplace.domain.CoinType.Ethereum;
+import static com.cryptoinc.marketplace.domain.OrderType.BUY;
+import static com.cryptoinc.marketplace.domain.OrderType.SELL;
+
+/**
+ * Place/cancel and summary cost of {@link LiveOrderBoardImpl} over a resting book.
+ * Every placed order replaces the oldest order the benchmark placed, so the book depth stays constant
+ * for the whole run. Run with -prof gc (the default jmh.args) to get allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LiveOrderBoardBenchmark {
+
+    private static final int INCOMING_ORDERS = 1 << 14;
+
+    @Param({"REPOSITORY_SCAN", "INCREMENTAL"})
+    private AggregationMode aggregationMode;
+
+    @Param({"1000", "100000"})
+    private int bookDepth;
+
+    @Param({"20", "2000"})
+    private int priceLevels;
+
+    @Param({"0.5"})
+    private double buyRatio;
+
+    @Param({"EVEN", "SKEWED"})
+    private CoinMix coinMix;
+
+    private LiveOrderBoard liveOrderBoard;
+    private Order[] incomingOrders;
+    private long[] restingOrderIds;
+    private int oldest;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.liveOrderBoard = new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl(), this.aggregationMode);
+
+        final OrderDistribution distribution = new OrderDistribution(this.priceLevels, this.buyRatio, this.coinMix, 42);
+        this.restingOrderIds = new long[this.bookDepth];
+        for (Order order : distribution.nextOrders(this.bookDepth)) {
+            this.restingOrderIds[this.oldest++] = this.liveOrderBoard.placeOrder(order);
+        }
+        this.oldest = 0;
+        this.incomingOrders = distribution.nextOrders(INCOMING_ORDERS);
+    }
+
+    @Benchmark
+    public boolean placeAndCancelOrder() {
+        final long orderId = this.liveOrderBoard.placeOrder(this.incomingOrders[this.next++ & (INCOMING_ORDERS - 1)]);
+        final boolean cancelled = this.liveOrderBoard.cancelOrder(this.restingOrderIds[this.oldest]);
+        this.restingOrderIds[this.oldest] = orderId;
+        this.oldest = (this.oldest + 1) % this.bookDepth;
+        return cancelled;
+    }
+
+    @Benchmark
+    public List<OrderSummary> getOrderSummary() {
+        return this.liveOrderBoard.getOrderSummary(Ethereum, (this.next++ & 1) == 0 ? BUY : SELL);
+    }
+
+    @Benchmark
+    public List<OrderSummary> getOrderSummaryAcrossCoins() {
+        return this.liveOrderBoard.getOrderSummary((this.next++ & 1) == 0 ? BUY : SELL);
+    }
+}
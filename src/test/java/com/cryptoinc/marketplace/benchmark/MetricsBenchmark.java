@@ -0,0 +1,84 @@
+package com.cryptoinc.marketplace.benchmark;
+
+import com.cryptoinc.marketplace.AggregationMode;
+import com.cryptoinc.marketplace.LiveOrderBoard;
+import com.cryptoinc.marketplace.LiveOrderBoardImpl;
+import com.cryptoinc.marketplace.MeteredLiveOrderBoard;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.metrics.HistogramBoardMetrics;
+import com.cryptoinc.marketplace.metrics.LatencyHistogram;
+import com.cryptoinc.marketplace.repository.InMemoryOrderRepository;
+import com.cryptoinc.marketplace.validators.MeteredOrderValidator;
+import com.cryptoinc.marketplace.validators.OrderValidatorImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of the metrics layer: the same place/cancel loop as {@link LiveOrderBoardBenchmark} with and without
+ * {@link MeteredLiveOrderBoard}, and the raw cost of recording into a {@link LatencyHistogram} shared by all threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+    private static final int INCOMING_ORDERS = 1 << 14;
+
+    @State(Scope.Thread)
+    public static class Board {
+
+        @Param({"false", "true"})
+        private boolean metered;
+
+        @Param({"10000"})
+        private int bookDepth;
+
+        private LiveOrderBoard liveOrderBoard;
+        private Order[] incomingOrders;
+        private long[] restingOrderIds;
+        private int oldest;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            final HistogramBoardMetrics boardMetrics = new HistogramBoardMetrics();
+            final LiveOrderBoardImpl board = new LiveOrderBoardImpl(
+                    new InMemoryOrderRepository(),
+                    this.metered ? new MeteredOrderValidator(new OrderValidatorImpl(), boardMetrics) : new OrderValidatorImpl(),
+                    AggregationMode.INCREMENTAL);
+            board.registerGauges(boardMetrics);
+            this.liveOrderBoard = this.metered ? new MeteredLiveOrderBoard(board, boardMetrics) : board;
+
+            final OrderDistribution distribution = new OrderDistribution(200, 0.5, CoinMix.EVEN, 42);
+            this.restingOrderIds = new long[this.bookDepth];
+            for (Order order : distribution.nextOrders(this.bookDepth)) {
+                this.restingOrderIds[this.oldest++] = this.liveOrderBoard.placeOrder(order);
+            }
+            this.oldest = 0;
+            this.incomingOrders = distribution.nextOrders(INCOMING_ORDERS);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Histogram {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+    }
+
+    @Benchmark
+    public boolean placeAndCancelOrder(final Board board) {
+        final long orderId = board.liveOrderBoard.placeOrder(board.incomingOrders[board.next++ & (INCOMING_ORDERS - 1)]);
+        final boolean cancelled = board.liveOrderBoard.cancelOrder(board.restingOrderIds[board.oldest]);
+        board.restingOrderIds[board.oldest] = orderId;
+        board.oldest = (board.oldest + 1) % board.bookDepth;
+        return cancelled;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordLatency(final Histogram histogram) {
+        histogram.histogram.record(System.nanoTime() & 0xFFFFF);
+    }
+}
@@ -0,0 +1,64 @@
+package com.cryptoinc.marketplace.benchmark;
+
+import com.cryptoinc.marketplace.book.OrderBook;
+import com.cryptoinc.marketplace.domain.FixedPointScales;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.cryptoinc.marketplace.domain.CoinType.Ethereum;
+import static com.cryptoinc.marketplace.domain.OrderType.BUY;
+
+/**
+ * Level maintenance of a single {@link OrderBook} side in ticks, without the BigDecimal edge.
+ * gc.alloc.rate.norm should stay at zero: levels are reused from the primitive map's free list.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderBookBenchmark {
+
+    private static final int UPDATES = 1 << 16;
+
+    @Param({"100", "10000"})
+    private int priceLevels;
+
+    private OrderBook orderBook;
+    private long[] prices;
+    private long[] quantities;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.orderBook = new OrderBook(Ethereum, FixedPointScales.defaultScales());
+        final Random random = new Random(42);
+        this.prices = new long[UPDATES];
+        this.quantities = new long[UPDATES];
+        for (int i = 0; i < UPDATES; i++) {
+            this.prices[i] = 100_000 + random.nextInt(this.priceLevels);
+            this.quantities[i] = 1 + random.nextInt(1_000);
+        }
+        for (int i = 0; i < this.priceLevels; i++) {
+            this.orderBook.add(BUY, 100_000 + i, 1);
+        }
+    }
+
+    @Benchmark
+    public void addAndRemoveLevelQuantity() {
+        final int update = this.next++ & (UPDATES - 1);
+        this.orderBook.add(BUY, this.prices[update], this.quantities[update]);
+        this.orderBook.remove(BUY, this.prices[update], this.quantities[update]);
+    }
+
+    @Benchmark
+    public void createAndDropLevel() {
+        final int update = this.next++ & (UPDATES - 1);
+        final long price = this.prices[update] + this.priceLevels;
+        this.orderBook.add(BUY, price, this.quantities[update]);
+        this.orderBook.remove(BUY, price, this.quantities[update]);
+    }
+}
@@ -0,0 +1,68 @@
+package com.cryptoinc.marketplace.benchmark;
+
+import com.cryptoinc.marketplace.domain.CoinType;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderType;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.UUID;
+
+import static com.cryptoinc.marketplace.domain.CoinType.Ethereum;
+import static com.cryptoinc.marketplace.domain.CoinType.Litecoin;
+import static com.cryptoinc.marketplace.domain.OrderType.BUY;
+import static com.cryptoinc.marketplace.domain.OrderType.SELL;
+
+/**
+ * Deterministic order flow for benchmarks.
+ * BUY orders rest below and SELL orders above a mid price of 1000, one tick of 0.01 apart; prices cluster
+ * near the mid like a real book, so the top of book sees most of the updates.
+ */
+final class OrderDistribution {
+
+    private static final long MID_PRICE_CENTS = 100_000;
+
+    private final int priceLevels;
+    private final double buyRatio;
+    private final CoinMix coinMix;
+    private final Random random;
+    private final UUID[] users;
+
+    OrderDistribution(final int priceLevels, final double buyRatio, final CoinMix coinMix, final long seed) {
+        this.priceLevels = priceLevels;
+        this.buyRatio = buyRatio;
+        this.coinMix = coinMix;
+        this.random = new Random(seed);
+        this.users = new UUID[1_000];
+        for (int i = 0; i < this.users.length; i++) {
+            this.users[i] = new UUID(seed, i);
+        }
+    }
+
+    Order[] nextOrders(final int count) {
+        final Order[] orders = new Order[count];
+        for (int i = 0; i < count; i++) {
+            orders[i] = nextOrder();
+        }
+        return orders;
+    }
+
+    Order nextOrder() {
+        final OrderType orderType = this.random.nextDouble() < this.buyRatio ? BUY : SELL;
+        final CoinType coinType = this.random.nextDouble() < this.coinMix.getEthereumRatio() ? Ethereum : Litecoin;
+
+        //levels per side, squared to favour prices close to the mid
+        final double distance = this.random.nextDouble();
+        final long ticksFromMid = 1 + (long) (distance * distance * Math.max(1, this.priceLevels / 2));
+        final long priceCents = orderType == BUY ? MID_PRICE_CENTS - ticksFromMid : MID_PRICE_CENTS + ticksFromMid;
+        final long quantityTicks = 1 + this.random.nextInt(100_000);
+
+        return new Order(
+                this.users[this.random.nextInt(this.users.length)],
+                orderType,
+                coinType,
+                BigDecimal.valueOf(quantityTicks, 4),
+                BigDecimal.valueOf(priceCents, 2)
+        );
+    }
+}
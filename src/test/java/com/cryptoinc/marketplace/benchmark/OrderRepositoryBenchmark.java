@@ -0,0 +1,65 @@
+package com.cryptoinc.marketplace.benchmark;
+
+import com.cryptoinc.marketplace.domain.FixedPointScales;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.repository.InMemoryOrderRepository;
+import com.cryptoinc.marketplace.repository.OffHeapOrderRepository;
+import com.cryptoinc.marketplace.repository.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Save/remove cost of the repositories over a resting book. Run with -prof gc to compare allocation rates and
+ * GC counts: off-heap they should not change with the book depth.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx4g", "-XX:MaxDirectMemorySize=4g"})
+public class OrderRepositoryBenchmark {
+
+    private static final int INCOMING_ORDERS = 1 << 14;
+
+    public enum Storage {
+        ON_HEAP, OFF_HEAP
+    }
+
+    @Param({"ON_HEAP", "OFF_HEAP"})
+    private Storage storage;
+
+    @Param({"100000", "1000000"})
+    private int bookDepth;
+
+    private OrderRepository orderRepository;
+    private Order[] restingOrders;
+    private Order[] incomingOrders;
+    private int oldest;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.orderRepository = this.storage == Storage.ON_HEAP
+                ? new InMemoryOrderRepository()
+                : new OffHeapOrderRepository(FixedPointScales.defaultScales(), this.bookDepth);
+
+        final OrderDistribution distribution = new OrderDistribution(2000, 0.5, CoinMix.EVEN, 42);
+        this.restingOrders = distribution.nextOrders(this.bookDepth);
+        for (Order order : this.restingOrders) {
+            this.orderRepository.saveOrder(order);
+        }
+        this.incomingOrders = distribution.nextOrders(INCOMING_ORDERS);
+    }
+
+    @Benchmark
+    public boolean saveAndRemoveOrder() {
+        final Order order = this.incomingOrders[this.next++ & (INCOMING_ORDERS - 1)];
+        this.orderRepository.saveOrder(order);
+        final boolean removed = this.orderRepository.remove(this.restingOrders[this.oldest]);
+        this.restingOrders[this.oldest] = order;
+        this.oldest = (this.oldest + 1) % this.bookDepth;
+        return removed;
+    }
+}
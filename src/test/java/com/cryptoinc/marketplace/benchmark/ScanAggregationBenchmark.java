@@ -0,0 +1,54 @@
+package com.cryptoinc.marketplace.benchmark;
+
+import com.cryptoinc.marketplace.AggregationMode;
+import com.cryptoinc.marketplace.LiveOrderBoard;
+import com.cryptoinc.marketplace.LiveOrderBoardImpl;
+import com.cryptoinc.marketplace.domain.OrderSummary;
+import com.cryptoinc.marketplace.repository.InMemoryOrderRepository;
+import com.cryptoinc.marketplace.validators.OrderValidatorImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.cryptoinc.marketplace.domain.OrderType.BUY;
+import static com.cryptoinc.marketplace.domain.OrderType.SELL;
+
+/**
+ * Summary rebuilt from scratch by a sequential and a parallel repository scan over millions of resting orders.
+ * Run with -p repositoryOrders=... and vary -Djava.util.concurrent.ForkJoinPool.common.parallelism to see
+ * how the parallel scan scales with cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ScanAggregationBenchmark {
+
+    @Param({"REPOSITORY_SCAN", "PARALLEL_REPOSITORY_SCAN"})
+    private AggregationMode aggregationMode;
+
+    @Param({"1000000", "4000000"})
+    private int repositoryOrders;
+
+    @Param({"2000"})
+    private int priceLevels;
+
+    private LiveOrderBoard liveOrderBoard;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final InMemoryOrderRepository orderRepository = new InMemoryOrderRepository();
+        orderRepository.saveOrders(Arrays.asList(new OrderDistribution(this.priceLevels, 0.5, CoinMix.EVEN, 42).nextOrders(this.repositoryOrders)));
+        this.liveOrderBoard = new LiveOrderBoardImpl(orderRepository, new OrderValidatorImpl(), this.aggregationMode);
+    }
+
+    @Benchmark
+    public List<OrderSummary> getOrderSummary() {
+        return this.liveOrderBoard.getOrderSummary((this.next++ & 1) == 0 ? BUY : SELL);
+    }
+}
@@ -0,0 +1,93 @@
+package com.cryptoinc.marketplace.benchmark;
+
+import com.cryptoinc.marketplace.AggregationMode;
+import com.cryptoinc.marketplace.LiveOrderBoard;
+import com.cryptoinc.marketplace.LiveOrderBoardImpl;
+import com.cryptoinc.marketplace.ShardedLiveOrderBoard;
+import com.cryptoinc.marketplace.domain.CoinType;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderType;
+import com.cryptoinc.marketplace.repository.InMemoryOrderRepository;
+import com.cryptoinc.marketplace.validators.OrderValidatorImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write scaling of {@link ShardedLiveOrderBoard} against a single {@link LiveOrderBoardImpl}: every thread runs the
+ * place/cancel loop of {@link LiveOrderBoardBenchmark} on its own coin and side of one shared board.
+ * Vary the thread count with -t 1, 2 and 4; with as many cores, the sharded board should scale near-linearly.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ShardedBoardBenchmark {
+
+    private static final int INCOMING_ORDERS = 1 << 14;
+
+    @State(Scope.Benchmark)
+    public static class Board {
+
+        @Param({"false", "true"})
+        private boolean sharded;
+
+        private LiveOrderBoard liveOrderBoard;
+        private final AtomicInteger threads = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            this.liveOrderBoard = this.sharded
+                    ? new ShardedLiveOrderBoard(InMemoryOrderRepository::new, new OrderValidatorImpl(), AggregationMode.INCREMENTAL)
+                    : new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl(), AggregationMode.INCREMENTAL);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class OrderFlow {
+
+        @Param({"10000"})
+        private int bookDepth;
+
+        private Order[] incomingOrders;
+        private long[] restingOrderIds;
+        private int oldest;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp(final Board board) {
+            //threads take the coins and sides in turn
+            final int thread = board.threads.getAndIncrement();
+            final OrderType orderType = OrderType.values()[thread % OrderType.values().length];
+            final CoinType coinType = CoinType.values()[thread / OrderType.values().length % CoinType.values().length];
+
+            final OrderDistribution distribution = new OrderDistribution(
+                    200, orderType == OrderType.BUY ? 1 : 0, CoinMix.EVEN, 42 + thread);
+            this.restingOrderIds = new long[this.bookDepth];
+            for (Order order : distribution.nextOrders(this.bookDepth)) {
+                this.restingOrderIds[this.oldest++] = board.liveOrderBoard.placeOrder(withCoin(order, coinType));
+            }
+            this.oldest = 0;
+            this.incomingOrders = distribution.nextOrders(INCOMING_ORDERS);
+            for (int i = 0; i < INCOMING_ORDERS; i++) {
+                this.incomingOrders[i] = withCoin(this.incomingOrders[i], coinType);
+            }
+        }
+
+        private static Order withCoin(final Order order, final CoinType coinType) {
+            return new Order(order.getUserId(), order.getOrderType(), coinType, order.getQuantity(), order.getPrice());
+        }
+    }
+
+    @Benchmark
+    public boolean placeAndCancelOrder(final Board board, final OrderFlow flow) {
+        final long orderId = board.liveOrderBoard.placeOrder(flow.incomingOrders[flow.next++ & (INCOMING_ORDERS - 1)]);
+        final boolean cancelled = board.liveOrderBoard.cancelOrder(flow.restingOrderIds[flow.oldest]);
+        flow.restingOrderIds[flow.oldest] = orderId;
+        flow.oldest = (flow.oldest + 1) % flow.bookDepth;
+        return cancelled;
+    }
+}
@@ -0,0 +1,56 @@
+package com.cryptoinc.marketplace.benchmark;
+
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.validators.OrderValidator;
+import com.cryptoinc.marketplace.validators.OrderValidatorImpl;
+import com.cryptoinc.marketplace.validators.ValidationPipeline;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch validation at different reject rates, the throwing {@link OrderValidatorImpl} against
+ * the result codes of {@link ValidationPipeline}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private static final int BATCH_SIZE = 1_000;
+
+    @Param({"THROWING", "PIPELINE"})
+    private String validator;
+
+    @Param({"0.0", "0.1", "0.5"})
+    private double rejectRatio;
+
+    private OrderValidator orderValidator;
+    private Order[] orders;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.orderValidator = this.validator.equals("PIPELINE") ? ValidationPipeline.defaults() : new OrderValidatorImpl();
+
+        final Random random = new Random(42);
+        this.orders = new OrderDistribution(100, 0.5, CoinMix.EVEN, 42).nextOrders(BATCH_SIZE);
+        for (int i = 0; i < this.orders.length; i++) {
+            if (random.nextDouble() < this.rejectRatio) {
+                final Order order = this.orders[i];
+                this.orders[i] = new Order(order.getUserId(), order.getOrderType(), order.getCoinType(), order.getQuantity(), BigDecimal.ZERO);
+            }
+        }
+    }
+
+    @Benchmark
+    public String[] validateAll() {
+        final String[] rejections = new String[BATCH_SIZE];
+        this.orderValidator.validateAll(this.orders, rejections);
+        return rejections;
+    }
+}
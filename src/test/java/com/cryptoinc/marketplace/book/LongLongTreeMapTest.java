@@ -0,0 +1,60 @@
+package com.cryptoinc.marketplace.book;
+
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static com.cryptoinc.marketplace.book.LongLongTreeMap.NIL;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class LongLongTreeMapTest {
+
+    @Test
+    public void givenRandomUpdates_whenComparedWithTreeMap_thenContentAndOrderShouldMatch() {
+        //given
+        final LongLongTreeMap map = new LongLongTreeMap(2);
+        final TreeMap<Long, Long> expected = new TreeMap<>();
+        final Random random = new Random(7);
+
+        //when
+        for (int i = 0; i < 50_000; i++) {
+            final long key = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(key), is(expected.remove(key) != null));
+            } else {
+                final long delta = random.nextInt(1_000);
+                assertThat(map.addTo(key, delta), is(expected.merge(key, delta, Long::sum)));
+            }
+        }
+
+        //then
+        assertThat(map.size(), is(expected.size()));
+        int node = map.firstNode();
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertThat(map.key(node), is(entry.getKey()));
+            assertThat(map.value(node), is(entry.getValue()));
+            node = map.higherNode(map.key(node));
+        }
+        assertThat(node, is(NIL));
+
+        node = map.lastNode();
+        for (Map.Entry<Long, Long> entry : expected.descendingMap().entrySet()) {
+            assertThat(map.key(node), is(entry.getKey()));
+            node = map.lowerNode(map.key(node));
+        }
+        assertThat(node, is(NIL));
+    }
+
+    @Test
+    public void givenEmptyMap_whenNavigating_thenThereShouldBeNoNodes() {
+        final LongLongTreeMap map = new LongLongTreeMap();
+
+        assertThat(map.firstNode(), is(NIL));
+        assertThat(map.lastNode(), is(NIL));
+        assertThat(map.higherNode(0), is(NIL));
+        assertThat(map.get(1, -1), is(-1L));
+    }
+}
@@ -0,0 +1,184 @@
+package com.cryptoinc.marketplace.book;
+
+import com.cryptoinc.marketplace.domain.FixedPointScales;
+import com.cryptoinc.marketplace.domain.MarketStatistics;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderSummary;
+import com.cryptoinc.marketplace.index.IndexedOrder;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.cryptoinc.marketplace.domain.CoinType.Ethereum;
+import static com.cryptoinc.marketplace.domain.CoinType.Litecoin;
+import static com.cryptoinc.marketplace.domain.OrderType.BUY;
+import static com.cryptoinc.marketplace.domain.OrderType.SELL;
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class OrderBooksTest {
+
+    private OrderBooks orderBooks;
+    private long nextOrderId;
+    private IndexedOrder bestSell;
+
+    @BeforeMethod
+    public void setUp() {
+        this.orderBooks = new OrderBooks(FixedPointScales.defaultScales());
+        add(this.orderBooks, new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(441.8), BigDecimal.valueOf(13.9)));
+        add(this.orderBooks, new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(50.5), BigDecimal.valueOf(14)));
+        this.bestSell = add(this.orderBooks, new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(350.1), BigDecimal.valueOf(13.6)));
+        add(this.orderBooks, new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(441.8), BigDecimal.valueOf(13.9)));
+        add(this.orderBooks, new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(50.5), BigDecimal.valueOf(14)));
+        add(this.orderBooks, new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(350.1), BigDecimal.valueOf(13.6)));
+    }
+
+    @Test
+    public void givenSellLevels_whenGettingBestLevels_thenLowestPricesShouldComeFirst() {
+        assertThat(this.orderBooks.getOrderSummary(Ethereum, SELL, 10), contains(
+                new OrderSummary(BigDecimal.valueOf(350.1), BigDecimal.valueOf(13.6)),
+                new OrderSummary(BigDecimal.valueOf(441.8), BigDecimal.valueOf(13.9)),
+                new OrderSummary(BigDecimal.valueOf(50.5), BigDecimal.valueOf(14))
+        ));
+    }
+
+    @Test
+    public void givenBuyLevels_whenGettingBestLevels_thenHighestPricesShouldComeFirst() {
+        assertThat(this.orderBooks.getOrderSummary(Ethereum, BUY, 2), contains(
+                new OrderSummary(BigDecimal.valueOf(50.5), BigDecimal.valueOf(14)),
+                new OrderSummary(BigDecimal.valueOf(441.8), BigDecimal.valueOf(13.9))
+        ));
+    }
+
+    @Test
+    public void givenSamePriceWithDifferentScale_whenAdding_thenItShouldBeTheSameLevel() {
+        //when
+        add(this.orderBooks, new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(1.5), new BigDecimal("13.60")));
+
+        //then
+        assertThat(this.orderBooks.getOrderBook(Ethereum).getLevelCount(SELL), is(3));
+        assertThat(this.orderBooks.getOrderSummary(Ethereum, SELL, 1),
+                   contains(new OrderSummary(BigDecimal.valueOf(351.6), BigDecimal.valueOf(13.6))));
+    }
+
+    @Test
+    public void givenLevelQuantityRemoved_whenGettingBestLevels_thenTheLevelShouldBeGone() {
+        //when
+        this.orderBooks.remove(this.bestSell);
+
+        //then
+        assertThat(this.orderBooks.getOrderBook(Ethereum).getLevelCount(SELL), is(2));
+        assertThat(this.orderBooks.getOrderSummary(Ethereum, SELL, 1),
+                   contains(new OrderSummary(BigDecimal.valueOf(441.8), BigDecimal.valueOf(13.9))));
+    }
+
+    @Test
+    public void givenChangeBeyondTheWindow_whenGettingSnapshot_thenTheCachedOneShouldBeServed() {
+        //given
+        final OrderBooks books = new OrderBooks(FixedPointScales.defaultScales(), 2, SnapshotPolicy.exact());
+        add(books, new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(1), BigDecimal.valueOf(10)));
+        add(books, new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(1), BigDecimal.valueOf(11)));
+        final SummarySnapshot snapshot = books.getSummarySnapshot(Ethereum, SELL);
+        final List<OrderSummary> merged = books.getOrderSummary(SELL, 2);
+
+        //when
+        add(books, new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(1), BigDecimal.valueOf(12)));
+
+        //then
+        assertThat(books.getSummarySnapshot(Ethereum, SELL), is(sameInstance(snapshot)));
+        assertThat(books.getOrderSummary(SELL, 2), is(sameInstance(merged)));
+    }
+
+    @Test
+    public void givenChangeAtTheWindowEdge_whenGettingSnapshot_thenItShouldBeRebuiltWithNewVersion() {
+        //given
+        final OrderBooks books = new OrderBooks(FixedPointScales.defaultScales(), 2, SnapshotPolicy.exact());
+        add(books, new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(1), BigDecimal.valueOf(10)));
+        add(books, new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(1), BigDecimal.valueOf(11)));
+        final SummarySnapshot snapshot = books.getSummarySnapshot(Ethereum, SELL);
+
+        //when
+        add(books, new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(2), BigDecimal.valueOf(11)));
+
+        //then
+        final SummarySnapshot rebuilt = books.getSummarySnapshot(Ethereum, SELL);
+        assertThat(rebuilt.getVersion(), is(greaterThan(snapshot.getVersion())));
+        assertThat(rebuilt.getOrderSummary(), contains(
+                new OrderSummary(BigDecimal.valueOf(1), BigDecimal.valueOf(10)),
+                new OrderSummary(BigDecimal.valueOf(3), BigDecimal.valueOf(11))
+        ));
+        assertThat(books.getOrderSummary(SELL, 2), is(rebuilt.getOrderSummary()));
+    }
+
+    @Test
+    public void givenCoalescingPolicy_whenWritesKeepComing_thenTheStaleSnapshotShouldBeServed() {
+        //given
+        final OrderBooks books = new OrderBooks(
+                FixedPointScales.defaultScales(), 2, SnapshotPolicy.coalescing(Duration.ofHours(1), Duration.ofHours(1)));
+        final SummarySnapshot snapshot = books.getSummarySnapshot(Ethereum, BUY);
+
+        //when
+        add(books, new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(1), BigDecimal.valueOf(10)));
+
+        //then
+        assertThat(books.getSummarySnapshot(Ethereum, BUY), is(sameInstance(snapshot)));
+        assertThat(books.getOrderSummary(Ethereum, BUY, 1), contains(new OrderSummary(BigDecimal.valueOf(1), BigDecimal.valueOf(10))));
+    }
+
+    @Test
+    public void givenNotionalBeyondLongTicks_whenGettingMarketStatistics_thenItShouldBeExact() {
+        //given
+        final OrderBooks books = new OrderBooks(FixedPointScales.defaultScales());
+        final BigDecimal quantity = new BigDecimal("9999999999.12345678");
+        final BigDecimal price = new BigDecimal("99999.5");
+        add(books, new Order(randomUUID(), BUY, Ethereum, quantity, price));
+        add(books, new Order(randomUUID(), BUY, Ethereum, quantity, price));
+        final IndexedOrder worstBid = add(books, new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, BigDecimal.ONE));
+
+        //when
+        books.remove(worstBid);
+        final MarketStatistics statistics = books.getMarketStatistics(Ethereum);
+
+        //then
+        assertThat(statistics.getSide(BUY).getNotional(), is(quantity.multiply(price).multiply(BigDecimal.valueOf(2)).stripTrailingZeros()));
+        assertThat(statistics.getSide(BUY).getBestQuantity(), is(quantity.multiply(BigDecimal.valueOf(2))));
+        assertThat(statistics.getBestBid(), is(price));
+    }
+
+    @Test
+    public void givenBatchAcrossCoins_whenAddedAndRemoved_thenEveryCoinBookShouldFollow() {
+        //given
+        final List<IndexedOrder> batch = Arrays.asList(
+                this.orderBooks.index(++this.nextOrderId, new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(2), BigDecimal.valueOf(13.6))),
+                this.orderBooks.index(++this.nextOrderId, new Order(randomUUID(), SELL, Litecoin, BigDecimal.valueOf(3), BigDecimal.valueOf(5))));
+
+        //when
+        this.orderBooks.addAll(batch);
+
+        //then
+        assertThat(this.orderBooks.getOrderSummary(Ethereum, SELL, 1),
+                   contains(new OrderSummary(BigDecimal.valueOf(352.1), BigDecimal.valueOf(13.6))));
+        assertThat(this.orderBooks.getOrderSummary(Litecoin, SELL, 10),
+                   contains(new OrderSummary(BigDecimal.valueOf(3), BigDecimal.valueOf(5))));
+
+        this.orderBooks.removeAll(batch);
+        assertThat(this.orderBooks.getOrderSummary(Ethereum, SELL, 1),
+                   contains(new OrderSummary(BigDecimal.valueOf(350.1), BigDecimal.valueOf(13.6))));
+        assertThat(this.orderBooks.getOrderSummary(Litecoin, SELL, 10), is(empty()));
+    }
+
+    private IndexedOrder add(final OrderBooks books, final Order order) {
+        final IndexedOrder indexedOrder = books.index(++this.nextOrderId, order);
+        books.add(indexedOrder);
+        return indexedOrder;
+    }
+}
@@ -0,0 +1,58 @@
+package com.cryptoinc.marketplace.domain;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static com.cryptoinc.marketplace.domain.CoinType.Ethereum;
+import static com.cryptoinc.marketplace.domain.CoinType.Litecoin;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.is;
+
+public class FixedPointScalesTest {
+
+    private final FixedPointScales scales = FixedPointScales.defaultScales().withScales(Litecoin, 2, 4);
+
+    @Test
+    public void givenConfiguredCoin_whenConvertingToTicks_thenItsOwnScaleShouldBeUsed() {
+        assertThat(this.scales.toPriceTicks(Litecoin, new BigDecimal("13.6")), is(1360L));
+        assertThat(this.scales.toQuantityTicks(Litecoin, new BigDecimal("350.1")), is(3501000L));
+        assertThat(this.scales.toPriceTicks(Ethereum, new BigDecimal("13.6")), is(1360000000L));
+    }
+
+    @Test
+    public void givenTicks_whenConvertingBack_thenTrailingZerosShouldBeStripped() {
+        assertThat(this.scales.fromPriceTicks(Litecoin, 1360L), is(new BigDecimal("13.6")));
+        assertThat(this.scales.fromQuantityTicks(Litecoin, 100000L), is(new BigDecimal("10")));
+    }
+
+    @Test
+    public void givenRandomValues_whenRoundTripping_thenTheyShouldComeBackExactly() {
+        final Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            final BigDecimal price = BigDecimal.valueOf(random.nextInt(Integer.MAX_VALUE), random.nextInt(9));
+            final long ticks = this.scales.toPriceTicks(Ethereum, price);
+
+            assertThat(this.scales.fromPriceTicks(Ethereum, ticks), comparesEqualTo(price));
+            assertThat(this.scales.toPriceTicks(Ethereum, this.scales.fromPriceTicks(Ethereum, ticks)), is(ticks));
+        }
+    }
+
+    @DataProvider(name = "unrepresentableValues")
+    public Object[][] unrepresentableValues() {
+        return new Object[][]{
+                {"13.605"},
+                {"0.001"},
+                {"92233720368547758.08"}
+        };
+    }
+
+    @Test(dataProvider = "unrepresentableValues",
+          expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Bad price.")
+    public void givenValueNotFittingTheScale_whenConvertingToTicks_thenItShouldThrowException(final String price) {
+        this.scales.toPriceTicks(Litecoin, new BigDecimal(price));
+    }
+}
@@ -0,0 +1,216 @@
+package com.cryptoinc.marketplace.feed;
+
+import com.cryptoinc.marketplace.book.OrderBook;
+import com.cryptoinc.marketplace.domain.BoardUpdate;
+import com.cryptoinc.marketplace.domain.FixedPointScales;
+import com.cryptoinc.marketplace.domain.OrderSummary;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import static com.cryptoinc.marketplace.domain.CoinType.Ethereum;
+import static com.cryptoinc.marketplace.domain.OrderType.SELL;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+public class BoardUpdateFeedTest {
+
+    private OrderBook orderBook;
+    private BoardUpdateFeed feed;
+
+    @BeforeMethod
+    public void setUp() {
+        this.orderBook = new OrderBook(Ethereum, FixedPointScales.defaultScales().withScales(Ethereum, 1, 1));
+        this.orderBook.add(SELL, 136, 10);
+        this.orderBook.add(SELL, 139, 20);
+        this.orderBook.add(SELL, 140, 30);
+        //deliveries run on the calling thread, so the test sees them synchronously
+        this.feed = new BoardUpdateFeed(this.orderBook, SELL, 2, Runnable::run);
+    }
+
+    @Test
+    public void givenSubscriber_whenLevelsChange_thenItShouldGetTheSnapshotFollowedByUpdates() {
+        //given
+        final CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        this.feed.subscribe(subscriber);
+
+        //when
+        this.orderBook.add(SELL, 136, 5);
+
+        //then
+        assertThat(subscriber.updates, contains(
+                BoardUpdate.snapshot(Ethereum, SELL, List.of(summary("1", "13.6"), summary("2", "13.9"))),
+                BoardUpdate.level(Ethereum, SELL, new BigDecimal("1.5"), new BigDecimal("13.6"))
+        ));
+    }
+
+    @Test
+    public void givenSlowSubscriber_whenALevelChangesManyTimes_thenOnlyItsLatestQuantityShouldBeDelivered() {
+        //given
+        final CollectingSubscriber subscriber = new CollectingSubscriber(1);
+        this.feed.subscribe(subscriber);
+
+        //when
+        this.orderBook.add(SELL, 136, 5);
+        this.orderBook.add(SELL, 136, 5);
+        this.orderBook.remove(SELL, 136, 1);
+        subscriber.subscription.request(10);
+
+        //then
+        assertThat(subscriber.updates, hasSize(2));
+        assertThat(subscriber.updates.get(1), is(
+                BoardUpdate.level(Ethereum, SELL, new BigDecimal("1.9"), new BigDecimal("13.6"))));
+    }
+
+    @Test
+    public void givenLevelInsideTheWindowRemoved_whenNotifying_thenTheLevelSlidingInShouldBeDeliveredToo() {
+        //given
+        final CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        this.feed.subscribe(subscriber);
+
+        //when
+        this.orderBook.remove(SELL, 136, 10);
+
+        //then
+        assertThat(subscriber.updates.subList(1, subscriber.updates.size()), containsInAnyOrder(
+                BoardUpdate.level(Ethereum, SELL, BigDecimal.ZERO, new BigDecimal("13.6")),
+                BoardUpdate.level(Ethereum, SELL, new BigDecimal("3"), new BigDecimal("14"))
+        ));
+    }
+
+    @Test
+    public void givenBetterLevelAdded_whenNotifying_thenTheLevelPushedOutShouldBeDeliveredAsRemoved() {
+        //given
+        final CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        this.feed.subscribe(subscriber);
+
+        //when
+        this.orderBook.add(SELL, 135, 4);
+
+        //then
+        assertThat(subscriber.updates.subList(1, subscriber.updates.size()), containsInAnyOrder(
+                BoardUpdate.level(Ethereum, SELL, new BigDecimal("0.4"), new BigDecimal("13.5")),
+                BoardUpdate.level(Ethereum, SELL, BigDecimal.ZERO, new BigDecimal("13.9"))
+        ));
+    }
+
+    @Test
+    public void givenChangeOutsideTheWindow_whenNotifying_thenNothingShouldBeDelivered() {
+        //given
+        final CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        this.feed.subscribe(subscriber);
+
+        //when
+        this.orderBook.add(SELL, 140, 1);
+        this.orderBook.add(SELL, 150, 1);
+
+        //then
+        assertThat(subscriber.updates, hasSize(1));
+    }
+
+    @Test
+    public void givenCancelledSubscription_whenLevelsChange_thenNothingShouldBeDelivered() {
+        //given
+        final CollectingSubscriber subscriber = new CollectingSubscriber(0);
+        this.feed.subscribe(subscriber);
+        subscriber.subscription.cancel();
+
+        //when
+        this.orderBook.add(SELL, 136, 5);
+        subscriber.subscription.request(10);
+
+        //then
+        assertThat(subscriber.updates, empty());
+    }
+
+    @Test
+    public void givenSubscriberThrowing_whenDelivering_thenItShouldBeCancelledAndTheBookUnaffected() {
+        //given
+        final CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE) {
+            @Override
+            public void onNext(final BoardUpdate item) {
+                super.onNext(item);
+                throw new IllegalStateException("Subscriber failed.");
+            }
+        };
+        this.feed.subscribe(subscriber);
+
+        //when
+        this.orderBook.add(SELL, 136, 5);
+        this.orderBook.add(SELL, 139, 5);
+
+        //then
+        assertThat(subscriber.updates, hasSize(1));
+        assertThat(this.orderBook.getOrderSummary(SELL, 2), contains(summary("1.5", "13.6"), summary("2.5", "13.9")));
+    }
+
+    @Test
+    public void givenNonPositiveRequest_whenRequesting_thenTheErrorShouldBeTheLastSignal() {
+        //given
+        final List<Runnable> drains = new ArrayList<>();
+        final BoardUpdateFeed queuedFeed = new BoardUpdateFeed(this.orderBook, SELL, 2, drains::add);
+        final List<Throwable> errors = new ArrayList<>();
+        final CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE) {
+            @Override
+            public void onError(final Throwable throwable) {
+                errors.add(throwable);
+            }
+        };
+        queuedFeed.subscribe(subscriber);
+
+        //when
+        subscriber.subscription.request(0);
+        this.orderBook.add(SELL, 136, 5);
+
+        //then
+        assertThat(errors, empty());
+        drains.forEach(Runnable::run);
+        assertThat(subscriber.updates, empty());
+        assertThat(errors, hasSize(1));
+    }
+
+    private static OrderSummary summary(final String quantity, final String price) {
+        return new OrderSummary(new BigDecimal(quantity), new BigDecimal(price));
+    }
+
+    private static class CollectingSubscriber implements Flow.Subscriber<BoardUpdate> {
+
+        private final long initialRequest;
+        private final List<BoardUpdate> updates = new ArrayList<>();
+        private Flow.Subscription subscription;
+
+        CollectingSubscriber(final long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (this.initialRequest > 0) {
+                subscription.request(this.initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(final BoardUpdate item) {
+            this.updates.add(item);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            throw new AssertionError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
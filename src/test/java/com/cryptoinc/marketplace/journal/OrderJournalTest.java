@@ -0,0 +1,158 @@
+package com.cryptoinc.marketplace.journal;
+
+import com.cryptoinc.marketplace.domain.Order;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static com.cryptoinc.marketplace.domain.CoinType.Litecoin;
+import static com.cryptoinc.marketplace.domain.OrderType.SELL;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class OrderJournalTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("journal");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(this.directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Test
+    public void givenTornLastRecord_whenReopening_thenReplayShouldStopBeforeItAndAppendsResumeThere() throws IOException {
+        //given
+        final Order first = order(1);
+        final Order second = order(2);
+        final long firstEnd;
+        try (OrderJournal journal = open(new RecordingVisitor())) {
+            firstEnd = journal.appendPlace(first);
+            journal.appendPlace(second);
+        }
+        //corrupt one payload byte of the second record
+        try (FileChannel channel = FileChannel.open(onlySegment(), WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), firstEnd + 12);
+        }
+
+        //when
+        final RecordingVisitor afterTear = new RecordingVisitor();
+        try (OrderJournal journal = open(afterTear)) {
+            assertThat(journal.getPosition(), is(firstEnd));
+            journal.appendCancel(first);
+        }
+        final RecordingVisitor afterAppend = new RecordingVisitor();
+        open(afterAppend).close();
+
+        //then
+        assertThat(afterTear.records, contains("place " + first));
+        assertThat(afterAppend.records, contains("place " + first, "cancel " + first));
+    }
+
+    @Test
+    public void givenGroupCommit_whenAppendingConcurrently_thenEveryRecordShouldBeForcedAndReplayed() throws Exception {
+        //given
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        final List<Future<?>> futures = new ArrayList<>();
+
+        //when
+        try (OrderJournal journal = open(new RecordingVisitor())) {
+            for (int writer = 0; writer < 4; writer++) {
+                futures.add(executorService.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        final long position = journal.appendPlace(order(i));
+                        assertThat(journal.getForcedPosition() >= position, is(true));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        executorService.shutdown();
+
+        //then
+        final RecordingVisitor visitor = new RecordingVisitor();
+        open(visitor).close();
+        assertThat(visitor.records.size(), is(200));
+    }
+
+    @Test
+    public void givenOrderMissingItsUserId_whenAppending_thenItShouldBeRejectedAndLaterRecordsKept() throws IOException {
+        //given
+        final Order first = order(1);
+        final Order second = order(2);
+        final Order anonymous = new Order(null, SELL, Litecoin, BigDecimal.ONE, BigDecimal.TEN);
+
+        //when
+        try (OrderJournal journal = open(new RecordingVisitor())) {
+            journal.appendPlace(first);
+            try {
+                journal.appendCancel(anonymous);
+            } catch (IllegalArgumentException e) {
+                //expected
+            }
+            journal.appendPlace(second);
+        }
+
+        //then
+        final RecordingVisitor visitor = new RecordingVisitor();
+        open(visitor).close();
+        assertThat(visitor.records, contains("place " + first, "place " + second));
+    }
+
+    private OrderJournal open(final JournalVisitor visitor) throws IOException {
+        return OrderJournal.open(this.directory, SEGMENT_SIZE, JournalDurability.GROUP_COMMIT, Duration.ofMillis(1), visitor);
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(this.directory)) {
+            return files.findFirst().orElseThrow();
+        }
+    }
+
+    private static Order order(final int price) {
+        return new Order(randomUUID(), SELL, Litecoin, BigDecimal.valueOf(2.5), BigDecimal.valueOf(price));
+    }
+
+    private static final class RecordingVisitor implements JournalVisitor {
+
+        private final List<String> records = new ArrayList<>();
+
+        @Override
+        public void onPlace(final Order order) {
+            this.records.add("place " + order);
+        }
+
+        @Override
+        public void onCancel(final Order order) {
+            this.records.add("cancel " + order);
+        }
+    }
+}
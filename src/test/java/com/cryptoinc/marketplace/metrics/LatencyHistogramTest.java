@@ -0,0 +1,89 @@
+package com.cryptoinc.marketplace.metrics;
+
+import org.testng.annotations.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void givenSmallValues_whenReadingPercentiles_thenTheyShouldBeExact() {
+        //given
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 50; value++) {
+            histogram.record(value);
+        }
+
+        //then
+        assertThat(histogram.getCount(), is(50L));
+        assertThat(histogram.getValueAtPercentile(50), is(25L));
+        assertThat(histogram.getValueAtPercentile(100), is(50L));
+        assertThat(histogram.getMean(), is(25.5));
+    }
+
+    @Test
+    public void givenWideRangeOfValues_whenReadingPercentiles_thenTheyShouldBeWithinBucketPrecision() {
+        //given
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1_000_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        //then
+        assertThat(histogram.getValueAtPercentile(50), is(both(greaterThanOrEqualTo(500_000_000L)).and(lessThanOrEqualTo(516_000_000L))));
+        assertThat(histogram.getValueAtPercentile(99), is(both(greaterThanOrEqualTo(990_000_000L)).and(lessThanOrEqualTo(1_000_000_000L))));
+        assertThat(histogram.getMax(), is(1_000_000_000L));
+    }
+
+    @Test
+    public void givenLargestValue_whenRecording_thenItShouldLandInTheLastBucket() {
+        //given
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        //when
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(1L << 62);
+
+        //then
+        assertThat(histogram.getCount(), is(2L));
+        assertThat(histogram.getMax(), is(Long.MAX_VALUE));
+        assertThat(histogram.getValueAtPercentile(100), is(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void givenEveryBucket_whenIndexing_thenHighestValuesShouldMapBackToTheirBucket() {
+        for (int index = 0; index < LatencyHistogram.index(Long.MAX_VALUE); index++) {
+            final long highest = LatencyHistogram.highestValue(index);
+            assertThat(LatencyHistogram.index(highest), is(index));
+            assertThat(LatencyHistogram.index(highest + 1), is(index + 1));
+        }
+    }
+
+    @Test
+    public void givenConcurrentWriters_whenRecording_thenNoValueShouldBeLost() throws InterruptedException {
+        //given
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final Thread[] writers = new Thread[4];
+        for (int i = 0; i < writers.length; i++) {
+            writers[i] = new Thread(() -> {
+                for (int value = 0; value < 100_000; value++) {
+                    histogram.record(value);
+                }
+            });
+            writers[i].start();
+        }
+
+        //when
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        //then
+        assertThat(histogram.getCount(), is(400_000L));
+        assertThat(histogram.getMax(), is(99_999L));
+    }
+}
@@ -0,0 +1,284 @@
+package com.cryptoinc.marketplace.replay;
+
+import com.cryptoinc.marketplace.LiveOrderBoardImpl;
+import com.cryptoinc.marketplace.domain.BatchResult;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderSummary;
+import com.cryptoinc.marketplace.repository.InMemoryOrderRepository;
+import com.cryptoinc.marketplace.validators.OrderValidatorImpl;
+import org.testng.SkipException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.cryptoinc.marketplace.AggregationMode.INCREMENTAL;
+import static com.cryptoinc.marketplace.AggregationMode.REPOSITORY_SCAN;
+import static com.cryptoinc.marketplace.domain.CoinType.Ethereum;
+import static com.cryptoinc.marketplace.domain.CoinType.Litecoin;
+import static com.cryptoinc.marketplace.domain.OrderType.BUY;
+import static com.cryptoinc.marketplace.domain.OrderType.SELL;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.testng.Assert.fail;
+
+public class ReplayHarnessTest {
+
+    private Path recording;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        this.recording = Files.createTempFile("replay", ".bin");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.recording);
+    }
+
+    @Test
+    public void givenRecordedScanBoard_whenReplayedIntoIncrementalBoard_thenOutcomesAndSummariesShouldMatch() throws IOException {
+        //given
+        record(new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl(), REPOSITORY_SCAN));
+
+        //when
+        final ReplayReport report = ReplayHarness.replay(
+                this.recording,
+                new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl(), INCREMENTAL),
+                ReplayPacing.FULL_SPEED);
+
+        //then
+        assertThat(report.getSummaryMismatches(), empty());
+        assertThat(report.getOutcomeMismatches(), is(0));
+        assertThat(report.isMatching(), is(true));
+        assertThat(report.getCalls(), is(10));
+        assertThat(report.getLatencies().getCount(), is(10L));
+    }
+
+    @Test
+    public void givenBoardRejectingEveryOrder_whenReplayed_thenMismatchesShouldBeReported() throws IOException {
+        //given
+        record(new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl(), INCREMENTAL));
+
+        //when
+        final ReplayReport report = ReplayHarness.replay(
+                this.recording,
+                new LiveOrderBoardImpl(new InMemoryOrderRepository(), order -> {
+                    throw new IllegalArgumentException("Bad order.");
+                }, INCREMENTAL),
+                ReplayPacing.RECORDED);
+
+        //then
+        assertThat(report.isMatching(), is(false));
+        //four accepted placements, the accepted cancel by id and the cancel of the user's order
+        assertThat(report.getOutcomeMismatches(), is(6));
+        //the user's orders were cancelled, only the Ethereum sells rest
+        assertThat(report.getSummaryMismatches(), hasSize(1));
+    }
+
+    @Test
+    public void givenTornRecording_whenReplayed_thenCompleteCallsShouldBeReplayed() throws IOException {
+        //given
+        record(new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl(), INCREMENTAL));
+        try (FileChannel channel = FileChannel.open(this.recording, WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+
+        //when
+        final ReplayReport report = ReplayHarness.replay(
+                this.recording,
+                new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl(), INCREMENTAL),
+                ReplayPacing.FULL_SPEED);
+
+        //then
+        assertThat(report.getCalls(), is(10));
+        assertThat(report.getOutcomeMismatches(), is(0));
+        assertThat(report.getSummaryMismatches(), hasSize(1));
+    }
+
+    @Test
+    public void givenConcurrentCallers_whenRecordedAndReplayed_thenEveryOutcomeShouldMatch() throws Exception {
+        //given
+        final UUID userId = randomUUID();
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try (RecordingLiveOrderBoard recordingBoard = new RecordingLiveOrderBoard(
+                new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl(), INCREMENTAL), this.recording)) {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(executorService.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        final Order order = new Order(userId, i % 2 == 0 ? BUY : SELL, Ethereum, BigDecimal.ONE, BigDecimal.valueOf(10 + i % 5));
+                        final long orderId = recordingBoard.placeOrder(order);
+                        if (i % 3 == 0) {
+                            recordingBoard.cancelOrder(order);
+                        } else if (i % 3 == 1) {
+                            recordingBoard.cancelOrders(orderId, orderId + 1);
+                        }
+                        if (i % 50 == 0) {
+                            recordingBoard.cancelAllOrders(userId);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        //when
+        final ReplayReport report = ReplayHarness.replay(
+                this.recording,
+                new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl(), INCREMENTAL),
+                ReplayPacing.FULL_SPEED);
+
+        //then
+        assertThat(report.getOutcomeMismatches(), is(0));
+        assertThat(report.getSummaryMismatches(), empty());
+    }
+
+    @Test
+    public void givenRecordedCancels_whenReplayedIntoABoardThatKeepsEveryOrder_thenTheirOutcomesShouldMismatch() throws IOException {
+        //given
+        final Order order = new Order(randomUUID(), SELL, Ethereum, BigDecimal.ONE, BigDecimal.TEN);
+        try (RecordingLiveOrderBoard recordingBoard = new RecordingLiveOrderBoard(
+                new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl(), INCREMENTAL), this.recording)) {
+            final long orderId = recordingBoard.placeOrder(new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, BigDecimal.ONE));
+            recordingBoard.placeOrder(order);
+            recordingBoard.cancelOrder(order);
+            recordingBoard.cancelOrders(orderId, orderId);
+        }
+
+        //when
+        final ReplayReport report = ReplayHarness.replay(
+                this.recording,
+                new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl(), INCREMENTAL) {
+                    @Override
+                    public void cancelOrder(final Order order) {
+                    }
+
+                    @Override
+                    public BatchResult cancelOrders(final long... orderIds) {
+                        return new BatchResult(orderIds.clone(), new String[]{"Unknown order id.", "Unknown order id."});
+                    }
+                },
+                ReplayPacing.FULL_SPEED);
+
+        //then
+        //the cancel by order, and the one id of the batch that was cancelled
+        assertThat(report.getOutcomeMismatches(), is(2));
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void givenFileThatIsNoRecording_whenReplayed_thenItShouldFail() throws IOException {
+        //given
+        Files.write(this.recording, new byte[]{1, 2, 3, 4, 5, 6});
+
+        //when
+        ReplayHarness.replay(
+                this.recording,
+                new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl(), INCREMENTAL),
+                ReplayPacing.FULL_SPEED);
+    }
+
+    @Test
+    public void givenSummariesAtTheDisplayDepthAndAnExplicitOne_whenReplayed_thenEachShouldBeReadAsRecorded() throws IOException {
+        //given
+        try (RecordingLiveOrderBoard recordingBoard = new RecordingLiveOrderBoard(
+                new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl(), INCREMENTAL), this.recording)) {
+            recordingBoard.getOrderSummary(Ethereum, SELL, 1);
+            recordingBoard.getOrderSummary(Ethereum, BUY);
+        }
+        final LiveOrderBoardImpl liveOrderBoard = spy(
+                new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl(), INCREMENTAL));
+
+        //when
+        ReplayHarness.replay(this.recording, liveOrderBoard, ReplayPacing.FULL_SPEED);
+
+        //then
+        verify(liveOrderBoard).getOrderSummary(Ethereum, SELL, 1);
+        verify(liveOrderBoard, never()).getOrderSummary(Ethereum, BUY, ReplayEvent.DISPLAY_DEPTH);
+        assertThat(ReplayLog.read(this.recording).get(0).depth, is(1));
+        assertThat(ReplayLog.read(this.recording).get(1).depth, is(ReplayEvent.DISPLAY_DEPTH));
+    }
+
+    @Test
+    public void givenRecordingThatCannotBeWritten_whenPlacingOrders_thenTheyShouldBePlacedAndCloseShouldFail() throws IOException {
+        //given
+        final Path full = Paths.get("/dev/full");
+        if (!Files.isWritable(full)) {
+            throw new SkipException("No device that fails every write.");
+        }
+        final LiveOrderBoardImpl liveOrderBoard =
+                new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl(), INCREMENTAL);
+        final RecordingLiveOrderBoard recordingBoard = new RecordingLiveOrderBoard(liveOrderBoard, full);
+
+        //when
+        final int orders = 5_000;
+        for (int i = 0; i < orders; i++) {
+            recordingBoard.placeOrder(new Order(randomUUID(), SELL, Ethereum, BigDecimal.ONE, BigDecimal.valueOf(10 + i % 7)));
+        }
+
+        //then
+        assertThat(liveOrderBoard.getOrderSummary(Ethereum, SELL).stream()
+                .map(OrderSummary::getQuantity)
+                .reduce(BigDecimal.ZERO, BigDecimal::add), comparesEqualTo(BigDecimal.valueOf(orders)));
+        assertThat(recordingBoard.getSkippedCalls(), is(greaterThan(0L)));
+        try {
+            recordingBoard.close();
+            fail("The failed write should be reported.");
+        } catch (IOException e) {
+            //expected
+        }
+        recordingBoard.close();
+    }
+
+    private void record(final LiveOrderBoardImpl liveOrderBoard) throws IOException {
+        final UUID userId = randomUUID();
+        try (RecordingLiveOrderBoard recordingBoard = new RecordingLiveOrderBoard(liveOrderBoard, this.recording)) {
+            final long orderId = recordingBoard.placeOrder(new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(1.5), new BigDecimal("10.50")));
+            recordingBoard.placeOrders(Arrays.asList(
+                    new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(2), new BigDecimal("10.5")),
+                    new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(-2), BigDecimal.valueOf(9)),
+                    null,
+                    new Order(userId, BUY, Litecoin, BigDecimal.valueOf(3), BigDecimal.valueOf(2))));
+            recordingBoard.placeOrder(new Order(userId, BUY, Ethereum, BigDecimal.valueOf(4), BigDecimal.valueOf(9)));
+            try {
+                recordingBoard.placeOrder(new Order(null, BUY, Ethereum, BigDecimal.valueOf(4), BigDecimal.valueOf(9)));
+            } catch (IllegalArgumentException e) {
+                //not recorded, the user id cannot be encoded
+            }
+            recordingBoard.getOrderSummary(SELL);
+            recordingBoard.cancelOrder(orderId);
+            recordingBoard.cancelOrder(orderId);
+            recordingBoard.cancelOrders(orderId, orderId + 1000);
+            recordingBoard.getOrderSummary(Ethereum, BUY);
+            recordingBoard.getOrderSummary(Ethereum, SELL, 5);
+            recordingBoard.cancelAllOrders(userId);
+            assertThat(recordingBoard.getSkippedCalls(), is(1L));
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.cryptoinc.marketplace.repository;
+
+import com.cryptoinc.marketplace.domain.Order;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.cryptoinc.marketplace.domain.CoinType.Ethereum;
+import static com.cryptoinc.marketplace.domain.OrderType.BUY;
+import static com.cryptoinc.marketplace.domain.OrderType.SELL;
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class CachingOrderRepositoryTest {
+
+    private RemoteOrderRepository remote;
+
+    @BeforeMethod
+    public void setUp() {
+        this.remote = new RemoteOrderRepository();
+    }
+
+    @Test
+    public void givenWritesThrough_whenReadingTwice_thenOrdersShouldBeFetchedOnce() {
+        //given
+        final CachingOrderRepository orderRepository = new CachingOrderRepository(this.remote, Duration.ZERO);
+        final Order resting = newOrder();
+        this.remote.saveOrder(resting);
+        orderRepository.getOrders();
+        final Order placed = newOrder();
+
+        //when
+        orderRepository.saveOrder(placed);
+        orderRepository.remove(resting);
+
+        //then
+        assertThat(orderRepository.getOrders(), contains(placed));
+        assertThat(this.remote.stored(), contains(placed));
+        assertThat(this.remote.fetches.get(), is(1));
+    }
+
+    @Test
+    public void givenOrdersChangedElsewhere_whenInvalidated_thenTheNextReadShouldFetchThem() {
+        //given
+        final CachingOrderRepository orderRepository = new CachingOrderRepository(this.remote, Duration.ZERO);
+        orderRepository.getOrders();
+        final Order order = newOrder();
+        this.remote.saveOrder(order);
+
+        //when
+        final Collection<Order> cached = orderRepository.getOrders();
+        orderRepository.invalidate();
+
+        //then
+        assertThat(cached, empty());
+        assertThat(orderRepository.getOrders(), contains(order));
+        assertThat(orderRepository.getFetches(), is(2L));
+    }
+
+    @Test
+    public void givenStaleCache_whenRead_thenItShouldBeRefreshed() throws InterruptedException {
+        //given
+        final CachingOrderRepository orderRepository = new CachingOrderRepository(this.remote, Duration.ofMillis(1));
+        orderRepository.getOrders();
+        final Order order = newOrder();
+        this.remote.saveOrder(order);
+
+        //when
+        Thread.sleep(5);
+
+        //then
+        assertThat(orderRepository.getOrders(), contains(order));
+    }
+
+    @Test
+    public void givenSlowFetch_whenReadConcurrently_thenReadersShouldShareIt() throws Exception {
+        //given
+        final CachingOrderRepository orderRepository = new CachingOrderRepository(this.remote, Duration.ZERO);
+        final Order order = newOrder();
+        this.remote.saveOrder(order);
+        this.remote.blockFetches();
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+        //when
+        final List<Future<Collection<Order>>> reads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            reads.add(executorService.submit(orderRepository::getOrders));
+        }
+        this.remote.fetchStarted.await();
+        Thread.sleep(50);
+        this.remote.releaseFetches();
+
+        //then
+        for (Future<Collection<Order>> read : reads) {
+            assertThat(read.get(5, TimeUnit.SECONDS), contains(order));
+        }
+        assertThat(this.remote.fetches.get(), is(1));
+        executorService.shutdown();
+    }
+
+    @Test
+    public void givenWriteDuringFetch_whenFetchCompletes_thenItShouldBeCachedOnce() throws Exception {
+        //given
+        final CachingOrderRepository orderRepository = new CachingOrderRepository(this.remote, Duration.ofNanos(1));
+        orderRepository.getOrders();
+        this.remote.blockFetches();
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        final Future<Collection<Order>> read = executorService.submit(orderRepository::getOrders);
+        this.remote.fetchStarted.await();
+        final Order order = newOrder();
+
+        //when
+        orderRepository.saveOrder(order);
+        this.remote.releaseFetches();
+
+        //then
+        assertThat(read.get(5, TimeUnit.SECONDS), contains(order));
+        assertThat(orderRepository.getDiscardedFetches(), is(0L));
+        executorService.shutdown();
+    }
+
+    @Test
+    public void givenConcurrentWrites_whenRefreshing_thenTheCacheShouldMatchTheRemote() throws Exception {
+        //given
+        final CachingOrderRepository orderRepository = new CachingOrderRepository(this.remote, Duration.ZERO);
+        orderRepository.getOrders();
+        final List<Order> elsewhere = new ArrayList<>();
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        final List<Future<?>> writers = new ArrayList<>();
+        for (int writer = 0; writer < 4; writer++) {
+            writers.add(executorService.submit(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    final Order order = newOrder();
+                    orderRepository.saveOrder(order);
+                    if (i % 2 == 0) {
+                        orderRepository.remove(order);
+                    }
+                }
+            }));
+        }
+
+        //when
+        for (int i = 0; i < 10; i++) {
+            final Order order = newOrder();
+            this.remote.saveOrder(order);
+            elsewhere.add(order);
+        }
+        int refreshes = 0;
+        while (refreshes < 5 || !writers.stream().allMatch(Future::isDone)) {
+            orderRepository.refresh();
+            refreshes++;
+        }
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        executorService.shutdown();
+
+        //then
+        final Collection<Order> cached = orderRepository.getOrders();
+        assertThat(cached, containsInAnyOrder(this.remote.stored().toArray()));
+        assertThat(cached.containsAll(elsewhere), is(true));
+        assertThat(cached.size(), is(4 * 1_000 + elsewhere.size()));
+        assertThat(orderRepository.getDiscardedFetches(), is(0L));
+    }
+
+    @Test
+    public void givenWritesBehind_whenFlushed_thenTheRemoteShouldReceiveThemInOrder() {
+        //given
+        final CachingOrderRepository orderRepository = new CachingOrderRepository(
+                this.remote, Duration.ZERO, CacheWriteMode.WRITE_BEHIND, 100, Duration.ofHours(1));
+        final Order first = newOrder();
+        final Order second = newOrder();
+        orderRepository.saveOrders(Arrays.asList(first, second));
+        final boolean removed = orderRepository.remove(first);
+        final boolean removedAgain = orderRepository.remove(first);
+
+        //when
+        final Collection<Order> beforeFlush = new ArrayList<>(this.remote.stored());
+        orderRepository.flush();
+
+        //then
+        assertThat(removed, is(true));
+        assertThat(removedAgain, is(false));
+        assertThat(orderRepository.getOrders(), contains(second));
+        assertThat(beforeFlush, empty());
+        assertThat(this.remote.stored(), contains(second));
+        assertThat(this.remote.saveCalls.get(), is(1));
+        assertThat(this.remote.removeCalls.get(), is(1));
+    }
+
+    @Test
+    public void givenFullBatch_whenWritingBehind_thenItShouldBeSentWithoutWaitingForTheInterval() throws InterruptedException {
+        //given
+        final CachingOrderRepository orderRepository = new CachingOrderRepository(
+                this.remote, Duration.ZERO, CacheWriteMode.WRITE_BEHIND, 4, Duration.ofHours(1));
+
+        //when
+        for (int i = 0; i < 4; i++) {
+            orderRepository.saveOrder(newOrder());
+        }
+
+        //then
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (this.remote.stored().size() < 4 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(this.remote.stored(), hasSize(4));
+        assertThat(orderRepository.getPendingWrites(), is(0));
+        orderRepository.close();
+    }
+
+    @Test
+    public void givenFailingRemote_whenFlushing_thenUnsentWritesShouldStayPending() {
+        //given
+        final CachingOrderRepository orderRepository = new CachingOrderRepository(
+                this.remote, Duration.ZERO, CacheWriteMode.WRITE_BEHIND, 100, Duration.ofHours(1));
+        orderRepository.saveOrder(newOrder());
+        this.remote.failWrites = true;
+
+        //when
+        try {
+            orderRepository.flush();
+        } catch (IllegalStateException e) {
+            //expected
+        }
+        this.remote.failWrites = false;
+
+        //then
+        assertThat(orderRepository.getPendingWrites(), is(1));
+        orderRepository.close();
+        assertThat(this.remote.stored(), hasSize(1));
+    }
+
+    private static Order newOrder() {
+        return new Order(randomUUID(), randomUUID().hashCode() % 2 == 0 ? BUY : SELL, Ethereum, BigDecimal.valueOf(1.5), BigDecimal.valueOf(13.6));
+    }
+
+    /**
+     * Stands in for a remote store: counts calls and can hold fetches until released.
+     */
+    private static final class RemoteOrderRepository extends InMemoryOrderRepository {
+
+        private final AtomicInteger fetches = new AtomicInteger();
+        private final AtomicInteger saveCalls = new AtomicInteger();
+        private final AtomicInteger removeCalls = new AtomicInteger();
+        private volatile CountDownLatch fetchStarted = new CountDownLatch(1);
+        private volatile CountDownLatch fetchReleased;
+        private volatile boolean failWrites;
+
+        void blockFetches() {
+            this.fetchStarted = new CountDownLatch(1);
+            this.fetchReleased = new CountDownLatch(1);
+        }
+
+        void releaseFetches() {
+            this.fetchReleased.countDown();
+        }
+
+        Collection<Order> stored() {
+            return super.getOrders();
+        }
+
+        @Override
+        public Collection<Order> getOrders() {
+            this.fetches.incrementAndGet();
+            this.fetchStarted.countDown();
+            final CountDownLatch released = this.fetchReleased;
+            if (released != null) {
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return super.getOrders();
+        }
+
+        @Override
+        public void saveOrders(final Collection<Order> orders) {
+            if (this.failWrites) {
+                throw new IllegalStateException("Remote down.");
+            }
+            this.saveCalls.incrementAndGet();
+            super.saveOrders(orders);
+        }
+
+        @Override
+        public int removeOrders(final Collection<Order> orders) {
+            this.removeCalls.incrementAndGet();
+            return super.removeOrders(orders);
+        }
+    }
+}
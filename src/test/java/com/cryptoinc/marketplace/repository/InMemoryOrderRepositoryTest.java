@@ -0,0 +1,189 @@
+package com.cryptoinc.marketplace.repository;
+
+import com.cryptoinc.marketplace.domain.Order;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static com.cryptoinc.marketplace.domain.CoinType.Ethereum;
+import static com.cryptoinc.marketplace.domain.CoinType.Litecoin;
+import static com.cryptoinc.marketplace.domain.OrderType.BUY;
+import static com.cryptoinc.marketplace.domain.OrderType.SELL;
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class InMemoryOrderRepositoryTest {
+
+    private static final int THREADS = 8;
+    private static final int ORDERS_PER_THREAD = 5_000;
+
+    private InMemoryOrderRepository orderRepository;
+
+    @BeforeMethod
+    public void setUp() {
+        this.orderRepository = new InMemoryOrderRepository();
+    }
+
+    @Test
+    public void givenIdenticalOrders_whenRemovingOne_thenTheOtherShouldStay() {
+        //given
+        final Order order = new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(350.1), BigDecimal.valueOf(13.6));
+        this.orderRepository.saveOrder(order);
+        this.orderRepository.saveOrder(order);
+
+        //when
+        final boolean removed = this.orderRepository.remove(order);
+
+        //then
+        assertThat(removed, is(true));
+        assertThat(this.orderRepository.getOrders(), contains(order));
+    }
+
+    @Test
+    public void givenUnknownOrder_whenRemoving_thenItShouldReportNothingRemoved() {
+        //given
+        this.orderRepository.saveOrder(new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(350.1), BigDecimal.valueOf(13.6)));
+
+        //when
+        final boolean removed = this.orderRepository.remove(
+                new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(350.1), BigDecimal.valueOf(13.6)));
+
+        //then
+        assertThat(removed, is(false));
+        assertThat(this.orderRepository.getOrders(), hasSize(1));
+    }
+
+    @Test
+    public void givenBatch_whenSavingAndRemovingOrders_thenAllShouldBeAppliedAtOnce() {
+        //given
+        final Order first = new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(350.1), BigDecimal.valueOf(13.6));
+        final Order second = new Order(randomUUID(), SELL, Litecoin, BigDecimal.valueOf(50.5), BigDecimal.valueOf(14));
+        final Order unknown = new Order(randomUUID(), SELL, Litecoin, BigDecimal.valueOf(1), BigDecimal.valueOf(14));
+        this.orderRepository.saveOrders(List.of(first, second, second));
+
+        //when
+        final int removed = this.orderRepository.removeOrders(List.of(second, unknown));
+
+        //then
+        assertThat(removed, is(1));
+        assertThat(this.orderRepository.getOrders(), containsInAnyOrder(first, second));
+    }
+
+    @Test
+    public void givenLargeBatchIntoEmptyRepository_whenRemovingEveryOrder_thenItShouldEndUpEmpty() {
+        //given
+        final List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            final Order order = new Order(new UUID(0, i % 2_500), BUY, Ethereum, BigDecimal.ONE, BigDecimal.valueOf(i % 7));
+            orders.add(order);
+        }
+        this.orderRepository.saveOrders(orders);
+
+        //when
+        final int removed = this.orderRepository.removeOrders(orders);
+
+        //then
+        assertThat(removed, is(5_000));
+        assertThat(this.orderRepository.getOrders(), is(empty()));
+    }
+
+    @Test
+    public void givenSnapshot_whenSavingMoreOrders_thenTheSnapshotShouldNotChange() {
+        //given
+        final Order order = new Order(randomUUID(), SELL, Litecoin, BigDecimal.valueOf(50.5), BigDecimal.valueOf(14));
+        this.orderRepository.saveOrder(order);
+        final Collection<Order> snapshot = this.orderRepository.getOrders();
+
+        //when
+        this.orderRepository.saveOrder(new Order(randomUUID(), SELL, Litecoin, BigDecimal.valueOf(1), BigDecimal.valueOf(14)));
+        this.orderRepository.remove(order);
+
+        //then
+        assertThat(snapshot, contains(order));
+        assertThat(this.orderRepository.getOrders(), hasSize(1));
+    }
+
+    @Test
+    public void givenConcurrentWritersAndReaders_whenSavingAndRemoving_thenEverySnapshotShouldBeConsistent() throws Exception {
+        //given
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final List<Future<List<Order>>> writers = new ArrayList<>();
+
+        //when
+        for (int thread = 0; thread < THREADS; thread++) {
+            writers.add(executor.submit(() -> {
+                final List<Order> kept = new ArrayList<>();
+                start.await();
+                for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                    final Order order = new Order(randomUUID(), i % 2 == 0 ? BUY : SELL, Ethereum,
+                                                  BigDecimal.valueOf(i % 100 + 1), BigDecimal.valueOf(i % 7 + 1));
+                    this.orderRepository.saveOrder(order);
+                    if (i % 3 == 0) {
+                        assertThat(this.orderRepository.remove(order), is(true));
+                    } else {
+                        kept.add(order);
+                    }
+                }
+                return kept;
+            }));
+        }
+        final Future<Integer> reader = executor.submit(() -> {
+            int inconsistentSnapshots = 0;
+            start.await();
+            while (writing.get()) {
+                final Collection<Order> snapshot = this.orderRepository.getOrders();
+                int iterated = 0;
+                for (Order ignored : snapshot) {
+                    iterated++;
+                }
+                if (iterated != snapshot.size()) {
+                    inconsistentSnapshots++;
+                }
+            }
+            return inconsistentSnapshots;
+        });
+        start.countDown();
+
+        final Set<Order> expected = new HashSet<>();
+        for (Future<List<Order>> writer : writers) {
+            expected.addAll(writer.get(1, TimeUnit.MINUTES));
+        }
+        writing.set(false);
+
+        //then
+        assertThat(reader.get(1, TimeUnit.MINUTES), is(0));
+        assertThat(this.orderRepository.getOrders(), hasSize(expected.size()));
+        assertThat(new HashSet<>(this.orderRepository.getOrders()), equalTo(expected));
+        executor.shutdown();
+    }
+
+    @Test
+    public void givenManyOrders_whenStreamingInParallel_thenEveryCopyShouldBeVisitedOnce() {
+        //given
+        final List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            orders.add(new Order(randomUUID(), i % 2 == 0 ? BUY : SELL, Ethereum, BigDecimal.ONE, BigDecimal.valueOf(i % 100 + 1)));
+        }
+        this.orderRepository.saveOrders(orders);
+        this.orderRepository.saveOrder(orders.get(0));
+
+        //when
+        final Map<Order, Long> copies = this.orderRepository.getOrders()
+                .parallelStream()
+                .collect(Collectors.groupingByConcurrent(order -> order, Collectors.counting()));
+
+        //then
+        assertThat(copies.size(), is(orders.size()));
+        assertThat(copies.get(orders.get(0)), is(2L));
+        assertThat(copies.values().stream().mapToLong(Long::longValue).sum(), is(100_001L));
+        assertThat(this.orderRepository.getOrders().spliterator().trySplit(), is(notNullValue()));
+    }
+}
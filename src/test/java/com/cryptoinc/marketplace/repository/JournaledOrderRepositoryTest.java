@@ -0,0 +1,179 @@
+package com.cryptoinc.marketplace.repository;
+
+import com.cryptoinc.marketplace.AggregationMode;
+import com.cryptoinc.marketplace.LiveOrderBoard;
+import com.cryptoinc.marketplace.LiveOrderBoardImpl;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderSummary;
+import com.cryptoinc.marketplace.journal.JournalDurability;
+import com.cryptoinc.marketplace.journal.OrderSnapshot;
+import com.cryptoinc.marketplace.metrics.HistogramBoardMetrics;
+import com.cryptoinc.marketplace.validators.OrderValidatorImpl;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static com.cryptoinc.marketplace.domain.CoinType.Ethereum;
+import static com.cryptoinc.marketplace.domain.OrderType.BUY;
+import static com.cryptoinc.marketplace.domain.OrderType.SELL;
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+
+public class JournaledOrderRepositoryTest {
+
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("journal");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(this.directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Test
+    public void givenSavedAndRemovedOrders_whenReopening_thenLiveOrdersShouldBeReplayed() throws IOException {
+        //given
+        final Order first = new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(350.1), BigDecimal.valueOf(13.6));
+        final Order second = new Order(randomUUID(), BUY, Ethereum, new BigDecimal("1.50"), BigDecimal.valueOf(14));
+        final Order third = new Order(randomUUID(), BUY, Ethereum, BigDecimal.TEN, BigDecimal.ONE);
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(this.directory)) {
+            repository.saveOrder(first);
+            repository.saveOrders(List.of(second, second, third));
+            repository.remove(third);
+            repository.removeOrders(List.of(second, third));
+        }
+
+        //when
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(this.directory)) {
+
+            //then
+            assertThat(repository.getOrders(), containsInAnyOrder(first, second));
+        }
+    }
+
+    @Test
+    public void givenSmallSegments_whenAppendingPastThem_thenRecordsShouldSpanSeveralSegments() throws IOException {
+        //given
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(
+                this.directory, 1024, JournalDurability.ASYNC, Duration.ofMillis(1))) {
+            for (int i = 0; i < 100; i++) {
+                repository.saveOrder(new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, BigDecimal.valueOf(i % 4 + 1)));
+            }
+        }
+
+        //when
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(
+                this.directory, 1024, JournalDurability.ASYNC, Duration.ofMillis(1))) {
+            final LiveOrderBoard liveOrderBoard = new LiveOrderBoardImpl(
+                    repository, new OrderValidatorImpl(), AggregationMode.INCREMENTAL);
+
+            //then
+            assertThat(listSegments().size() > 1, is(true));
+            assertThat(repository.getOrders().size(), is(100));
+            assertThat(liveOrderBoard.getOrderSummary(Ethereum, BUY).get(0),
+                       is(new OrderSummary(BigDecimal.valueOf(25), BigDecimal.valueOf(4))));
+        }
+    }
+
+    @Test
+    public void givenSnapshot_whenReopening_thenOnlyTheJournalTailShouldBeReplayed() throws IOException {
+        //given
+        final Order kept = new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(2), BigDecimal.valueOf(13.6));
+        final Order cancelled = new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(3), BigDecimal.valueOf(13.6));
+        final Order late = new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, BigDecimal.TEN);
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(
+                this.directory, 1024, JournalDurability.ASYNC, Duration.ofMillis(1))) {
+            for (int i = 0; i < 50; i++) {
+                final Order order = new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, BigDecimal.ONE);
+                repository.saveOrder(order);
+                repository.remove(order);
+            }
+            repository.saveOrders(List.of(kept, cancelled));
+            repository.snapshot();
+            repository.remove(cancelled);
+            repository.saveOrder(late);
+        }
+
+        //when
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(
+                this.directory, 1024, JournalDurability.ASYNC, Duration.ofMillis(1))) {
+
+            //then
+            assertThat(repository.getOrders(), containsInAnyOrder(kept, late));
+            assertThat(repository.getSnapshotOrders(), is(2));
+            assertThat(repository.getReplayedRecords(), is(2L));
+            assertThat(listSegments().size() <= 3, is(true));
+            assertThat(OrderSnapshot.loadLatest(this.directory).orElseThrow().getOrders(), containsInAnyOrder(kept, cancelled));
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void givenDamagedNewestSnapshot_whenReopening_thenRecoveryShouldFail() throws IOException {
+        //given
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(this.directory)) {
+            repository.saveOrder(new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(2), BigDecimal.valueOf(13.6)));
+            repository.snapshot();
+            repository.saveOrder(new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, BigDecimal.TEN));
+            repository.snapshot();
+        }
+        final Path snapshot = listSegments().stream()
+                .filter(file -> file.getFileName().toString().startsWith("snapshot-"))
+                .max(Comparator.naturalOrder())
+                .orElseThrow();
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+
+        //when
+        new JournaledOrderRepository(this.directory).close();
+    }
+
+    @Test
+    public void givenRecoveredRepository_whenRegisteringGauges_thenRecoveryShouldBeReported() throws IOException {
+        //given
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(this.directory)) {
+            repository.saveOrder(new Order(randomUUID(), SELL, Ethereum, BigDecimal.valueOf(2), BigDecimal.valueOf(13.6)));
+            repository.snapshot();
+            repository.saveOrder(new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, BigDecimal.TEN));
+        }
+        final HistogramBoardMetrics boardMetrics = new HistogramBoardMetrics();
+
+        //when
+        try (JournaledOrderRepository repository = new JournaledOrderRepository(this.directory)) {
+            repository.registerGauges(boardMetrics);
+
+            //then
+            final Map<String, Long> gauges = boardMetrics.readGauges();
+            assertThat(gauges.get("recoveryMicros"), is(TimeUnit.NANOSECONDS.toMicros(repository.getRecoveryTime().toNanos())));
+            assertThat(gauges.get("snapshotOrders"), is(1L));
+            assertThat(gauges.get("replayedRecords"), is(1L));
+            assertThat(gauges.get("failedSnapshots"), is(0L));
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(this.directory)) {
+            return files.collect(java.util.stream.Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.cryptoinc.marketplace.repository;
+
+import com.cryptoinc.marketplace.domain.FixedPointScales;
+import com.cryptoinc.marketplace.domain.Order;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.cryptoinc.marketplace.domain.CoinType.Ethereum;
+import static com.cryptoinc.marketplace.domain.CoinType.Litecoin;
+import static com.cryptoinc.marketplace.domain.OrderType.BUY;
+import static com.cryptoinc.marketplace.domain.OrderType.SELL;
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class OffHeapOrderRepositoryTest {
+
+    private OffHeapOrderRepository orderRepository;
+
+    @BeforeMethod
+    public void setUp() {
+        this.orderRepository = new OffHeapOrderRepository(FixedPointScales.defaultScales(), 4);
+    }
+
+    @Test
+    public void givenSavedOrders_whenGettingOrders_thenTheyShouldReadBackWithoutTrailingZeros() {
+        //given
+        final UUID userId = randomUUID();
+        this.orderRepository.saveOrder(new Order(userId, SELL, Litecoin, new BigDecimal("1.50"), new BigDecimal("13.60")));
+
+        //when
+        final List<Order> orders = new ArrayList<>(this.orderRepository.getOrders());
+
+        //then
+        assertThat(orders, contains(new Order(userId, SELL, Litecoin, new BigDecimal("1.5"), new BigDecimal("13.6"))));
+    }
+
+    @Test
+    public void givenIdenticalOrders_whenRemovingOne_thenTheOtherShouldStayAndItsSlotBeReused() {
+        //given
+        final Order order = new Order(randomUUID(), BUY, Ethereum, BigDecimal.valueOf(350.1), BigDecimal.valueOf(13.6));
+        this.orderRepository.saveOrders(List.of(order, order));
+
+        //when
+        final boolean removed = this.orderRepository.remove(new Order(
+                order.getUserId(), BUY, Ethereum, new BigDecimal("350.10"), BigDecimal.valueOf(13.6)));
+        this.orderRepository.saveOrder(order);
+
+        //then
+        assertThat(removed, is(true));
+        assertThat(this.orderRepository.size(), is(2));
+        assertThat(this.orderRepository.remove(new Order(order.getUserId(), SELL, Ethereum, order.getQuantity(), order.getPrice())),
+                   is(false));
+    }
+
+    @Test
+    public void givenManyOrders_whenRemovingThemAll_thenTheIndexShouldGrowAndEndUpEmpty() {
+        //given
+        final List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            orders.add(new Order(new UUID(0, i % 1_000), i % 2 == 0 ? BUY : SELL, Ethereum, BigDecimal.ONE, BigDecimal.valueOf(i)));
+        }
+        this.orderRepository.saveOrders(orders);
+
+        //when
+        final int removed = this.orderRepository.removeOrders(orders);
+
+        //then
+        assertThat(removed, is(10_000));
+        assertThat(this.orderRepository.getOrders(), is(empty()));
+        assertThat(this.orderRepository.getOffHeapBytes(), is(greaterThan(0L)));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Bad price.")
+    public void givenPriceBeyondCoinScale_whenSaving_thenItShouldBeRejected() {
+        this.orderRepository.saveOrder(new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, new BigDecimal("0.000000001")));
+    }
+
+    @Test
+    public void givenPriceBeyondCoinScale_whenRemoving_thenItShouldNotBeFound() {
+        //given
+        final Order stored = new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, BigDecimal.TEN);
+        final Order unstorable = new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, new BigDecimal("0.000000001"));
+        this.orderRepository.saveOrder(stored);
+
+        //when
+        final boolean removed = this.orderRepository.remove(unstorable);
+        final int removedInBatch = this.orderRepository.removeOrders(List.of(unstorable, stored));
+
+        //then
+        assertThat(removed, is(false));
+        assertThat(removedInBatch, is(1));
+        assertThat(this.orderRepository.getOrders(), is(empty()));
+    }
+}
@@ -0,0 +1,59 @@
+package com.cryptoinc.marketplace.sequencer;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class RingBufferTest {
+
+    @Test
+    public void givenOutOfOrderPublishes_whenGettingHighestPublished_thenItShouldStopAtTheFirstGap() {
+        //given
+        final RingBuffer<long[]> ringBuffer = new RingBuffer<>(() -> new long[1], 4, new BusySpinWaitStrategy());
+        final long first = ringBuffer.next();
+        final long second = ringBuffer.next();
+        final long third = ringBuffer.next();
+
+        //when
+        ringBuffer.publish(first);
+        ringBuffer.publish(third);
+
+        //then
+        assertThat(ringBuffer.getHighestPublished(first), is(first));
+        ringBuffer.publish(second);
+        assertThat(ringBuffer.getHighestPublished(first), is(third));
+    }
+
+    @Test
+    public void givenWrappingProducer_whenProcessing_thenEveryEventShouldBeHandledInOrder() throws InterruptedException {
+        //given
+        final RingBuffer<long[]> ringBuffer = new RingBuffer<>(() -> new long[1], 2, new BlockingWaitStrategy());
+        final List<Long> handled = new ArrayList<>();
+        final BatchEventProcessor<long[]> processor = new BatchEventProcessor<>(
+                ringBuffer, (event, sequence, endOfBatch) -> handled.add(event[0]));
+        final Thread thread = new Thread(processor);
+        thread.start();
+
+        //when
+        for (long value = 1; value <= 5; value++) {
+            final long sequence = ringBuffer.next();
+            ringBuffer.get(sequence)[0] = value;
+            ringBuffer.publish(sequence);
+        }
+        processor.halt();
+        thread.join();
+
+        //then
+        assertThat(handled, contains(1L, 2L, 3L, 4L, 5L));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void givenSizeNotPowerOfTwo_whenCreating_thenItShouldBeRejected() {
+        new RingBuffer<>(Object::new, 3, new BusySpinWaitStrategy());
+    }
+}
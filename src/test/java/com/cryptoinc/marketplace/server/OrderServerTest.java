@@ -0,0 +1,157 @@
+package com.cryptoinc.marketplace.server;
+
+import com.cryptoinc.marketplace.AggregationMode;
+import com.cryptoinc.marketplace.LiveOrderBoardImpl;
+import com.cryptoinc.marketplace.domain.Order;
+import com.cryptoinc.marketplace.domain.OrderSummary;
+import com.cryptoinc.marketplace.repository.InMemoryOrderRepository;
+import com.cryptoinc.marketplace.validators.OrderValidatorImpl;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.UUID;
+
+import static com.cryptoinc.marketplace.domain.CoinType.Ethereum;
+import static com.cryptoinc.marketplace.domain.OrderType.BUY;
+import static com.cryptoinc.marketplace.domain.OrderType.SELL;
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class OrderServerTest {
+
+    private OrderServer orderServer;
+    private OrderClient orderClient;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        this.orderServer = new OrderServer(
+                new LiveOrderBoardImpl(new InMemoryOrderRepository(), new OrderValidatorImpl(), AggregationMode.INCREMENTAL),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                2);
+        this.orderClient = new OrderClient(this.orderServer.getAddress());
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        this.orderClient.close();
+        this.orderServer.close();
+    }
+
+    @Test
+    public void givenPipelinedRequests_whenFlushedAtOnce_thenResponsesShouldComeBackInOrder() throws IOException {
+        //given
+        final UUID userId = randomUUID();
+        this.orderClient.sendPlaceOrder(1, new Order(userId, SELL, Ethereum, BigDecimal.valueOf(1.5), BigDecimal.valueOf(10)));
+        this.orderClient.sendPlaceOrder(2, new Order(userId, SELL, Ethereum, BigDecimal.valueOf(2), new BigDecimal("10.50")));
+        this.orderClient.sendGetOrderSummary(3, Ethereum, SELL, 10);
+
+        //when
+        this.orderClient.flush();
+
+        //then
+        final OrderClient.Response first = this.orderClient.receive();
+        final OrderClient.Response second = this.orderClient.receive();
+        final OrderClient.Response summary = this.orderClient.receive();
+        assertThat(first.getCorrelationId(), is(1L));
+        assertThat(second.getCorrelationId(), is(2L));
+        assertThat(summary.getOrderSummary(), contains(
+                new OrderSummary(BigDecimal.valueOf(1.5), BigDecimal.valueOf(10)),
+                new OrderSummary(BigDecimal.valueOf(2), BigDecimal.valueOf(10.5))));
+
+        this.orderClient.sendCancelOrder(4, first.getOrderId());
+        this.orderClient.sendCancelAllOrders(5, userId);
+        this.orderClient.sendGetOrderSummary(6, Ethereum, SELL, 10);
+        this.orderClient.flush();
+        assertThat(this.orderClient.receive().isCancelled(), is(true));
+        assertThat(this.orderClient.receive().getCancelledCount(), is(1));
+        assertThat(this.orderClient.receive().getOrderSummary(), is(empty()));
+    }
+
+    @Test
+    public void givenInvalidOrder_whenPlacing_thenItShouldBeRejectedWithTheReason() throws IOException {
+        //when
+        this.orderClient.sendPlaceOrder(7, new Order(randomUUID(), BUY, Ethereum, BigDecimal.ZERO, BigDecimal.TEN));
+        this.orderClient.sendGetOrderSummary(8, Ethereum, BUY, BoardProtocol.MAX_DEPTH + 1);
+        this.orderClient.flush();
+
+        //then
+        final OrderClient.Response rejected = this.orderClient.receive();
+        assertThat(rejected.isRejected(), is(true));
+        assertThat(rejected.getCorrelationId(), is(7L));
+        assertThat(rejected.getReason(), is("Bad quantity."));
+        assertThat(this.orderClient.receive().getReason(), is("Bad depth."));
+    }
+
+    @Test
+    public void givenRejectionReasonLongerThanAFrame_whenPlacing_thenItShouldBeCutToFit() throws IOException {
+        //given
+        final String reason = "\u20ac".repeat(BoardProtocol.MAX_FRAME_BYTES);
+        try (OrderServer orderServer = new OrderServer(
+                new LiveOrderBoardImpl(new InMemoryOrderRepository(), order -> {
+                    throw new IllegalArgumentException(reason);
+                }, AggregationMode.INCREMENTAL),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                1);
+             OrderClient orderClient = new OrderClient(orderServer.getAddress())) {
+
+            //when
+            orderClient.sendPlaceOrder(10, new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, BigDecimal.TEN));
+            orderClient.sendGetOrderSummary(11, Ethereum, BUY, 10);
+            orderClient.flush();
+
+            //then
+            final String rejection = orderClient.receive().getReason();
+            assertThat(rejection.length(), is(BoardProtocol.MAX_REASON_BYTES / 3));
+            assertThat(reason.startsWith(rejection), is(true));
+            assertThat(orderClient.receive().getCorrelationId(), is(11L));
+        }
+    }
+
+    @Test
+    public void givenMalformedBody_whenSent_thenItShouldFailAndTheConnectionShouldStayUsable() throws IOException {
+        //given
+        try (SocketChannel channel = SocketChannel.open(this.orderServer.getAddress())) {
+            final ByteBuffer request = ByteBuffer.allocate(64);
+            final int frame = BoardProtocol.beginRequest(request, BoardProtocol.GET_ORDER_SUMMARY, 9);
+            request.put((byte) 42).put((byte) 0).putInt(10);
+            BoardProtocol.endFrame(request, frame);
+            request.flip();
+
+            //when
+            channel.write(request);
+
+            //then
+            final ByteBuffer response = ByteBuffer.allocate(64);
+            while (response.position() < BoardProtocol.LENGTH_BYTES + BoardProtocol.RESPONSE_HEADER_BYTES) {
+                channel.read(response);
+            }
+            assertThat(response.get(BoardProtocol.LENGTH_BYTES + 1), is(BoardProtocol.FAILED));
+        }
+
+        this.orderClient.sendGetOrderSummary(10, Ethereum, BUY, 1);
+        this.orderClient.flush();
+        assertThat(this.orderClient.receive().isOk(), is(true));
+    }
+
+    @Test(expectedExceptions = EOFException.class)
+    public void givenBadFrameLength_whenSent_thenTheConnectionShouldBeClosed() throws IOException {
+        try (SocketChannel channel = SocketChannel.open(this.orderServer.getAddress())) {
+            channel.write(ByteBuffer.allocate(16).putInt(Integer.MAX_VALUE).flip());
+            final ByteBuffer response = ByteBuffer.allocate(16);
+            if (channel.read(response) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.cryptoinc.marketplace.validators;
+
+import com.cryptoinc.marketplace.domain.Order;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.cryptoinc.marketplace.domain.CoinType.Ethereum;
+import static com.cryptoinc.marketplace.domain.OrderType.BUY;
+import static java.util.UUID.randomUUID;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class ValidationPipelineTest {
+
+    @Test
+    public void givenDefaultPipeline_whenChecking_thenItShouldRejectLikeTheThrowingValidator() {
+        //given
+        final ValidationPipeline pipeline = ValidationPipeline.defaults();
+
+        //then
+        assertThat(pipeline.check(new Order(null, BUY, Ethereum, BigDecimal.ONE, BigDecimal.ONE)), is(ValidationResult.BAD_USER_ID));
+        assertThat(pipeline.check(new Order(randomUUID(), BUY, Ethereum, BigDecimal.ZERO, BigDecimal.ONE)), is(ValidationResult.BAD_QUANTITY));
+        assertThat(pipeline.check(new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, null)), is(ValidationResult.BAD_PRICE));
+        assertThat(pipeline.check(new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, BigDecimal.ONE)), is(ValidationResult.VALID));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Bad price.")
+    public void givenRejectedOrder_whenValidating_thenItShouldThrowWithTheResultMessage() {
+        ValidationPipeline.defaults().validate(new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, BigDecimal.valueOf(-1)));
+    }
+
+    @Test
+    public void givenRulesOfDifferentCost_whenChecking_thenCheapestShouldRunFirstAndShortCircuit() {
+        //given
+        final List<String> calls = new ArrayList<>();
+        final ValidationPipeline pipeline = new ValidationPipeline(List.of(
+                rule("expensive", 10, ValidationResult.VALID, calls),
+                rule("cheap", 1, ValidationResult.BAD_QUANTITY, calls)));
+
+        //when
+        final ValidationResult result = pipeline.check(new Order(randomUUID(), BUY, Ethereum, BigDecimal.ONE, BigDecimal.ONE));
+
+        //then
+        assertThat(result, is(ValidationResult.BAD_QUANTITY));
+        assertThat(calls, contains("cheap"));
+    }
+
+    @Test
+    public void givenBatch_whenValidatingAll_thenEveryUserShouldBeLoadedOnceAndRejectionsReported() {
+        //given
+        final UUID blockedUser = randomUUID();
+        final UUID limitedUser = randomUUID();
+        final AtomicInteger loads = new AtomicInteger();
+        final UserStateCache cache = new UserStateCache(16, userId -> {
+            loads.incrementAndGet();
+            return userId.equals(blockedUser) ? UserState.blocked() : UserState.limitedTo(BigDecimal.TEN);
+        });
+        final ValidationPipeline pipeline = new ValidationPipeline(List.of(
+                ValidationRules.userState(cache), ValidationRules.positiveQuantity()));
+        final Order[] orders = {
+                new Order(limitedUser, BUY, Ethereum, BigDecimal.ONE, BigDecimal.ONE),
+                new Order(blockedUser, BUY, Ethereum, BigDecimal.ONE, BigDecimal.ONE),
+                new Order(limitedUser, BUY, Ethereum, BigDecimal.valueOf(11), BigDecimal.ONE),
+                new Order(limitedUser, BUY, Ethereum, BigDecimal.ZERO, BigDecimal.ONE),
+                null
+        };
+        final String[] rejections = {null, null, null, null, "Order is null."};
+
+        //when
+        pipeline.validateAll(orders, rejections);
+
+        //then
+        assertThat(rejections, arrayContaining(null, "User is blocked.", "Quantity over user limit.", "Bad quantity.", "Order is null."));
+        assertThat(loads.get(), is(2));
+    }
+
+    @Test
+    public void givenFullCache_whenLoadingAnotherUser_thenTheLeastRecentlyUsedShouldBeEvicted() {
+        //given
+        final AtomicInteger loads = new AtomicInteger();
+        final UserStateCache cache = new UserStateCache(2, userId -> {
+            loads.incrementAndGet();
+            return UserState.UNRESTRICTED;
+        });
+        final UUID first = randomUUID();
+        final UUID second = randomUUID();
+        cache.get(first);
+        cache.get(second);
+        cache.get(first);
+
+        //when
+        cache.get(randomUUID());
+
+        //then
+        assertThat(cache.size(), is(2));
+        cache.get(first);
+        assertThat(loads.get(), is(3));
+        cache.get(second);
+        assertThat(loads.get(), is(4));
+    }
+
+    @Test
+    public void givenInvalidationDuringLoad_whenTheLoadCompletes_thenItsStateShouldNotBeCached() throws Exception {
+        //given
+        final UUID userId = randomUUID();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch invalidated = new CountDownLatch(1);
+        final AtomicInteger loads = new AtomicInteger();
+        final UserStateCache cache = new UserStateCache(16, user -> {
+            if (loads.incrementAndGet() > 1) {
+                return UserState.blocked();
+            }
+            loading.countDown();
+            try {
+                invalidated.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return UserState.UNRESTRICTED;
+        });
+        final CompletableFuture<UserState> staleLoad = CompletableFuture.supplyAsync(() -> cache.get(userId));
+        loading.await();
+
+        //when
+        cache.invalidate(userId);
+        invalidated.countDown();
+        staleLoad.get(5, TimeUnit.SECONDS);
+
+        //then
+        assertThat(cache.get(userId).isBlocked(), is(true));
+        assertThat(loads.get(), is(2));
+    }
+
+    private static ValidationRule rule(final String name, final int cost, final ValidationResult result, final List<String> calls) {
+        return new ValidationRule() {
+            @Override
+            public ValidationResult check(final Order order) {
+                calls.add(name);
+                return result;
+            }
+
+            @Override
+            public int getCost() {
+                return cost;
+            }
+        };
+    }
+}